@@ -0,0 +1,102 @@
+package org.students.simplebitcoinnode.benchmark;
+
+import org.students.simplebitcoinnode.entity.Block;
+import org.students.simplebitcoinnode.entity.MerkleTreeNode;
+import org.students.simplebitcoinnode.entity.MinerPublicKey;
+import org.students.simplebitcoinnode.entity.Transaction;
+import org.students.simplebitcoinnode.entity.TransactionOutput;
+import org.students.simplebitcoinnode.util.Encoding;
+import org.students.simplebitcoinnode.util.Sha256Hash;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Deterministic fixtures shared by all benchmarks, every generator is seeded so that runs are reproducible
+ */
+public class BenchmarkData {
+    public static final long SEED = 0x5EEDL;
+    public static final String PUBLIC_KEY = "PZ8Tyr4Nx8MHsRAGMpZmZ6TWY63dXWSCxtEZTC9qqAWU95UpXARRnKYMb35cEDFjPVuBfffRRdKWe7BMRsmimYh2sqHvYekcQkbZbhKhSqqyfW4rLJXCstNP";
+    public static final LocalDateTime TIMESTAMP = LocalDateTime.parse("2024-05-22T23:00:40");
+
+    /**
+     * Builds a block with given amount of miners and random previous and Merkle root hashes
+     * @param minerCount specifies the amount of miners in the block
+     * @param headerVersion specifies the header version of the block
+     * @return Block object
+     */
+    public static Block block(int minerCount, int headerVersion) {
+        Random random = new Random(SEED);
+        List<MinerPublicKey> miners = new ArrayList<>();
+        for (int i = 0; i < minerCount; i++)
+            miners.add(new MinerPublicKey(null, PUBLIC_KEY));
+
+        return Block.builder()
+                .previousHash(randomHash(random))
+                .merkleTree(MerkleTreeNode.builder().hash(randomHash(random)).build())
+                .miners(miners)
+                .blockAssemblyTimestamp(TIMESTAMP)
+                .nonce(BigInteger.ZERO)
+                .headerVersion(headerVersion)
+                .build();
+    }
+
+    /**
+     * Builds a list of transactions with random hashes, signatures and amounts
+     * @param count specifies the amount of transactions
+     * @param inputCount specifies the amount of inputs and outputs per transaction
+     * @return list of Transaction objects
+     */
+    public static List<Transaction> transactions(int count, int inputCount) {
+        Random random = new Random(SEED);
+        List<Transaction> transactions = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            List<TransactionOutput> inputs = new ArrayList<>();
+            List<TransactionOutput> outputs = new ArrayList<>();
+            for (int j = 0; j < inputCount; j++) {
+                inputs.add(TransactionOutput.builder()
+                        .signature(randomHex(random, 72))
+                        .amount(BigDecimal.valueOf(random.nextInt(1_000_000), 4))
+                        .receiverPublicKey(PUBLIC_KEY)
+                        .build());
+                outputs.add(TransactionOutput.builder()
+                        .amount(BigDecimal.valueOf(random.nextInt(1_000_000), 4))
+                        .receiverPublicKey(PUBLIC_KEY)
+                        .build());
+            }
+
+            transactions.add(Transaction.builder()
+                    .transactionHash(randomHash(random))
+                    .inputs(inputs)
+                    .outputs(outputs)
+                    .senderPublicKey(PUBLIC_KEY)
+                    .timestamp(TIMESTAMP)
+                    .build());
+        }
+        return transactions;
+    }
+
+    /**
+     * Generates random bytes
+     * @param random specifies the seeded random generator
+     * @param length specifies the amount of bytes to generate
+     * @return byte array of random bytes
+     */
+    public static byte[] randomBytes(Random random, int length) {
+        byte[] bytes = new byte[length];
+        random.nextBytes(bytes);
+        return bytes;
+    }
+
+    private static String randomHex(Random random, int length) {
+        return Encoding.toHexString(randomBytes(random, length));
+    }
+
+    private static Sha256Hash randomHash(Random random) {
+        return Sha256Hash.wrap(randomBytes(random, Sha256Hash.LENGTH));
+    }
+}
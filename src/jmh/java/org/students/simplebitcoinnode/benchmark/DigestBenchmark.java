@@ -0,0 +1,58 @@
+package org.students.simplebitcoinnode.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.students.simplebitcoinnode.entity.Block;
+import org.students.simplebitcoinnode.exceptions.encoding.InvalidEncodedStringException;
+import org.students.simplebitcoinnode.exceptions.encoding.SerializationException;
+import org.students.simplebitcoinnode.service.AsymmetricCryptographyService;
+import org.students.simplebitcoinnode.service.impl.ECDSAWithSHA256CryptographicService;
+import org.students.simplebitcoinnode.util.BlockHeaderCodec;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares hashing of serialized objects against hashing of raw byte arrays of equivalent content
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DigestBenchmark {
+    private final AsymmetricCryptographyService asymmetricCryptographyService = new ECDSAWithSHA256CryptographicService();
+    private Block block;
+    private byte[] header;
+    private byte[] merkleNodeChildren;
+
+    @Setup
+    public void setup() throws InvalidEncodedStringException {
+        block = BenchmarkData.block(3, BlockHeaderCodec.VERSION_FIXED_WIDTH);
+        header = BlockHeaderCodec.encode(block);
+        merkleNodeChildren = BenchmarkData.randomBytes(new Random(BenchmarkData.SEED), 2 * BlockHeaderCodec.HASH_LENGTH);
+    }
+
+    @Benchmark
+    public byte[] digestObjectBlock() throws SerializationException {
+        return asymmetricCryptographyService.digestObject(block);
+    }
+
+    @Benchmark
+    public byte[] digestBytesBlockHeader() {
+        return asymmetricCryptographyService.digestBytes(header);
+    }
+
+    /**
+     * Merkle tree parent hashing, which currently serializes the concatenated child hashes as a byte array object
+     */
+    @Benchmark
+    public byte[] digestObjectMerkleNode() throws SerializationException {
+        return asymmetricCryptographyService.digestObject(merkleNodeChildren);
+    }
+
+    @Benchmark
+    public byte[] digestBytesMerkleNode() {
+        return asymmetricCryptographyService.digestBytes(merkleNodeChildren);
+    }
+}
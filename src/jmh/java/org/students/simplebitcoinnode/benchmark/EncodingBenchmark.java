@@ -0,0 +1,64 @@
+package org.students.simplebitcoinnode.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.students.simplebitcoinnode.exceptions.encoding.InvalidEncodedStringException;
+import org.students.simplebitcoinnode.util.Encoding;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Base58 public key and hexadecimal hash encoding
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EncodingBenchmark {
+    private byte[] publicKey;
+    private String encodedPublicKey;
+    private byte[] hash;
+    private String hexHash;
+    private final byte[] decodedHash = new byte[32];
+
+    @Setup
+    public void setup() throws InvalidEncodedStringException {
+        encodedPublicKey = BenchmarkData.PUBLIC_KEY;
+        publicKey = Encoding.base58Decode(encodedPublicKey);
+        hash = BenchmarkData.randomBytes(new Random(BenchmarkData.SEED), 32);
+        hexHash = Encoding.toHexString(hash);
+    }
+
+    @Benchmark
+    public String base58Encode() {
+        return Encoding.base58Encode(publicKey);
+    }
+
+    @Benchmark
+    public byte[] base58Decode() throws InvalidEncodedStringException {
+        return Encoding.base58Decode(encodedPublicKey);
+    }
+
+    @Benchmark
+    public byte[] cachedPubKeyDecoding() throws InvalidEncodedStringException {
+        return Encoding.defaultPubKeyDecoding(encodedPublicKey);
+    }
+
+    @Benchmark
+    public String toHexString() {
+        return Encoding.toHexString(hash);
+    }
+
+    @Benchmark
+    public byte[] hexStringToBytes() throws InvalidEncodedStringException {
+        return Encoding.hexStringToBytes(hexHash);
+    }
+
+    @Benchmark
+    public byte[] hexStringToExistingBytes() throws InvalidEncodedStringException {
+        Encoding.hexStringToBytes(hexHash, decodedHash, 0);
+        return decodedHash;
+    }
+}
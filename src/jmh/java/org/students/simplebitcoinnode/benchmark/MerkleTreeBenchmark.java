@@ -0,0 +1,55 @@
+package org.students.simplebitcoinnode.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.students.simplebitcoinnode.entity.MerkleTreeNode;
+import org.students.simplebitcoinnode.entity.Transaction;
+import org.students.simplebitcoinnode.exceptions.encoding.InvalidEncodedStringException;
+import org.students.simplebitcoinnode.repository.MerkleTreeLevelsRepository;
+import org.students.simplebitcoinnode.service.BlockBuilderService;
+import org.students.simplebitcoinnode.service.impl.BlockBuilderServiceImpl;
+import org.students.simplebitcoinnode.service.impl.ECDSAWithSHA256CryptographicService;
+import org.students.simplebitcoinnode.util.MerkleTreeEngine;
+import org.students.simplebitcoinnode.util.Sha256Hash;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.Mockito.mock;
+
+/**
+ * Merkle tree construction time for blocks of various sizes
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MerkleTreeBenchmark {
+    @Param({"128", "1000", "10000", "100000"})
+    private int transactionCount;
+
+    // 0 - legacy, 1 - duplicate last, 2 - promote last (see MerkleTreeEngine)
+    @Param({"0", "1"})
+    private int layoutVersion;
+
+    private final BlockBuilderService blockBuilderService = new BlockBuilderServiceImpl(new ECDSAWithSHA256CryptographicService(), mock(MerkleTreeLevelsRepository.class));
+    private List<Transaction> transactions;
+    private List<Sha256Hash> leafHashes;
+
+    @Setup
+    public void setup() {
+        transactions = BenchmarkData.transactions(transactionCount, 1);
+        leafHashes = transactions.stream().map(Transaction::getTransactionHash).toList();
+    }
+
+    @Benchmark
+    public MerkleTreeNode createMerkleTreeRoot() throws InvalidEncodedStringException {
+        return blockBuilderService.createMerkleTreeRoot(transactions, layoutVersion);
+    }
+
+    @Benchmark
+    public Sha256Hash merkleRootWithoutEntities() {
+        return MerkleTreeEngine.build(leafHashes, layoutVersion).getRoot();
+    }
+}
@@ -0,0 +1,76 @@
+package org.students.simplebitcoinnode.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.students.simplebitcoinnode.entity.Block;
+import org.students.simplebitcoinnode.event.listener.MineWorker;
+import org.students.simplebitcoinnode.event.listener.NonceRangeDispenser;
+import org.students.simplebitcoinnode.exceptions.encoding.InvalidEncodedStringException;
+import org.students.simplebitcoinnode.exceptions.encoding.SerializationException;
+import org.students.simplebitcoinnode.service.AsymmetricCryptographyService;
+import org.students.simplebitcoinnode.service.impl.ECDSAWithSHA256CryptographicService;
+import org.students.simplebitcoinnode.util.NonceSearchEngine;
+
+import java.math.BigInteger;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Single-threaded mining throughput, scores of the per-hash benchmarks are hashes per second
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MiningBenchmark {
+    private static final int NONCES_PER_RUN = 1 << 16;
+
+    // zero bit condition of 64 bits is never expected to be satisfied, so that every nonce gets hashed
+    private static final long ZERO_BIT_CONDITION = 64;
+
+    @Param({"1", "12"})
+    private int minerCount;
+
+    @Param({"0", "1"})
+    private int headerVersion;
+
+    private final AsymmetricCryptographyService asymmetricCryptographyService = new ECDSAWithSHA256CryptographicService();
+    private Block block;
+    private NonceSearchEngine engine;
+    private long nonce;
+
+    @Setup
+    public void setup() throws InvalidEncodedStringException {
+        block = BenchmarkData.block(minerCount, headerVersion);
+        engine = new NonceSearchEngine(block, ZERO_BIT_CONDITION);
+        nonce = 0;
+    }
+
+    @Benchmark
+    public boolean nonceSearchEngine() {
+        return engine.test(nonce++);
+    }
+
+    /**
+     * Baseline that serializes and hashes the whole block for every nonce, as mining was originally implemented
+     */
+    @Benchmark
+    public byte[] digestObjectPerNonce() throws SerializationException {
+        block.setNonce(BigInteger.valueOf(nonce++));
+        return asymmetricCryptographyService.digestObject(block);
+    }
+
+    /**
+     * Complete MineWorker run over a fixed amount of nonces, including engine setup and range claiming
+     */
+    @Benchmark
+    @OperationsPerInvocation(NONCES_PER_RUN)
+    public long mineWorker() {
+        // the dispenser is exhausted after exactly NONCES_PER_RUN nonces
+        NonceRangeDispenser dispenser = new NonceRangeDispenser(Long.MAX_VALUE - NONCES_PER_RUN + 1, 1, 4096);
+        MineWorker worker = new MineWorker(event -> {}, dispenser, ZERO_BIT_CONDITION, block, new AtomicBoolean(true));
+        worker.run();
+        return worker.getHashCount();
+    }
+}
@@ -0,0 +1,43 @@
+package org.students.simplebitcoinnode.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.students.simplebitcoinnode.entity.Transaction;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Serialization of transactions as used for transaction hashing and signing
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TransactionSerializationBenchmark {
+    @Param({"1", "8"})
+    private int inputCount;
+
+    private Transaction transaction;
+    private ByteArrayOutputStream byteArrayOutputStream;
+    private ObjectOutputStream objectOutputStream;
+
+    @Setup
+    public void setup() throws IOException {
+        transaction = BenchmarkData.transactions(1, inputCount).getFirst();
+        byteArrayOutputStream = new ByteArrayOutputStream();
+        objectOutputStream = new ObjectOutputStream(byteArrayOutputStream);
+    }
+
+    @Benchmark
+    public int writeExternal() throws IOException {
+        byteArrayOutputStream.reset();
+        objectOutputStream.reset();
+        transaction.writeExternal(objectOutputStream);
+        objectOutputStream.flush();
+        return byteArrayOutputStream.size();
+    }
+}
@@ -11,7 +11,7 @@ import org.students.simplebitcoinnode.entity.MinerPublicKey;
 import org.students.simplebitcoinnode.repository.BlockRepository;
 import org.students.simplebitcoinnode.repository.MerkleTreeNodeRepository;
 import org.students.simplebitcoinnode.service.AsymmetricCryptographyService;
-import org.students.simplebitcoinnode.util.Encoding;
+import org.students.simplebitcoinnode.util.Sha256Hash;
 
 import java.math.BigInteger;
 import java.time.LocalDateTime;
@@ -95,14 +95,14 @@ public class BlockGenerator implements CommandLineRunner {
             // if previous block exists chain given block to the previous one
             if (!blocks.isEmpty())
                 block.setPreviousHash(blocks.get(i-1).getHash());
-            else block.setPreviousHash("0".repeat(64));
+            else block.setPreviousHash(Sha256Hash.ZERO);
 
             // for now, we use 1 as the nonce value
             block.setNonce(new BigInteger("1"));
             block.setMiners(List.of(new MinerPublicKey(null, blockchainMiningConfig.getRewardAddress())));
             block.setBlockAssemblyTimestamp(LocalDateTime.now(ZoneId.of("UTC")));
             block.setMinedTimestamp(LocalDateTime.now(ZoneId.of("UTC")));
-            block.setHash(Encoding.toHexString(asymmetricCryptographyService.digestObject(block)));
+            block.setHash(Sha256Hash.wrap(asymmetricCryptographyService.digestObject(block)));
 
             // append to lists
             blocks.add(block);
@@ -121,7 +121,7 @@ public class BlockGenerator implements CommandLineRunner {
 
         // add tree leaves to the queue
         for (int i = start; i < start + merkleTreeLeaves; i++) {
-            MerkleTreeNode leaf = MerkleTreeNode.builder().hash(Encoding.toHexString(asymmetricCryptographyService.digestObject(new BigInteger(Integer.toString(i))))).build();
+            MerkleTreeNode leaf = MerkleTreeNode.builder().hash(Sha256Hash.wrap(asymmetricCryptographyService.digestObject(new BigInteger(Integer.toString(i))))).build();
             treeQueue.add(leaf);
         }
 
@@ -135,9 +135,9 @@ public class BlockGenerator implements CommandLineRunner {
 
             // calculate parent hash from combined child node hashes
             byte[] combinedHashes = new byte[64];
-            System.arraycopy(Encoding.hexStringToBytes(leftChild.getHash()), 0, combinedHashes, 0, 32);
-            System.arraycopy(Encoding.hexStringToBytes(rightChild.getHash()), 0, combinedHashes, 32, 32);
-            parent.setHash(Encoding.toHexString(asymmetricCryptographyService.digestObject(combinedHashes)));
+            leftChild.getHash().copyInto(combinedHashes, 0);
+            rightChild.getHash().copyInto(combinedHashes, 32);
+            parent.setHash(Sha256Hash.wrap(asymmetricCryptographyService.digestObject(combinedHashes)));
             treeQueue.add(parent);
         }
 
@@ -9,6 +9,7 @@ import org.students.simplebitcoinnode.repository.BlockRepository;
 import org.students.simplebitcoinnode.repository.TransactionRepository;
 import org.students.simplebitcoinnode.service.AsymmetricCryptographyService;
 import org.students.simplebitcoinnode.util.Encoding;
+import org.students.simplebitcoinnode.util.Sha256Hash;
 
 import java.math.BigDecimal;
 import java.math.BigInteger;
@@ -36,11 +37,11 @@ public class GenesisBlockMaker implements CommandLineRunner {
         if (blockRepository.count() == 0) {
             Block block = Block.builder()
                     .blockAssemblyTimestamp(LocalDateTime.parse("2024-05-22T23:00:40"))
-                    .hash("00000011db1bfb15937b6a81c7cc95c3edcfab8a1976f79722743d0842624b0a")
+                    .hash(Sha256Hash.fromHex("00000011db1bfb15937b6a81c7cc95c3edcfab8a1976f79722743d0842624b0a"))
                     .minedTimestamp(LocalDateTime.parse("2024-05-22T23:01:32"))
                     .nonce(BigInteger.valueOf(13435435))
-                    .previousHash("0".repeat(64))
-                    .merkleTree(MerkleTreeNode.builder().hash("0".repeat(64)).build())
+                    .previousHash(Sha256Hash.ZERO)
+                    .merkleTree(MerkleTreeNode.builder().hash(Sha256Hash.ZERO).build())
                     .miners(List.of(MinerPublicKey.builder().pubKey("PZ8Tyr4Nx8MHsRAGMpZmZ6TWY63dXWSCzGyThs339cjyNikASTvfrCEiY2nWjUis5PUCyF24R4nLYR8RYmkwGQ2ZAoH1L45RADpkSWZ7S6i7dKkDkgHkYVsB").build()))
                     .build();
 
@@ -60,7 +61,7 @@ public class GenesisBlockMaker implements CommandLineRunner {
                             .senderPublicKey("")
                             .timestamp(LocalDateTime.parse("2024-05-22T23:00:40"))
                             .build();
-            coinbase.setTransactionHash(Encoding.toHexString(asymmetricCryptographyService.digestObject(coinbase)));
+            coinbase.setTransactionHash(Sha256Hash.wrap(asymmetricCryptographyService.digestObject(coinbase)));
             transactionRepository.save(coinbase);
             blockRepository.save(block);
         }
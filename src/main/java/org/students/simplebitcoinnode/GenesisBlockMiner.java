@@ -8,14 +8,15 @@ import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.context.annotation.Profile;
 import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
 import org.students.simplebitcoinnode.entity.Block;
 import org.students.simplebitcoinnode.entity.MerkleTreeNode;
 import org.students.simplebitcoinnode.entity.MinerPublicKey;
 import org.students.simplebitcoinnode.event.BlockMinedEvent;
 import org.students.simplebitcoinnode.event.MineBlockEvent;
-import org.students.simplebitcoinnode.repository.BlockRepository;
 import org.students.simplebitcoinnode.service.AsymmetricCryptographyService;
-import org.students.simplebitcoinnode.util.Encoding;
+import org.students.simplebitcoinnode.util.Sha256Hash;
 
 import java.math.BigInteger;
 import java.time.LocalDateTime;
@@ -29,17 +30,14 @@ public class GenesisBlockMiner implements CommandLineRunner {
     private static final org.slf4j.Logger log = LoggerFactory.getLogger(GenesisBlockMiner.class);
     private final ApplicationEventPublisher applicationEventPublisher;
     private final AsymmetricCryptographyService asymmetricCryptographyService;
-    private final BlockRepository blockRepository;
 
     private static String minerAddress = "PZ8Tyr4Nx8MHsRAGMpZmZ6TWY63dXWSCzGyThs339cjyNikASTvfrCEiY2nWjUis5PUCyF24R4nLYR8RYmkwGQ2ZAoH1L45RADpkSWZ7S6i7dKkDkgHkYVsB";
     private final Logger logger = Logger.getLogger(GenesisBlockMiner.class.getName());
 
     public GenesisBlockMiner(ApplicationEventPublisher applicationEventPublisher,
-                             AsymmetricCryptographyService asymmetricCryptographyService,
-                             BlockRepository blockRepository) {
+                             AsymmetricCryptographyService asymmetricCryptographyService) {
         this.applicationEventPublisher = applicationEventPublisher;
         this.asymmetricCryptographyService = asymmetricCryptographyService;
-        this.blockRepository = blockRepository;
     }
 
     @Override
@@ -47,23 +45,23 @@ public class GenesisBlockMiner implements CommandLineRunner {
         Block genesisBlock = Block.builder()
                 .miners(List.of(new MinerPublicKey(null, minerAddress)))
                 .nonce(BigInteger.ZERO)
-                .merkleTree(MerkleTreeNode.builder().hash("0".repeat(64)).build())
-                .previousHash("0".repeat(64))
+                .merkleTree(MerkleTreeNode.builder().hash(Sha256Hash.ZERO).build())
+                .previousHash(Sha256Hash.ZERO)
                 .blockAssemblyTimestamp(LocalDateTime.now(ZoneId.of("UTC")))
                 .build();
 
         // find current block hash
-        final String startHash = Encoding.toHexString(asymmetricCryptographyService.digestObject(genesisBlock));
+        final Sha256Hash startHash = Sha256Hash.wrap(asymmetricCryptographyService.digestObject(genesisBlock));
         genesisBlock.setHash(startHash);
         logger.info("Starting mining a block with current hash '" + startHash + "'");
         applicationEventPublisher.publishEvent(new MineBlockEvent(this, genesisBlock, BigInteger.ZERO, BigInteger.ONE));
     }
 
+    // the mined block is stored by BlockStorageService, whose listener runs first
     @EventListener
+    @Order(Ordered.LOWEST_PRECEDENCE)
     public void onBlockMinedEvent(BlockMinedEvent event) {
         logger.info("Genesis block is mined with hash: '" + event.getBlock().getHash() + "'");
-        event.getBlock().setMinedTimestamp(LocalDateTime.now(ZoneId.of("UTC")));
-        blockRepository.save(event.getBlock());
         System.exit(0);
     }
 
@@ -10,6 +10,7 @@ import org.students.simplebitcoinnode.entity.TransactionOutput;
 import org.students.simplebitcoinnode.repository.TransactionRepository;
 import org.students.simplebitcoinnode.service.AsymmetricCryptographyService;
 import org.students.simplebitcoinnode.util.Encoding;
+import org.students.simplebitcoinnode.util.Sha256Hash;
 import org.students.simplebitcoinnode.util.Wallet;
 
 import java.math.BigDecimal;
@@ -159,12 +160,12 @@ public class TransactionDataGenerator implements CommandLineRunner {
         }
 
         // calculate transaction hash
-        transaction.setTransactionHash(Encoding.toHexString(asymmetricCryptographyService.digestObject(transaction)));
+        transaction.setTransactionHash(Sha256Hash.wrap(asymmetricCryptographyService.digestObject(transaction)));
 
         // sign every transaction output
         for (TransactionOutput output : transaction.getOutputs()) {
             // create a message to sign
-            final byte[] hash = Encoding.hexStringToBytes(transaction.getTransactionHash());
+            final byte[] hash = transaction.getTransactionHash().getBytes();
             final byte[] receiverPublicKey = Encoding.defaultPubKeyDecoding(output.getReceiverPublicKey());
             final byte[] signatureMessage = Arrays.copyOf(hash, hash.length + receiverPublicKey.length);
             System.arraycopy(receiverPublicKey, 0, signatureMessage, hash.length, receiverPublicKey.length);
@@ -0,0 +1,14 @@
+package org.students.simplebitcoinnode.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@ConfigurationProperties(prefix = "blockchain.mempool")
+@Getter
+@Setter
+public class BlockchainMempoolConfig {
+    private Integer capacity;
+}
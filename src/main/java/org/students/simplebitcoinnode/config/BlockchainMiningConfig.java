@@ -16,10 +16,17 @@ public class BlockchainMiningConfig {
     private Boolean enabled;
     private Long minedBlockZeroBitCount;
     private Integer threadCount;
+    private Integer maxConcurrentBlocks;
+    private Integer nonceChunkSize;
+    private Long hashRateCalibrationInterval;
+    private Long hashRateCalibrationDuration;
     private Integer transactionsPerBlock;
+    private Long blockMaxBytes;
+    private Long blockMaxWait;
     private BlockchainMiningPoolConfig pool;
-    private String blockConstructionCron;
     private String rewardAddress;
+    private Integer blockHeaderVersion;
+    private Integer merkleLayoutVersion;
 
     @Bean
     public HttpClient httpClient() {
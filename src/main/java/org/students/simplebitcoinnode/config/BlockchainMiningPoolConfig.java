@@ -12,4 +12,6 @@ import org.springframework.context.annotation.Configuration;
 public class BlockchainMiningPoolConfig {
     private Boolean enabled;
     private Integer maximumPoolRequests;
+    private Long requestTimeout;
+    private Long deadline;
 }
\ No newline at end of file
@@ -0,0 +1,22 @@
+package org.students.simplebitcoinnode.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@ConfigurationProperties(prefix = "blockchain.storage")
+@Getter
+@Setter
+public class BlockchainStorageConfig {
+    private MerkleTreeFormat merkleTreeFormat;
+    private String utxoSnapshotPath;
+
+    public enum MerkleTreeFormat {
+        // every Merkle tree node is stored as its own MerkleTreeNode row
+        ENTITIES,
+        // only the root node row is stored, the whole tree is kept as packed levels (see MerkleTreeLevels)
+        PACKED
+    }
+}
@@ -0,0 +1,35 @@
+package org.students.simplebitcoinnode.config;
+
+import jakarta.annotation.PostConstruct;
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+import org.students.simplebitcoinnode.util.EcdsaSignatureVerifier;
+import org.students.simplebitcoinnode.util.Encoding;
+import org.students.simplebitcoinnode.util.Sha256;
+
+import java.util.logging.Logger;
+
+@Configuration
+@ConfigurationProperties(prefix = "blockchain.crypto")
+@Getter
+@Setter
+public class CryptographyConfig {
+    private final Logger logger = Logger.getLogger(CryptographyConfig.class.getName());
+
+    private String digestProvider;
+    private Integer pubKeyCacheSize;
+    private Integer verificationKeyCacheSize;
+    private Integer signatureCacheSize;
+
+    /**
+     * Selects the SHA-256 provider and sizes the decoded and parsed public key caches once configuration properties have been bound
+     */
+    @PostConstruct
+    public void configure() {
+        logger.info("Using SHA-256 provider " + Sha256.configure(digestProvider));
+        Encoding.configurePubKeyCache(pubKeyCacheSize == null ? Encoding.DEFAULT_PUB_KEY_CACHE_SIZE : pubKeyCacheSize);
+        EcdsaSignatureVerifier.configurePublicKeyCache(verificationKeyCacheSize == null ? EcdsaSignatureVerifier.DEFAULT_PUBLIC_KEY_CACHE_SIZE : verificationKeyCacheSize);
+    }
+}
@@ -0,0 +1,47 @@
+package org.students.simplebitcoinnode.controller;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.students.simplebitcoinnode.exceptions.encoding.InvalidEncodedStringException;
+import org.students.simplebitcoinnode.representation.BadRequestErrorResponse;
+import org.students.simplebitcoinnode.representation.ErrorResponse;
+import org.students.simplebitcoinnode.service.MerkleProofService;
+import org.students.simplebitcoinnode.util.Sha256Hash;
+
+@RestController
+@RequestMapping("/blockchain")
+public class MerkleProofController {
+    private final MerkleProofService merkleProofService;
+
+    public MerkleProofController(MerkleProofService merkleProofService) {
+        this.merkleProofService = merkleProofService;
+    }
+
+    /**
+     * A controller method mapped to the "/proof/{txHash}" endpoint.
+     * It returns the header of the block containing given transaction and the Merkle tree path proving its inclusion.
+     *
+     * @param txHash hexadecimal SHA-256 hash of the transaction
+     * @return ResponseEntity - OK status and the proof if the transaction was found,
+     * BAD_REQUEST status if the hash is malformed, NOT_FOUND status if no stored block contains the transaction.
+     */
+    @GetMapping("/proof/{txHash}")
+    public ResponseEntity<?> getProof(@PathVariable String txHash) {
+        final Sha256Hash transactionHash;
+        try {
+            transactionHash = Sha256Hash.fromHex(txHash);
+        }
+        catch (InvalidEncodedStringException e) {
+            return ResponseEntity.badRequest().body(new BadRequestErrorResponse("Invalid transaction hash: " + e.getMessage()));
+        }
+
+        return merkleProofService.getProof(transactionHash)
+                .<ResponseEntity<?>>map(proof -> ResponseEntity.ok().body(proof))
+                .orElseGet(() -> ResponseEntity.status(HttpStatus.NOT_FOUND)
+                        .body(new ErrorResponse("Transaction '" + txHash + "' is not part of any block", HttpStatus.NOT_FOUND.value())));
+    }
+}
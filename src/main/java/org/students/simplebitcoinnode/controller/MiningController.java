@@ -2,13 +2,16 @@ package org.students.simplebitcoinnode.controller;
 
 import jakarta.validation.Valid;
 import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
+import org.students.simplebitcoinnode.dto.HashRateDTO;
 import org.students.simplebitcoinnode.dto.PoolInitiationBlockMetadataDTO;
 import org.students.simplebitcoinnode.dto.PoolMiningProposalDTO;
 import org.students.simplebitcoinnode.entity.Block;
+import org.students.simplebitcoinnode.service.HashRateService;
 import org.students.simplebitcoinnode.service.MiningService;
 
 @RestController
@@ -16,9 +19,11 @@ import org.students.simplebitcoinnode.service.MiningService;
 public class MiningController {
 
     private final MiningService miningService;
+    private final HashRateService hashRateService;
 
-    public MiningController(MiningService miningService) {
+    public MiningController(MiningService miningService, HashRateService hashRateService) {
         this.miningService = miningService;
+        this.hashRateService = hashRateService;
     }
 
     /**
@@ -54,4 +59,14 @@ public class MiningController {
             return ResponseEntity.internalServerError().body("An internal server error occurred.");
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * Endpoint for retrieving the measured hash rate of this node.
+     *
+     * @return ResponseEntity containing live hash rates of blocks being mined and the calibrated hash rate of the node.
+     */
+    @GetMapping("/hashrate")
+    public ResponseEntity<HashRateDTO> hashRate() {
+        return ResponseEntity.ok().body(hashRateService.getHashRateReport());
+    }
+}
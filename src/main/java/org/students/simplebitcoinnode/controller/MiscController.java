@@ -5,6 +5,8 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
+import org.students.simplebitcoinnode.dto.SignatureCacheDTO;
+import org.students.simplebitcoinnode.service.SignatureCacheService;
 
 import java.time.LocalDateTime;
 import java.time.ZoneId;
@@ -15,6 +17,12 @@ import java.util.logging.Logger;
 public class MiscController {
     Logger logger = Logger.getLogger(TransactionsController.class.getName());
 
+    private final SignatureCacheService signatureCacheService;
+
+    public MiscController(SignatureCacheService signatureCacheService) {
+        this.signatureCacheService = signatureCacheService;
+    }
+
     /**
      * It returns the current time in UTC format.
      * @return ResponseEntity - OK status and the current time in UTC if successful,
@@ -30,4 +38,14 @@ public class MiscController {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body("An server error occurred!");
         }
     }
+
+    /**
+     * Endpoint for retrieving the usage of the transaction signature verification cache.
+     *
+     * @return ResponseEntity containing cache hit and miss counts and the amount of cached verification results.
+     */
+    @GetMapping("/signature-cache")
+    public ResponseEntity<SignatureCacheDTO> signatureCache() {
+        return ResponseEntity.ok().body(signatureCacheService.getReport());
+    }
 }
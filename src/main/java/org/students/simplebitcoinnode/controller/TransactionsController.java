@@ -1,10 +1,13 @@
 package org.students.simplebitcoinnode.controller;
 
 import jakarta.validation.Valid;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.*;
 import org.students.simplebitcoinnode.dto.TransactionDTO;
+import org.students.simplebitcoinnode.representation.BadRequestErrorResponse;
+import org.students.simplebitcoinnode.representation.ErrorResponse;
 import org.students.simplebitcoinnode.representation.ValidationErrorResponse;
 import org.students.simplebitcoinnode.service.TransactionService;
 
@@ -79,4 +82,28 @@ public class TransactionsController {
         });
         return ResponseEntity.badRequest().body(new ValidationErrorResponse(errors));
     }
+
+    /**
+     * Handles IllegalStateException exceptions, i.e. transactions rejected because the mempool is full.
+     *
+     * @param e The IllegalStateException that was thrown.
+     * @return ResponseEntity containing the ErrorResponse with HTTP code 503.
+     */
+    @ExceptionHandler(value = IllegalStateException.class)
+    public ResponseEntity<?> handleIllegalStateException(IllegalStateException e) {
+        logger.warning("IllegalStateException thrown at TransactionsController: " + e.getMessage());
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(new ErrorResponse(e.getMessage(), HttpStatus.SERVICE_UNAVAILABLE.value()));
+    }
+
+    /**
+     * Handles IllegalArgumentException exceptions, i.e. transactions whose inputs have been spent after validation.
+     *
+     * @param e The IllegalArgumentException that was thrown.
+     * @return ResponseEntity containing the BadRequestErrorResponse.
+     */
+    @ExceptionHandler(value = IllegalArgumentException.class)
+    public ResponseEntity<?> handleIllegalArgumentException(IllegalArgumentException e) {
+        logger.warning("IllegalArgumentException thrown at TransactionsController: " + e.getMessage());
+        return ResponseEntity.badRequest().body(new BadRequestErrorResponse(e.getMessage()));
+    }
 }
@@ -0,0 +1,22 @@
+package org.students.simplebitcoinnode.dto;
+
+import lombok.*;
+
+import java.math.BigInteger;
+import java.time.LocalDateTime;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class BlockHeaderDTO {
+    private String hash;
+    private String previousHash;
+    private String merkleRoot;
+    private LocalDateTime blockAssemblyTimestamp;
+    private LocalDateTime minedTimestamp;
+    private BigInteger nonce;
+    private Integer headerVersion;
+    private Integer merkleLayoutVersion;
+}
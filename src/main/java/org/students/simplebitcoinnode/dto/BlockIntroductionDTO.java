@@ -13,4 +13,6 @@ public class BlockIntroductionDTO {
     private String previousHash;
     private MerkleTreeNodeDTO merkleTree;
     private LocalDateTime blockAssemblyTimestamp;
+    private Integer headerVersion;
+    private Integer merkleLayoutVersion;
 }
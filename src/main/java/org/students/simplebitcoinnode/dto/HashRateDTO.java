@@ -0,0 +1,24 @@
+package org.students.simplebitcoinnode.dto;
+
+import lombok.*;
+
+import java.util.Map;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class HashRateDTO {
+    // combined exponentially weighted hash rate of all active miner processes in H/s
+    private double hashRate;
+
+    // hash rate of the whole mining worker pool as measured by the last calibration in H/s
+    private double calibratedHashRate;
+
+    // hash rate in MH/s, as published in AdjacentNodeDTO when registering with peers
+    private float averageHashRate;
+
+    // exponentially weighted hash rate in H/s per hash of the block being mined
+    private Map<String, Double> blocks;
+}
@@ -0,0 +1,30 @@
+package org.students.simplebitcoinnode.dto;
+
+import lombok.*;
+
+import java.util.List;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class MerkleProofDTO {
+    private BlockHeaderDTO block;
+    private String transactionHash;
+    private Integer leafIndex;
+    private Integer layoutVersion;
+
+    // sibling hashes ordered from the leaf up to the merkle tree root
+    private List<Step> path;
+
+    @Getter
+    @Setter
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Step {
+        private String siblingHash;
+        // true if the sibling is the left child of the parent
+        private Boolean left;
+    }
+}
@@ -15,4 +15,7 @@ public class PoolInitiationBlockMetadataDTO {
     private String hash;
     private List<String> miners;
     private Integer offset;
+    // nonce cycle length and amount of consecutive nonces per cycle, see PoolPlanner; absent values mean one nonce per miner
+    private Integer stride;
+    private Integer width;
 }
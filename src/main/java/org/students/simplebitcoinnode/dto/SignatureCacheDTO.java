@@ -0,0 +1,19 @@
+package org.students.simplebitcoinnode.dto;
+
+import lombok.*;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class SignatureCacheDTO {
+    // transaction signature verifications answered from the cache
+    private long hits;
+
+    // transaction signature verifications that ran ECDSA
+    private long misses;
+
+    // cached transaction signature verification results
+    private int size;
+}
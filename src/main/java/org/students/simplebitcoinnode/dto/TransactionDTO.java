@@ -1,7 +1,7 @@
 package org.students.simplebitcoinnode.dto;
 
 import lombok.*;
-import org.students.simplebitcoinnode.entity.validation.annotations.*;
+import org.students.simplebitcoinnode.entity.validation.annotations.TransactionConstraint;
 import org.students.simplebitcoinnode.exceptions.encoding.InvalidEncodedStringException;
 import org.students.simplebitcoinnode.util.Encoding;
 
@@ -20,17 +20,10 @@ import java.util.List;
 @AllArgsConstructor
 @Builder
 
-@CryptographicSignatureConstraint
-@TransactionHashConstraint
-@DoubleSpendingConstraint
-@OneExternalRecipientPerTransactionConstraint
-@MatchingInputReceiverAddressesConstraint
-@TransactionInputSumIsOutputSumConstraint
+@TransactionConstraint
 public class TransactionDTO implements Externalizable {
     private String transactionHash = "";
     private List<TransactionOutputDTO> inputs = new ArrayList<>();
-
-    @PositiveTransactionOutputConstraint
     private List<TransactionOutputDTO> outputs = new ArrayList<>();
     private String senderPublicKey = "";
     private LocalDateTime timestamp = LocalDateTime.now();
@@ -3,9 +3,11 @@ package org.students.simplebitcoinnode.entity;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.NotNull;
 import lombok.*;
-import org.hibernate.validator.constraints.Length;
 import org.students.simplebitcoinnode.exceptions.encoding.InvalidEncodedStringException;
+import org.students.simplebitcoinnode.util.BlockHeaderCodec;
 import org.students.simplebitcoinnode.util.Encoding;
+import org.students.simplebitcoinnode.util.MerkleTreeEngine;
+import org.students.simplebitcoinnode.util.Sha256Hash;
 
 import java.io.*;
 import java.math.BigInteger;
@@ -15,7 +17,11 @@ import java.time.format.DateTimeFormatter;
 import java.util.List;
 
 @Entity
-@Table(name = "BLOCKS")
+@Table(name = "BLOCKS", indexes = {
+        @Index(name = "IDX_BLOCKS_HEIGHT", columnList = "height"),
+        @Index(name = "IDX_BLOCKS_HASH", columnList = "hash"),
+        @Index(name = "IDX_BLOCKS_PREVIOUS_HASH", columnList = "previous_hash")
+})
 @Setter
 @Getter
 @NoArgsConstructor
@@ -32,10 +38,9 @@ public class Block implements Externalizable, Cloneable {
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
 
-    @Column(length = 64)
+    @Column(columnDefinition = "BINARY(32)")
     @NotNull(message = "Previous hash (SHA256) must be previously calculated")
-    @Length(min = 64, max = 64)
-    private String previousHash;
+    private Sha256Hash previousHash;
 
     @NotNull(message = "Each block must contain at least one transaction")
     @OneToOne(cascade = CascadeType.ALL)
@@ -56,20 +61,35 @@ public class Block implements Externalizable, Cloneable {
     @Column(scale = 64)
     private BigInteger nonce;
 
-    @Column(length = 64)
+    @Column(columnDefinition = "BINARY(32)")
     @NotNull(message = "Block hash cannot be set to null")
-    private String hash;
+    private Sha256Hash hash;
+
+    // header format used for hashing the block, NULL is treated as the legacy format (see BlockHeaderCodec)
+    @Builder.Default
+    private Integer headerVersion = BlockHeaderCodec.VERSION_LEGACY;
+
+    // layout of the merkle tree, NULL is treated as the legacy layout (see MerkleTreeEngine)
+    @Builder.Default
+    private Integer merkleLayoutVersion = MerkleTreeEngine.LAYOUT_LEGACY;
+
+    // distance from the genesis block, NULL if the block is not connected to the chain (see ChainIndex)
+    private Long height;
+
+    // expected amount of hashes needed to mine the chain ending with this block, NULL if the block is not connected to the chain
+    @Column(precision = 78)
+    private BigInteger cumulativeWork;
 
     @Override
     public Object clone() {
-        return new Block(id, previousHash, merkleTree, miners, blockAssemblyTimestamp, minedTimestamp, nonce, hash);
+        return new Block(id, previousHash, merkleTree, miners, blockAssemblyTimestamp, minedTimestamp, nonce, hash, headerVersion, merkleLayoutVersion, height, cumulativeWork);
     }
 
     @Override
     public void writeExternal(ObjectOutput out) throws IOException {
         try {
-            out.write(Encoding.hexStringToBytes(previousHash));
-            out.write(Encoding.hexStringToBytes(merkleTree.getHash()));
+            previousHash.writeTo(out);
+            merkleTree.getHash().writeTo(out);
             for (MinerPublicKey miner : miners)
                 out.write(Encoding.defaultPubKeyDecoding(miner.getPubKey()));
             DateTimeFormatter formatter = DateTimeFormatter.ofPattern("uuuu-MM-dd'T'HH:mm:ss");
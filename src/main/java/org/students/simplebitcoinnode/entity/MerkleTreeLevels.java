@@ -0,0 +1,31 @@
+package org.students.simplebitcoinnode.entity;
+
+import jakarta.persistence.*;
+import jakarta.validation.constraints.NotNull;
+import lombok.*;
+
+/**
+ * Packed copy of a block's Merkle tree, i.e. the hashes of all tree levels from leaves up to the root (see MerkleTreeEngine).
+ * Allows creating inclusion proofs without loading the tree node by node.
+ */
+@Entity
+@Setter
+@Getter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Table(name = "MERKLE_TREE_LEVELS")
+public class MerkleTreeLevels {
+    @Id
+    private Long blockId;
+
+    @NotNull(message = "Merkle tree layout version must be specified")
+    private Integer layoutVersion;
+
+    @NotNull(message = "Merkle tree leaf count must be specified")
+    private Integer leafCount;
+
+    @Lob
+    @NotNull(message = "Merkle tree levels cannot be set to null")
+    private byte[] levels;
+}
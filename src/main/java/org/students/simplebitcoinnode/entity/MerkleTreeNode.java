@@ -3,9 +3,7 @@ package org.students.simplebitcoinnode.entity;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.NotNull;
 import lombok.*;
-import org.hibernate.validator.constraints.Length;
-import org.students.simplebitcoinnode.exceptions.encoding.InvalidEncodedStringException;
-import org.students.simplebitcoinnode.util.Encoding;
+import org.students.simplebitcoinnode.util.Sha256Hash;
 
 import java.io.*;
 import java.util.ArrayList;
@@ -26,13 +24,14 @@ public class MerkleTreeNode implements Externalizable {
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
 
-    @Column(length = 64)
+    @Column(columnDefinition = "BINARY(32)")
     @NotNull(message = "IntermediateMerkleTreeNode's hash cannot be set to null")
-    @Length(min = 64, max = 64)
-    private String hash;
+    private Sha256Hash hash;
 
+    // children are ordered left to right, leaf order and proof sides depend on it
     @OneToMany(cascade = CascadeType.ALL)
     @JoinColumn(name = "parent_id")
+    @OrderColumn(name = "child_index")
     private List<MerkleTreeNode> children;
 
     // if transaction is specified then given tree node represents that transaction
@@ -44,13 +43,8 @@ public class MerkleTreeNode implements Externalizable {
     @Override
     public void writeExternal(ObjectOutput out) throws IOException {
         out.write(children.size());
-        try {
-            for (MerkleTreeNode child : children) {
-                out.write(Encoding.hexStringToBytes(child.getHash()));
-            }
-        }
-        catch (InvalidEncodedStringException e) {
-            throw new IOException(e);
+        for (MerkleTreeNode child : children) {
+            child.getHash().writeTo(out);
         }
     }
 
@@ -63,7 +57,7 @@ public class MerkleTreeNode implements Externalizable {
         for (int i = 0; i < childrenCount; i++) {
             byte[] hash = new byte[32];
             in.readFully(hash);
-            children.add(MerkleTreeNode.builder().hash(Encoding.toHexString(hash)).build());
+            children.add(MerkleTreeNode.builder().hash(Sha256Hash.wrap(hash)).build());
         }
     }
 }
@@ -5,6 +5,7 @@ import jakarta.validation.constraints.NotNull;
 import lombok.*;
 import org.students.simplebitcoinnode.exceptions.encoding.InvalidEncodedStringException;
 import org.students.simplebitcoinnode.util.Encoding;
+import org.students.simplebitcoinnode.util.Sha256Hash;
 
 import java.io.Externalizable;
 import java.io.IOException;
@@ -23,15 +24,15 @@ import java.util.List;
 @NoArgsConstructor
 @AllArgsConstructor
 @Builder
-@Table(name = "ledger")
+@Table(name = "ledger", indexes = @Index(name = "IDX_LEDGER_CONFIRMED_BLOCK_ID", columnList = "confirmed_block_id"))
 public class Transaction implements Externalizable {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
 
-    @Column(length = 64)
+    @Column(columnDefinition = "BINARY(32)")
     @NotNull(message = "Transaction hash (SHA256) must be previously calculated")
-    private String transactionHash;
+    private Sha256Hash transactionHash;
 
     @OneToMany(cascade = CascadeType.ALL)
     @JoinColumn(name = "input_id")
@@ -50,6 +51,9 @@ public class Transaction implements Externalizable {
     @Builder.Default
     private LocalDateTime timestamp = LocalDateTime.now(ZoneId.of("UTC"));
 
+    // id of the first stored block that includes this transaction, null while the transaction is pending
+    private Long confirmedBlockId;
+
     @Override
     public int hashCode() {
         return transactionHash.hashCode();
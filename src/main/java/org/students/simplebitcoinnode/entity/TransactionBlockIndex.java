@@ -0,0 +1,36 @@
+package org.students.simplebitcoinnode.entity;
+
+import jakarta.persistence.*;
+import jakarta.validation.constraints.NotNull;
+import lombok.*;
+import org.students.simplebitcoinnode.util.Sha256Hash;
+
+/**
+ * Index entry locating a transaction within a block's Merkle tree
+ */
+@Entity
+@Setter
+@Getter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Table(name = "TRANSACTION_BLOCK_INDEX", indexes = {
+        @Index(name = "IDX_TRANSACTION_BLOCK_INDEX_HASH", columnList = "transaction_hash"),
+        @Index(name = "IDX_TRANSACTION_BLOCK_INDEX_BLOCK", columnList = "block_id")
+})
+public class TransactionBlockIndex {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(columnDefinition = "BINARY(32)")
+    @NotNull(message = "Transaction hash must be specified")
+    private Sha256Hash transactionHash;
+
+    @NotNull(message = "Block id must be specified")
+    private Long blockId;
+
+    // position of the transaction among the Merkle tree leaves
+    @NotNull(message = "Leaf index must be specified")
+    private Integer leafIndex;
+}
@@ -0,0 +1,21 @@
+package org.students.simplebitcoinnode.entity.converter;
+
+import jakarta.persistence.AttributeConverter;
+import jakarta.persistence.Converter;
+import org.students.simplebitcoinnode.util.Sha256Hash;
+
+/**
+ * Persists Sha256Hash values as raw 32 bytes, used with <code>BINARY(32)</code> columns
+ */
+@Converter(autoApply = true)
+public class Sha256HashConverter implements AttributeConverter<Sha256Hash, byte[]> {
+    @Override
+    public byte[] convertToDatabaseColumn(Sha256Hash hash) {
+        return hash == null ? null : hash.getBytes();
+    }
+
+    @Override
+    public Sha256Hash convertToEntityAttribute(byte[] bytes) {
+        return bytes == null ? null : Sha256Hash.wrap(bytes);
+    }
+}
@@ -6,12 +6,15 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.students.simplebitcoinnode.dto.TransactionDTO;
 import org.students.simplebitcoinnode.dto.TransactionOutputDTO;
 import org.students.simplebitcoinnode.entity.validation.annotations.CryptographicSignatureConstraint;
-import org.students.simplebitcoinnode.exceptions.crypto.MalformedKeyException;
-import org.students.simplebitcoinnode.exceptions.crypto.MalformedSignatureException;
 import org.students.simplebitcoinnode.exceptions.encoding.InvalidEncodedStringException;
+import org.students.simplebitcoinnode.exceptions.encoding.SerializationException;
 import org.students.simplebitcoinnode.service.AsymmetricCryptographyService;
+import org.students.simplebitcoinnode.service.SignatureCacheService;
 import org.students.simplebitcoinnode.util.Encoding;
+import org.students.simplebitcoinnode.util.Sha256Hash;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.logging.Logger;
 
 
@@ -22,11 +25,18 @@ import java.util.logging.Logger;
  */
 public class CryptographicSignatureConstraintValidator implements ConstraintValidator<CryptographicSignatureConstraint, TransactionDTO> {
     private final AsymmetricCryptographyService asymmetricCryptographyService;
+    // null disables caching of verification results
+    private final SignatureCacheService signatureCacheService;
     private final Logger logger = Logger.getLogger(CryptographicSignatureConstraintValidator.class.getName());
 
-    @Autowired
     public CryptographicSignatureConstraintValidator(AsymmetricCryptographyService asymmetricCryptographyService) {
+        this(asymmetricCryptographyService, null);
+    }
+
+    @Autowired
+    public CryptographicSignatureConstraintValidator(AsymmetricCryptographyService asymmetricCryptographyService, SignatureCacheService signatureCacheService) {
         this.asymmetricCryptographyService = asymmetricCryptographyService;
+        this.signatureCacheService = signatureCacheService;
     }
 
     @Override
@@ -40,35 +50,60 @@ public class CryptographicSignatureConstraintValidator implements ConstraintVali
         if (transaction == null)
             return false;
 
-        // for each transaction output verify its signature
         try {
+            return hasValidSignatures(transaction, asymmetricCryptographyService.digestObject(transaction));
+        }
+        catch (SerializationException e) {
+            logger.warning("Could not serialize transaction object: " + e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Verifies the signatures of all transaction outputs against a previously calculated transaction hash
+     * @param transaction specifies the transaction whose outputs to verify
+     * @param hash specifies the calculated hash of the transaction
+     * @return true if all outputs have been signed with sender's public key
+     */
+    public boolean hasValidSignatures(TransactionDTO transaction, byte[] hash) {
+        // collect the signature of each transaction output and verify them as a batch
+        try {
+            final byte[] senderPublicKey = Encoding.defaultPubKeyDecoding(transaction.getSenderPublicKey());
+            List<AsymmetricCryptographyService.SignatureJob> signatureJobs = new ArrayList<>(transaction.getOutputs().size());
+            List<byte[]> signatures = new ArrayList<>(transaction.getOutputs().size());
             for (TransactionOutputDTO transactionOutput : transaction.getOutputs()) {
                 // null signatures get invalidated
                 if (transactionOutput.getSignature() == null)
                     return false;
 
-                // concatenate the transaction hash and output's receiver public key to get signature message
-                byte[] hash = asymmetricCryptographyService.digestObject(transaction);
-                byte[] decodedPublicKey = Encoding.defaultPubKeyDecoding(transactionOutput.getReceiverPublicKey());
-                byte[] sigMessage = new byte[hash.length + decodedPublicKey.length];
-                System.arraycopy(hash, 0, sigMessage, 0, hash.length);
-                System.arraycopy(decodedPublicKey, 0, sigMessage, hash.length, decodedPublicKey.length);
-                if (!asymmetricCryptographyService.verifyDigitalSignature(sigMessage, Encoding.hexStringToBytes(transactionOutput.getSignature()), Encoding.defaultPubKeyDecoding(transaction.getSenderPublicKey())))
-                    return false;
+                byte[] sigMessage = signatureMessage(hash, transactionOutput.getReceiverPublicKey());
+                byte[] signature = Encoding.hexStringToBytes(transactionOutput.getSignature());
+                signatureJobs.add(new AsymmetricCryptographyService.SignatureJob(sigMessage, signature, senderPublicKey));
+                signatures.add(signature);
             }
-            return true;
-        }
-        catch (MalformedKeyException e) {
-            logger.warning("Sender's public key '" + transaction.getSenderPublicKey() + "' is malformed");
-            return false;
-        }
-        catch (MalformedSignatureException e) {
-            logger.warning("Transaction output signature is malformed");
-            return false;
+
+            if (signatureCacheService == null)
+                return asymmetricCryptographyService.verifyAll(signatureJobs);
+            return signatureCacheService.verify(Sha256Hash.wrap(hash), signatures, () -> asymmetricCryptographyService.verifyAll(signatureJobs));
         }
         catch (InvalidEncodedStringException e) {
             logger.severe("Could not parse digital signature or sender's public key");
             return false;
         }
     }
+
+    /**
+     * Concatenates the transaction hash and output's receiver public key to get the signed message of a transaction output
+     * @param hash specifies the calculated hash of the transaction
+     * @param receiverPublicKey specifies the encoded public key of the output's receiver
+     * @return byte array containing the signed message
+     * @throws InvalidEncodedStringException if the receiver public key is malformed
+     */
+    public static byte[] signatureMessage(byte[] hash, String receiverPublicKey) throws InvalidEncodedStringException {
+        byte[] decodedPublicKey = Encoding.defaultPubKeyDecoding(receiverPublicKey);
+        byte[] sigMessage = new byte[hash.length + decodedPublicKey.length];
+        System.arraycopy(hash, 0, sigMessage, 0, hash.length);
+        System.arraycopy(decodedPublicKey, 0, sigMessage, hash.length, decodedPublicKey.length);
+        return sigMessage;
+    }
 }
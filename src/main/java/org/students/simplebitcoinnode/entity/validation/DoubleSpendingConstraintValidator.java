@@ -6,20 +6,22 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.students.simplebitcoinnode.dto.TransactionDTO;
 import org.students.simplebitcoinnode.dto.TransactionOutputDTO;
 import org.students.simplebitcoinnode.entity.validation.annotations.DoubleSpendingConstraint;
-import org.students.simplebitcoinnode.repository.TransactionOutputRepository;
+import org.students.simplebitcoinnode.service.UtxoSetService;
+import org.students.simplebitcoinnode.util.UtxoSet;
 
+import java.util.Map;
 import java.util.logging.Logger;
 
 /**
- * Validates if Transaction inputs have not been spent before.
+ * Validates if Transaction inputs have not been spent before by looking them up in the in-memory UTXO set.
  */
 public class DoubleSpendingConstraintValidator implements ConstraintValidator<DoubleSpendingConstraint, TransactionDTO> {
-    private final TransactionOutputRepository transactionOutputRepository;
+    private final UtxoSetService utxoSetService;
     private final Logger logger = Logger.getLogger(DoubleSpendingConstraintValidator.class.getName());
 
     @Autowired
-    public DoubleSpendingConstraintValidator(TransactionOutputRepository transactionOutputRepository) {
-        this.transactionOutputRepository = transactionOutputRepository;
+    public DoubleSpendingConstraintValidator(UtxoSetService utxoSetService) {
+        this.utxoSetService = utxoSetService;
     }
 
     @Override
@@ -33,9 +35,19 @@ public class DoubleSpendingConstraintValidator implements ConstraintValidator<Do
         if (transaction == null)
             return false;
 
+        return hasUnspentInputs(transaction, utxoSetService.findAll(transaction.getInputs().stream().map(TransactionOutputDTO::getSignature).toList()));
+    }
+
+    /**
+     * Checks that all inputs are among previously resolved unspent transaction outputs
+     * @param transaction specifies the transaction whose inputs to check
+     * @param unspentOutputs specifies the unspent transaction outputs of the inputs mapped by signature
+     * @return true if no input has been spent before
+     */
+    public boolean hasUnspentInputs(TransactionDTO transaction, Map<String, UtxoSet.UnspentOutput> unspentOutputs) {
         // for each input check if it is a valid
         for (TransactionOutputDTO utxoCandidate : transaction.getInputs()) {
-            if (transactionOutputRepository.findUtxoCountBySignature(utxoCandidate.getSignature()) < 1) {
+            if (!unspentOutputs.containsKey(utxoCandidate.getSignature())) {
                 logger.info("Transaction output with signature '" + utxoCandidate.getSignature() + "' is not a valid UTXO, validation failed!");
                 return false;
             }
@@ -4,19 +4,19 @@ import jakarta.validation.ConstraintValidator;
 import jakarta.validation.ConstraintValidatorContext;
 import org.students.simplebitcoinnode.dto.TransactionDTO;
 import org.students.simplebitcoinnode.dto.TransactionOutputDTO;
-import org.students.simplebitcoinnode.entity.TransactionOutput;
 import org.students.simplebitcoinnode.entity.validation.annotations.MatchingInputReceiverAddressesConstraint;
-import org.students.simplebitcoinnode.repository.TransactionOutputRepository;
+import org.students.simplebitcoinnode.service.UtxoSetService;
+import org.students.simplebitcoinnode.util.UtxoSet;
 
-import java.util.Optional;
+import java.util.Map;
 
 public class MatchingInputReceiverAddressesConstraintValidator
     implements ConstraintValidator<MatchingInputReceiverAddressesConstraint, TransactionDTO> {
 
-    private final TransactionOutputRepository transactionOutputRepository;
+    private final UtxoSetService utxoSetService;
 
-    public MatchingInputReceiverAddressesConstraintValidator(TransactionOutputRepository transactionOutputRepository) {
-        this.transactionOutputRepository = transactionOutputRepository;
+    public MatchingInputReceiverAddressesConstraintValidator(UtxoSetService utxoSetService) {
+        this.utxoSetService = utxoSetService;
     }
 
     @Override
@@ -29,10 +29,22 @@ public class MatchingInputReceiverAddressesConstraintValidator
         if (transaction == null || transaction.getInputs() == null || transaction.getInputs().isEmpty())
             return false;
 
+        return hasSenderOwnedInputs(transaction, utxoSetService.findAll(transaction.getInputs().stream().map(TransactionOutputDTO::getSignature).toList()));
+    }
+
+    /**
+     * Checks that all inputs have been received by the sender, using previously resolved unspent transaction outputs
+     * @param transaction specifies the transaction whose inputs to check
+     * @param unspentOutputs specifies the unspent transaction outputs of the inputs mapped by signature
+     * @return true if all inputs belong to the sender
+     */
+    public boolean hasSenderOwnedInputs(TransactionDTO transaction, Map<String, UtxoSet.UnspentOutput> unspentOutputs) {
+        if (transaction.getInputs() == null || transaction.getInputs().isEmpty())
+            return false;
+
         for (TransactionOutputDTO input : transaction.getInputs()) {
-            String signature = input.getSignature();
-            Optional<TransactionOutput> transactionOutput = transactionOutputRepository.findTransactionOutputBySignature(signature);
-            if (transactionOutput.isEmpty() || !transactionOutput.get().getReceiverPublicKey().equals(transaction.getSenderPublicKey()))
+            UtxoSet.UnspentOutput transactionOutput = unspentOutputs.get(input.getSignature());
+            if (transactionOutput == null || !transactionOutput.getReceiverPublicKey().equals(transaction.getSenderPublicKey()))
                 return false;
         }
 
@@ -5,7 +5,9 @@ import jakarta.validation.ConstraintValidatorContext;
 import org.students.simplebitcoinnode.dto.PoolInitiationBlockMetadataDTO;
 import org.students.simplebitcoinnode.entity.Block;
 import org.students.simplebitcoinnode.entity.validation.annotations.PositiveTransactionOutputConstraint;
+import org.students.simplebitcoinnode.exceptions.encoding.InvalidEncodedStringException;
 import org.students.simplebitcoinnode.repository.BlockRepository;
+import org.students.simplebitcoinnode.util.Sha256Hash;
 
 public class PoolInitiationBlockMetadataConstraintValidator implements ConstraintValidator<PositiveTransactionOutputConstraint, PoolInitiationBlockMetadataDTO> {
     public final BlockRepository blockRepository;
@@ -31,8 +33,14 @@ public class PoolInitiationBlockMetadataConstraintValidator implements Constrain
      */
     @Override
     public boolean isValid(PoolInitiationBlockMetadataDTO poolInitiationBlockMetadataDTO, ConstraintValidatorContext constraintValidatorContext) {
-        // Get block for initiating
-        Block initiateBlock = blockRepository.findBlockHeaderByHash(poolInitiationBlockMetadataDTO.getHash()).orElse(null);
+        // Get block for initiating, malformed hashes cannot refer to any block
+        Block initiateBlock;
+        try {
+            initiateBlock = blockRepository.findBlockHeaderByHash(Sha256Hash.fromHex(poolInitiationBlockMetadataDTO.getHash())).orElse(null);
+        }
+        catch (InvalidEncodedStringException e) {
+            initiateBlock = null;
+        }
 
         // Check that data are correctly provided.
         if (initiateBlock == null) {
@@ -46,6 +54,16 @@ public class PoolInitiationBlockMetadataConstraintValidator implements Constrain
             return false;
         }
 
+        // the run of nonces assigned to this node must lie within a single nonce cycle
+        final int stride = poolInitiationBlockMetadataDTO.getStride() == null ? poolInitiationBlockMetadataDTO.getMiners().size() : poolInitiationBlockMetadataDTO.getStride();
+        final int width = poolInitiationBlockMetadataDTO.getWidth() == null ? 1 : poolInitiationBlockMetadataDTO.getWidth();
+        final Integer offset = poolInitiationBlockMetadataDTO.getOffset();
+        if (offset == null || offset < 0 || width <= 0 || (long) offset + width > stride) {
+            constraintValidatorContext.buildConstraintViolationWithTemplate("Nonce offset and width must lie within the nonce stride!")
+                    .addConstraintViolation();
+            return false;
+        }
+
         return true;
     }
 }
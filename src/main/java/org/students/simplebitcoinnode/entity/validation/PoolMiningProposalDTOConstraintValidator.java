@@ -5,16 +5,17 @@ import jakarta.validation.ConstraintValidatorContext;
 import org.students.simplebitcoinnode.config.BlockchainMiningPoolConfig;
 import org.students.simplebitcoinnode.dto.PoolMiningProposalDTO;
 import org.students.simplebitcoinnode.entity.validation.annotations.PoolMiningProposalDTOConstraint;
-import org.students.simplebitcoinnode.repository.BlockRepository;
+import org.students.simplebitcoinnode.service.ChainStateService;
+import org.students.simplebitcoinnode.util.ChainIndex;
 
 public class PoolMiningProposalDTOConstraintValidator implements ConstraintValidator<PoolMiningProposalDTOConstraint, PoolMiningProposalDTO> {
     private final BlockchainMiningPoolConfig blockchainMiningPoolConfig;
 
-    private final BlockRepository blockRepository;
+    private final ChainStateService chainStateService;
 
-    public PoolMiningProposalDTOConstraintValidator(BlockchainMiningPoolConfig blockchainMiningPoolConfig, BlockRepository blockRepository) {
+    public PoolMiningProposalDTOConstraintValidator(BlockchainMiningPoolConfig blockchainMiningPoolConfig, ChainStateService chainStateService) {
         this.blockchainMiningPoolConfig = blockchainMiningPoolConfig;
-        this.blockRepository = blockRepository;
+        this.chainStateService = chainStateService;
     }
 
     @Override
@@ -47,9 +48,9 @@ public class PoolMiningProposalDTOConstraintValidator implements ConstraintValid
         }
 
         // Check that the previous block hash represents a block with the longest chain.
-        String blockWithLongestChainHash = blockRepository.findBlockWithLongestChain().getHash();
+        ChainIndex.Entry tip = chainStateService.getTip();
         String previousBlockHash = proposalDTO.getBlock().getPreviousHash();
-        if (!previousBlockHash.equals(blockWithLongestChainHash)){
+        if (tip == null || !tip.getHash().toString().equals(previousBlockHash)){
             constraintValidatorContext.buildConstraintViolationWithTemplate("Passed previous block hash is invalid!");
             return false;
         }
@@ -0,0 +1,43 @@
+package org.students.simplebitcoinnode.entity.validation;
+
+import jakarta.validation.ConstraintValidator;
+import jakarta.validation.ConstraintValidatorContext;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.students.simplebitcoinnode.dto.TransactionDTO;
+import org.students.simplebitcoinnode.entity.validation.annotations.TransactionConstraint;
+import org.students.simplebitcoinnode.service.AsymmetricCryptographyService;
+import org.students.simplebitcoinnode.service.SignatureCacheService;
+import org.students.simplebitcoinnode.service.UtxoSetService;
+
+import java.util.Optional;
+
+/**
+ * Validator that checks all transaction constraints with TransactionValidationPipeline and reports the first violated constraint's message.
+ */
+public class TransactionConstraintValidator implements ConstraintValidator<TransactionConstraint, TransactionDTO> {
+    private final TransactionValidationPipeline transactionValidationPipeline;
+
+    @Autowired
+    public TransactionConstraintValidator(AsymmetricCryptographyService asymmetricCryptographyService, UtxoSetService utxoSetService, SignatureCacheService signatureCacheService) {
+        this.transactionValidationPipeline = new TransactionValidationPipeline(asymmetricCryptographyService, utxoSetService, signatureCacheService);
+    }
+
+    @Override
+    public void initialize(TransactionConstraint constraintAnnotation) {
+        ConstraintValidator.super.initialize(constraintAnnotation);
+    }
+
+    @Override
+    public boolean isValid(TransactionDTO transaction, ConstraintValidatorContext context) {
+        Optional<String> violation = transactionValidationPipeline.validate(transaction);
+        if (violation.isEmpty())
+            return true;
+
+        if (context != null) {
+            context.disableDefaultConstraintViolation();
+            context.buildConstraintViolationWithTemplate(violation.get())
+                    .addConstraintViolation();
+        }
+        return false;
+    }
+}
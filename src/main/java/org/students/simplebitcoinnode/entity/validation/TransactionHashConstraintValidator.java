@@ -60,11 +60,21 @@ public class TransactionHashConstraintValidator
             if (transaction.getTransactionHash() == null)
                 return false;
 
-            return transaction.getTransactionHash().equals(Encoding.toHexString(asymmetricCryptographyService.digestObject(transaction)));
+            return matchesHash(transaction, asymmetricCryptographyService.digestObject(transaction));
         }
         catch (SerializationException e) {
             logger.warning("Could not serialize transaction object: " + e.getMessage());
             return false;
         }
     }
+
+    /**
+     * Compares the provided transaction hash with a previously calculated one
+     * @param transaction specifies the transaction whose hash to check
+     * @param hash specifies the calculated hash of the transaction
+     * @return true if the hashes match
+     */
+    public boolean matchesHash(TransactionDTO transaction, byte[] hash) {
+        return transaction.getTransactionHash() != null && transaction.getTransactionHash().equals(Encoding.toHexString(hash));
+    }
 }
@@ -0,0 +1,135 @@
+package org.students.simplebitcoinnode.entity.validation;
+
+import org.students.simplebitcoinnode.dto.TransactionDTO;
+import org.students.simplebitcoinnode.dto.TransactionOutputDTO;
+import org.students.simplebitcoinnode.entity.validation.annotations.*;
+import org.students.simplebitcoinnode.exceptions.encoding.SerializationException;
+import org.students.simplebitcoinnode.service.AsymmetricCryptographyService;
+import org.students.simplebitcoinnode.service.SignatureCacheService;
+import org.students.simplebitcoinnode.service.UtxoSetService;
+import org.students.simplebitcoinnode.util.UtxoSet;
+
+import java.lang.annotation.Annotation;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.logging.Logger;
+
+/**
+ * Runs all transaction constraints in a single pass, ordered from the cheapest to the most expensive one, and stops at the first violated constraint.<br>
+ * The stages are following:
+ * <ol>
+ *     <li>null value checks</li>
+ *     <li>structural checks: positive outputs, one external recipient and matching input and output sums</li>
+ *     <li>input checks against the UTXO set, all inputs are resolved with a single batched lookup</li>
+ *     <li>transaction hash check, the transaction is serialized and hashed exactly once</li>
+ *     <li>ECDSA signature verification of the outputs using the same hash</li>
+ * </ol>
+ */
+public class TransactionValidationPipeline {
+    public static final String MALFORMED_TRANSACTION_MESSAGE = "Transaction is missing required fields";
+
+    private final Logger logger = Logger.getLogger(TransactionValidationPipeline.class.getName());
+
+    private final AsymmetricCryptographyService asymmetricCryptographyService;
+    private final UtxoSetService utxoSetService;
+
+    private final PositiveTransactionOutputConstraintValidator positiveTransactionOutputConstraintValidator = new PositiveTransactionOutputConstraintValidator();
+    private final OneExternalRecipientPerTransactionConstraintValidator oneExternalRecipientPerTransactionConstraintValidator = new OneExternalRecipientPerTransactionConstraintValidator();
+    private final TransactionInputSumIsOutputSumConstraintValidator transactionInputSumIsOutputSumConstraintValidator = new TransactionInputSumIsOutputSumConstraintValidator();
+    private final DoubleSpendingConstraintValidator doubleSpendingConstraintValidator;
+    private final MatchingInputReceiverAddressesConstraintValidator matchingInputReceiverAddressesConstraintValidator;
+    private final TransactionHashConstraintValidator transactionHashConstraintValidator;
+    private final CryptographicSignatureConstraintValidator cryptographicSignatureConstraintValidator;
+
+    public TransactionValidationPipeline(AsymmetricCryptographyService asymmetricCryptographyService, UtxoSetService utxoSetService) {
+        this(asymmetricCryptographyService, utxoSetService, null);
+    }
+
+    /**
+     * Creates a pipeline whose signature verification results are cached
+     * @param asymmetricCryptographyService specifies the service used for hashing and signature verification
+     * @param utxoSetService specifies the service used for resolving inputs
+     * @param signatureCacheService specifies the signature verification result cache, null disables caching
+     */
+    public TransactionValidationPipeline(AsymmetricCryptographyService asymmetricCryptographyService, UtxoSetService utxoSetService, SignatureCacheService signatureCacheService) {
+        this.asymmetricCryptographyService = asymmetricCryptographyService;
+        this.utxoSetService = utxoSetService;
+        this.doubleSpendingConstraintValidator = new DoubleSpendingConstraintValidator(utxoSetService);
+        this.matchingInputReceiverAddressesConstraintValidator = new MatchingInputReceiverAddressesConstraintValidator(utxoSetService);
+        this.transactionHashConstraintValidator = new TransactionHashConstraintValidator(asymmetricCryptographyService);
+        this.cryptographicSignatureConstraintValidator = new CryptographicSignatureConstraintValidator(asymmetricCryptographyService, signatureCacheService);
+    }
+
+    /**
+     * Validates a transaction
+     * @param transaction specifies the transaction to validate
+     * @return Optional wrapper object containing the message of the first violated constraint, empty if the transaction is valid
+     */
+    public Optional<String> validate(TransactionDTO transaction) {
+        try {
+            if (!hasRequiredFields(transaction))
+                return Optional.of(MALFORMED_TRANSACTION_MESSAGE);
+
+            // cheap structural checks
+            if (!positiveTransactionOutputConstraintValidator.isValid(transaction.getOutputs(), null))
+                return violation(PositiveTransactionOutputConstraint.class);
+            if (!oneExternalRecipientPerTransactionConstraintValidator.isValid(transaction, null))
+                return violation(OneExternalRecipientPerTransactionConstraint.class);
+            if (!transactionInputSumIsOutputSumConstraintValidator.isValid(transaction, null))
+                return violation(TransactionInputSumIsOutputSumConstraint.class);
+
+            // resolve all inputs at once
+            List<String> inputSignatures = new ArrayList<>(transaction.getInputs().size());
+            for (TransactionOutputDTO input : transaction.getInputs())
+                inputSignatures.add(input.getSignature());
+            Map<String, UtxoSet.UnspentOutput> unspentOutputs = utxoSetService.findAll(inputSignatures);
+            if (!doubleSpendingConstraintValidator.hasUnspentInputs(transaction, unspentOutputs))
+                return violation(DoubleSpendingConstraint.class);
+            if (!matchingInputReceiverAddressesConstraintValidator.hasSenderOwnedInputs(transaction, unspentOutputs))
+                return violation(MatchingInputReceiverAddressesConstraint.class);
+
+            // serialize and hash once for both the hash check and signature verification
+            final byte[] hash = asymmetricCryptographyService.digestObject(transaction);
+            if (!transactionHashConstraintValidator.matchesHash(transaction, hash))
+                return violation(TransactionHashConstraint.class);
+            if (!cryptographicSignatureConstraintValidator.hasValidSignatures(transaction, hash))
+                return violation(CryptographicSignatureConstraint.class);
+
+            return Optional.empty();
+        }
+        catch (SerializationException e) {
+            logger.warning("Could not serialize transaction object: " + e.getMessage());
+            return violation(TransactionHashConstraint.class);
+        }
+        catch (RuntimeException e) {
+            logger.warning("Transaction validation failed unexpectedly: " + e.getMessage());
+            return Optional.of(MALFORMED_TRANSACTION_MESSAGE);
+        }
+    }
+
+    private boolean hasRequiredFields(TransactionDTO transaction) {
+        if (transaction == null || transaction.getInputs() == null || transaction.getOutputs() == null || transaction.getSenderPublicKey() == null)
+            return false;
+
+        for (TransactionOutputDTO input : transaction.getInputs()) {
+            if (input == null || input.getAmount() == null)
+                return false;
+        }
+        for (TransactionOutputDTO output : transaction.getOutputs()) {
+            if (output == null || output.getAmount() == null || output.getReceiverPublicKey() == null)
+                return false;
+        }
+        return true;
+    }
+
+    private static Optional<String> violation(Class<? extends Annotation> constraint) {
+        try {
+            return Optional.of((String)constraint.getMethod("message").getDefaultValue());
+        }
+        catch (NoSuchMethodException e) {
+            return Optional.of(constraint.getSimpleName());
+        }
+    }
+}
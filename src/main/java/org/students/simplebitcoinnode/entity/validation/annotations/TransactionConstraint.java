@@ -0,0 +1,19 @@
+package org.students.simplebitcoinnode.entity.validation.annotations;
+
+import jakarta.validation.Constraint;
+import jakarta.validation.Payload;
+import org.students.simplebitcoinnode.entity.validation.TransactionConstraintValidator;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+@Target({ ElementType.TYPE })
+@Retention(RetentionPolicy.RUNTIME)
+@Constraint(validatedBy = TransactionConstraintValidator.class)
+public @interface TransactionConstraint {
+    String message() default "Invalid transaction";
+    Class<?>[] groups() default {};
+    Class<? extends Payload>[] payload() default {};
+}
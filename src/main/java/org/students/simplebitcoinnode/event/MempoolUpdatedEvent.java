@@ -0,0 +1,17 @@
+package org.students.simplebitcoinnode.event;
+
+import lombok.Getter;
+import org.springframework.context.ApplicationEvent;
+
+/**
+ * Event that signals that new transactions have been added to the mempool
+ */
+@Getter
+public class MempoolUpdatedEvent extends ApplicationEvent {
+    private final int size;
+
+    public MempoolUpdatedEvent(Object src, int size) {
+        super(src);
+        this.size = size;
+    }
+}
@@ -14,11 +14,18 @@ public class MineBlockEvent extends ApplicationEvent {
     private final Block block;
     private final BigInteger offset;
     private final BigInteger stride;
+    // amount of consecutive nonces per stride, see NonceRangeDispenser
+    private final BigInteger width;
 
     public MineBlockEvent(Object src, Block block, BigInteger offset, BigInteger stride) {
+        this(src, block, offset, stride, BigInteger.ONE);
+    }
+
+    public MineBlockEvent(Object src, Block block, BigInteger offset, BigInteger stride, BigInteger width) {
         super(src);
         this.block = block;
         this.offset = offset;
         this.stride = stride;
+        this.width = width;
     }
 }
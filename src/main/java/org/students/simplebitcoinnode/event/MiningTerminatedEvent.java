@@ -0,0 +1,18 @@
+package org.students.simplebitcoinnode.event;
+
+import lombok.Getter;
+import org.springframework.context.ApplicationEvent;
+import org.students.simplebitcoinnode.entity.Block;
+
+/**
+ * Event that signals that all workers mining the block have exited, either because the block was mined or mining was aborted
+ */
+@Getter
+public class MiningTerminatedEvent extends ApplicationEvent {
+    private final Block block;
+
+    public MiningTerminatedEvent(Object src, Block block) {
+        super(src);
+        this.block = block;
+    }
+}
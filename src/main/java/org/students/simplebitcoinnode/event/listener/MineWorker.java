@@ -1,15 +1,13 @@
 package org.students.simplebitcoinnode.event.listener;
 
+import lombok.Getter;
 import org.springframework.context.ApplicationEventPublisher;
 import org.students.simplebitcoinnode.entity.Block;
 import org.students.simplebitcoinnode.event.BlockMinedEvent;
 import org.students.simplebitcoinnode.exceptions.encoding.InvalidEncodedStringException;
-import org.students.simplebitcoinnode.service.AsymmetricCryptographyService;
-import org.students.simplebitcoinnode.util.Encoding;
+import org.students.simplebitcoinnode.util.Sha256Hash;
+import org.students.simplebitcoinnode.util.NonceSearchEngine;
 
-import java.io.ByteArrayOutputStream;
-import java.io.IOException;
-import java.io.ObjectOutputStream;
 import java.math.BigInteger;
 import java.time.LocalDateTime;
 import java.time.ZoneId;
@@ -17,88 +15,92 @@ import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.logging.Logger;
 
 /**
- * Worker class that mines a specified region of the block nonce in one thread
+ * Worker class that mines the block in one thread, claiming nonce ranges from a dispenser shared with other workers
  */
 public class MineWorker implements Runnable {
     private final Logger logger = Logger.getLogger(MineWorker.class.getName());
 
     // injected dependencies
-    private final AsymmetricCryptographyService asymmetricCryptographyService;
     private final ApplicationEventPublisher applicationEventPublisher;
 
     // mining parameters
-    private final BigInteger offset;
-    private final BigInteger stride;
+    private final NonceRangeDispenser nonceRangeDispenser;
     private final Long zeroBitCondition;
     private final Block block;
     private final AtomicBoolean continueMining;
 
-    public MineWorker(AsymmetricCryptographyService asymmetricCryptographyService,
-                      ApplicationEventPublisher applicationEventPublisher,
-                      BigInteger offset,
-                      BigInteger stride,
+    // amount of hashes calculated by this worker, updated after each claimed chunk
+    @Getter
+    private volatile long hashCount;
+
+    public MineWorker(ApplicationEventPublisher applicationEventPublisher,
+                      NonceRangeDispenser nonceRangeDispenser,
                       Long zeroBitCondition,
                       Block block,
                       AtomicBoolean continueMining) {
-        this.asymmetricCryptographyService = asymmetricCryptographyService;
         this.applicationEventPublisher = applicationEventPublisher;
-        this.offset = offset;
-        this.stride = stride;
+        this.nonceRangeDispenser = nonceRangeDispenser;
         this.zeroBitCondition = zeroBitCondition;
         this.block = block;
         this.continueMining = continueMining;
     }
 
     /**
-     * Main function that starts block mining with specified offset and stride
+     * Main function that starts block mining, nonce ranges are claimed until the block is mined or the nonce space is exhausted
      */
     @Override
     public void run() {
-        block.setNonce(offset);
-        // for resource optimization reasons, we use digestBytes instead of digestObject using stream objects that have been constructed only once
-        try (ByteArrayOutputStream byteArrayOutputStream = new ByteArrayOutputStream();
-             ObjectOutputStream objectOutputStream = new ObjectOutputStream(byteArrayOutputStream)) {
-            // prefixVal is the first 64 bits of the SHA256 hash of the block
-            //  this value is used to check if zeroBitCondition is met
-            long prefixVal = castPrefixValBigEndian(Encoding.hexStringToBytes(block.getHash()));
-
-            while (continueMining.get() && (prefixVal & ((1L << zeroBitCondition) - 1)) != 0) {
-                objectOutputStream.reset();
-                byteArrayOutputStream.reset();
-                block.writeExternal(objectOutputStream);
-                objectOutputStream.flush();
-                byte[] bytes = byteArrayOutputStream.toByteArray();
-                byte[] hash = asymmetricCryptographyService.digestBytes(bytes);
-                block.setHash(Encoding.toHexString(hash));
-                prefixVal = castPrefixValBigEndian(hash);
-                if ((prefixVal & ((1L << zeroBitCondition) - 1)) != 0)
-                    block.setNonce(block.getNonce().add(stride));
-            }
+        final long startTime = System.nanoTime();
+        try {
+            // the block header prefix is serialized and hashed only once, afterwards only nonce bytes get rewritten
+            NonceSearchEngine engine = new NonceSearchEngine(block, zeroBitCondition);
+            final long width = nonceRangeDispenser.getWidth();
+            // distance from the last nonce of a run to the first nonce of the run in the next cycle
+            final long cycleJump = nonceRangeDispenser.getStride() - width + 1;
+            for (long lane = nonceRangeDispenser.claim(); lane >= 0 && continueMining.get(); lane = nonceRangeDispenser.claim()) {
+                final long chunkEnd = nonceRangeDispenser.chunkEnd(lane);
+                long nonce = nonceRangeDispenser.nonce(lane);
+                long runPosition = lane % width;
+                long i = lane;
+                for (; i < chunkEnd && continueMining.get(); i++) {
+                    if (test(engine, nonce)) {
+                        hashCount += i - lane + 1;
+                        // block was mined on this thread, make sure that only one thread gets to publish the event
+                        if (continueMining.compareAndSet(true, false)) {
+                            block.setNonce(BigInteger.valueOf(nonce));
+                            block.setHash(Sha256Hash.of(engine.getHash()));
+                            block.setMinedTimestamp(LocalDateTime.now(ZoneId.of("UTC")));
+                            applicationEventPublisher.publishEvent(new BlockMinedEvent(this, block));
+                        }
+                        return;
+                    }
 
-            // block was mined on this thread
-            if ((prefixVal & ((1L << zeroBitCondition) - 1)) == 0) {
-                continueMining.set(false);
-                block.setMinedTimestamp(LocalDateTime.now(ZoneId.of("UTC")));
-                applicationEventPublisher.publishEvent(new BlockMinedEvent(this, block));
+                    if (++runPosition < width)
+                        nonce++;
+                    else {
+                        runPosition = 0;
+                        nonce += cycleJump;
+                    }
+                }
+                hashCount += i - lane;
             }
-
         }
         catch (InvalidEncodedStringException e) {
-            logger.severe("Invalid initial block hash: " + e.getMessage());
+            logger.severe("Failed to serialize block header for mining: " + e.getMessage());
         }
-        catch (IOException e) {
-            logger.severe("Failed to serialize Block object into byte array: " + e.getMessage());
+        finally {
+            final double seconds = (System.nanoTime() - startTime) / 1e9;
+            logger.fine(Thread.currentThread().getName() + " exited after " + hashCount + " hashes (" + Math.round(hashCount / Math.max(seconds, 1e-9)) + " H/s)");
         }
     }
 
-    private long castPrefixValBigEndian(byte[] hash) {
-        return ((hash[7] & 0xFFL) << 56) |
-                ((hash[6] & 0xFFL) << 48) |
-                ((hash[5] & 0xFFL) << 40) |
-                ((hash[4] & 0xFFL) << 32) |
-                ((hash[3] & 0xFFL) << 24) |
-                ((hash[2] & 0xFFL) << 16) |
-                ((hash[1] & 0xFFL) << 8) |
-                ((hash[0] & 0xFFL));
+    /**
+     * Hashes the block header with given nonce, can be overridden e.g. to observe which nonces are searched
+     * @param engine specifies the search engine of the block
+     * @param nonce specifies the nonce to test
+     * @return true if the nonce satisfies the zero bit condition, false otherwise
+     */
+    protected boolean test(NonceSearchEngine engine, long nonce) {
+        return engine.test(nonce);
     }
 }
@@ -1,107 +1,247 @@
 package org.students.simplebitcoinnode.event.listener;
 
+import jakarta.annotation.PreDestroy;
 import lombok.Getter;
 import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.context.ApplicationListener;
-import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
 import org.students.simplebitcoinnode.config.BlockchainMiningConfig;
 import org.students.simplebitcoinnode.entity.Block;
+import org.students.simplebitcoinnode.entity.MerkleTreeNode;
 import org.students.simplebitcoinnode.event.MineBlockEvent;
-import org.students.simplebitcoinnode.service.AsymmetricCryptographyService;
+import org.students.simplebitcoinnode.event.MiningTerminatedEvent;
+import org.students.simplebitcoinnode.exceptions.encoding.InvalidEncodedStringException;
+import org.students.simplebitcoinnode.util.NonceSearchEngine;
+import org.students.simplebitcoinnode.util.Sha256Hash;
 
 import java.math.BigInteger;
-import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.ArrayDeque;
 import java.util.List;
 import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.logging.Logger;
 
 /**
- * Class that listens for MineBlockEvents and triggers multithreaded block mining with specified parameters
+ * Class that listens for MineBlockEvents and triggers multithreaded block mining with specified parameters.<br>
+ * Mining tasks are executed on a dedicated fixed size worker pool, which is bounded by the amount of available processors.
+ * At most <code>blockchain.mining.max-concurrent-blocks</code> blocks are mined simultaneously, each getting an equal share of
+ * the worker pool. Events that arrive when all mining slots are taken are queued until some block is either mined or aborted.<br>
+ * Workers of the same block claim nonce ranges of <code>blockchain.mining.nonce-chunk-size</code> nonces from a shared NonceRangeDispenser.
  */
 @Component
 public class MinerEventListener implements ApplicationListener<MineBlockEvent> {
     private final Logger logger = Logger.getLogger(MinerEventListener.class.getName());
+    private static final int DEFAULT_NONCE_CHUNK_SIZE = 1 << 16;
 
     // injected dependencies
-    private final AsymmetricCryptographyService asymmetricCryptographyService;
     private final ApplicationEventPublisher applicationEventPublisher;
     private final BlockchainMiningConfig blockchainMiningConfig;
 
+    // dedicated mining worker pool
+    private final ExecutorService miningExecutorService;
+    private final int poolSize;
+    private final int workersPerBlock;
+    private final int maxConcurrentBlocks;
+    private final long nonceChunkSize;
+
     @Getter
-    private final Map<String, MinerProcess> minerProcesses = new HashMap<>();
+    private final Map<Sha256Hash, MinerProcess> minerProcesses = new ConcurrentHashMap<>();
+
+    // events waiting for a free mining slot, guarded by this
+    private final Queue<MineBlockEvent> pendingEvents = new ArrayDeque<>();
 
-    public MinerEventListener(AsymmetricCryptographyService asymmetricCryptographyService,
-                              ApplicationEventPublisher applicationEventPublisher,
+    public MinerEventListener(ApplicationEventPublisher applicationEventPublisher,
                               BlockchainMiningConfig blockchainMiningConfig) {
-        this.asymmetricCryptographyService = asymmetricCryptographyService;
         this.applicationEventPublisher = applicationEventPublisher;
         this.blockchainMiningConfig = blockchainMiningConfig;
+
+        // never use more mining threads than there are processors to run them on
+        this.poolSize = Math.max(1, Math.min(blockchainMiningConfig.getThreadCount(), Runtime.getRuntime().availableProcessors()));
+        final Integer maxConcurrentBlocks = blockchainMiningConfig.getMaxConcurrentBlocks();
+        this.maxConcurrentBlocks = Math.max(1, maxConcurrentBlocks == null ? 1 : maxConcurrentBlocks);
+        this.workersPerBlock = Math.max(1, poolSize / this.maxConcurrentBlocks);
+        final Integer nonceChunkSize = blockchainMiningConfig.getNonceChunkSize();
+        this.nonceChunkSize = nonceChunkSize == null || nonceChunkSize <= 0 ? DEFAULT_NONCE_CHUNK_SIZE : nonceChunkSize;
+
+        final AtomicInteger threadIndex = new AtomicInteger();
+        this.miningExecutorService = Executors.newFixedThreadPool(poolSize, runnable -> {
+            Thread thread = new Thread(runnable, "miner-" + threadIndex.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        });
     }
 
     /**
-     * Event handler for MineBlockEvent that creates new worker threads that mine payload block
+     * Event handler for MineBlockEvent that submits mining tasks for the payload block
      * @param event the event to respond to
      */
     @Override
     public void onApplicationEvent(MineBlockEvent event) {
+        startMining(event);
+    }
+
+    /**
+     * Starts mining the payload block of given event, if a mining slot is available. Otherwise, the event is queued.
+     * @param event specifies the event whose block to mine
+     * @return MinerProcess object if mining was started, null if the block was skipped or queued
+     */
+    public synchronized MinerProcess startMining(MineBlockEvent event) {
         if (alreadyPending(event.getBlock())) {
             logger.info("Skipping block " + event.getBlock().getHash() + ", reason: block is already being mined");
-            return;
+            return null;
         }
 
-        BigInteger threadCount = BigInteger.valueOf(blockchainMiningConfig.getThreadCount());
-        BigInteger currentOffset = event.getOffset();
-        AtomicBoolean continueMining = new AtomicBoolean(true);
-        List<Thread> threads = new ArrayList<>();
+        if (minerProcesses.size() >= maxConcurrentBlocks) {
+            logger.info("Queueing block " + event.getBlock().getHash() + ", reason: " + maxConcurrentBlocks + " blocks are already being mined");
+            pendingEvents.add(event);
+            return null;
+        }
 
-        logger.info("Starting block '" + event.getBlock().getHash() + "' mining with " + threadCount + " threads");
-        for (BigInteger i = BigInteger.ZERO; i.compareTo(threadCount) < 0; i = i.add(BigInteger.ONE)) {
-            MineWorker worker = new MineWorker(
-                asymmetricCryptographyService,
+        AtomicBoolean continueMining = new AtomicBoolean(true);
+        NonceRangeDispenser nonceRangeDispenser = new NonceRangeDispenser(
+                event.getOffset().longValueExact(),
+                event.getStride().longValueExact(),
+                event.getWidth().longValueExact(),
+                nonceChunkSize);
+        MinerProcess process = new MinerProcess(event.getBlock(), continueMining, nonceRangeDispenser);
+        for (int i = 0; i < workersPerBlock; i++) {
+            process.addWorker(new MineWorker(
                 applicationEventPublisher,
-                currentOffset.add(BigInteger.ZERO),
-                event.getStride().multiply(threadCount),
+                nonceRangeDispenser,
                 blockchainMiningConfig.getMinedBlockZeroBitCount(),
                 (Block)event.getBlock().clone(),
-                continueMining);
+                continueMining));
+        }
+        minerProcesses.put(event.getBlock().getHash(), process);
 
-            Thread thread = new Thread(worker);
-            currentOffset = currentOffset.add(event.getStride());
-            thread.start();
-            threads.add(thread);
+        logger.info("Starting block '" + event.getBlock().getHash() + "' mining with " + workersPerBlock + " threads");
+        for (MineWorker worker : process.getWorkers()) {
+            miningExecutorService.execute(() -> {
+                try {
+                    worker.run();
+                }
+                finally {
+                    if (process.workerExited())
+                        processTerminated(process);
+                }
+            });
         }
 
-        minerProcesses.put(event.getBlock().getHash(), new MinerProcess(threads, event.getBlock(), continueMining));
+        return process;
     }
 
     /**
-     * Aborts mining and destroys miner process
+     * Aborts mining and waits until the miner process is destroyed
      * @param blockHash specifies the hash of the original block whose process to abort
      */
-    public void abortMining(String blockHash) throws InterruptedException {
-        if (!minerProcesses.containsKey(blockHash))
+    public void abortMining(Sha256Hash blockHash) throws InterruptedException {
+        MinerProcess process;
+        synchronized (this) {
+            pendingEvents.removeIf(event -> event.getBlock().getHash().equals(blockHash));
+            process = minerProcesses.get(blockHash);
+        }
+
+        if (process == null)
             return;
 
-        minerProcesses.get(blockHash).getMining().set(false);
-        for (Thread thread : minerProcesses.get(blockHash).getThreads())
-            thread.join();
+        process.cancel();
+        process.awaitTermination();
     }
 
     /**
-     * Scheduled task for cleaning up already mined processes
+     * Calculates the combined hash rate of all active miner processes
+     * @return sum of exponentially weighted hash rates in H/s
      */
-    @Scheduled(cron = "*/5 * * * *")
-    public void scheduledProcessCleanup() throws InterruptedException {
-        for (Map.Entry<String, MinerProcess> entry : minerProcesses.entrySet()) {
-            if (!entry.getValue().getMining().get()) {
-                for (Thread thread : entry.getValue().getThreads())
-                    thread.join();
-                minerProcesses.remove(entry.getKey());
+    public double getHashRate() {
+        return minerProcesses.values().stream().mapToDouble(MinerProcess::getHashRate).sum();
+    }
+
+    /**
+     * Measures the hash rate of the whole worker pool by hashing a synthetic block header on as many threads as the worker pool has.<br>
+     * The benchmark runs on its own short-lived threads, so that it is neither queued behind nor counted as live mining.
+     * @param durationMillis specifies how long the benchmark runs in milliseconds
+     * @return measured hash rate in H/s
+     */
+    public double benchmark(long durationMillis) throws InterruptedException {
+        final Block block = Block.builder()
+                .previousHash(Sha256Hash.ZERO)
+                .merkleTree(MerkleTreeNode.builder().hash(Sha256Hash.ZERO).build())
+                .miners(List.of())
+                .nonce(BigInteger.ZERO)
+                .headerVersion(blockchainMiningConfig.getBlockHeaderVersion())
+                .build();
+
+        final AtomicBoolean running = new AtomicBoolean(true);
+        final LongAdder hashCount = new LongAdder();
+        final AtomicInteger threadIndex = new AtomicInteger();
+        final ExecutorService benchmarkExecutorService = Executors.newFixedThreadPool(poolSize, runnable -> {
+            Thread thread = new Thread(runnable, "hash-rate-benchmark-" + threadIndex.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        final long startTime = System.nanoTime();
+        try {
+            for (int i = 0; i < poolSize; i++) {
+                benchmarkExecutorService.execute(() -> {
+                    try {
+                        // zero bit condition of 64 bits is never expected to be satisfied
+                        NonceSearchEngine engine = new NonceSearchEngine(block, 64);
+                        long nonce = 0;
+                        while (running.get())
+                            engine.test(nonce++);
+                        hashCount.add(nonce);
+                    }
+                    catch (InvalidEncodedStringException e) {
+                        logger.severe("Failed to serialize benchmark block header: " + e.getMessage());
+                    }
+                });
             }
+
+            Thread.sleep(durationMillis);
+        }
+        finally {
+            running.set(false);
+            benchmarkExecutorService.shutdown();
+        }
+        benchmarkExecutorService.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+        return hashCount.sum() / ((System.nanoTime() - startTime) / 1e9);
+    }
+
+    /**
+     * Stops all miner processes and shuts down the worker pool
+     */
+    @PreDestroy
+    public void shutdown() {
+        synchronized (this) {
+            pendingEvents.clear();
+            minerProcesses.values().forEach(MinerProcess::cancel);
         }
+        miningExecutorService.shutdownNow();
+    }
+
+    /**
+     * Removes the terminated process from the process table, starts mining the next queued block and publishes a MiningTerminatedEvent
+     * @param process specifies the process whose all workers have exited
+     */
+    private synchronized void processTerminated(MinerProcess process) {
+        minerProcesses.remove(process.getBlock().getHash(), process);
+        logger.info("Block '" + process.getBlock().getHash() + "' mining finished after " + process.getHashCount() + " hashes, " +
+                Math.round(process.getAverageHashRate() / process.getWorkerCount()) + " H/s per thread");
+
+        // the queued block is started before releasing threads that wait for this process to terminate
+        MineBlockEvent next = pendingEvents.poll();
+        if (next != null && !miningExecutorService.isShutdown())
+            startMining(next);
+        applicationEventPublisher.publishEvent(new MiningTerminatedEvent(this, process.getBlock()));
+        process.markTerminated();
     }
 
     /**
@@ -110,6 +250,7 @@ public class MinerEventListener implements ApplicationListener<MineBlockEvent> {
      * @return true if block mining is already pending, false otherwise
      */
     private boolean alreadyPending(Block block) {
-        return minerProcesses.containsKey(block.getHash());
+        return minerProcesses.containsKey(block.getHash()) ||
+                pendingEvents.stream().anyMatch(event -> event.getBlock().getHash().equals(block.getHash()));
     }
 }
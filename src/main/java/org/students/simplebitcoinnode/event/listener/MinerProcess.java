@@ -1,23 +1,159 @@
 package org.students.simplebitcoinnode.event.listener;
 
+import lombok.AccessLevel;
 import lombok.Getter;
 import org.students.simplebitcoinnode.entity.Block;
 
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
- * Data class that represents a miner process
+ * Data class that represents a miner process, i.e. a group of mining tasks working on the same block
  */
 @Getter
 public class MinerProcess {
-    private final List<Thread> threads;
+    // time constant of the exponentially weighted hash rate in seconds
+    private static final double HASH_RATE_TIME_CONSTANT = 10.0;
+    // minimal interval between hash rate samples in seconds, shorter intervals are dominated by chunk granularity
+    private static final double MIN_SAMPLE_INTERVAL = 0.5;
+
     private final Block block;
     private final AtomicBoolean mining;
 
-    public MinerProcess(List<Thread> threads, Block block, AtomicBoolean mining) {
-        this.threads = threads;
+    private final NonceRangeDispenser nonceRangeDispenser;
+    @Getter(AccessLevel.NONE)
+    private final long startTime = System.nanoTime();
+
+    @Getter(AccessLevel.PACKAGE)
+    private final List<MineWorker> workers = new ArrayList<>();
+    // amount of workers that have not exited yet
+    @Getter(AccessLevel.NONE)
+    private final AtomicInteger activeWorkers = new AtomicInteger();
+    @Getter(AccessLevel.NONE)
+    private final CountDownLatch terminated = new CountDownLatch(1);
+
+    // exponentially weighted hash rate state, guarded by this
+    @Getter(AccessLevel.NONE)
+    private long lastSampleTime = startTime;
+    @Getter(AccessLevel.NONE)
+    private long lastSampleHashCount;
+    @Getter(AccessLevel.NONE)
+    private double hashRate = Double.NaN;
+
+    public MinerProcess(Block block, AtomicBoolean mining, NonceRangeDispenser nonceRangeDispenser) {
         this.block = block;
         this.mining = mining;
+        this.nonceRangeDispenser = nonceRangeDispenser;
+    }
+
+    /**
+     * Calculates the total amount of hashes computed by all workers of the process so far
+     * @return amount of hashes, which is updated by each worker after every claimed nonce range
+     */
+    public long getHashCount() {
+        long hashCount = 0;
+        for (MineWorker worker : workers)
+            hashCount += worker.getHashCount();
+        return hashCount;
+    }
+
+    /**
+     * Calculates the average amount of hashes per second computed by the process since it was started
+     * @return average hash rate of the process in H/s
+     */
+    public double getAverageHashRate() {
+        final double seconds = (System.nanoTime() - startTime) / 1e9;
+        return getHashCount() / Math.max(seconds, 1e-9);
+    }
+
+    /**
+     * Calculates the exponentially weighted hash rate of the process. The rate is resampled on each call,
+     * given that at least MIN_SAMPLE_INTERVAL seconds have passed since the previous sample.
+     * @return exponentially weighted hash rate of the process in H/s
+     */
+    public synchronized double getHashRate() {
+        final long now = System.nanoTime();
+        final double elapsed = (now - lastSampleTime) / 1e9;
+        if (elapsed < MIN_SAMPLE_INTERVAL)
+            return Double.isNaN(hashRate) ? getAverageHashRate() : hashRate;
+
+        final long hashCount = getHashCount();
+        final double sample = (hashCount - lastSampleHashCount) / elapsed;
+        if (Double.isNaN(hashRate))
+            hashRate = sample;
+        else hashRate += (1 - Math.exp(-elapsed / HASH_RATE_TIME_CONSTANT)) * (sample - hashRate);
+
+        lastSampleTime = now;
+        lastSampleHashCount = hashCount;
+        return hashRate;
+    }
+
+    /**
+     * Signals all workers of the process to stop mining, workers check the signal before hashing each nonce
+     */
+    public void cancel() {
+        mining.set(false);
+    }
+
+    /**
+     * Blocks until all workers of the process have exited and the process has been cleaned up
+     */
+    public void awaitTermination() throws InterruptedException {
+        terminated.await();
+    }
+
+    /**
+     * Blocks until all workers of the process have exited or the timeout elapses
+     * @param timeout specifies the maximum time to wait
+     * @param unit specifies the time unit of the timeout argument
+     * @return true if the process has terminated, false if the timeout elapsed
+     */
+    public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+        return terminated.await(timeout, unit);
+    }
+
+    /**
+     * Checks if all workers of the process have exited
+     * @return true if the process has terminated, false otherwise
+     */
+    public boolean isTerminated() {
+        return terminated.getCount() == 0;
+    }
+
+    /**
+     * Registers a worker of the process, must be called before any worker is started
+     * @param worker specifies the worker to register
+     */
+    void addWorker(MineWorker worker) {
+        workers.add(worker);
+        activeWorkers.incrementAndGet();
+    }
+
+    /**
+     * Returns the amount of registered workers
+     * @return amount of workers
+     */
+    public int getWorkerCount() {
+        return workers.size();
+    }
+
+    /**
+     * Registers a worker exit
+     * @return true if the exited worker was the last active worker of the process
+     */
+    boolean workerExited() {
+        return activeWorkers.decrementAndGet() == 0;
+    }
+
+    /**
+     * Marks the process as terminated and releases all threads waiting for it
+     */
+    void markTerminated() {
+        mining.set(false);
+        terminated.countDown();
     }
 }
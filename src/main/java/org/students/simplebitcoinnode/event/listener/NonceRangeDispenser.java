@@ -0,0 +1,85 @@
+package org.students.simplebitcoinnode.event.listener;
+
+import lombok.Getter;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Lock-free dispenser of nonce ranges shared by all workers of a single miner process.<br>
+ * The nonce space assigned to this node consists of the nonces <code>offset + i * stride + j</code> (i &gt;= 0, 0 &lt;= j &lt; width), i.e. a run
+ * of width consecutive nonces in every cycle of stride nonces, where offset, width and stride are given by the pool initiator (see PoolPlanner).
+ * Lane k maps to the k-th nonce of this set in ascending order. Lane indices i are handed out in contiguous chunks from a shared atomic counter, so that
+ * workers running on faster or less busy cores simply claim more chunks instead of being bound to a fixed share of the nonce space.
+ */
+public class NonceRangeDispenser {
+    @Getter
+    private final long offset;
+    @Getter
+    private final long stride;
+    @Getter
+    private final long width;
+    @Getter
+    private final long chunkSize;
+
+    // amount of lanes whose nonce values fit into a non-negative long
+    @Getter
+    private final long laneCount;
+    private final AtomicLong nextLane = new AtomicLong();
+
+    /**
+     * Creates a new nonce range dispenser for the residue class <code>offset + i * stride</code>
+     * @param offset specifies the first nonce value of the residue class
+     * @param stride specifies the distance between consecutive nonce values of the residue class
+     * @param chunkSize specifies the amount of nonce values handed out per claim
+     */
+    public NonceRangeDispenser(long offset, long stride, long chunkSize) {
+        this(offset, stride, 1, chunkSize);
+    }
+
+    /**
+     * Creates a new nonce range dispenser
+     * @param offset specifies the first nonce value of the run in the first cycle
+     * @param stride specifies the cycle length
+     * @param width specifies the amount of consecutive nonce values per cycle
+     * @param chunkSize specifies the amount of nonce values handed out per claim
+     */
+    public NonceRangeDispenser(long offset, long stride, long width, long chunkSize) {
+        if (offset < 0 || stride <= 0 || width <= 0 || width > stride || chunkSize <= 0)
+            throw new IllegalArgumentException("Nonce offset must be non-negative, stride, width and chunk size must be positive and width must not exceed stride");
+
+        this.offset = offset;
+        this.stride = stride;
+        this.width = width;
+        this.chunkSize = chunkSize;
+        // saturate on overflow, which drops only the nonce Long.MAX_VALUE when offset, stride and width are minimal
+        final long lastCycle = (Long.MAX_VALUE - offset - (width - 1)) / stride;
+        this.laneCount = lastCycle >= Long.MAX_VALUE / width ? Long.MAX_VALUE : (lastCycle + 1) * width;
+    }
+
+    /**
+     * Claims the next unclaimed chunk of lanes
+     * @return index of the first lane of the claimed chunk, -1 if the nonce space is exhausted
+     */
+    public long claim() {
+        final long lane = nextLane.getAndAdd(chunkSize);
+        return lane >= 0 && lane < laneCount ? lane : -1;
+    }
+
+    /**
+     * Calculates the end of the chunk starting at given lane
+     * @param lane specifies the first lane of a claimed chunk
+     * @return exclusive upper bound of lanes that belong to the chunk
+     */
+    public long chunkEnd(long lane) {
+        return laneCount - lane <= chunkSize ? laneCount : lane + chunkSize;
+    }
+
+    /**
+     * Maps a lane index to its nonce value
+     * @param lane specifies the lane index, which must be less than laneCount
+     * @return nonce value of the lane
+     */
+    public long nonce(long lane) {
+        return offset + lane / width * stride + lane % width;
+    }
+}
@@ -8,11 +8,13 @@ import java.util.List;
 
 public interface AdjacentNodeRepository extends JpaRepository<AdjacentNode, Long> {
     /**
-     * Finds best nodes by hash rate
-     * @param maximumHashRate specifies the maximum hash rate one node can have
+     * Finds the next page of best nodes by hash rate, nodes are ordered by descending hash rate and ascending id,
+     * so that nodes with equal hash rates are neither skipped nor returned twice
+     * @param lastHashRate specifies the hash rate of the last node of the previous page
+     * @param lastId specifies the id of the last node of the previous page
      * @param limit specifies the query limit
      * @return a list containing AdjacentNode objects
      */
-    @Query(value = "SELECT * FROM ADJACENT_NODE WHERE AVERAGE_HASH_RATE < ?1 ORDER BY AVERAGE_HASH_RATE DESC LIMIT ?2", nativeQuery = true)
-    List<AdjacentNode> findBestNodesByHashRate(Float maximumHashRate, Integer limit);
+    @Query(value = "SELECT * FROM ADJACENT_NODE WHERE AVERAGE_HASH_RATE < ?1 OR (AVERAGE_HASH_RATE = ?1 AND ID > ?2) ORDER BY AVERAGE_HASH_RATE DESC, ID ASC LIMIT ?3", nativeQuery = true)
+    List<AdjacentNode> findNextBestNodesByHashRate(Float lastHashRate, Long lastId, Integer limit);
 }
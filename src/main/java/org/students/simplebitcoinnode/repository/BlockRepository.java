@@ -1,10 +1,14 @@
 package org.students.simplebitcoinnode.repository;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.transaction.annotation.Transactional;
 import org.students.simplebitcoinnode.entity.Block;
 import org.students.simplebitcoinnode.entity.MerkleTreeNode;
+import org.students.simplebitcoinnode.util.Sha256Hash;
 
+import java.math.BigInteger;
 import java.util.List;
 import java.util.Optional;
 
@@ -14,14 +18,14 @@ public interface BlockRepository extends JpaRepository<Block, Long> {
      * @param hash specifies the hash to use for block query
      * @return Optional wrapper object containing BlockHeader if query returned a BlockHeader, otherwise the wrapper contains null value
      */
-    Optional<Block> findBlockHeaderByHash(String hash);
+    Optional<Block> findBlockHeaderByHash(Sha256Hash hash);
 
     /**
      * Attempts to find a next block that is chained right next to the given block
      * @param previousHash specifies the hash of the previous block to use for querying
      * @return Optional wrapper object containing BlockHeader if query returned a BlockHeader, otherwise the wrapper contains null value
      */
-    Optional<Block> findBlockHeaderByPreviousHash(String previousHash);
+    Optional<Block> findBlockHeaderByPreviousHash(Sha256Hash previousHash);
 
     /**
      * Attempts to find a block which has specified merkle tree root
@@ -40,48 +44,61 @@ public interface BlockRepository extends JpaRepository<Block, Long> {
 
     /**
      * Counts how many mined blocks exist in the blockchain and returns the total amount
-     * @return amount of blocks in blockchain
+     * @return amount of blocks connected to the chain, including blocks of forks
      */
-    @Query(value = "SELECT COUNT(*) FROM BLOCKS WHERE SUBSTR(HASH, 1, 10) = '0000000000'", nativeQuery = true)
+    @Query("SELECT COUNT(b) FROM Block b WHERE b.height IS NOT NULL")
     Long findTotalAmountOfMinedBlocks();
 
     /**
-     * Recursively traverses transactions Merkle tree and returns a Block instance whose specified Merkle tree root is the traversed tree's root
-     * @param hash specifies the hash of the merkle tree root to use as an entry point for traversal
-     * @return Optional wrapper object containing BlockHeader instance if query returned objects, otherwise the wrapper contains a null value
+     * Queries the greatest height among stored blocks
+     * @return Optional wrapper object containing the greatest height, empty if no stored block is connected to the chain
      */
-    @Query(value = """
-        WITH RECURSIVE SEARCH_PARENT (parent_id, id, hash) AS (
-            SELECT i.PARENT_ID, i.ID, i.HASH
-            FROM INTERMEDIATE_MERKLE_TREE_NODES i
-            WHERE i.HASH = ?1
-            UNION ALL
-            SELECT i.PARENT_ID, i.ID, i.HASH
-            FROM INTERMEDIATE_MERKLE_TREE_NODES i
-            JOIN SEARCH_PARENT s ON s.PARENT_ID = i.ID
-        )
-        SELECT TOP 1 * FROM BLOCKS
-        WHERE MERKLE_TREE_ROOT = (SELECT ID FROM SEARCH_PARENT WHERE parent_id IS NULL);
-    """, nativeQuery = true)
-    Optional<Block> findBlockByMerkleTreeNodeHash(String hash);
+    @Query("SELECT MAX(b.height) FROM Block b")
+    Optional<Long> findMaxHeight();
 
     /**
-     * Recursively searches for a block with the longest chain and returns a Block instance if such block was found
-     * @return a block object representing the Block with the longest chain
+     * Queries all blocks within a height range
+     * @param fromHeight specifies the lowest height to include
+     * @param toHeight specifies the highest height to include
+     * @return a list of blocks ordered by height, blocks of forks share heights with the main chain
      */
-    @Query(value = """
-        WITH RECURSIVE SEARCH_LONGEST (PREVIOUS_HASH, HASH, CHAIN_LENGTH) AS (
-            SELECT b.PREVIOUS_HASH, b.HASH, 1 as CHAIN_LENGTH
-            FROM BLOCKS b
-            WHERE PREVIOUS_HASH = '0000000000000000000000000000000000000000000000000000000000000000'
-            UNION ALL
-            SELECT b.PREVIOUS_HASH, b.HASH, s.CHAIN_LENGTH + 1 AS CHAIN_LENGTH
-            FROM BLOCKS b
-            JOIN SEARCH_LONGEST s ON s.HASH = b.PREVIOUS_HASH
-            WHERE SUBSTR(b.HASH, 0, 10) = '0000000000'
-        )
-        SELECT TOP 1 * FROM BLOCKS
-        WHERE HASH = (SELECT TOP 1 HASH FROM SEARCH_LONGEST ORDER BY CHAIN_LENGTH DESC)
-    """, nativeQuery = true)
-    Block findBlockWithLongestChain();
+    List<Block> findByHeightBetweenOrderByHeightAscIdAsc(Long fromHeight, Long toHeight);
+
+    /**
+     * Queries all blocks at given height
+     * @param height specifies the height of the blocks
+     * @return a list of blocks at given height ordered by id, more than one block means that the chain has forked
+     */
+    List<Block> findByHeightOrderByIdAsc(Long height);
+
+    /**
+     * Attempts to find the stored block with the most cumulative work, the first stored block wins ties
+     * @return Optional wrapper object containing the tip block, empty if no stored block is connected to the chain
+     */
+    Optional<Block> findFirstByCumulativeWorkIsNotNullOrderByCumulativeWorkDescIdAsc();
+
+    /**
+     * Stores the chain position of a block
+     * @param id specifies the id of the block
+     * @param height specifies the distance from the genesis block
+     * @param cumulativeWork specifies the cumulative work of the chain ending with the block
+     */
+    @Transactional
+    @Modifying
+    @Query("UPDATE Block b SET b.height = ?2, b.cumulativeWork = ?3 WHERE b.id = ?1")
+    void updateChainPosition(Long id, Long height, BigInteger cumulativeWork);
+
+    /**
+     * Queries all blocks whose Merkle tree levels have not been stored yet
+     * @return a list of blocks missing from the Merkle proof index
+     */
+    @Query(value = "SELECT * FROM BLOCKS b WHERE b.ID NOT IN (SELECT m.BLOCK_ID FROM MERKLE_TREE_LEVELS m)", nativeQuery = true)
+    List<Block> findBlocksWithoutMerkleTreeLevels();
+
+    /**
+     * Queries id, hash, previous hash and height of all stored blocks ordered by id, without loading whole block entities
+     * @return a list of arrays containing the block id, hash, previous hash and height
+     */
+    @Query("SELECT b.id, b.hash, b.previousHash, b.height FROM Block b ORDER BY b.id")
+    List<Object[]> findAllBlockHeaderHashes();
 }
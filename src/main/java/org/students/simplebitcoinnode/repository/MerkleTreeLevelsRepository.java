@@ -0,0 +1,8 @@
+package org.students.simplebitcoinnode.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.students.simplebitcoinnode.entity.MerkleTreeLevels;
+
+public interface MerkleTreeLevelsRepository extends JpaRepository<MerkleTreeLevels, Long> {
+
+}
@@ -1,8 +1,25 @@
 package org.students.simplebitcoinnode.repository;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.transaction.annotation.Transactional;
 import org.students.simplebitcoinnode.entity.MerkleTreeNode;
 
 public interface MerkleTreeNodeRepository extends JpaRepository<MerkleTreeNode, Long> {
-
+    /**
+     * Fills in missing child indices of tree nodes stored before the child order was persisted.<br>
+     * Children were inserted left to right, so their order matches the order of their ids.
+     * @return amount of updated tree nodes
+     */
+    @Transactional
+    @Modifying
+    @Query(value = """
+        UPDATE INTERMEDIATE_MERKLE_TREE_NODES n SET n.CHILD_INDEX = (
+            SELECT COUNT(*) FROM INTERMEDIATE_MERKLE_TREE_NODES s
+            WHERE s.PARENT_ID = n.PARENT_ID AND s.ID < n.ID
+        )
+        WHERE n.PARENT_ID IS NOT NULL AND n.CHILD_INDEX IS NULL
+    """, nativeQuery = true)
+    int updateMissingChildIndices();
 }
@@ -0,0 +1,16 @@
+package org.students.simplebitcoinnode.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.students.simplebitcoinnode.entity.TransactionBlockIndex;
+import org.students.simplebitcoinnode.util.Sha256Hash;
+
+import java.util.Optional;
+
+public interface TransactionBlockIndexRepository extends JpaRepository<TransactionBlockIndex, Long> {
+    /**
+     * Attempts to find the first indexed location of a transaction
+     * @param transactionHash specifies the hash of the transaction to locate
+     * @return Optional wrapper object containing the index entry if the transaction was indexed, otherwise the wrapper contains null value
+     */
+    Optional<TransactionBlockIndex> findFirstByTransactionHashOrderByIdAsc(Sha256Hash transactionHash);
+}
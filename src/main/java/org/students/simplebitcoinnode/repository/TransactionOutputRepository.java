@@ -14,25 +14,31 @@ import java.util.Optional;
 @Repository
 public interface TransactionOutputRepository extends JpaRepository<TransactionOutput, Long> {
     /**
-     * Finds the number of unspent transaction outputs with given signature.
-     * @param signature specifies the signature to use for searching
-     * @return an integer value of how many unspent transaction outputs were found
+     * Finds all unspent transaction outputs (UXTOs) that belong to given wallet
+     * @param receiverPublicKey specifies the receiver's public key to use for querying
+     * @return a list of all unspent transaction outputs belonging to given wallet
      */
-    @Query(value = "SELECT COUNT(*) FROM TRANSACTION_OUTPUT t WHERE t.SIGNATURE=?1 AND t.INPUT_ID IS NULL", nativeQuery = true)
-    int findUtxoCountBySignature(String signature);
+    @Query(value = "SELECT * FROM TRANSACTION_OUTPUT t WHERE t.RECEIVER_PUBLIC_KEY=?1 AND t.INPUT_ID IS NULL", nativeQuery = true)
+    List<TransactionOutput> findUTXOsByReceiverPublicKey(String receiverPublicKey);
 
     /**
-     * Finds the transaction output by digital signature
-     * @param signature specifies the hexadecimal encoded digital signature to use for searching
-     * @return an instance of Optional<> containing TransactionOutput, if query returned an object, null otherwise.
+     * Finds the highest transaction output id
+     * @return Optional wrapper object containing the highest id, empty if there are no transaction outputs
      */
-    Optional<TransactionOutput> findTransactionOutputBySignature(String signature);
+    @Query("SELECT MAX(t.id) FROM TransactionOutput t")
+    Optional<Long> findMaxId();
 
     /**
-     * Finds all unspent transaction outputs (UXTOs) that belong to given wallet
-     * @param receiverPublicKey specifies the receiver's public key to use for querying
-     * @return a list of all unspent transaction outputs belonging to given wallet
+     * Finds transaction output rows in insertion order, i.e. outputs created by transactions and inputs spending them
+     * @param afterId specifies the id after which to start querying
+     * @param limit specifies the maximum amount of rows to query for
+     * @return list of arrays containing id, signature, amount, receiver public key and input id (null for created outputs) of each row
      */
-    @Query(value = "SELECT * FROM TRANSACTION_OUTPUT t WHERE t.RECEIVER_PUBLIC_KEY=?1 AND t.INPUT_ID IS NULL", nativeQuery = true)
-    List<TransactionOutput> findUTXOsByReceiverPublicKey(String receiverPublicKey);
+    @Query(value = """
+        SELECT t.ID, t.SIGNATURE, t.AMOUNT, t.RECEIVER_PUBLIC_KEY, t.INPUT_ID FROM TRANSACTION_OUTPUT t
+        WHERE t.ID > ?1
+        ORDER BY t.ID
+        LIMIT ?2
+    """, nativeQuery = true)
+    List<Object[]> findRowsAfterId(long afterId, int limit);
 }
@@ -1,10 +1,15 @@
 package org.students.simplebitcoinnode.repository;
 
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 import org.students.simplebitcoinnode.entity.Transaction;
+import org.students.simplebitcoinnode.util.Sha256Hash;
 
+import java.util.Collection;
 import java.util.List;
 
 @Repository
@@ -42,31 +47,46 @@ public interface TransactionRepository extends JpaRepository<Transaction, Long>
     List<Transaction> findAllTransactionsByPublicKeyAddress(String publicKey);
 
     /**
-     * Queries the amount of unverified transactions, i.e. transactions which haven't been mined into a block
-     * @return long value representing the total amount of unverified transactions
+     * Finds all transactions with given hashes
+     * @param transactionHashes specifies the hashes of transactions to query for
+     * @return list of transactions whose hash is among the given hashes, in no particular order
      */
-    @Query(value = """
-        SELECT COUNT(*) FROM LEDGER l
-        WHERE l.ID NOT IN (
-            SELECT i.TRANSACTION_ID FROM INTERMEDIATE_MERKLE_TREE_NODES i
-            WHERE i.TRANSACTION_ID != NULL
-        )
-    """, nativeQuery = true)
-    Long findAmountOfUnverifiedTransactions();
+    List<Transaction> findAllByTransactionHashIn(Collection<Sha256Hash> transactionHashes);
+
+    /**
+     * Queries pending transactions, i.e. transactions which haven't been included in any stored block, ordered by timestamp
+     * @param pageable specifies the maximum amount of transactions to query for
+     * @return list containing pending transactions
+     */
+    List<Transaction> findByConfirmedBlockIdIsNullOrderByTimestampAscIdAsc(Pageable pageable);
 
     /**
-     * Queries N unverified transactions (i.e. not belonging to any merkle tree) ordered by timestamp
-     * @param limit specifies the maximum amount of transactions to query for
-     * @return list containing at max N unverified transactions
+     * Marks transactions as included in a stored block, transactions which already belong to another block keep their block id
+     * @param blockId specifies the id of the stored block
+     * @param transactionHashes specifies the hashes of transactions included in the block
+     * @return amount of updated transactions
      */
+    @Transactional
+    @Modifying
+    @Query("UPDATE Transaction t SET t.confirmedBlockId = ?1 WHERE t.transactionHash IN ?2 AND t.confirmedBlockId IS NULL")
+    int updateConfirmedBlockId(Long blockId, Collection<Sha256Hash> transactionHashes);
+
+    /**
+     * Marks pending transactions which are found in the transaction block index as included in the first block that indexed them,
+     * e.g. transactions of blocks stored before the confirmed block id existed
+     * @return amount of updated transactions
+     */
+    @Transactional
+    @Modifying
     @Query(value = """
-        SELECT * FROM LEDGER l
-        WHERE l.ID NOT IN (
-            SELECT TRANSACTION_ID FROM INTERMEDIATE_MERKLE_TREE_NODES
-            WHERE TRANSACTION_ID IS NOT NULL
+        UPDATE LEDGER l SET l.CONFIRMED_BLOCK_ID = (
+            SELECT MIN(x.BLOCK_ID) FROM TRANSACTION_BLOCK_INDEX x
+            WHERE x.TRANSACTION_HASH = l.TRANSACTION_HASH
+        )
+        WHERE l.CONFIRMED_BLOCK_ID IS NULL
+        AND l.TRANSACTION_HASH IN (
+            SELECT TRANSACTION_HASH FROM TRANSACTION_BLOCK_INDEX
         )
-        ORDER BY TIMESTAMP
-        LIMIT ?1
     """, nativeQuery = true)
-    List<Transaction> findUnverifiedTransactionsLimitByN(int limit);
+    int updateConfirmedBlockIdsFromIndex();
 }
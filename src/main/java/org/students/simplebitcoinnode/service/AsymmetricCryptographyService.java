@@ -1,5 +1,7 @@
 package org.students.simplebitcoinnode.service;
 
+import lombok.AllArgsConstructor;
+import lombok.Getter;
 import org.springframework.stereotype.Service;
 import org.students.simplebitcoinnode.exceptions.crypto.MalformedKeyException;
 import org.students.simplebitcoinnode.exceptions.crypto.MalformedSignatureException;
@@ -8,6 +10,7 @@ import org.students.simplebitcoinnode.exceptions.encoding.SerializationException
 import java.io.*;
 import java.nio.charset.StandardCharsets;
 import java.security.KeyPair;
+import java.util.List;
 import java.util.logging.Logger;
 
 /**
@@ -44,6 +47,13 @@ public abstract class AsymmetricCryptographyService {
      */
     public abstract boolean verifyDigitalSignature(Serializable messageObject, byte[] signature, byte[] pubKey) throws SerializationException, MalformedKeyException, MalformedSignatureException;
 
+    /**
+     * Verifies a batch of digital signatures, possibly in parallel. Malformed keys and signatures count as invalid signatures.
+     * @param jobs specifies the messages, signatures and signers' public keys to verify
+     * @return true if all signatures are valid, false otherwise
+     */
+    public abstract boolean verifyAll(List<SignatureJob> jobs);
+
     /**
      * Generates a new public/private keypair
      * @return a KeyPair object representing public/private keys
@@ -86,4 +96,15 @@ public abstract class AsymmetricCryptographyService {
     protected final Logger getLogger() {
         return logger;
     }
+
+    /**
+     * Single signature verification of a batch, see <code>verifyAll</code>
+     */
+    @Getter
+    @AllArgsConstructor
+    public static class SignatureJob {
+        private final Serializable messageObject;
+        private final byte[] signature;
+        private final byte[] pubKey;
+    }
 }
\ No newline at end of file
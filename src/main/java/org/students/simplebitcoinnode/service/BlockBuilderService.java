@@ -5,24 +5,72 @@ import org.students.simplebitcoinnode.entity.MerkleTreeNode;
 import org.students.simplebitcoinnode.entity.Transaction;
 import org.students.simplebitcoinnode.exceptions.encoding.InvalidEncodedStringException;
 import org.students.simplebitcoinnode.exceptions.encoding.SerializationException;
+import org.students.simplebitcoinnode.util.BlockHeaderCodec;
+import org.students.simplebitcoinnode.util.MerkleProof;
+import org.students.simplebitcoinnode.util.MerkleTreeEngine;
+import org.students.simplebitcoinnode.util.Sha256Hash;
 
 import java.math.BigDecimal;
 import java.util.Collection;
+import java.util.Optional;
 
 public interface BlockBuilderService {
     /**
-     * Creates a merkle tree root node from a collection of transactions
+     * Creates a merkle tree root node from a collection of transactions using the legacy tree layout
      * @param transactions specifies collection list of transactions to use for hashing
      * @return MerkleTreeNode object representing the merkle tree root
      */
-    MerkleTreeNode createMerkleTreeRoot(Collection<Transaction> transactions) throws InvalidEncodedStringException;
+    default MerkleTreeNode createMerkleTreeRoot(Collection<Transaction> transactions) throws InvalidEncodedStringException {
+        return createMerkleTreeRoot(transactions, MerkleTreeEngine.LAYOUT_LEGACY);
+    }
+
+    /**
+     * Creates a merkle tree root node from a collection of transactions with specified tree layout
+     * @param transactions specifies collection list of transactions to use for hashing
+     * @param layoutVersion specifies the merkle tree layout version (see MerkleTreeEngine)
+     * @return MerkleTreeNode object representing the merkle tree root
+     */
+    MerkleTreeNode createMerkleTreeRoot(Collection<Transaction> transactions, int layoutVersion) throws InvalidEncodedStringException;
+
+    /**
+     * Creates an inclusion proof of a transaction in given block's merkle tree
+     * @param block specifies the block whose merkle tree to search
+     * @param transactionHash specifies the hash of the transaction to prove
+     * @return Optional containing the proof, empty if the transaction is not part of the block
+     */
+    Optional<MerkleProof> createMerkleProof(Block block, Sha256Hash transactionHash);
+
+    /**
+     * Verifies a merkle inclusion proof against a merkle tree root hash
+     * @param proof specifies the proof to verify
+     * @param merkleRoot specifies the expected merkle tree root hash
+     * @return true if the proof leads to given root, false otherwise
+     */
+    boolean verifyMerkleProof(MerkleProof proof, Sha256Hash merkleRoot);
 
     /**
      * Create a new block from given merkle tree root and previous block hash
      * @param merkleTreeRoot specifies Merkle tree root node to use in the new block
      * @return Block object representing the built block
      */
-    Block newBlock(MerkleTreeNode merkleTreeRoot, String previousBlockHash) throws SerializationException;
+    default Block newBlock(MerkleTreeNode merkleTreeRoot, Sha256Hash previousBlockHash) throws SerializationException {
+        return newBlock(merkleTreeRoot, previousBlockHash, BlockHeaderCodec.VERSION_LEGACY);
+    }
+
+    /**
+     * Create a new block from given merkle tree root and previous block hash with specified header format
+     * @param merkleTreeRoot specifies Merkle tree root node to use in the new block
+     * @param headerVersion specifies the block header format version (see BlockHeaderCodec)
+     * @return Block object representing the built block
+     */
+    Block newBlock(MerkleTreeNode merkleTreeRoot, Sha256Hash previousBlockHash, int headerVersion) throws SerializationException;
+
+    /**
+     * Calculates the hash of given block according to its header format version
+     * @param block specifies the block whose hash to calculate
+     * @return byte array containing the calculated hash
+     */
+    byte[] calculateBlockHash(Block block) throws SerializationException;
 
     /**
      * Build a coinbase transaction from a list of recipient addresses, who shall receive the mining rewards
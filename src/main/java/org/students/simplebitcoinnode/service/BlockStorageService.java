@@ -0,0 +1,146 @@
+package org.students.simplebitcoinnode.service;
+
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.students.simplebitcoinnode.config.BlockchainStorageConfig;
+import org.students.simplebitcoinnode.config.BlockchainStorageConfig.MerkleTreeFormat;
+import org.students.simplebitcoinnode.entity.Block;
+import org.students.simplebitcoinnode.entity.MerkleTreeLevels;
+import org.students.simplebitcoinnode.entity.MerkleTreeNode;
+import org.students.simplebitcoinnode.entity.Transaction;
+import org.students.simplebitcoinnode.event.BlockMinedEvent;
+import org.students.simplebitcoinnode.repository.BlockRepository;
+import org.students.simplebitcoinnode.repository.MerkleTreeLevelsRepository;
+import org.students.simplebitcoinnode.repository.TransactionRepository;
+import org.students.simplebitcoinnode.util.MerkleTreeEngine;
+import org.students.simplebitcoinnode.util.Sha256Hash;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Service responsible for persisting blocks together with their Merkle trees.<br>
+ * Depending on <code>blockchain.storage.merkle-tree-format</code> a Merkle tree is either stored as one MerkleTreeNode row per node
+ * or as a single root row plus one packed blob of all tree levels. Leaves of packed trees are only materialized on request.
+ */
+@Service
+public class BlockStorageService {
+    private final BlockRepository blockRepository;
+    private final TransactionRepository transactionRepository;
+    private final MerkleTreeLevelsRepository merkleTreeLevelsRepository;
+    private final MerkleProofService merkleProofService;
+    private final ChainStateService chainStateService;
+    private final MempoolService mempoolService;
+    private final MerkleTreeFormat merkleTreeFormat;
+
+    public BlockStorageService(BlockRepository blockRepository,
+                               TransactionRepository transactionRepository,
+                               MerkleTreeLevelsRepository merkleTreeLevelsRepository,
+                               MerkleProofService merkleProofService,
+                               ChainStateService chainStateService,
+                               MempoolService mempoolService,
+                               BlockchainStorageConfig blockchainStorageConfig) {
+        this.blockRepository = blockRepository;
+        this.transactionRepository = transactionRepository;
+        this.merkleTreeLevelsRepository = merkleTreeLevelsRepository;
+        this.merkleProofService = merkleProofService;
+        this.chainStateService = chainStateService;
+        this.mempoolService = mempoolService;
+        final MerkleTreeFormat merkleTreeFormat = blockchainStorageConfig.getMerkleTreeFormat();
+        this.merkleTreeFormat = merkleTreeFormat == null ? MerkleTreeFormat.ENTITIES : merkleTreeFormat;
+    }
+
+    /**
+     * Persists a block in the configured Merkle tree format, indexes and confirms its transactions and adds it to the chain index
+     * @param block specifies the block to persist, its Merkle tree must be fully materialized
+     * @return the persisted block
+     * @throws IllegalArgumentException if packed storage is configured and the block's Merkle tree is inconsistent
+     */
+    @Transactional
+    public Block save(Block block) {
+        final List<Sha256Hash> transactionHashes = new ArrayList<>();
+        collectTransactionHashes(block.getMerkleTree(), transactionHashes);
+        if (merkleTreeFormat == MerkleTreeFormat.ENTITIES || block.getMerkleTree() == null) {
+            Block saved = blockRepository.save(block);
+            merkleProofService.indexBlock(saved);
+            confirmTransactions(saved, transactionHashes);
+            chainStateService.addBlock(saved);
+            return saved;
+        }
+
+        final List<MerkleTreeNode> leaves = merkleProofService.orderedLeaves(block);
+        final MerkleTreeEngine tree = merkleProofService.buildTree(block, leaves);
+        // the root of a single transaction tree is its leaf, which keeps the link to the transaction
+        block.setMerkleTree(MerkleTreeNode.builder()
+                .hash(tree.getRoot())
+                .transaction(leaves.size() == 1 ? leaves.getFirst().getTransaction() : null)
+                .build());
+        Block saved = blockRepository.save(block);
+        merkleProofService.indexBlock(saved, tree, leaves);
+        confirmTransactions(saved, transactionHashes);
+        chainStateService.addBlock(saved);
+        return saved;
+    }
+
+    /**
+     * Event handler for BlockMinedEvent that stores blocks built and mined by this node, which confirms their transactions.<br>
+     * Runs before other listeners, so that they see the stored block. Blocks that are already stored, e.g. proposals of other pool members, are skipped.
+     * @param event specifies the event whose block was mined
+     */
+    @EventListener
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    @Transactional
+    public void onBlockMinedEvent(BlockMinedEvent event) {
+        if (event.getBlock().getId() == null)
+            save(event.getBlock());
+    }
+
+    private void confirmTransactions(Block block, List<Sha256Hash> transactionHashes) {
+        if (transactionHashes.isEmpty())
+            return;
+
+        transactionRepository.updateConfirmedBlockId(block.getId(), transactionHashes);
+        mempoolService.confirm(transactionHashes);
+    }
+
+    private void collectTransactionHashes(MerkleTreeNode node, List<Sha256Hash> transactionHashes) {
+        if (node == null)
+            return;
+        if (node.getTransaction() != null)
+            transactionHashes.add(node.getTransaction().getTransactionHash());
+        if (node.getChildren() != null)
+            node.getChildren().forEach(child -> collectTransactionHashes(child, transactionHashes));
+    }
+
+    /**
+     * Returns the materialized Merkle tree of a stored block, loading the leaves of packed trees on demand
+     * @param block specifies the stored block
+     * @return MerkleTreeNode object representing the Merkle tree root, packed trees are returned as detached nodes
+     */
+    @Transactional(readOnly = true)
+    public MerkleTreeNode loadMerkleTree(Block block) {
+        final MerkleTreeNode root = block.getMerkleTree();
+        if (block.getId() == null || root == null || (root.getChildren() != null && !root.getChildren().isEmpty()))
+            return root;
+
+        Optional<MerkleTreeLevels> levels = merkleTreeLevelsRepository.findById(block.getId());
+        if (levels.isEmpty() || levels.get().getLeafCount() <= 1)
+            return root;
+
+        MerkleTreeEngine tree = MerkleTreeEngine.fromPackedLevels(levels.get().getLevels(), levels.get().getLeafCount(), levels.get().getLayoutVersion());
+        List<Sha256Hash> leafHashes = new ArrayList<>(tree.getLeafCount());
+        for (int i = 0; i < tree.getLeafCount(); i++)
+            leafHashes.add(tree.getHash(0, i));
+
+        Map<Sha256Hash, Transaction> transactions = new HashMap<>();
+        for (Transaction transaction : transactionRepository.findAllByTransactionHashIn(leafHashes))
+            transactions.put(transaction.getTransactionHash(), transaction);
+        return tree.toMerkleTree(leafHashes.stream().map(transactions::get).toList());
+    }
+}
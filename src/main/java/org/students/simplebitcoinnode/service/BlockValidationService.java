@@ -0,0 +1,240 @@
+package org.students.simplebitcoinnode.service;
+
+import jakarta.annotation.PreDestroy;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import org.springframework.stereotype.Service;
+import org.students.simplebitcoinnode.config.BlockchainMiningConfig;
+import org.students.simplebitcoinnode.entity.Block;
+import org.students.simplebitcoinnode.entity.MerkleTreeNode;
+import org.students.simplebitcoinnode.entity.Transaction;
+import org.students.simplebitcoinnode.entity.TransactionOutput;
+import org.students.simplebitcoinnode.entity.validation.CryptographicSignatureConstraintValidator;
+import org.students.simplebitcoinnode.exceptions.encoding.InvalidEncodedStringException;
+import org.students.simplebitcoinnode.exceptions.encoding.SerializationException;
+import org.students.simplebitcoinnode.util.Encoding;
+import org.students.simplebitcoinnode.util.MerkleTreeEngine;
+import org.students.simplebitcoinnode.util.NonceSearchEngine;
+import org.students.simplebitcoinnode.util.Sha256Hash;
+
+import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.logging.Logger;
+
+/**
+ * Service that fully validates blocks received from other nodes before they are stored.<br>
+ * The validation consists of following stages, each of which is timed:
+ * <ol>
+ *     <li><code>merkle-root</code>: the Merkle tree is rebuilt from the transaction hashes of the leaves and compared with the received tree node by node,
+ *     since trees of blocks are stored as received</li>
+ *     <li><code>transactions</code>: transaction hashes and output signatures are verified in parallel on a dedicated fork/join pool
+ *     (signatures of previously verified transactions are served by SignatureCacheService),
+ *     the verification is aborted as soon as an invalid transaction is found</li>
+ *     <li><code>proof-of-work</code>: the block hash is recomputed and checked against <code>blockchain.mining.mined-block-zero-bit-count</code>,
+ *     only for blocks that are expected to be mined</li>
+ * </ol>
+ */
+@Service
+public class BlockValidationService {
+    public static final String STAGE_MERKLE_ROOT = "merkle-root";
+    public static final String STAGE_TRANSACTIONS = "transactions";
+    public static final String STAGE_PROOF_OF_WORK = "proof-of-work";
+
+    private final Logger logger = Logger.getLogger(BlockValidationService.class.getName());
+
+    private final AsymmetricCryptographyService asymmetricCryptographyService;
+    private final BlockBuilderService blockBuilderService;
+    private final SignatureCacheService signatureCacheService;
+    private final long zeroBitCondition;
+    private final ForkJoinPool validationPool;
+
+    public BlockValidationService(AsymmetricCryptographyService asymmetricCryptographyService, BlockBuilderService blockBuilderService, SignatureCacheService signatureCacheService, BlockchainMiningConfig blockchainMiningConfig) {
+        this.asymmetricCryptographyService = asymmetricCryptographyService;
+        this.blockBuilderService = blockBuilderService;
+        this.signatureCacheService = signatureCacheService;
+        final Long zeroBitCondition = blockchainMiningConfig.getMinedBlockZeroBitCount();
+        this.zeroBitCondition = zeroBitCondition == null ? 0 : zeroBitCondition;
+        this.validationPool = new ForkJoinPool(Runtime.getRuntime().availableProcessors(), pool -> {
+            ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+            thread.setName("block-validation-" + thread.getPoolIndex());
+            thread.setDaemon(true);
+            return thread;
+        }, null, false);
+    }
+
+    /**
+     * Validates a block and its transactions
+     * @param block specifies the block to validate
+     * @param requireProofOfWork specifies whether the block must already be mined, i.e. carry a nonce and a hash that satisfy the zero bit condition
+     * @return Result object containing the first failure, if any, and the duration of each executed stage
+     */
+    public Result validate(Block block, boolean requireProofOfWork) {
+        Map<String, Long> stageNanos = new LinkedHashMap<>();
+
+        // recompute the merkle root from the leaves
+        long startTime = System.nanoTime();
+        List<Transaction> transactions = new ArrayList<>();
+        String failure = validateMerkleRoot(block, transactions);
+        stageNanos.put(STAGE_MERKLE_ROOT, System.nanoTime() - startTime);
+        if (failure != null)
+            return finish(transactions, failure, stageNanos);
+
+        // verify transaction hashes and signatures in parallel
+        startTime = System.nanoTime();
+        failure = validateTransactions(transactions);
+        stageNanos.put(STAGE_TRANSACTIONS, System.nanoTime() - startTime);
+        if (failure != null || !requireProofOfWork)
+            return finish(transactions, failure, stageNanos);
+
+        startTime = System.nanoTime();
+        failure = validateProofOfWork(block);
+        stageNanos.put(STAGE_PROOF_OF_WORK, System.nanoTime() - startTime);
+        return finish(transactions, failure, stageNanos);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        validationPool.shutdownNow();
+    }
+
+    private String validateMerkleRoot(Block block, List<Transaction> transactions) {
+        if (block.getMerkleTree() == null || block.getMerkleTree().getHash() == null)
+            return "Block does not contain a merkle tree";
+
+        try {
+            final int layoutVersion = MerkleTreeEngine.checkLayoutVersion(block.getMerkleLayoutVersion());
+            List<MerkleTreeNode> leaves = MerkleTreeEngine.orderedLeaves(block.getMerkleTree(), layoutVersion);
+            List<Sha256Hash> leafHashes = new ArrayList<>(leaves.size());
+            for (MerkleTreeNode leaf : leaves) {
+                if (leaf.getTransaction() == null || leaf.getTransaction().getTransactionHash() == null)
+                    return "Merkle tree leaf does not contain a hashed transaction";
+
+                transactions.add(leaf.getTransaction());
+                leafHashes.add(leaf.getTransaction().getTransactionHash());
+            }
+
+            MerkleTreeEngine tree = MerkleTreeEngine.build(leafHashes, layoutVersion);
+            if (!tree.getRoot().equals(block.getMerkleTree().getHash()))
+                return "Mismatching merkle root";
+            if (!matchesRebuiltTree(block.getMerkleTree(), tree.toMerkleTree(transactions)))
+                return "Mismatching merkle tree node";
+            return null;
+        }
+        catch (IllegalArgumentException e) {
+            return "Malformed merkle tree: " + e.getMessage();
+        }
+    }
+
+    /**
+     * Compares the hashes and transactions of a received merkle tree with the tree rebuilt from its leaves
+     * @param node specifies the received subtree
+     * @param rebuilt specifies the corresponding rebuilt subtree
+     * @return true if both subtrees consist of equal nodes, false otherwise
+     */
+    private static boolean matchesRebuiltTree(MerkleTreeNode node, MerkleTreeNode rebuilt) {
+        if (!rebuilt.getHash().equals(node.getHash()) || node.getTransaction() != rebuilt.getTransaction())
+            return false;
+
+        final List<MerkleTreeNode> children = node.getChildren() == null ? List.of() : node.getChildren();
+        final List<MerkleTreeNode> rebuiltChildren = rebuilt.getChildren() == null ? List.of() : rebuilt.getChildren();
+        if (children.size() != rebuiltChildren.size())
+            return false;
+        for (int i = 0; i < children.size(); i++) {
+            if (!matchesRebuiltTree(children.get(i), rebuiltChildren.get(i)))
+                return false;
+        }
+        return true;
+    }
+
+    private String validateTransactions(List<Transaction> transactions) {
+        AtomicReference<String> failure = new AtomicReference<>();
+        try {
+            // allMatch stops handing out transactions once the first invalid one is found
+            final boolean valid = validationPool.submit(() -> transactions.parallelStream().allMatch(transaction -> {
+                final String transactionFailure = validateTransaction(transaction);
+                if (transactionFailure != null)
+                    failure.compareAndSet(null, transactionFailure);
+                return transactionFailure == null;
+            })).get();
+            return valid ? null : failure.get();
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return "Transaction validation was interrupted";
+        }
+        catch (ExecutionException e) {
+            return "Transaction validation failed: " + e.getCause().getMessage();
+        }
+    }
+
+    private String validateTransaction(Transaction transaction) {
+        try {
+            if (transaction.getInputs() == null || transaction.getInputs().isEmpty() || transaction.getOutputs() == null || transaction.getOutputs().isEmpty())
+                return "Transaction '" + transaction.getTransactionHash() + "' does not have any inputs or outputs";
+
+            final byte[] hash = asymmetricCryptographyService.digestObject(transaction);
+            if (!Arrays.equals(hash, transaction.getTransactionHash().getBytes()))
+                return "Mismatching hash of transaction '" + transaction.getTransactionHash() + "'";
+
+            final byte[] senderPublicKey = Encoding.defaultPubKeyDecoding(transaction.getSenderPublicKey());
+            List<AsymmetricCryptographyService.SignatureJob> signatureJobs = new ArrayList<>(transaction.getOutputs().size());
+            List<byte[]> signatures = new ArrayList<>(transaction.getOutputs().size());
+            for (TransactionOutput output : transaction.getOutputs()) {
+                if (output.getSignature() == null)
+                    return "Unsigned output in transaction '" + transaction.getTransactionHash() + "'";
+
+                byte[] sigMessage = CryptographicSignatureConstraintValidator.signatureMessage(hash, output.getReceiverPublicKey());
+                byte[] signature = Encoding.hexStringToBytes(output.getSignature());
+                signatureJobs.add(new AsymmetricCryptographyService.SignatureJob(sigMessage, signature, senderPublicKey));
+                signatures.add(signature);
+            }
+            // transactions accepted by this node earlier have already been verified
+            if (!signatureCacheService.verify(transaction.getTransactionHash(), signatures, () -> asymmetricCryptographyService.verifyAll(signatureJobs)))
+                return "Invalid cryptographic signature in transaction '" + transaction.getTransactionHash() + "'";
+            return null;
+        }
+        catch (InvalidEncodedStringException | RuntimeException e) {
+            return "Malformed transaction '" + transaction.getTransactionHash() + "': " + e.getMessage();
+        }
+    }
+
+    private String validateProofOfWork(Block block) {
+        if (block.getNonce() == null || block.getHash() == null)
+            return "Block has not been mined";
+
+        try {
+            final byte[] hash = blockBuilderService.calculateBlockHash(block);
+            if (!Arrays.equals(hash, block.getHash().getBytes()))
+                return "Mismatching block hash";
+            if (!NonceSearchEngine.isMined(hash, zeroBitCondition))
+                return "Block hash does not satisfy the zero bit condition";
+            return null;
+        }
+        catch (SerializationException e) {
+            return "Could not serialize block: " + e.getMessage();
+        }
+    }
+
+    private Result finish(List<Transaction> transactions, String failure, Map<String, Long> stageNanos) {
+        StringBuilder timings = new StringBuilder();
+        stageNanos.forEach((stage, nanos) -> timings.append(", ").append(stage).append(' ').append(nanos / 1000).append(" us"));
+        logger.info("Validated block with " + transactions.size() + " transactions" + timings + (failure == null ? "" : ", rejected: " + failure));
+        return new Result(failure == null, failure, Collections.unmodifiableMap(stageNanos));
+    }
+
+    /**
+     * Outcome of a block validation
+     */
+    @Getter
+    @AllArgsConstructor
+    public static class Result {
+        private final boolean valid;
+        // reason of the first failure, null if the block is valid
+        private final String failure;
+        // duration of each executed stage in nanoseconds, in execution order
+        private final Map<String, Long> stageNanos;
+    }
+}
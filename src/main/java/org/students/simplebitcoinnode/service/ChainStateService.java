@@ -0,0 +1,109 @@
+package org.students.simplebitcoinnode.service;
+
+import jakarta.annotation.PostConstruct;
+import org.springframework.stereotype.Service;
+import org.students.simplebitcoinnode.config.BlockchainMiningConfig;
+import org.students.simplebitcoinnode.entity.Block;
+import org.students.simplebitcoinnode.repository.BlockRepository;
+import org.students.simplebitcoinnode.util.ChainIndex;
+import org.students.simplebitcoinnode.util.Sha256Hash;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.logging.Logger;
+
+/**
+ * Service that keeps the state of the blockchain in memory.<br>
+ * The chain index is built from stored block headers at startup and updated whenever a block is stored (see BlockStorageService),
+ * which replaces recursive longest chain queries over the whole block table. Height and cumulative work of stored blocks
+ * are persisted as soon as they get connected to the chain, blocks stored before these columns existed are filled in at startup.
+ */
+@Service
+public class ChainStateService {
+    private final Logger logger = Logger.getLogger(ChainStateService.class.getName());
+
+    private final BlockRepository blockRepository;
+    private final long zeroBitCondition;
+    private volatile ChainIndex chainIndex;
+
+    public ChainStateService(BlockRepository blockRepository, BlockchainMiningConfig blockchainMiningConfig) {
+        this.blockRepository = blockRepository;
+        final Long zeroBitCondition = blockchainMiningConfig.getMinedBlockZeroBitCount();
+        this.zeroBitCondition = zeroBitCondition == null ? 0 : zeroBitCondition;
+        this.chainIndex = new ChainIndex(this.zeroBitCondition);
+    }
+
+    /**
+     * Rebuilds the chain index from all stored block headers
+     */
+    @PostConstruct
+    public void rebuild() {
+        ChainIndex rebuilt = new ChainIndex(zeroBitCondition);
+        Map<Long, Long> storedHeights = new HashMap<>();
+        List<ChainIndex.Entry> connected = new ArrayList<>();
+        for (Object[] header : blockRepository.findAllBlockHeaderHashes()) {
+            storedHeights.put((Long) header[0], (Long) header[3]);
+            connected.addAll(rebuilt.add((Long) header[0], (Sha256Hash) header[1], (Sha256Hash) header[2]));
+        }
+        chainIndex = rebuilt;
+
+        int updated = 0;
+        for (ChainIndex.Entry entry : connected) {
+            if (entry.getHeight() != Objects.requireNonNullElse(storedHeights.get(entry.getBlockId()), -1L)) {
+                blockRepository.updateChainPosition(entry.getBlockId(), entry.getHeight(), entry.getCumulativeWork());
+                updated++;
+            }
+        }
+        logger.info("Indexed " + rebuilt.size() + " blocks, chain length: " + rebuilt.getChainLength() + ", updated chain positions of " + updated + " blocks");
+    }
+
+    /**
+     * Adds a stored block to the chain index and persists the chain positions of stored blocks that got connected
+     * @param block specifies the stored block to add, its height and cumulative work are set if it gets connected
+     * @return true if the block was connected to the chain, false otherwise or if the block is not stored
+     */
+    public boolean addBlock(Block block) {
+        // unstored blocks would be lost on restart and are unknown to peers, so they must never become the tip
+        if (block.getId() == null || block.getHash() == null || block.getPreviousHash() == null)
+            return false;
+
+        List<ChainIndex.Entry> connected = chainIndex.add(block.getId(), block.getHash(), block.getPreviousHash());
+        for (ChainIndex.Entry entry : connected) {
+            if (entry.getHash().equals(block.getHash())) {
+                block.setHeight(entry.getHeight());
+                block.setCumulativeWork(entry.getCumulativeWork());
+            }
+            if (entry.getBlockId() != null)
+                blockRepository.updateChainPosition(entry.getBlockId(), entry.getHeight(), entry.getCumulativeWork());
+        }
+        return !connected.isEmpty();
+    }
+
+    /**
+     * Returns the last block of the chain with the most cumulative work
+     * @return Entry object of the tip block, null if no blocks are known
+     */
+    public ChainIndex.Entry getTip() {
+        return chainIndex.getTip();
+    }
+
+    /**
+     * Returns the amount of blocks in the chain with the most cumulative work
+     * @return chain length including the genesis block
+     */
+    public long getChainLength() {
+        return chainIndex.getChainLength();
+    }
+
+    /**
+     * Looks up a block in the chain index
+     * @param hash specifies the hash of the block
+     * @return Entry object of the block, null if the block is not connected to the chain
+     */
+    public ChainIndex.Entry getEntry(Sha256Hash hash) {
+        return chainIndex.get(hash);
+    }
+}
@@ -0,0 +1,110 @@
+package org.students.simplebitcoinnode.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.stereotype.Service;
+import org.students.simplebitcoinnode.config.BlockchainMiningConfig;
+import org.students.simplebitcoinnode.dto.HashRateDTO;
+import org.students.simplebitcoinnode.event.listener.MinerEventListener;
+import org.students.simplebitcoinnode.event.listener.MinerProcess;
+import org.students.simplebitcoinnode.util.Sha256Hash;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+
+/**
+ * Service that measures the hash rate of this node.<br>
+ * While blocks are being mined, the hash rate is derived from live hash counters of mining workers. Otherwise, the node is calibrated
+ * by a short benchmark. Calibration runs on a dedicated thread right after startup and then every
+ * <code>blockchain.mining.hash-rate-calibration-interval</code> milliseconds, so that getters never block on a benchmark.
+ */
+@Service
+public class HashRateService {
+    public static final long DEFAULT_CALIBRATION_INTERVAL = 600000;
+
+    private final Logger logger = Logger.getLogger(HashRateService.class.getName());
+
+    private final MinerEventListener minerEventListener;
+    private final BlockchainMiningConfig blockchainMiningConfig;
+    private final ScheduledExecutorService calibrationExecutorService;
+
+    // hash rate measured by the last calibration in H/s, negative if the node has not been calibrated yet
+    private volatile double calibratedHashRate = -1;
+
+    public HashRateService(MinerEventListener minerEventListener, BlockchainMiningConfig blockchainMiningConfig) {
+        this.minerEventListener = minerEventListener;
+        this.blockchainMiningConfig = blockchainMiningConfig;
+        this.calibrationExecutorService = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "hash-rate-calibration");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Schedules the first calibration immediately and recalibrations at a fixed delay
+     */
+    @PostConstruct
+    public void start() {
+        final Long interval = blockchainMiningConfig.getHashRateCalibrationInterval();
+        calibrationExecutorService.scheduleWithFixedDelay(this::calibrate, 0,
+                interval == null || interval <= 0 ? DEFAULT_CALIBRATION_INTERVAL : interval, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        calibrationExecutorService.shutdownNow();
+    }
+
+    /**
+     * Recalibrates the hash rate of the node.
+     * If blocks are being mined, the live hash rate is used instead of running the benchmark.
+     */
+    public synchronized void calibrate() {
+        if (!minerEventListener.getMinerProcesses().isEmpty()) {
+            calibratedHashRate = minerEventListener.getHashRate();
+            return;
+        }
+
+        try {
+            final double benchmarkHashRate = minerEventListener.benchmark(blockchainMiningConfig.getHashRateCalibrationDuration());
+            // mining that started during the benchmark competed for the same cores, its live hash rate is more accurate
+            calibratedHashRate = minerEventListener.getMinerProcesses().isEmpty() ? benchmarkHashRate : minerEventListener.getHashRate();
+            logger.info("Calibrated node hash rate: " + Math.round(calibratedHashRate) + " H/s");
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            logger.warning("Hash rate calibration was interrupted");
+        }
+    }
+
+    /**
+     * Returns the hash rate to publish when registering with peers, as measured by the last calibration
+     * @return hash rate in MH/s, 0 until the first calibration has finished
+     */
+    public float getAverageHashRate() {
+        return (float) (Math.max(calibratedHashRate, 0) / 1e6);
+    }
+
+    /**
+     * Builds a hash rate report of the node
+     * @return HashRateDTO object containing live and calibrated hash rates
+     */
+    public HashRateDTO getHashRateReport() {
+        Map<String, Double> blocks = new HashMap<>();
+        for (Map.Entry<Sha256Hash, MinerProcess> entry : minerEventListener.getMinerProcesses().entrySet())
+            blocks.put(entry.getKey().toString(), entry.getValue().getHashRate());
+
+        final float averageHashRate = getAverageHashRate();
+        return HashRateDTO.builder()
+                .hashRate(blocks.values().stream().mapToDouble(Double::doubleValue).sum())
+                .calibratedHashRate(calibratedHashRate)
+                .averageHashRate(averageHashRate)
+                .blocks(blocks)
+                .build();
+    }
+}
@@ -0,0 +1,188 @@
+package org.students.simplebitcoinnode.service;
+
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.students.simplebitcoinnode.config.BlockchainMempoolConfig;
+import org.students.simplebitcoinnode.entity.Transaction;
+import org.students.simplebitcoinnode.event.MempoolUpdatedEvent;
+import org.students.simplebitcoinnode.event.MiningTerminatedEvent;
+import org.students.simplebitcoinnode.repository.TransactionRepository;
+import org.students.simplebitcoinnode.util.Mempool;
+import org.students.simplebitcoinnode.util.Sha256Hash;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.logging.Logger;
+
+/**
+ * Service that keeps pending transactions in memory, so that block assembly does not need to scan the ledger.<br>
+ * New transactions are added when they are received, which signals block assembly with a MempoolUpdatedEvent.
+ * Block building drains them in arrival order and transactions of stored blocks are removed. Drained transactions of blocks this node
+ * mines are held until mining terminates. Mined blocks are stored (see BlockStorageService), which confirms their held transactions,
+ * so only transactions of blocks whose mining was aborted, failed or ran out of nonces are restored.
+ * Pending transactions are persisted as ledger rows without a confirmed block id, from which the mempool is rebuilt at startup.
+ */
+@Service
+public class MempoolService {
+    public static final int DEFAULT_CAPACITY = 100000;
+
+    private final Logger logger = Logger.getLogger(MempoolService.class.getName());
+
+    private final ApplicationEventPublisher applicationEventPublisher;
+    private final TransactionRepository transactionRepository;
+    private final Mempool mempool;
+    // drained transactions of blocks that are being mined by this node, guarded by itself
+    private final Map<Sha256Hash, List<Transaction>> miningTransactions = new HashMap<>();
+
+    public MempoolService(ApplicationEventPublisher applicationEventPublisher, TransactionRepository transactionRepository, BlockchainMempoolConfig blockchainMempoolConfig) {
+        this.applicationEventPublisher = applicationEventPublisher;
+        this.transactionRepository = transactionRepository;
+        final Integer capacity = blockchainMempoolConfig.getCapacity();
+        this.mempool = new Mempool(capacity == null || capacity <= 0 ? DEFAULT_CAPACITY : capacity);
+    }
+
+    /**
+     * Loads pending transactions from the ledger, after confirming transactions of blocks indexed before the confirmed block id existed.<br>
+     * Runs after the Merkle tree index of stored blocks has been completed.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Order(Ordered.LOWEST_PRECEDENCE)
+    @Transactional
+    public void rebuild() {
+        final int confirmed = transactionRepository.updateConfirmedBlockIdsFromIndex();
+        if (confirmed > 0)
+            logger.info("Confirmed " + confirmed + " transactions of previously indexed blocks");
+
+        List<Transaction> transactions = transactionRepository.findByConfirmedBlockIdIsNullOrderByTimestampAscIdAsc(PageRequest.of(0, mempool.getCapacity()));
+        final long added = transactions.stream().filter(mempool::add).count();
+        logger.info("Loaded " + added + " pending transactions into the mempool");
+        if (added > 0)
+            applicationEventPublisher.publishEvent(new MempoolUpdatedEvent(this, mempool.size()));
+    }
+
+    /**
+     * Adds a stored transaction to the mempool and publishes a MempoolUpdatedEvent
+     * @param transaction specifies the transaction to add
+     * @return true if the transaction was added, false if it is already pending or the mempool is full
+     */
+    public boolean add(Transaction transaction) {
+        if (!mempool.add(transaction))
+            return false;
+
+        applicationEventPublisher.publishEvent(new MempoolUpdatedEvent(this, mempool.size()));
+        return true;
+    }
+
+    /**
+     * Checks if the mempool is able to accept more transactions
+     * @return true if the mempool is full
+     */
+    public boolean isFull() {
+        return mempool.isFull();
+    }
+
+    /**
+     * Counts the pending transactions
+     * @return amount of pending transactions
+     */
+    public int size() {
+        return mempool.size();
+    }
+
+    /**
+     * Removes the transactions of the next block in arrival order once any block assembly threshold has been reached
+     * @param maxCount specifies the maximum amount of transactions in a block
+     * @param maxBytes specifies the maximum estimated size of transactions in a block
+     * @param maxWaitNanos specifies the maximum time in nanoseconds the oldest transaction waits for block assembly, non-positive to wait indefinitely
+     * @return list of drained transactions, empty if no threshold has been reached yet
+     */
+    public List<Transaction> drainBlock(int maxCount, long maxBytes, long maxWaitNanos) {
+        return mempool.drainBlock(maxCount, maxBytes, maxWaitNanos);
+    }
+
+    /**
+     * Calculates the time until a block assembly threshold is reached, assuming that no transactions get added
+     * @param maxCount specifies the maximum amount of transactions in a block
+     * @param maxBytes specifies the maximum estimated size of transactions in a block
+     * @param maxWaitNanos specifies the maximum time in nanoseconds the oldest transaction waits for block assembly, non-positive to wait indefinitely
+     * @return 0 if a block can be assembled right away, remaining nanoseconds until the wait time threshold or -1 if no threshold will be reached
+     */
+    public long nanosUntilBlock(int maxCount, long maxBytes, long maxWaitNanos) {
+        return mempool.nanosUntilBlock(maxCount, maxBytes, maxWaitNanos);
+    }
+
+    /**
+     * Puts drained transactions back in front of the mempool, e.g. when no block could be built from them
+     * @param transactions specifies the drained transactions
+     */
+    public void restore(List<Transaction> transactions) {
+        mempool.restore(transactions);
+    }
+
+    /**
+     * Holds drained transactions of a block this node starts mining. Transactions that are not confirmed by the time mining
+     * of the block terminates, i.e. the block was not mined and stored, are restored.
+     * @param blockHash specifies the hash of the block to be mined
+     * @param transactions specifies the drained transactions of the block
+     */
+    public void holdForMining(Sha256Hash blockHash, List<Transaction> transactions) {
+        synchronized (miningTransactions) {
+            miningTransactions.computeIfAbsent(blockHash, hash -> new ArrayList<>()).addAll(transactions);
+        }
+    }
+
+    /**
+     * Puts held transactions of a block back in front of the mempool and publishes a MempoolUpdatedEvent
+     * @param blockHash specifies the hash of the block whose transactions to restore
+     * @return true if transactions of the block were held, false otherwise
+     */
+    public boolean releaseMining(Sha256Hash blockHash) {
+        final List<Transaction> transactions;
+        synchronized (miningTransactions) {
+            transactions = miningTransactions.remove(blockHash);
+            if (transactions == null)
+                return false;
+            // restoring under the lock keeps confirmed transactions from slipping back into the mempool
+            mempool.restore(transactions);
+        }
+
+        if (!transactions.isEmpty())
+            applicationEventPublisher.publishEvent(new MempoolUpdatedEvent(this, mempool.size()));
+        return true;
+    }
+
+    /**
+     * Event handler for MiningTerminatedEvent that restores held transactions of the block
+     * @param event specifies the event whose block is no longer mined
+     */
+    @EventListener
+    public void onMiningTerminatedEvent(MiningTerminatedEvent event) {
+        releaseMining(event.getBlock().getHash());
+    }
+
+    /**
+     * Removes transactions which have been included in a stored block, including held transactions of blocks being mined
+     * @param transactionHashes specifies the hashes of included transactions
+     * @return amount of removed pending transactions
+     */
+    public int confirm(Collection<Sha256Hash> transactionHashes) {
+        synchronized (miningTransactions) {
+            if (!miningTransactions.isEmpty()) {
+                final Set<Sha256Hash> confirmed = new HashSet<>(transactionHashes);
+                miningTransactions.values().forEach(transactions -> transactions.removeIf(transaction -> confirmed.contains(transaction.getTransactionHash())));
+            }
+            return mempool.removeAll(transactionHashes);
+        }
+    }
+}
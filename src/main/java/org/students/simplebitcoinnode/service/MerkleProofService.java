@@ -0,0 +1,175 @@
+package org.students.simplebitcoinnode.service;
+
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.students.simplebitcoinnode.dto.BlockHeaderDTO;
+import org.students.simplebitcoinnode.dto.MerkleProofDTO;
+import org.students.simplebitcoinnode.entity.Block;
+import org.students.simplebitcoinnode.entity.MerkleTreeLevels;
+import org.students.simplebitcoinnode.entity.MerkleTreeNode;
+import org.students.simplebitcoinnode.entity.TransactionBlockIndex;
+import org.students.simplebitcoinnode.repository.BlockRepository;
+import org.students.simplebitcoinnode.repository.MerkleTreeLevelsRepository;
+import org.students.simplebitcoinnode.repository.MerkleTreeNodeRepository;
+import org.students.simplebitcoinnode.repository.TransactionBlockIndexRepository;
+import org.students.simplebitcoinnode.util.MerkleProof;
+import org.students.simplebitcoinnode.util.MerkleTreeEngine;
+import org.students.simplebitcoinnode.util.Sha256Hash;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.logging.Logger;
+
+/**
+ * Service that maintains the transaction to block index and packed Merkle tree levels of stored blocks
+ * and serves Merkle inclusion proofs from them
+ */
+@Service
+public class MerkleProofService {
+    private final Logger logger = Logger.getLogger(MerkleProofService.class.getName());
+
+    private final BlockRepository blockRepository;
+    private final MerkleTreeLevelsRepository merkleTreeLevelsRepository;
+    private final MerkleTreeNodeRepository merkleTreeNodeRepository;
+    private final TransactionBlockIndexRepository transactionBlockIndexRepository;
+
+    public MerkleProofService(BlockRepository blockRepository,
+                              MerkleTreeLevelsRepository merkleTreeLevelsRepository,
+                              MerkleTreeNodeRepository merkleTreeNodeRepository,
+                              TransactionBlockIndexRepository transactionBlockIndexRepository) {
+        this.blockRepository = blockRepository;
+        this.merkleTreeLevelsRepository = merkleTreeLevelsRepository;
+        this.merkleTreeNodeRepository = merkleTreeNodeRepository;
+        this.transactionBlockIndexRepository = transactionBlockIndexRepository;
+    }
+
+    /**
+     * Stores packed Merkle tree levels of a persisted block and indexes the location of its transactions
+     * @param block specifies the persisted block to index
+     * @return true if the block was indexed, false if its Merkle tree is missing or inconsistent
+     */
+    @Transactional
+    public boolean indexBlock(Block block) {
+        if (block.getId() == null || block.getMerkleTree() == null)
+            return false;
+
+        try {
+            final List<MerkleTreeNode> leaves = orderedLeaves(block);
+            indexBlock(block, buildTree(block, leaves), leaves);
+            return true;
+        }
+        catch (IllegalArgumentException e) {
+            logger.warning("Skipping Merkle tree indexing of block '" + block.getHash() + "', reason: " + e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Stores packed Merkle tree levels of a persisted block and indexes the location of its transactions
+     * @param block specifies the persisted block to index
+     * @param tree specifies the Merkle tree of the block
+     * @param leaves specifies the leaf nodes of the block's Merkle tree in tree order
+     */
+    @Transactional
+    public void indexBlock(Block block, MerkleTreeEngine tree, List<MerkleTreeNode> leaves) {
+        merkleTreeLevelsRepository.save(new MerkleTreeLevels(block.getId(), tree.getLayoutVersion(), tree.getLeafCount(), tree.toPackedLevels()));
+        List<TransactionBlockIndex> entries = new ArrayList<>(leaves.size());
+        for (int i = 0; i < leaves.size(); i++) {
+            if (leaves.get(i).getTransaction() != null)
+                entries.add(new TransactionBlockIndex(null, leaves.get(i).getHash(), block.getId(), i));
+        }
+        transactionBlockIndexRepository.saveAll(entries);
+    }
+
+    /**
+     * Recovers the leaves of a block's materialized Merkle tree in tree order
+     * @param block specifies the block whose Merkle tree to walk
+     * @return list of leaf nodes in tree order
+     * @throws IllegalArgumentException if the layout version is unsupported or the tree structure does not match it
+     */
+    public List<MerkleTreeNode> orderedLeaves(Block block) {
+        return MerkleTreeEngine.orderedLeaves(block.getMerkleTree(), MerkleTreeEngine.checkLayoutVersion(block.getMerkleLayoutVersion()));
+    }
+
+    /**
+     * Rebuilds a block's Merkle tree from its leaves and checks it against the stored root hash
+     * @param block specifies the block whose Merkle tree to rebuild
+     * @param leaves specifies the leaf nodes of the block's Merkle tree in tree order
+     * @return MerkleTreeEngine object holding all levels of the tree
+     * @throws IllegalArgumentException if the rebuilt root hash does not match the block's Merkle tree root
+     */
+    public MerkleTreeEngine buildTree(Block block, List<MerkleTreeNode> leaves) {
+        MerkleTreeEngine tree = MerkleTreeEngine.build(leaves.stream().map(MerkleTreeNode::getHash).toList(),
+                MerkleTreeEngine.checkLayoutVersion(block.getMerkleLayoutVersion()));
+        if (!block.getMerkleTree().getHash().equals(tree.getRoot()))
+            throw new IllegalArgumentException("stored root hash does not match its leaves");
+        return tree;
+    }
+
+    /**
+     * Indexes all stored blocks which have not been indexed yet, e.g. blocks stored before the index existed.<br>
+     * Child order of Merkle trees stored before it was persisted is filled in first, since such trees cannot be loaded otherwise.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    @Transactional
+    public void indexMissingBlocks() {
+        final int ordered = merkleTreeNodeRepository.updateMissingChildIndices();
+        if (ordered > 0)
+            logger.info("Filled in child order of " + ordered + " Merkle tree nodes");
+
+        List<Block> blocks = blockRepository.findBlocksWithoutMerkleTreeLevels();
+        if (blocks.isEmpty())
+            return;
+
+        final long indexed = blocks.stream().filter(this::indexBlock).count();
+        logger.info("Indexed Merkle trees of " + indexed + " out of " + blocks.size() + " unindexed blocks");
+    }
+
+    /**
+     * Creates a Merkle inclusion proof of a transaction in the block that contains it
+     * @param transactionHash specifies the hash of the transaction
+     * @return Optional wrapper object containing the proof, empty if the transaction is not part of any indexed block
+     */
+    @Transactional(readOnly = true)
+    public Optional<MerkleProofDTO> getProof(Sha256Hash transactionHash) {
+        Optional<TransactionBlockIndex> entry = transactionBlockIndexRepository.findFirstByTransactionHashOrderByIdAsc(transactionHash);
+        if (entry.isEmpty())
+            return Optional.empty();
+
+        Optional<MerkleTreeLevels> levels = merkleTreeLevelsRepository.findById(entry.get().getBlockId());
+        Optional<Block> block = blockRepository.findById(entry.get().getBlockId());
+        if (levels.isEmpty() || block.isEmpty())
+            return Optional.empty();
+
+        MerkleTreeEngine engine = MerkleTreeEngine.fromPackedLevels(levels.get().getLevels(), levels.get().getLeafCount(), levels.get().getLayoutVersion());
+        MerkleProof proof = engine.createProof(entry.get().getLeafIndex());
+        return Optional.of(MerkleProofDTO.builder()
+                .block(toBlockHeaderDTO(block.get(), engine.getRoot()))
+                .transactionHash(proof.getLeafHash().toString())
+                .leafIndex(entry.get().getLeafIndex())
+                .layoutVersion(proof.getLayoutVersion())
+                .path(proof.getPath().stream()
+                        .map(step -> new MerkleProofDTO.Step(step.getSiblingHash().toString(), step.isLeft()))
+                        .toList())
+                .build());
+    }
+
+    private BlockHeaderDTO toBlockHeaderDTO(Block block, Sha256Hash merkleRoot) {
+        return BlockHeaderDTO.builder()
+                .hash(block.getHash().toString())
+                .previousHash(block.getPreviousHash().toString())
+                .merkleRoot(merkleRoot.toString())
+                .blockAssemblyTimestamp(block.getBlockAssemblyTimestamp())
+                .minedTimestamp(block.getMinedTimestamp())
+                .nonce(block.getNonce())
+                .headerVersion(block.getHeaderVersion())
+                .merkleLayoutVersion(block.getMerkleLayoutVersion())
+                .build();
+    }
+}
@@ -7,8 +7,10 @@ import org.students.simplebitcoinnode.dto.PoolMiningProposalDTO;
 import org.students.simplebitcoinnode.entity.Block;
 import org.students.simplebitcoinnode.entity.MinerPublicKey;
 import org.students.simplebitcoinnode.event.MineBlockEvent;
+import org.students.simplebitcoinnode.exceptions.encoding.InvalidEncodedStringException;
 import org.students.simplebitcoinnode.repository.BlockRepository;
 import org.students.simplebitcoinnode.util.DTOMapperWrapper;
+import org.students.simplebitcoinnode.util.Sha256Hash;
 
 import java.math.BigInteger;
 import java.util.ArrayList;
@@ -21,22 +23,34 @@ public class MiningService {
     private final DTOMapperWrapper dtoMapperWrapper;
     private final ApplicationEventPublisher applicationEventPublisher;
     private final BlockRepository blockRepository;
+    private final BlockStorageService blockStorageService;
+    private final BlockValidationService blockValidationService;
 
-    public MiningService(DTOMapperWrapper dtoMapperWrapper, ApplicationEventPublisher applicationEventPublisher, BlockRepository blockRepository) {
+    public MiningService(DTOMapperWrapper dtoMapperWrapper, ApplicationEventPublisher applicationEventPublisher, BlockRepository blockRepository, BlockStorageService blockStorageService, BlockValidationService blockValidationService) {
         this.dtoMapperWrapper = dtoMapperWrapper;
         this.applicationEventPublisher = applicationEventPublisher;
         this.blockRepository = blockRepository;
+        this.blockStorageService = blockStorageService;
+        this.blockValidationService = blockValidationService;
     }
 
     /**
      * Proposes a new mining operation.
      *
      * @param proposalDTO The data transfer object containing the details of the proposal.
-     * @throws IllegalArgumentException If the expected pool size is larger than the allowed size or if the previous block hash does not represent a block with the longest chain.
+     * @throws IllegalArgumentException If the expected pool size is larger than the allowed size, if the previous block hash does not represent a block with the longest chain
+     * or if the block or any of its transactions is invalid.
      */
     public void propose(PoolMiningProposalDTO proposalDTO) {
+        Block block = dtoMapperWrapper.unmap(proposalDTO.getBlock(), Block.class);
+
+        // Re-verify the merkle root and all transactions, proposed blocks are mined only after the pool has been initiated
+        BlockValidationService.Result result = blockValidationService.validate(block, false);
+        if (!result.isValid())
+            throw new IllegalArgumentException("Invalid block: " + result.getFailure());
+
         // Save new block to the database
-        blockRepository.save(dtoMapperWrapper.unmap(proposalDTO.getBlock(), Block.class));
+        blockStorageService.save(block);
     }
 
     /**
@@ -48,7 +62,13 @@ public class MiningService {
      */
     public Block initiate(PoolInitiationBlockMetadataDTO poolInitiationBlockMetadataDTO) {
         // Get block for initiating
-        Block initiateBlock = blockRepository.findBlockHeaderByHash(poolInitiationBlockMetadataDTO.getHash()).orElse(null);
+        Block initiateBlock;
+        try {
+            initiateBlock = blockRepository.findBlockHeaderByHash(Sha256Hash.fromHex(poolInitiationBlockMetadataDTO.getHash())).orElse(null);
+        }
+        catch (InvalidEncodedStringException e) {
+            throw new IllegalArgumentException("Invalid block hash: " + e.getMessage());
+        }
 
         // Get list of miners publicKeys and modify block
         List<MinerPublicKey> minerPublicKeyList = new ArrayList<>();
@@ -63,8 +83,9 @@ public class MiningService {
 
         // Publish new MineBlockEvent
         BigInteger offset = BigInteger.valueOf(poolInitiationBlockMetadataDTO.getOffset());
-        BigInteger stride = BigInteger.valueOf(minerPublicKeyList.size());
-        MineBlockEvent mineBlockEvent = new MineBlockEvent(MiningService.class, initiateBlock, offset, stride);
+        BigInteger stride = BigInteger.valueOf(poolInitiationBlockMetadataDTO.getStride() == null ? minerPublicKeyList.size() : poolInitiationBlockMetadataDTO.getStride());
+        BigInteger width = BigInteger.valueOf(poolInitiationBlockMetadataDTO.getWidth() == null ? 1 : poolInitiationBlockMetadataDTO.getWidth());
+        MineBlockEvent mineBlockEvent = new MineBlockEvent(MiningService.class, initiateBlock, offset, stride, width);
         applicationEventPublisher.publishEvent(mineBlockEvent);
 
         return initiateBlock;
@@ -2,6 +2,8 @@ package org.students.simplebitcoinnode.service;
 
 import org.students.simplebitcoinnode.dto.BlockIntroductionDTO;
 import org.students.simplebitcoinnode.entity.AdjacentNode;
+import org.students.simplebitcoinnode.util.PoolPlanner;
+import org.students.simplebitcoinnode.util.Sha256Hash;
 
 import java.io.IOException;
 import java.util.List;
@@ -20,7 +22,8 @@ public interface PoolFinderService {
     /**
      * Send pool mining initiation request to nodes that accepted pool mining proposal
      * @param poolNodes specifies the list of nodes that accepted the proposal
+     * @param nonceShares specifies the nonce share of each pool node, in the same order as poolNodes (see PoolPlanner)
      * @param blockHash represents the original hash of the block to mine
      */
-    void initiatePoolMining(List<AdjacentNode> poolNodes, String blockHash) throws IOException;
+    void initiatePoolMining(List<AdjacentNode> poolNodes, List<PoolPlanner.NonceShare> nonceShares, Sha256Hash blockHash) throws IOException;
 }
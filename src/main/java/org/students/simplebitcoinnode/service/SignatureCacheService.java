@@ -0,0 +1,134 @@
+package org.students.simplebitcoinnode.service;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.stereotype.Service;
+import org.students.simplebitcoinnode.config.CryptographyConfig;
+import org.students.simplebitcoinnode.dto.SignatureCacheDTO;
+import org.students.simplebitcoinnode.util.LruCache;
+import org.students.simplebitcoinnode.util.Sha256;
+import org.students.simplebitcoinnode.util.Sha256Hash;
+
+import java.nio.ByteBuffer;
+import java.security.MessageDigest;
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Service that remembers signature verification results of transactions, so that a transaction validated on submission,
+ * on a client retry and again inside a proposed block is verified with ECDSA only once.<br>
+ * Results are keyed by the calculated transaction hash, which covers the sender, receivers and amounts, together with a digest of all output signatures.
+ * A result is therefore only reused for the exact same signed content and never needs to be invalidated, entries are only evicted when the cache is full.
+ * Hit and miss counts are served at <code>/blockchain/signature-cache</code> and registered as <code>blockchain.signature.cache</code> metrics.
+ */
+@Service
+public class SignatureCacheService implements MeterBinder {
+    public static final int DEFAULT_SIGNATURE_CACHE_SIZE = 65536;
+
+    private final LruCache<Sha256Hash, Entry> cache;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    public SignatureCacheService(CryptographyConfig cryptographyConfig) {
+        final Integer capacity = cryptographyConfig.getSignatureCacheSize();
+        this.cache = new LruCache<>(capacity == null ? DEFAULT_SIGNATURE_CACHE_SIZE : capacity);
+    }
+
+    /**
+     * Returns the cached verification result of a transaction's signatures or verifies them and caches the result
+     * @param transactionHash specifies the calculated hash of the transaction
+     * @param signatures specifies the decoded output signatures in output order
+     * @param verifier specifies the verification to run on a cache miss
+     * @return true if the signatures are valid, false otherwise
+     */
+    public boolean verify(Sha256Hash transactionHash, List<byte[]> signatures, BooleanSupplier verifier) {
+        final byte[] signaturesDigest = digestSignatures(signatures);
+        Entry entry = cache.get(transactionHash);
+        if (entry != null && MessageDigest.isEqual(entry.signaturesDigest, signaturesDigest)) {
+            hits.increment();
+            return entry.valid;
+        }
+
+        misses.increment();
+        final boolean valid = verifier.getAsBoolean();
+        cache.put(transactionHash, new Entry(signaturesDigest, valid));
+        return valid;
+    }
+
+    /**
+     * Counts verifications answered from the cache
+     * @return amount of cache hits
+     */
+    public long getHitCount() {
+        return hits.sum();
+    }
+
+    /**
+     * Counts verifications that were not cached
+     * @return amount of cache misses
+     */
+    public long getMissCount() {
+        return misses.sum();
+    }
+
+    /**
+     * Counts the cached verification results
+     * @return amount of cached results
+     */
+    public int size() {
+        return cache.size();
+    }
+
+    /**
+     * Builds a report of the cache usage
+     * @return SignatureCacheDTO object containing hit and miss counts and the amount of cached results
+     */
+    public SignatureCacheDTO getReport() {
+        return SignatureCacheDTO.builder()
+                .hits(getHitCount())
+                .misses(getMissCount())
+                .size(size())
+                .build();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("blockchain.signature.cache", hits, LongAdder::sum)
+                .tag("result", "hit")
+                .description("Transaction signature verifications answered from the cache")
+                .register(registry);
+        FunctionCounter.builder("blockchain.signature.cache", misses, LongAdder::sum)
+                .tag("result", "miss")
+                .description("Transaction signature verifications that ran ECDSA")
+                .register(registry);
+        Gauge.builder("blockchain.signature.cache.size", cache, LruCache::size)
+                .description("Cached transaction signature verification results")
+                .register(registry);
+    }
+
+    private static byte[] digestSignatures(List<byte[]> signatures) {
+        int length = 0;
+        for (byte[] signature : signatures)
+            length += Integer.BYTES + signature.length;
+
+        // length prefixes keep differently split signatures apart
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        for (byte[] signature : signatures)
+            buffer.putInt(signature.length).put(signature);
+        buffer.flip();
+        return Sha256.digest(buffer);
+    }
+
+    private static class Entry {
+        private final byte[] signaturesDigest;
+        private final boolean valid;
+
+        Entry(byte[] signaturesDigest, boolean valid) {
+            this.signaturesDigest = signaturesDigest;
+            this.valid = valid;
+        }
+    }
+}
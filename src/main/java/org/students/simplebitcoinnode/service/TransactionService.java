@@ -15,11 +15,15 @@ import java.util.List;
 public class TransactionService {
     private final TransactionRepository transactionRepository;
     private final TransactionOutputRepository transactionOutputRepository;
+    private final MempoolService mempoolService;
+    private final UtxoSetService utxoSetService;
     private final DTOMapperWrapper dtoMapperWrapper;
 
-    public TransactionService(TransactionRepository transactionRepository, TransactionOutputRepository transactionOutputRepository, DTOMapperWrapper dtoMapperWrapper) {
+    public TransactionService(TransactionRepository transactionRepository, TransactionOutputRepository transactionOutputRepository, MempoolService mempoolService, UtxoSetService utxoSetService, DTOMapperWrapper dtoMapperWrapper) {
         this.transactionRepository = transactionRepository;
         this.transactionOutputRepository = transactionOutputRepository;
+        this.mempoolService = mempoolService;
+        this.utxoSetService = utxoSetService;
         this.dtoMapperWrapper = dtoMapperWrapper;
     }
 
@@ -58,15 +62,34 @@ public class TransactionService {
 
 
     /**
-     * This method is used to save new transactions.
+     * This method is used to save new transactions, spend their inputs in the UTXO set and add them to the mempool.
      *
      * @param newTransactionDTO This is the transaction to be created.
-     * @return int This returns the HTTP status code of the transaction creation operation.
-     *             It returns 201 if the transaction was successfully created, and 400 if an exception occurred.
+     * @return TransactionDTO This returns the saved transaction.
+     *
+     * @throws IllegalStateException if the mempool is full.
+     * @throws IllegalArgumentException if some input has been spent in the meantime.
      */
-    
     public TransactionDTO newTransactions(TransactionDTO newTransactionDTO) {
-        Transaction transaction = transactionRepository.save(dtoMapperWrapper.unmap(newTransactionDTO, org.students.simplebitcoinnode.entity.Transaction.class));
+        if (mempoolService.isFull())
+            throw new IllegalStateException("Mempool is full, try again later");
+
+        Transaction transaction = dtoMapperWrapper.unmap(newTransactionDTO, org.students.simplebitcoinnode.entity.Transaction.class);
+        if (!utxoSetService.spend(transaction))
+            throw new IllegalArgumentException("Transaction inputs are not unspent transaction outputs");
+        try {
+            transaction = transactionRepository.save(transaction);
+        }
+        catch (RuntimeException e) {
+            utxoSetService.revert(transaction);
+            throw e;
+        }
+        if (!mempoolService.add(transaction)) {
+            // the mempool filled up since the check above, the transaction is undone instead of staying unannounced in the ledger
+            transactionRepository.delete(transaction);
+            utxoSetService.revert(transaction);
+            throw new IllegalStateException("Mempool is full, try again later");
+        }
 
         return dtoMapperWrapper.map(transaction, TransactionDTO.class);
     }
@@ -0,0 +1,215 @@
+package org.students.simplebitcoinnode.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.stereotype.Service;
+import org.students.simplebitcoinnode.config.BlockchainStorageConfig;
+import org.students.simplebitcoinnode.entity.Transaction;
+import org.students.simplebitcoinnode.exceptions.encoding.InvalidEncodedStringException;
+import org.students.simplebitcoinnode.repository.TransactionOutputRepository;
+import org.students.simplebitcoinnode.util.Encoding;
+import org.students.simplebitcoinnode.util.UtxoSet;
+
+import java.io.*;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.logging.Logger;
+
+/**
+ * Service that keeps the set of unspent transaction outputs (UTXOs) in memory, so that transaction validation does not query the database.<br>
+ * The set is restored from a snapshot file written on shutdown, if <code>blockchain.storage.utxo-snapshot-path</code> is configured,
+ * and brought up to date by replaying transaction output rows inserted after the snapshot. Without a usable snapshot all rows are replayed.
+ * Accepted transactions are applied to the set before they are stored, so that concurrently submitted transactions cannot spend the same output.
+ */
+@Service
+public class UtxoSetService {
+    private static final int SNAPSHOT_MAGIC = 0x5554584f;
+    private static final int SNAPSHOT_VERSION = 1;
+    private static final int REPLAY_PAGE_SIZE = 10000;
+
+    private final Logger logger = Logger.getLogger(UtxoSetService.class.getName());
+
+    private final TransactionOutputRepository transactionOutputRepository;
+    private final Path snapshotPath;
+    private volatile UtxoSet utxoSet = new UtxoSet();
+
+    public UtxoSetService(TransactionOutputRepository transactionOutputRepository, BlockchainStorageConfig blockchainStorageConfig) {
+        this.transactionOutputRepository = transactionOutputRepository;
+        final String snapshotPath = blockchainStorageConfig.getUtxoSnapshotPath();
+        this.snapshotPath = snapshotPath == null || snapshotPath.isBlank() ? null : Path.of(snapshotPath);
+    }
+
+    /**
+     * Restores the UTXO set from the snapshot, if any, and replays transaction output rows inserted after it
+     */
+    @PostConstruct
+    public void load() {
+        final long startTime = System.nanoTime();
+        final long maxId = transactionOutputRepository.findMaxId().orElse(0L);
+        UtxoSet loaded = new UtxoSet();
+        long replayAfterId = readSnapshot(loaded);
+        if (replayAfterId > maxId) {
+            // the database has been reset since the snapshot was written
+            logger.warning("Discarding UTXO snapshot, reason: it is newer than the database");
+            loaded = new UtxoSet();
+            replayAfterId = 0;
+        }
+
+        final long replayed = replay(loaded, replayAfterId);
+        utxoSet = loaded;
+        logger.info("Loaded " + loaded.size() + " unspent transaction outputs (" + replayed + " rows replayed) in " + (System.nanoTime() - startTime) / 1000000 + " ms");
+    }
+
+    /**
+     * Writes the UTXO set snapshot, if a snapshot path is configured
+     */
+    @PreDestroy
+    public void writeSnapshot() {
+        if (snapshotPath == null)
+            return;
+
+        try {
+            // rows inserted after querying the highest id are replayed on startup, applying them twice does not change the set
+            final long maxId = transactionOutputRepository.findMaxId().orElse(0L);
+            if (snapshotPath.getParent() != null)
+                Files.createDirectories(snapshotPath.getParent());
+            Path tempPath = snapshotPath.resolveSibling(snapshotPath.getFileName() + ".tmp");
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tempPath)))) {
+                out.writeInt(SNAPSHOT_MAGIC);
+                out.writeInt(SNAPSHOT_VERSION);
+                out.writeLong(maxId);
+                utxoSet.writeTo(out);
+            }
+            Files.move(tempPath, snapshotPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        }
+        catch (IOException | RuntimeException e) {
+            logger.warning("Failed to write UTXO snapshot to '" + snapshotPath + "': " + e.getMessage());
+        }
+    }
+
+    /**
+     * Looks up an unspent transaction output by its signature
+     * @param signature specifies the hexadecimal encoded digital signature of the output
+     * @return Optional wrapper object containing the unspent output, empty if the output is spent, unknown or the signature is malformed
+     */
+    public Optional<UtxoSet.UnspentOutput> find(String signature) {
+        if (signature == null)
+            return Optional.empty();
+
+        try {
+            return Optional.ofNullable(utxoSet.get(Encoding.hexStringToBytes(signature)));
+        }
+        catch (InvalidEncodedStringException e) {
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Looks up multiple unspent transaction outputs by their signatures
+     * @param signatures specifies the hexadecimal encoded digital signatures of the outputs
+     * @return map of found unspent outputs by signature, spent, unknown and malformed signatures are left out
+     */
+    public Map<String, UtxoSet.UnspentOutput> findAll(Collection<String> signatures) {
+        Map<String, UtxoSet.UnspentOutput> unspentOutputs = new HashMap<>(signatures.size() * 2);
+        for (String signature : signatures)
+            find(signature).ifPresent(output -> unspentOutputs.put(signature, output));
+        return unspentOutputs;
+    }
+
+    /**
+     * Checks if a transaction output has not been spent
+     * @param signature specifies the hexadecimal encoded digital signature of the output
+     * @return true if the output is unspent
+     */
+    public boolean isUnspent(String signature) {
+        return find(signature).isPresent();
+    }
+
+    /**
+     * Atomically spends the inputs of an accepted transaction and adds its outputs to the UTXO set
+     * @param transaction specifies the accepted transaction
+     * @return true if the transaction was applied, false if some input is not an unspent transaction output
+     */
+    public boolean spend(Transaction transaction) {
+        try {
+            return utxoSet.apply(transaction);
+        }
+        catch (InvalidEncodedStringException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Undoes a spent transaction, e.g. when it could not be stored
+     * @param transaction specifies the spent transaction
+     */
+    public void revert(Transaction transaction) {
+        try {
+            utxoSet.revert(transaction);
+        }
+        catch (InvalidEncodedStringException e) {
+            logger.severe("Failed to revert transaction '" + transaction.getTransactionHash() + "': " + e.getMessage());
+        }
+    }
+
+    /**
+     * Counts the unspent transaction outputs
+     * @return amount of unspent transaction outputs
+     */
+    public int size() {
+        return utxoSet.size();
+    }
+
+    private long readSnapshot(UtxoSet target) {
+        if (snapshotPath == null || !Files.isRegularFile(snapshotPath))
+            return 0;
+
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(snapshotPath)))) {
+            if (in.readInt() != SNAPSHOT_MAGIC || in.readInt() != SNAPSHOT_VERSION)
+                throw new IOException("unsupported snapshot format");
+
+            final long maxId = in.readLong();
+            target.readFrom(in);
+            return maxId;
+        }
+        catch (IOException | RuntimeException e) {
+            logger.warning("Discarding UTXO snapshot '" + snapshotPath + "', reason: " + e.getMessage());
+            target.clear();
+            return 0;
+        }
+    }
+
+    private long replay(UtxoSet target, long afterId) {
+        long replayed = 0;
+        List<Object[]> rows;
+        do {
+            rows = transactionOutputRepository.findRowsAfterId(afterId, REPLAY_PAGE_SIZE);
+            for (Object[] row : rows) {
+                afterId = ((Number)row[0]).longValue();
+                replayed++;
+                if (row[1] == null)
+                    continue;
+
+                try {
+                    final byte[] signature = Encoding.hexStringToBytes((String)row[1]);
+                    // rows with an input id spend the output with the same signature, other rows are created outputs
+                    if (row[4] != null)
+                        target.remove(signature);
+                    else
+                        target.add(signature, new UtxoSet.UnspentOutput((BigDecimal)row[2], (String)row[3]));
+                }
+                catch (InvalidEncodedStringException e) {
+                    logger.warning("Skipping transaction output " + afterId + " with malformed signature");
+                }
+            }
+        } while (rows.size() == REPLAY_PAGE_SIZE);
+        return replayed;
+    }
+}
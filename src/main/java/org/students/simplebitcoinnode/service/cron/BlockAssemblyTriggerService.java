@@ -0,0 +1,76 @@
+package org.students.simplebitcoinnode.service.cron;
+
+import jakarta.annotation.PreDestroy;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.students.simplebitcoinnode.event.MempoolUpdatedEvent;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.logging.Logger;
+
+/**
+ * Service that assembles blocks as soon as the mempool reaches a block assembly threshold.<br>
+ * MempoolUpdatedEvents are coalesced into a single pending assembly run on a dedicated thread, so that publishers are never blocked
+ * by block building or pool proposals. After each run a timer is armed for the wait time threshold of the oldest pending transaction.
+ */
+@Service
+public class BlockAssemblyTriggerService {
+    private final Logger logger = Logger.getLogger(BlockAssemblyTriggerService.class.getName());
+
+    private final BlockBuilderCronService blockBuilderCronService;
+    private final ScheduledExecutorService executorService;
+    private final AtomicBoolean assemblyPending = new AtomicBoolean(false);
+    // only accessed from the assembly thread
+    private ScheduledFuture<?> waitTimer;
+
+    public BlockAssemblyTriggerService(BlockBuilderCronService blockBuilderCronService) {
+        this.blockBuilderCronService = blockBuilderCronService;
+        this.executorService = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "block-assembly");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Schedules a block assembly run when transactions are added to the mempool
+     * @param event specifies the MempoolUpdatedEvent
+     */
+    @EventListener
+    public void onMempoolUpdatedEvent(MempoolUpdatedEvent event) {
+        signal();
+    }
+
+    /**
+     * Schedules a block assembly run unless one is already pending
+     */
+    public void signal() {
+        if (assemblyPending.compareAndSet(false, true))
+            executorService.execute(this::assemble);
+    }
+
+    private void assemble() {
+        assemblyPending.set(false);
+        try {
+            while (blockBuilderCronService.assembleBlock())
+                logger.fine("Assembled a block from pending transactions");
+
+            if (waitTimer != null)
+                waitTimer.cancel(false);
+            final long nanosUntilBlockAssembly = blockBuilderCronService.nanosUntilBlockAssembly();
+            waitTimer = nanosUntilBlockAssembly > 0 ? executorService.schedule(this::signal, nanosUntilBlockAssembly, TimeUnit.NANOSECONDS) : null;
+        }
+        catch (RuntimeException e) {
+            logger.severe("Block assembly failed: " + e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executorService.shutdownNow();
+    }
+}
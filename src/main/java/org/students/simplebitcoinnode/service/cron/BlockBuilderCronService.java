@@ -1,26 +1,33 @@
 package org.students.simplebitcoinnode.service.cron;
 
 import org.springframework.context.ApplicationEventPublisher;
-import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 import org.students.simplebitcoinnode.config.BlockchainMiningConfig;
 import org.students.simplebitcoinnode.dto.BlockIntroductionDTO;
 import org.students.simplebitcoinnode.entity.*;
 import org.students.simplebitcoinnode.event.MineBlockEvent;
 import org.students.simplebitcoinnode.exceptions.encoding.InvalidEncodedStringException;
-import org.students.simplebitcoinnode.repository.BlockRepository;
-import org.students.simplebitcoinnode.repository.TransactionRepository;
 import org.students.simplebitcoinnode.service.BlockBuilderService;
+import org.students.simplebitcoinnode.service.ChainStateService;
+import org.students.simplebitcoinnode.service.HashRateService;
+import org.students.simplebitcoinnode.service.MempoolService;
 import org.students.simplebitcoinnode.service.PoolFinderService;
+import org.students.simplebitcoinnode.util.BlockHeaderCodec;
+import org.students.simplebitcoinnode.util.ChainIndex;
 import org.students.simplebitcoinnode.util.DTOMapperWrapper;
+import org.students.simplebitcoinnode.util.MerkleTreeEngine;
+import org.students.simplebitcoinnode.util.PoolPlanner;
 
 import java.io.IOException;
 import java.math.BigInteger;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.TimeUnit;
 import java.util.logging.Logger;
 
 /**
- * Cron job responsible for building the block and, if configured, mining it
+ * Service responsible for building the block and, if configured, mining it.<br>
+ * Blocks are assembled by BlockAssemblyTriggerService as soon as the mempool reaches a block assembly threshold.
  */
 @Service
 public class BlockBuilderCronService {
@@ -28,56 +35,121 @@ public class BlockBuilderCronService {
 
     private final ApplicationEventPublisher applicationEventPublisher;
     private final BlockBuilderService blockBuilderService;
-    private final TransactionRepository transactionRepository;
-    private final BlockRepository blockRepository;
+    private final MempoolService mempoolService;
+    private final ChainStateService chainStateService;
     private final BlockchainMiningConfig blockchainMiningConfig;
     private final DTOMapperWrapper dtoMapperWrapper;
     private final PoolFinderService poolFinderService;
+    private final HashRateService hashRateService;
 
     public BlockBuilderCronService(ApplicationEventPublisher applicationEventPublisher,
                                    BlockBuilderService blockBuilderService,
-                                   TransactionRepository transactionRepository,
-                                   BlockRepository blockRepository,
+                                   MempoolService mempoolService,
+                                   ChainStateService chainStateService,
                                    BlockchainMiningConfig blockchainMiningConfig,
                                    DTOMapperWrapper dtoMapperWrapper,
-                                   PoolFinderService poolFinderService) {
+                                   PoolFinderService poolFinderService,
+                                   HashRateService hashRateService) {
         this.applicationEventPublisher = applicationEventPublisher;
         this.blockBuilderService = blockBuilderService;
-        this.transactionRepository = transactionRepository;
+        this.mempoolService = mempoolService;
         this.blockchainMiningConfig = blockchainMiningConfig;
-        this.blockRepository = blockRepository;
+        this.chainStateService = chainStateService;
         this.dtoMapperWrapper = dtoMapperWrapper;
         this.poolFinderService = poolFinderService;
+        this.hashRateService = hashRateService;
     }
 
-
     /**
-     * Scheduled method that periodically checks if blocks should be constructed by looking at the amount of unverified transactions in the database
+     * Builds a block from pending transactions and starts mining it, if the mempool has reached any block assembly threshold
+     * @return true if a block was built
      */
-    @Scheduled(cron = "${blockchain.mining.block-construction-cron}")
-    public void scheduledBlockBuildingAndMining() {
-        long unverified = transactionRepository.findAmountOfUnverifiedTransactions();
-        if (unverified >= blockchainMiningConfig.getTransactionsPerBlock()) {
+    public boolean assembleBlock() {
+        ChainIndex.Entry tip = chainStateService.getTip();
+        if (tip == null) {
+            logger.warning("Skipping block construction, reason: no mined blocks are known");
+            return false;
+        }
+
+        List<Transaction> transactions = mempoolService.drainBlock(blockchainMiningConfig.getTransactionsPerBlock(), getBlockMaxBytes(), getBlockMaxWaitNanos());
+        if (transactions.isEmpty())
+            return false;
+
+        // drained transactions go back to the mempool unless they are held for mining, whichever way block building fails
+        boolean held = false;
+        try {
+            final int merkleLayoutVersion = getMerkleLayoutVersion();
+            MerkleTreeNode root = blockBuilderService.createMerkleTreeRoot(transactions, merkleLayoutVersion);
+            Block block = blockBuilderService.newBlock(root, tip.getHash(), getBlockHeaderVersion());
+            block.setMerkleLayoutVersion(merkleLayoutVersion);
+
+            MineBlockEvent mineBlockEvent;
             try {
-                List<Transaction> transactions = transactionRepository.findUnverifiedTransactionsLimitByN(blockchainMiningConfig.getTransactionsPerBlock());
-                MerkleTreeNode root = blockBuilderService.createMerkleTreeRoot(transactions);
-                Block previousBlock = blockRepository.findBlockWithLongestChain();
-                Block block = blockBuilderService.newBlock(root, previousBlock.getHash());
-                try {
-                    List<AdjacentNode> consentedNodes = poolFinderService.proposePoolMining(dtoMapperWrapper.map(block, BlockIntroductionDTO.class));
-                    block.setMiners(consentedNodes.stream().map(x -> new MinerPublicKey(null, x.getPubKey())).toList());
-                    logger.info("Starting pool mining with " + consentedNodes.size() + " nodes (combined hash rate: " + consentedNodes.stream().map(AdjacentNode::getAverageHashRate).reduce(0.f, Float::sum) + " MH/s)");
-                    poolFinderService.initiatePoolMining(consentedNodes, block.getHash());
-                    applicationEventPublisher.publishEvent(new MineBlockEvent(this, block, BigInteger.valueOf(consentedNodes.size()), BigInteger.valueOf(consentedNodes.size() + 1L)));
-                }
-                catch (IOException e) {
-                    applicationEventPublisher.publishEvent(new MineBlockEvent(this, block, BigInteger.ZERO, BigInteger.ONE));
-                }
+                List<AdjacentNode> consentedNodes = poolFinderService.proposePoolMining(dtoMapperWrapper.map(block, BlockIntroductionDTO.class));
+                block.setMiners(consentedNodes.stream().map(x -> new MinerPublicKey(null, x.getPubKey())).toList());
+                logger.info("Starting pool mining with " + consentedNodes.size() + " nodes (combined hash rate: " + consentedNodes.stream().map(AdjacentNode::getAverageHashRate).reduce(0.f, Float::sum) + " MH/s)");
+
+                // this node takes the last share of the nonce space
+                List<Float> hashRates = new ArrayList<>(consentedNodes.stream().map(AdjacentNode::getAverageHashRate).toList());
+                hashRates.add(hashRateService.getAverageHashRate());
+                List<PoolPlanner.NonceShare> nonceShares = PoolPlanner.assignNonceShares(hashRates);
+                poolFinderService.initiatePoolMining(consentedNodes, nonceShares.subList(0, consentedNodes.size()), block.getHash());
+
+                PoolPlanner.NonceShare nonceShare = nonceShares.getLast();
+                mineBlockEvent = new MineBlockEvent(this, block, BigInteger.valueOf(nonceShare.getOffset()), BigInteger.valueOf(nonceShare.getStride()), BigInteger.valueOf(nonceShare.getWidth()));
             }
-            catch (InvalidEncodedStringException e) {
-                logger.severe("Failed to build a merkle tree from transactions: " + e.getMessage());
-                logger.severe("This could indicate a severe problem with transaction processing");
+            catch (IOException e) {
+                mineBlockEvent = new MineBlockEvent(this, block, BigInteger.ZERO, BigInteger.ONE);
             }
+
+            // transactions are confirmed when the mined block gets stored and restored if mining terminates otherwise (see MempoolService)
+            mempoolService.holdForMining(block.getHash(), transactions);
+            held = true;
+            try {
+                applicationEventPublisher.publishEvent(mineBlockEvent);
+            }
+            catch (RuntimeException e) {
+                mempoolService.releaseMining(block.getHash());
+                throw e;
+            }
+            return true;
+        }
+        catch (InvalidEncodedStringException e) {
+            logger.severe("Failed to build a merkle tree from transactions: " + e.getMessage());
+            logger.severe("This could indicate a severe problem with transaction processing");
+            return false;
+        }
+        finally {
+            if (!held)
+                mempoolService.restore(transactions);
         }
     }
+
+    /**
+     * Calculates the time until the mempool reaches a block assembly threshold, assuming that no transactions get added
+     * @return 0 if a block can be built right away, remaining nanoseconds until the wait time threshold or -1 if no threshold will be reached
+     */
+    public long nanosUntilBlockAssembly() {
+        return mempoolService.nanosUntilBlock(blockchainMiningConfig.getTransactionsPerBlock(), getBlockMaxBytes(), getBlockMaxWaitNanos());
+    }
+
+    private long getBlockMaxBytes() {
+        final Long blockMaxBytes = blockchainMiningConfig.getBlockMaxBytes();
+        return blockMaxBytes == null || blockMaxBytes <= 0 ? Long.MAX_VALUE : blockMaxBytes;
+    }
+
+    private long getBlockMaxWaitNanos() {
+        final Long blockMaxWait = blockchainMiningConfig.getBlockMaxWait();
+        return blockMaxWait == null || blockMaxWait <= 0 ? 0 : TimeUnit.MILLISECONDS.toNanos(blockMaxWait);
+    }
+
+    private int getBlockHeaderVersion() {
+        final Integer blockHeaderVersion = blockchainMiningConfig.getBlockHeaderVersion();
+        return blockHeaderVersion == null ? BlockHeaderCodec.VERSION_LEGACY : blockHeaderVersion;
+    }
+
+    private int getMerkleLayoutVersion() {
+        final Integer merkleLayoutVersion = blockchainMiningConfig.getMerkleLayoutVersion();
+        return merkleLayoutVersion == null || merkleLayoutVersion <= 0 ? MerkleTreeEngine.LAYOUT_LEGACY : merkleLayoutVersion;
+    }
 }
@@ -2,13 +2,13 @@ package org.students.simplebitcoinnode.service.impl;
 
 import org.students.simplebitcoinnode.exceptions.encoding.SerializationException;
 import org.students.simplebitcoinnode.service.AsymmetricCryptographyService;
+import org.students.simplebitcoinnode.util.Sha256;
 
 import java.io.Serializable;
-import java.security.MessageDigest;
-import java.security.NoSuchAlgorithmException;
 
 /**
  * Base class for cryptographic algorithms that utilize SHA-256 hashing.
+ * Hashes are calculated with per-thread digest instances of the configured provider (see Sha256).
  */
 public abstract class AsymmetricCryptographyServiceSHA256 extends AsymmetricCryptographyService {
     protected AsymmetricCryptographyServiceSHA256(String className) {
@@ -23,14 +23,7 @@ public abstract class AsymmetricCryptographyServiceSHA256 extends AsymmetricCryp
      */
     @Override
     public byte[] digestObject(Serializable messageObject) throws SerializationException {
-        try {
-            MessageDigest digest = MessageDigest.getInstance("SHA-256");
-            return digest.digest(byteSerialize(messageObject));
-        }
-        catch (NoSuchAlgorithmException e) {
-            getLogger().severe("MessageDigest implementation does not support SHA-256 hashing: " + e.getMessage());
-            return new byte[0];
-        }
+        return Sha256.digest(byteSerialize(messageObject));
     }
 
     /**
@@ -40,13 +33,6 @@ public abstract class AsymmetricCryptographyServiceSHA256 extends AsymmetricCryp
      */
     @Override
     public byte[] digestBytes(byte[] bytes) {
-        try {
-            MessageDigest digest = MessageDigest.getInstance("SHA-256");
-            return digest.digest(bytes);
-        }
-        catch (NoSuchAlgorithmException e) {
-            getLogger().severe("MessageDigest implementation does not support SHA-256 hashing: " + e.getMessage());
-            return new byte[0];
-        }
+        return Sha256.digest(bytes);
     }
 }
@@ -2,14 +2,19 @@ package org.students.simplebitcoinnode.service.impl;
 
 import org.springframework.stereotype.Service;
 import org.students.simplebitcoinnode.entity.Block;
+import org.students.simplebitcoinnode.entity.MerkleTreeLevels;
 import org.students.simplebitcoinnode.entity.MerkleTreeNode;
 import org.students.simplebitcoinnode.entity.Transaction;
 import org.students.simplebitcoinnode.entity.TransactionOutput;
 import org.students.simplebitcoinnode.exceptions.encoding.InvalidEncodedStringException;
 import org.students.simplebitcoinnode.exceptions.encoding.SerializationException;
+import org.students.simplebitcoinnode.repository.MerkleTreeLevelsRepository;
 import org.students.simplebitcoinnode.service.AsymmetricCryptographyService;
 import org.students.simplebitcoinnode.service.BlockBuilderService;
-import org.students.simplebitcoinnode.util.Encoding;
+import org.students.simplebitcoinnode.util.BlockHeaderCodec;
+import org.students.simplebitcoinnode.util.MerkleProof;
+import org.students.simplebitcoinnode.util.MerkleTreeEngine;
+import org.students.simplebitcoinnode.util.Sha256Hash;
 
 import java.math.BigDecimal;
 import java.math.BigInteger;
@@ -21,50 +26,114 @@ import java.util.*;
 @Service
 public class BlockBuilderServiceImpl implements BlockBuilderService {
     private final AsymmetricCryptographyService asymmetricCryptographyService;
+    private final MerkleTreeLevelsRepository merkleTreeLevelsRepository;
 
-    public BlockBuilderServiceImpl(AsymmetricCryptographyService asymmetricCryptographyService) {
+    public BlockBuilderServiceImpl(AsymmetricCryptographyService asymmetricCryptographyService, MerkleTreeLevelsRepository merkleTreeLevelsRepository) {
         this.asymmetricCryptographyService = asymmetricCryptographyService;
+        this.merkleTreeLevelsRepository = merkleTreeLevelsRepository;
     }
 
     @Override
-    public MerkleTreeNode createMerkleTreeRoot(Collection<Transaction> transactions) throws InvalidEncodedStringException {
-        Queue<MerkleTreeNode> treeQueue = new ArrayDeque<>();
-        for (Transaction transaction : transactions)
-            treeQueue.add(MerkleTreeNode.builder().hash(transaction.getTransactionHash()).transaction(transaction).build());
+    public MerkleTreeNode createMerkleTreeRoot(Collection<Transaction> transactions, int layoutVersion) throws InvalidEncodedStringException {
+        List<Transaction> leaves = new ArrayList<>(transactions);
+        List<Sha256Hash> leafHashes = new ArrayList<>(leaves.size());
+        for (Transaction transaction : leaves)
+            leafHashes.add(transaction.getTransactionHash());
 
-        while (treeQueue.size() > 1) {
-            MerkleTreeNode leftChild = treeQueue.poll();
-            MerkleTreeNode rightChild = treeQueue.poll();
+        return MerkleTreeEngine.build(leafHashes, layoutVersion).toMerkleTree(leaves);
+    }
+
+    @Override
+    public Optional<MerkleProof> createMerkleProof(Block block, Sha256Hash transactionHash) {
+        if (block.getMerkleTree() == null)
+            return Optional.empty();
+
+        // stored blocks in packed format keep only the root node, their proofs are created from the packed tree levels
+        final MerkleTreeNode root = block.getMerkleTree();
+        if (block.getId() != null && (root.getChildren() == null || root.getChildren().isEmpty())) {
+            Optional<MerkleTreeLevels> levels = merkleTreeLevelsRepository.findById(block.getId());
+            if (levels.isPresent())
+                return createPackedMerkleProof(levels.get(), transactionHash);
+        }
 
-            MerkleTreeNode parent = new MerkleTreeNode();
-            parent.setChildren(List.of(leftChild, rightChild));
+        List<MerkleProof.Step> path = new ArrayList<>();
+        if (!findMerklePath(block.getMerkleTree(), transactionHash, path))
+            return Optional.empty();
 
-            final byte[] leftChildHash = Encoding.hexStringToBytes(leftChild.getHash());
-            final byte[] rightChildHash = Encoding.hexStringToBytes(rightChild.getHash());
+        // steps were collected from the root down to the leaf
+        Collections.reverse(path);
+        return Optional.of(new MerkleProof(MerkleTreeEngine.checkLayoutVersion(block.getMerkleLayoutVersion()), transactionHash, path));
+    }
 
-            byte[] combinedHash = new byte[leftChildHash.length + rightChildHash.length];
-            System.arraycopy(leftChildHash, 0, combinedHash, 0, leftChildHash.length);
-            System.arraycopy(rightChildHash, 0, combinedHash, leftChildHash.length, rightChildHash.length);
+    @Override
+    public boolean verifyMerkleProof(MerkleProof proof, Sha256Hash merkleRoot) {
+        return MerkleTreeEngine.verifyProof(proof, merkleRoot);
+    }
 
-            final byte[] newHash = asymmetricCryptographyService.digestObject(combinedHash);
-            parent.setHash(Encoding.toHexString(newHash));
-            treeQueue.add(parent);
+    /**
+     * Creates an inclusion proof of a transaction from the packed levels of a stored merkle tree
+     * @param levels specifies the packed merkle tree levels of a stored block
+     * @param transactionHash specifies the hash of the transaction to prove
+     * @return Optional containing the proof, empty if the transaction is not a leaf of the tree
+     */
+    private Optional<MerkleProof> createPackedMerkleProof(MerkleTreeLevels levels, Sha256Hash transactionHash) {
+        MerkleTreeEngine tree = MerkleTreeEngine.fromPackedLevels(levels.getLevels(), levels.getLeafCount(), levels.getLayoutVersion());
+        for (int i = 0; i < tree.getLeafCount(); i++) {
+            if (transactionHash.equals(tree.getHash(0, i)))
+                return Optional.of(tree.createProof(i));
         }
+        return Optional.empty();
+    }
 
-        return treeQueue.poll();
+    /**
+     * Searches the merkle tree for a transaction leaf and collects the sibling hashes on the way
+     * @param node specifies the subtree to search
+     * @param transactionHash specifies the hash of the transaction leaf
+     * @param path specifies the list to append the proof steps to, ordered from the root downwards
+     * @return true if the leaf was found in the subtree, false otherwise
+     */
+    private boolean findMerklePath(MerkleTreeNode node, Sha256Hash transactionHash, List<MerkleProof.Step> path) {
+        if (node.getChildren() == null || node.getChildren().isEmpty())
+            return node.getTransaction() != null && transactionHash.equals(node.getHash());
+
+        for (int i = 0; i < node.getChildren().size(); i++) {
+            MerkleTreeNode child = node.getChildren().get(i);
+            path.add(node.getChildren().size() == 1
+                    // a single child is paired with itself
+                    ? new MerkleProof.Step(child.getHash(), false)
+                    : new MerkleProof.Step(node.getChildren().get(1 - i).getHash(), i == 1));
+            if (findMerklePath(child, transactionHash, path))
+                return true;
+            path.remove(path.size() - 1);
+        }
+        return false;
     }
 
     @Override
-    public Block newBlock(MerkleTreeNode root, String previousBlockHash) throws SerializationException {
+    public Block newBlock(MerkleTreeNode root, Sha256Hash previousBlockHash, int headerVersion) throws SerializationException {
         Block block = new Block();
         block.setPreviousHash(previousBlockHash);
         block.setNonce(BigInteger.ZERO);
         block.setMerkleTree(root);
         block.setMiners(new ArrayList<>());
-        block.setHash(Encoding.toHexString(asymmetricCryptographyService.digestObject(block)));
+        block.setHeaderVersion(headerVersion);
+        block.setHash(Sha256Hash.wrap(calculateBlockHash(block)));
         return block;
     }
 
+    @Override
+    public byte[] calculateBlockHash(Block block) throws SerializationException {
+        if (BlockHeaderCodec.isLegacy(block))
+            return asymmetricCryptographyService.digestObject(block);
+
+        try {
+            return asymmetricCryptographyService.digestBytes(BlockHeaderCodec.encode(block));
+        }
+        catch (InvalidEncodedStringException e) {
+            throw new SerializationException("Failed to encode block header: " + e.getMessage());
+        }
+    }
+
     @Override
     public Transaction makeCoinbaseTransaction(Collection<String> recipientWalletAddresses, BigDecimal blockReward) throws SerializationException {
         Transaction transaction = new Transaction();
@@ -83,7 +152,7 @@ public class BlockBuilderServiceImpl implements BlockBuilderService {
 
         transaction.setOutputs(outputs);
         transaction.setTimestamp(LocalDateTime.now(ZoneOffset.UTC));
-        transaction.setTransactionHash(Encoding.toHexString(asymmetricCryptographyService.digestObject(transaction)));
+        transaction.setTransactionHash(Sha256Hash.wrap(asymmetricCryptographyService.digestObject(transaction)));
         return transaction;
     }
 }
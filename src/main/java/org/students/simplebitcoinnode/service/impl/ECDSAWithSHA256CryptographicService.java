@@ -6,11 +6,13 @@ import org.students.simplebitcoinnode.exceptions.crypto.CryptoProviderNotFoundEx
 import org.students.simplebitcoinnode.exceptions.crypto.MalformedKeyException;
 import org.students.simplebitcoinnode.exceptions.crypto.MalformedSignatureException;
 import org.students.simplebitcoinnode.exceptions.encoding.SerializationException;
+import org.students.simplebitcoinnode.util.EcdsaSignatureVerifier;
 import org.students.simplebitcoinnode.util.Encoding;
 
 import java.io.Serializable;
 import java.security.*;
 import java.security.spec.*;
+import java.util.List;
 
 /**
  * High level cryptographic service for performing ECDSA with SHA-256
@@ -18,6 +20,9 @@ import java.security.spec.*;
 @Service
 @Qualifier("asymmetricCryptographyService")
 public class ECDSAWithSHA256CryptographicService extends AsymmetricCryptographyServiceSHA256 {
+    // smaller batches are verified on the calling thread, since the fork/join overhead would outweigh the gain
+    private static final int PARALLEL_VERIFICATION_THRESHOLD = 4;
+
     private final ECGenParameterSpec ecSpec;
     private final KeyPairGenerator generator;
 
@@ -42,27 +47,40 @@ public class ECDSAWithSHA256CryptographicService extends AsymmetricCryptographyS
     @Override
     public boolean verifyDigitalSignature(Serializable messageObject, byte[] signature, byte[] pubKey) throws SerializationException, MalformedKeyException, MalformedSignatureException {
         try {
-            Signature ecdsaVerify = Signature.getInstance("SHA256withECDSA");
-            KeyFactory kf = KeyFactory.getInstance("EC");
-            EncodedKeySpec publicKeySpec = new X509EncodedKeySpec(pubKey);
-            PublicKey publicKey = kf.generatePublic(publicKeySpec);
-            ecdsaVerify.initVerify(publicKey);
-            ecdsaVerify.update(byteSerialize(messageObject));
-            return ecdsaVerify.verify(signature);
-        }
-        catch (NoSuchAlgorithmException e) {
-            getLogger().severe("Signature verification with algorithm 'SHA256withECDSA' is not supported with current crypto provider");
-            throw new CryptoProviderNotFoundException("Current crypto provider does not support requested algorithms: " + e.getMessage());
+            return EcdsaSignatureVerifier.verify(byteSerialize(messageObject), signature, pubKey);
         }
-        catch (InvalidKeySpecException e) {
+        catch (MalformedKeyException e) {
             getLogger().severe("Malformed public key '" + Encoding.toHexString(pubKey));
-            throw new MalformedKeyException("Provided public key is not encoded with X509 standard: " + e.getMessage());
+            throw e;
         }
-        catch (InvalidKeyException e) {
-            throw new MalformedKeyException(e.getMessage());
+    }
+
+    /**
+     * Verifies a batch of digital signatures, batches of at least PARALLEL_VERIFICATION_THRESHOLD signatures are spread over all cores.
+     * Verification stops as soon as an invalid signature is found.
+     * @param jobs specifies the messages, signatures and signers' public keys to verify
+     * @return true if all signatures are valid, false otherwise
+     */
+    @Override
+    public boolean verifyAll(List<SignatureJob> jobs) {
+        if (jobs.size() < PARALLEL_VERIFICATION_THRESHOLD) {
+            for (SignatureJob job : jobs) {
+                if (!verify(job))
+                    return false;
+            }
+            return true;
         }
-        catch (SignatureException e) {
-            throw new MalformedSignatureException("Provided signature is malformed: " + e.getMessage());
+
+        return jobs.parallelStream().allMatch(this::verify);
+    }
+
+    private boolean verify(SignatureJob job) {
+        try {
+            return EcdsaSignatureVerifier.verify(byteSerialize(job.getMessageObject()), job.getSignature(), job.getPubKey());
+        }
+        catch (SerializationException | MalformedKeyException | MalformedSignatureException e) {
+            getLogger().warning("Signature verification failed: " + e.getMessage());
+            return false;
         }
     }
 
@@ -10,6 +10,8 @@ import org.students.simplebitcoinnode.dto.PoolMiningProposalDTO;
 import org.students.simplebitcoinnode.entity.AdjacentNode;
 import org.students.simplebitcoinnode.repository.AdjacentNodeRepository;
 import org.students.simplebitcoinnode.service.PoolFinderService;
+import org.students.simplebitcoinnode.util.PoolPlanner;
+import org.students.simplebitcoinnode.util.Sha256Hash;
 
 import java.io.IOException;
 import java.net.URI;
@@ -17,12 +19,27 @@ import java.net.URISyntaxException;
 import java.net.http.HttpClient;
 import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
+import java.time.Duration;
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 import java.util.logging.Logger;
 
 @Service
 public class PoolFinderServiceImpl implements PoolFinderService {
+    // milliseconds
+    public static final long DEFAULT_REQUEST_TIMEOUT = 5000;
+    public static final long DEFAULT_DEADLINE = 15000;
+
     private final Logger logger = Logger.getLogger(PoolFinderService.class.getName());
     private final AdjacentNodeRepository adjacentNodeRepository;
     private final BlockchainMiningConfig blockchainMiningConfig;
@@ -36,52 +53,146 @@ public class PoolFinderServiceImpl implements PoolFinderService {
 
     @Override
     public List<AdjacentNode> proposePoolMining(BlockIntroductionDTO blockIntroductionDTO) {
+        final int maximumPoolRequests = blockchainMiningConfig.getPool().getMaximumPoolRequests();
+        String json = objectToJson(new PoolMiningProposalDTO(blockIntroductionDTO, maximumPoolRequests));
+        final long deadline = deadline();
         List<AdjacentNode> consentedNodes = new ArrayList<>();
-        List<AdjacentNode> adjacentNodes = adjacentNodeRepository.findBestNodesByHashRate(Float.MAX_VALUE, blockchainMiningConfig.getPool().getMaximumPoolRequests());
-
-        String json = objectToJson(new PoolMiningProposalDTO(blockIntroductionDTO, blockchainMiningConfig.getPool().getMaximumPoolRequests()));
-        while (!adjacentNodes.isEmpty() && consentedNodes.size() < blockchainMiningConfig.getPool().getMaximumPoolRequests()) {
-            for (AdjacentNode adjacentNode : adjacentNodes) {
-                String baseURL = (adjacentNode.isTls() ? "https://" : "http://") + adjacentNode.getHostname() + "/blockchain/mine/propose";
-                logger.info("Trying to make a proposal mining request to " + baseURL);
+        // the same node may be registered more than once, it is proposed to only once
+        Set<String> proposedHostnames = new HashSet<>();
 
-                try {
-                    HttpResponse<String> response = httpClient.send(buildJsonPostRequest(new URI(baseURL), json), HttpResponse.BodyHandlers.ofString());
-                    if (response.statusCode() != 200) {
-                        logger.warning("Could not make a proposal mining request to " + baseURL + " invalid status code: " + response.statusCode());
-                        continue;
-                    }
+        // page through candidates by descending hash rate, the (hash rate, id) keyset never skips or repeats nodes with equal hash rates
+        List<AdjacentNode> adjacentNodes = adjacentNodeRepository.findNextBestNodesByHashRate(Float.MAX_VALUE, Long.MIN_VALUE, maximumPoolRequests);
+        while (!adjacentNodes.isEmpty() && consentedNodes.size() < maximumPoolRequests && System.nanoTime() < deadline) {
+            List<AdjacentNode> candidates = adjacentNodes.stream()
+                    .filter(adjacentNode -> proposedHostnames.add(adjacentNode.getHostname()))
+                    .toList();
+            if (!candidates.isEmpty())
+                consentedNodes.addAll(proposeConcurrently(candidates, json, maximumPoolRequests - consentedNodes.size(), deadline));
 
-                    consentedNodes.add(adjacentNode);
-                } catch (Exception e) {
-                    logger.warning("An exception has occurred while making a proposal mining request: " + e.getMessage());
-                }
-            }
-            adjacentNodes = adjacentNodeRepository.findBestNodesByHashRate(adjacentNodes.getLast().getAverageHashRate(), blockchainMiningConfig.getPool().getMaximumPoolRequests());
+            final AdjacentNode last = adjacentNodes.getLast();
+            adjacentNodes = adjacentNodeRepository.findNextBestNodesByHashRate(last.getAverageHashRate(), last.getId(), maximumPoolRequests);
         }
 
         return consentedNodes;
     }
 
     @Override
-    public void initiatePoolMining(List<AdjacentNode> poolNodes, String blockHash) throws IOException {
+    public void initiatePoolMining(List<AdjacentNode> poolNodes, List<PoolPlanner.NonceShare> nonceShares, Sha256Hash blockHash) throws IOException {
+        if (nonceShares.size() != poolNodes.size())
+            throw new IllegalArgumentException("Every pool node needs exactly one nonce share");
+
         PoolInitiationBlockMetadataDTO poolInitiationBlockMetadataDTO = PoolInitiationBlockMetadataDTO.builder()
                 .miners(poolNodes.stream().map(AdjacentNode::getPubKey).toList())
-                .hash(blockHash).build();
+                .hash(blockHash.toString()).build();
 
-        for (int i = 0; i < poolNodes.size(); i++) {
-            String baseURL = (poolNodes.get(i).isTls() ? "https://" : "http://") + poolNodes.get(i).getHostname() + "/blockchain/mine/initiate";
-            poolInitiationBlockMetadataDTO.setOffset(i);
-            String json = objectToJson(poolInitiationBlockMetadataDTO);
-            try {
-                HttpResponse<Void> response = httpClient.send(buildJsonPostRequest(new URI(baseURL), json), HttpResponse.BodyHandlers.discarding());
+        final long deadline = deadline();
+        List<CompletableFuture<HttpResponse<Void>>> requests = new ArrayList<>(poolNodes.size());
+        try {
+            for (int i = 0; i < poolNodes.size(); i++) {
+                String baseURL = nodeURL(poolNodes.get(i), "/blockchain/mine/initiate");
+                PoolPlanner.NonceShare nonceShare = nonceShares.get(i);
+                poolInitiationBlockMetadataDTO.setOffset(Math.toIntExact(nonceShare.getOffset()));
+                poolInitiationBlockMetadataDTO.setStride(Math.toIntExact(nonceShare.getStride()));
+                poolInitiationBlockMetadataDTO.setWidth(Math.toIntExact(nonceShare.getWidth()));
+                String json = objectToJson(poolInitiationBlockMetadataDTO);
+                requests.add(httpClient.sendAsync(buildJsonPostRequest(new URI(baseURL), json), HttpResponse.BodyHandlers.discarding()));
+            }
+
+            // all requests are in flight, so waiting for them in order takes as long as the slowest one
+            for (CompletableFuture<HttpResponse<Void>> request : requests) {
+                HttpResponse<Void> response = request.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
                 if (response.statusCode() != 200)
                     throw new IOException("Invalid status code " + response.statusCode() + " while initiating pool request");
             }
-            catch (URISyntaxException | InterruptedException e) {
-                throw new IOException(e);
+        }
+        catch (URISyntaxException | InterruptedException | TimeoutException e) {
+            throw new IOException(e);
+        }
+        catch (ExecutionException e) {
+            throw new IOException(e.getCause());
+        }
+        finally {
+            requests.forEach(request -> request.cancel(true));
+        }
+    }
+
+    /**
+     * Sends the proposal to all given nodes at once and collects nodes in the order they consent
+     * @param adjacentNodes specifies the nodes to send the proposal to
+     * @param json specifies the serialized proposal
+     * @param needed specifies the amount of consenting nodes after which remaining requests are cancelled
+     * @param deadline specifies the System.nanoTime() value after which no more responses are awaited
+     * @return a list of at most needed nodes that accepted the proposal
+     */
+    private List<AdjacentNode> proposeConcurrently(List<AdjacentNode> adjacentNodes, String json, int needed, long deadline) {
+        // every request reports exactly once, empty if the node did not consent
+        BlockingQueue<Optional<AdjacentNode>> responses = new LinkedBlockingQueue<>();
+        List<CompletableFuture<HttpResponse<String>>> requests = new ArrayList<>(adjacentNodes.size());
+        for (AdjacentNode adjacentNode : adjacentNodes) {
+            String baseURL = nodeURL(adjacentNode, "/blockchain/mine/propose");
+            logger.info("Trying to make a proposal mining request to " + baseURL);
+
+            try {
+                CompletableFuture<HttpResponse<String>> request = httpClient.sendAsync(buildJsonPostRequest(new URI(baseURL), json), HttpResponse.BodyHandlers.ofString());
+                requests.add(request);
+                request.whenComplete((response, e) -> {
+                    if (e != null) {
+                        if (!(e instanceof CancellationException))
+                            logger.warning("An exception has occurred while making a proposal mining request: " + e.getMessage());
+                        responses.add(Optional.empty());
+                    }
+                    else if (response.statusCode() != 200) {
+                        logger.warning("Could not make a proposal mining request to " + baseURL + " invalid status code: " + response.statusCode());
+                        responses.add(Optional.empty());
+                    }
+                    else
+                        responses.add(Optional.of(adjacentNode));
+                });
+            }
+            catch (URISyntaxException e) {
+                logger.warning("An exception has occurred while making a proposal mining request: " + e.getMessage());
+                responses.add(Optional.empty());
+            }
+        }
+
+        List<AdjacentNode> consentedNodes = new ArrayList<>(needed);
+        try {
+            for (int i = 0; i < adjacentNodes.size() && consentedNodes.size() < needed; i++) {
+                Optional<AdjacentNode> response = responses.poll(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+                if (response == null) {
+                    logger.warning("Pool proposal deadline has passed, " + (adjacentNodes.size() - i) + " nodes did not respond in time");
+                    break;
+                }
+                response.ifPresent(consentedNodes::add);
             }
         }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        finally {
+            // responses of remaining nodes are not needed anymore
+            requests.forEach(request -> request.cancel(true));
+        }
+        return consentedNodes;
+    }
+
+    /**
+     * Calculates the point in time after which a pool proposal or initiation is abandoned
+     * @return System.nanoTime() value of the deadline
+     */
+    private long deadline() {
+        final Long deadline = blockchainMiningConfig.getPool().getDeadline();
+        return System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(deadline == null || deadline <= 0 ? DEFAULT_DEADLINE : deadline);
+    }
+
+    /**
+     * Builds the URL of an endpoint on an adjacent node
+     * @param adjacentNode specifies the node to build the URL for
+     * @param endpoint specifies the path of the endpoint
+     * @return URL string
+     */
+    private static String nodeURL(AdjacentNode adjacentNode, String endpoint) {
+        return (adjacentNode.isTls() ? "https://" : "http://") + adjacentNode.getHostname() + endpoint;
     }
 
     /**
@@ -107,8 +218,10 @@ public class PoolFinderServiceImpl implements PoolFinderService {
      * @return HttpRequest object
      */
     private HttpRequest buildJsonPostRequest(URI uri, String json) {
+        final Long requestTimeout = blockchainMiningConfig.getPool().getRequestTimeout();
         return HttpRequest.newBuilder()
                 .uri(uri)
+                .timeout(Duration.ofMillis(requestTimeout == null || requestTimeout <= 0 ? DEFAULT_REQUEST_TIMEOUT : requestTimeout))
                 .header("Content-Type", "application/json")
                 .header("User-Agent", "SimpleBitcoinNode v1.0")
                 .POST(HttpRequest.BodyPublishers.ofString(json))
@@ -0,0 +1,136 @@
+package org.students.simplebitcoinnode.util;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import org.students.simplebitcoinnode.entity.Block;
+import org.students.simplebitcoinnode.entity.MinerPublicKey;
+import org.students.simplebitcoinnode.exceptions.encoding.InvalidEncodedStringException;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.time.ZoneOffset;
+
+/**
+ * Codec for the fixed-width binary block header format.<br>
+ * Block headers are versioned: version 0 (legacy) headers are hashed with <code>digestObject(block)</code>, which serializes the
+ * block with <code>Block.writeExternal</code> and thus has a variable length. Version 1 headers have a stable, big-endian byte layout
+ * whose SHA-256 hash is the block hash:<br>
+ * <ul>
+ *     <li>header version (encoded as <code>int</code>, 4 bytes)</li>
+ *     <li>previous block hash (32 bytes)</li>
+ *     <li>Merkle tree root hash (32 bytes)</li>
+ *     <li>SHA-256 digest of all concatenated decoded miner public keys (32 bytes)</li>
+ *     <li>block assembly UTC timestamp in epoch seconds (encoded as <code>long</code>, 8 bytes)</li>
+ *     <li>nonce (encoded as <code>long</code>, 8 bytes)</li>
+ * </ul>
+ * Since the nonce is the last field of a fixed length header, it can be patched in place.
+ */
+public class BlockHeaderCodec {
+    public static final int VERSION_LEGACY = 0;
+    public static final int VERSION_FIXED_WIDTH = 1;
+
+    public static final int HASH_LENGTH = 32;
+    public static final int NONCE_LENGTH = 8;
+    public static final int NONCE_OFFSET = 4 + 3 * HASH_LENGTH + 8;
+    public static final int HEADER_LENGTH = NONCE_OFFSET + NONCE_LENGTH;
+
+    /**
+     * Decoded representation of a fixed-width block header
+     */
+    @Getter
+    @AllArgsConstructor
+    public static class Header {
+        private final int version;
+        private final Sha256Hash previousHash;
+        private final Sha256Hash merkleRootHash;
+        private final Sha256Hash minersDigest;
+        private final long timestamp;
+        private final long nonce;
+    }
+
+    /**
+     * Checks if given block uses the legacy header format
+     * @param block specifies the block to check
+     * @return true if the block header is hashed with digestObject, false otherwise
+     */
+    public static boolean isLegacy(Block block) {
+        return block.getHeaderVersion() == null || block.getHeaderVersion() == VERSION_LEGACY;
+    }
+
+    /**
+     * Encodes the block header into a new byte array
+     * @param block specifies the block whose header to encode
+     * @return byte array of HEADER_LENGTH bytes containing the encoded header
+     * @throws InvalidEncodedStringException if the block contains malformed keys or its nonce does not fit into 64 bits
+     */
+    public static byte[] encode(Block block) throws InvalidEncodedStringException {
+        byte[] header = new byte[HEADER_LENGTH];
+        encode(block, ByteBuffer.wrap(header));
+        return header;
+    }
+
+    /**
+     * Encodes the block header into given buffer at its current position
+     * @param block specifies the block whose header to encode
+     * @param out specifies the buffer to write into, which must have at least HEADER_LENGTH bytes remaining
+     * @throws InvalidEncodedStringException if the block contains malformed keys or its nonce does not fit into 64 bits
+     */
+    public static void encode(Block block, ByteBuffer out) throws InvalidEncodedStringException {
+        if (block.getNonce().bitLength() >= 64)
+            throw new InvalidEncodedStringException("Block nonce does not fit into the fixed-width header");
+
+        out.order(ByteOrder.BIG_ENDIAN);
+        out.putInt(VERSION_FIXED_WIDTH);
+        block.getPreviousHash().writeTo(out);
+        block.getMerkleTree().getHash().writeTo(out);
+        out.put(minersDigest(block));
+        out.putLong(block.getBlockAssemblyTimestamp().toEpochSecond(ZoneOffset.UTC));
+        out.putLong(block.getNonce().longValue());
+    }
+
+    /**
+     * Decodes the block header from given buffer at its current position
+     * @param in specifies the buffer to read from
+     * @return Header object representing the decoded header
+     * @throws InvalidEncodedStringException if the buffer is too short or contains an unsupported header version
+     */
+    public static Header decode(ByteBuffer in) throws InvalidEncodedStringException {
+        try {
+            in.order(ByteOrder.BIG_ENDIAN);
+            final int version = in.getInt();
+            if (version != VERSION_FIXED_WIDTH)
+                throw new InvalidEncodedStringException("Unsupported block header version " + version);
+
+            final Sha256Hash previousHash = readHash(in);
+            final Sha256Hash merkleRootHash = readHash(in);
+            final Sha256Hash minersDigest = readHash(in);
+            return new Header(version, previousHash, merkleRootHash, minersDigest, in.getLong(), in.getLong());
+        }
+        catch (BufferUnderflowException e) {
+            throw new InvalidEncodedStringException("Block header must be " + HEADER_LENGTH + " bytes long");
+        }
+    }
+
+    /**
+     * Calculates the digest that commits to all miners of the block
+     * @param block specifies the block whose miners to digest
+     * @return SHA-256 hash of concatenated decoded miner public keys
+     * @throws InvalidEncodedStringException if any of the miner public keys is malformed
+     */
+    public static byte[] minersDigest(Block block) throws InvalidEncodedStringException {
+        ByteArrayOutputStream minerKeys = new ByteArrayOutputStream();
+        if (block.getMiners() != null) {
+            for (MinerPublicKey miner : block.getMiners())
+                minerKeys.writeBytes(Encoding.defaultPubKeyDecoding(miner.getPubKey()));
+        }
+        return Sha256.digest(minerKeys.toByteArray());
+    }
+
+    private static Sha256Hash readHash(ByteBuffer in) {
+        byte[] hash = new byte[HASH_LENGTH];
+        in.get(hash);
+        return Sha256Hash.wrap(hash);
+    }
+}
@@ -0,0 +1,138 @@
+package org.students.simplebitcoinnode.util;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.math.BigInteger;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-memory index of mined block headers forming a block tree.<br>
+ * Every connected block knows its height and the cumulative work of the chain ending with it, so the tip of the chain with
+ * the most work and the chain length are available in constant time. Blocks whose parent is not known yet are kept aside
+ * and connected as soon as the parent arrives. Only blocks whose hash satisfies the zero bit condition (the same condition
+ * as used by NonceSearchEngine) are indexed, except for genesis blocks, i.e. blocks whose previous hash is zero.<br>
+ * Lookups are lock-free, modifications are serialized.
+ */
+public class ChainIndex {
+    private final long zeroBitMask;
+    private final BigInteger blockWork;
+
+    private final Map<Sha256Hash, Entry> entries = new ConcurrentHashMap<>();
+    // blocks waiting for their parent, keyed by the parent hash, guarded by this
+    private final Map<Sha256Hash, List<Entry>> orphans = new HashMap<>();
+    private volatile Entry tip;
+
+    /**
+     * Creates an empty chain index
+     * @param zeroBitCondition specifies how many zero bits the hash prefix must have for the block to be considered mined
+     */
+    public ChainIndex(long zeroBitCondition) {
+        final long zeroBits = Math.max(0, Math.min(64, zeroBitCondition));
+        this.zeroBitMask = zeroBits >= 64 ? -1L : (1L << zeroBits) - 1;
+        // expected amount of hashes needed to mine a block
+        this.blockWork = BigInteger.ONE.shiftLeft((int) zeroBits);
+    }
+
+    /**
+     * Adds a block header to the index
+     * @param blockId specifies the database id of the block, null if the block is not stored
+     * @param hash specifies the hash of the block
+     * @param previousHash specifies the hash of the parent block
+     * @return list of blocks connected to the block tree by this call, i.e. the block itself followed by formerly orphaned descendants,
+     * empty if the block is already indexed, not mined or its parent is unknown
+     */
+    public synchronized List<Entry> add(Long blockId, Sha256Hash hash, Sha256Hash previousHash) {
+        if (entries.containsKey(hash) || !isGenesis(previousHash) && !isMined(hash))
+            return List.of();
+
+        Entry parent = entries.get(previousHash);
+        if (!isGenesis(previousHash) && parent == null) {
+            orphans.computeIfAbsent(previousHash, key -> new ArrayList<>()).add(new Entry(blockId, hash, previousHash, 0, BigInteger.ZERO));
+            return List.of();
+        }
+
+        List<Entry> connected = new ArrayList<>();
+        connected.add(connect(blockId, hash, previousHash, parent));
+        // breadth-first over formerly orphaned descendants, the list doubles as the queue
+        for (int i = 0; i < connected.size(); i++) {
+            final Entry entry = connected.get(i);
+            List<Entry> children = orphans.remove(entry.getHash());
+            if (children == null)
+                continue;
+            for (Entry child : children) {
+                if (!entries.containsKey(child.getHash()))
+                    connected.add(connect(child.getBlockId(), child.getHash(), child.getPreviousHash(), entry));
+            }
+        }
+        return connected;
+    }
+
+    /**
+     * Looks up an indexed block
+     * @param hash specifies the hash of the block
+     * @return Entry object of the block, null if the block is not connected to the block tree
+     */
+    public Entry get(Sha256Hash hash) {
+        return entries.get(hash);
+    }
+
+    /**
+     * Returns the last block of the chain with the most cumulative work, the first seen block wins ties
+     * @return Entry object of the tip block, null if the index is empty
+     */
+    public Entry getTip() {
+        return tip;
+    }
+
+    /**
+     * Returns the amount of blocks in the chain with the most cumulative work
+     * @return chain length including the genesis block, 0 if the index is empty
+     */
+    public long getChainLength() {
+        final Entry currentTip = tip;
+        return currentTip == null ? 0 : currentTip.getHeight() + 1;
+    }
+
+    /**
+     * Counts the blocks connected to the block tree
+     * @return amount of indexed blocks
+     */
+    public int size() {
+        return entries.size();
+    }
+
+    /**
+     * Checks if a hash satisfies the zero bit condition
+     * @param hash specifies the block hash to check
+     * @return true if the block is considered mined, false otherwise
+     */
+    public boolean isMined(Sha256Hash hash) {
+        return (NonceSearchEngine.prefixValue(hash.getBytes()) & zeroBitMask) == 0;
+    }
+
+    private static boolean isGenesis(Sha256Hash previousHash) {
+        return Sha256Hash.ZERO.equals(previousHash);
+    }
+
+    private Entry connect(Long blockId, Sha256Hash hash, Sha256Hash previousHash, Entry parent) {
+        final Entry entry = parent == null
+                ? new Entry(blockId, hash, previousHash, 0, blockWork)
+                : new Entry(blockId, hash, previousHash, parent.getHeight() + 1, parent.getCumulativeWork().add(blockWork));
+        entries.put(hash, entry);
+        if (tip == null || entry.getCumulativeWork().compareTo(tip.getCumulativeWork()) > 0)
+            tip = entry;
+        return entry;
+    }
+
+    @Getter
+    @AllArgsConstructor
+    public static class Entry {
+        private final Long blockId;
+        private final Sha256Hash hash;
+        private final Sha256Hash previousHash;
+        private final long height;
+        private final BigInteger cumulativeWork;
+    }
+}
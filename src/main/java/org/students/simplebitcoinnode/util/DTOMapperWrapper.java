@@ -1,7 +1,9 @@
 package org.students.simplebitcoinnode.util;
 
+import org.modelmapper.Converter;
 import org.modelmapper.ModelMapper;
 import org.springframework.stereotype.Service;
+import org.students.simplebitcoinnode.exceptions.encoding.InvalidEncodedStringException;
 
 import java.util.List;
 import java.util.stream.Collectors;
@@ -10,6 +12,12 @@ import java.util.stream.Collectors;
 public class DTOMapperWrapper {
     private final ModelMapper mapper = new ModelMapper();
 
+    public DTOMapperWrapper() {
+        // entities store hashes as raw bytes, while DTOs carry their hex representation
+        mapper.addConverter(hashToHexConverter(), Sha256Hash.class, String.class);
+        mapper.addConverter(hexToHashConverter(), String.class, Sha256Hash.class);
+    }
+
     /**
      * This method is used to convert a list of source objects to a list of destination objects.
      * It uses Java streams to map each source object to a destination object.
@@ -50,4 +58,21 @@ public class DTOMapperWrapper {
         return mapper.map(destination, source);
     }
 
+    private static Converter<Sha256Hash, String> hashToHexConverter() {
+        return context -> context.getSource() == null ? null : context.getSource().toString();
+    }
+
+    private static Converter<String, Sha256Hash> hexToHashConverter() {
+        return context -> {
+            if (context.getSource() == null)
+                return null;
+            try {
+                return Sha256Hash.fromHex(context.getSource());
+            }
+            catch (InvalidEncodedStringException e) {
+                throw new IllegalArgumentException("Invalid SHA-256 hash: " + e.getMessage());
+            }
+        };
+    }
+
 }
@@ -0,0 +1,118 @@
+package org.students.simplebitcoinnode.util;
+
+import org.students.simplebitcoinnode.exceptions.crypto.CryptoProviderNotFoundException;
+import org.students.simplebitcoinnode.exceptions.crypto.MalformedKeyException;
+import org.students.simplebitcoinnode.exceptions.crypto.MalformedSignatureException;
+
+import java.security.*;
+import java.security.spec.InvalidKeySpecException;
+import java.security.spec.X509EncodedKeySpec;
+import java.util.Arrays;
+
+/**
+ * ECDSA with SHA-256 signature verification facility that reuses one Signature and KeyFactory instance per thread
+ * instead of looking up the provider on every call.<br>
+ * Parsed public keys are kept in a bounded LRU cache keyed by their X509 encoding, since the same sender key verifies every output of a transaction.
+ */
+public class EcdsaSignatureVerifier {
+    public static final String ALGORITHM = "SHA256withECDSA";
+    public static final int DEFAULT_PUBLIC_KEY_CACHE_SIZE = 4096;
+
+    private static final String KEY_ALGORITHM = "EC";
+
+    private static final ThreadLocal<Signature> signatures = ThreadLocal.withInitial(EcdsaSignatureVerifier::newSignature);
+    private static final ThreadLocal<KeyFactory> keyFactories = ThreadLocal.withInitial(EcdsaSignatureVerifier::newKeyFactory);
+    private static volatile LruCache<Key, PublicKey> publicKeyCache = new LruCache<>(DEFAULT_PUBLIC_KEY_CACHE_SIZE);
+
+    /**
+     * Replaces the parsed public key cache
+     * @param capacity specifies the maximum amount of cached public keys, 0 disables caching
+     */
+    public static void configurePublicKeyCache(int capacity) {
+        publicKeyCache = new LruCache<>(capacity);
+    }
+
+    /**
+     * Verifies if the digital signature matches signer's public key and the signed message
+     * @param message specifies the signed message bytes
+     * @param signature specifies the DER encoded signature
+     * @param publicKey specifies the X509 encoded public key of the signer
+     * @return true if the signature is valid, false otherwise
+     * @throws MalformedKeyException if the public key is not a valid X509 encoded EC key
+     * @throws MalformedSignatureException if the signature is not properly encoded
+     */
+    public static boolean verify(byte[] message, byte[] signature, byte[] publicKey) throws MalformedKeyException, MalformedSignatureException {
+        Signature ecdsaVerify = signatures.get();
+        try {
+            ecdsaVerify.initVerify(parsePublicKey(publicKey));
+            ecdsaVerify.update(message);
+            return ecdsaVerify.verify(signature);
+        }
+        catch (InvalidKeyException e) {
+            throw new MalformedKeyException(e.getMessage());
+        }
+        catch (SignatureException e) {
+            throw new MalformedSignatureException("Provided signature is malformed: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Parses an X509 encoded public key, recently parsed keys are served from a bounded cache
+     * @param publicKey specifies the X509 encoded public key
+     * @return PublicKey object
+     * @throws MalformedKeyException if the public key is not a valid X509 encoded EC key
+     */
+    public static PublicKey parsePublicKey(byte[] publicKey) throws MalformedKeyException {
+        final LruCache<Key, PublicKey> cache = publicKeyCache;
+        PublicKey parsed = cache.get(new Key(publicKey));
+        if (parsed == null) {
+            try {
+                parsed = keyFactories.get().generatePublic(new X509EncodedKeySpec(publicKey));
+            }
+            catch (InvalidKeySpecException e) {
+                throw new MalformedKeyException("Provided public key is not encoded with X509 standard: " + e.getMessage());
+            }
+            // the caller is free to modify its array afterwards
+            cache.put(new Key(publicKey.clone()), parsed);
+        }
+        return parsed;
+    }
+
+    private static Signature newSignature() {
+        try {
+            return Signature.getInstance(ALGORITHM);
+        }
+        catch (NoSuchAlgorithmException e) {
+            throw new CryptoProviderNotFoundException("Current crypto provider does not support requested algorithms: " + e.getMessage());
+        }
+    }
+
+    private static KeyFactory newKeyFactory() {
+        try {
+            return KeyFactory.getInstance(KEY_ALGORITHM);
+        }
+        catch (NoSuchAlgorithmException e) {
+            throw new CryptoProviderNotFoundException("Current crypto provider does not support elliptic-curve cryptography: " + e.getMessage());
+        }
+    }
+
+    private static class Key {
+        private final byte[] bytes;
+        private final int hash;
+
+        Key(byte[] bytes) {
+            this.bytes = bytes;
+            this.hash = Arrays.hashCode(bytes);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Key key && Arrays.equals(bytes, key.bytes);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+}
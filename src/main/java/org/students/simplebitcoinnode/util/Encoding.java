@@ -3,15 +3,54 @@ package org.students.simplebitcoinnode.util;
 import org.students.simplebitcoinnode.exceptions.encoding.InvalidEncodedStringException;
 
 import java.nio.charset.StandardCharsets;
-import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.List;
+import java.util.Objects;
 
 /**
  * Encoding utility class
  */
 public class Encoding {
     private static final String base58Charset = "123456789ABCDEFGHJKLMNPQRSTUVWXYZabcdefghijkmnopqrstuvwxyz";
+    private static final String hexCharset = "0123456789abcdef";
+
+    // 58^5 is the largest power of 58 that fits into 32 bits, so base58 conversion handles five digits per 32-bit limb operation
+    private static final int BASE58_DIGITS_PER_CHUNK = 5;
+    private static final long BASE58_CHUNK = 58L * 58 * 58 * 58 * 58;
+    private static final byte[] base58EncodeTable = base58Charset.getBytes(StandardCharsets.US_ASCII);
+    // value of every ASCII symbol as a base58 digit, -1 for symbols that are not in the alphabet
+    private static final byte[] base58DecodeTable = new byte[128];
+
+    public static final int DEFAULT_PUB_KEY_CACHE_SIZE = 4096;
+    // decoded public keys by their encoded representation, since the same keys get decoded on every hash
+    private static volatile LruCache<String, byte[]> pubKeyCache = new LruCache<>(DEFAULT_PUB_KEY_CACHE_SIZE);
+
+    // both hex digits of every byte value, at indices 2 * value and 2 * value + 1
+    private static final byte[] hexEncodeTable = new byte[2 * 256];
+    // value of every ASCII symbol as a hex digit, -1 for symbols that are not lowercase hex digits
+    private static final byte[] hexDecodeTable = new byte[128];
+
+    static {
+        for (int b = 0; b < 256; b++) {
+            hexEncodeTable[2 * b] = (byte) hexCharset.charAt(b >> 4);
+            hexEncodeTable[2 * b + 1] = (byte) hexCharset.charAt(b & 0x0f);
+        }
+
+        Arrays.fill(hexDecodeTable, (byte) -1);
+        for (int i = 0; i < hexCharset.length(); i++)
+            hexDecodeTable[hexCharset.charAt(i)] = (byte) i;
+
+        Arrays.fill(base58DecodeTable, (byte) -1);
+        for (int i = 0; i < base58Charset.length(); i++)
+            base58DecodeTable[base58Charset.charAt(i)] = (byte) i;
+    }
+
+    /**
+     * Replaces the decoded public key cache
+     * @param capacity specifies the maximum amount of cached public keys, 0 disables caching
+     */
+    public static void configurePubKeyCache(int capacity) {
+        pubKeyCache = new LruCache<>(capacity);
+    }
 
     /**
      * Encodes the public key with current default public key encoding
@@ -23,12 +62,19 @@ public class Encoding {
     }
 
     /**
-     * Decodes the provided public key with current default public key decoding algorithm
+     * Decodes the provided public key with current default public key decoding algorithm.
+     * Recently decoded keys are served from a bounded cache.
      * @param encodedPublicKey represents the encoded public key as string
-     * @return byte array representing the public key
+     * @return byte array representing the public key, which the caller is free to modify
      */
     public static byte[] defaultPubKeyDecoding(String encodedPublicKey) throws InvalidEncodedStringException {
-        return base58Decode(encodedPublicKey);
+        final LruCache<String, byte[]> cache = pubKeyCache;
+        byte[] pubKey = cache.get(encodedPublicKey);
+        if (pubKey == null) {
+            pubKey = base58Decode(encodedPublicKey);
+            cache.put(encodedPublicKey, pubKey);
+        }
+        return pubKey.clone();
     }
 
     /**
@@ -37,104 +83,162 @@ public class Encoding {
      * @return a hexadecimal string representing the byte array
      */
     public static String toHexString(byte[] bytes) {
-        final char[] hexSymbols = "0123456789abcdef".toCharArray();
+        return toHexString(bytes, 0, bytes.length);
+    }
+
+    /**
+     * Converts a range of the byte array into hexadecimal string
+     * @param bytes represents the array of bytes to use for encoding
+     * @param offset specifies the index of the first byte to encode
+     * @param length specifies the amount of bytes to encode
+     * @return a lowercase hexadecimal string of 2 * length characters
+     */
+    public static String toHexString(byte[] bytes, int offset, int length) {
+        Objects.checkFromIndexSize(offset, length, bytes.length);
 
-        StringBuilder stringBuilder = new StringBuilder();
-        for (byte b : bytes) {
-            int val = b & 0xff;
-            stringBuilder.append(hexSymbols[val >> 4]);
-            stringBuilder.append(hexSymbols[val & 0x0f]);
+        // hex digits are ASCII, so the string can be built from Latin-1 bytes without an intermediate char array
+        byte[] hex = new byte[2 * length];
+        for (int i = 0; i < length; i++) {
+            final int pair = 2 * (bytes[offset + i] & 0xff);
+            hex[2 * i] = hexEncodeTable[pair];
+            hex[2 * i + 1] = hexEncodeTable[pair + 1];
         }
 
-        return stringBuilder.toString();
+        return new String(hex, StandardCharsets.ISO_8859_1);
     }
 
     /**
      * Converts given hexadecimal string to an array of bytes if possible.
-     * @param hexString specifies the hexadecimal string to decode. The string is assumed to only contain lowercase numerical or lowercase `abcdef` characters.
-     *                  Other-wise the method call will fail with InvalidHexStringException.
+     * @param hexString specifies the hexadecimal string to decode. The string must only contain lowercase numerical or lowercase `abcdef` characters.
+     *                  Other-wise the method call will fail with InvalidEncodedStringException.
      * @return array of decoded bytes
-     * @throws InvalidEncodedStringException
+     * @throws InvalidEncodedStringException if the string length is odd or the string contains non-hexadecimal characters
      */
     public static byte[] hexStringToBytes(String hexString) throws InvalidEncodedStringException {
-        validateHexStringOrException(hexString);
+        if (hexString.length() % 2 != 0)
+            throw new InvalidEncodedStringException("HexString length must be multiple of 2");
+
         byte[] bytes = new byte[hexString.length() / 2];
+        hexStringToBytes(hexString, bytes, 0);
+        return bytes;
+    }
+
+    /**
+     * Decodes given hexadecimal string into an existing array, validating the string in the same pass.
+     * If the string turns out to be invalid, some bytes of the output range may already have been overwritten.
+     * @param hexString specifies the hexadecimal string to decode, with the same requirements as in hexStringToBytes(String)
+     * @param out specifies the array to decode into
+     * @param offset specifies the index in the output array to write the first decoded byte to
+     * @return amount of decoded bytes
+     * @throws InvalidEncodedStringException if the string length is odd or the string contains non-hexadecimal characters
+     * @throws IndexOutOfBoundsException if the decoded bytes do not fit into the output array
+     */
+    public static int hexStringToBytes(String hexString, byte[] out, int offset) throws InvalidEncodedStringException {
+        final int length = hexString.length();
+        if (length % 2 != 0)
+            throw new InvalidEncodedStringException("HexString length must be multiple of 2");
+        Objects.checkFromIndexSize(offset, length / 2, out.length);
 
-        for (int i = 0; i < hexString.length(); i += 2) {
-            int b = hexSymbolToInt(hexString.charAt(i)) * 16 + hexSymbolToInt(hexString.charAt(i+1));
-            bytes[i / 2] = (byte)(b & 0xff);
+        for (int i = 0; i < length; i += 2) {
+            final int high = hexDigitValue(hexString.charAt(i));
+            final int low = hexDigitValue(hexString.charAt(i + 1));
+            // either value is negative for invalid symbols, which makes the combined value negative as well
+            if ((high | low) < 0)
+                throw new InvalidEncodedStringException("Invalid symbol '" + (high < 0 ? hexString.charAt(i) : hexString.charAt(i + 1)) + "' in hexString ");
+            out[offset + i / 2] = (byte) (high << 4 | low);
         }
 
-        return bytes;
+        return length / 2;
     }
 
     /**
-     * Encodes a byte array as base58 string
+     * Encodes a byte array as base58 string. Each leading zero byte is encoded as a leading '1' symbol.
      * @param bytes represents the byte array to encode
      * @return string containing base58 representation of the data
      */
     public static String base58Encode(byte[] bytes) {
-        StringBuilder stringBuilder = new StringBuilder();
-
-        byte[] copy = Arrays.copyOf(bytes, bytes.length);
-        for (int i = 0; i < copy.length;) {
-            int carry = 0;
-            for (int j = 0; j < copy.length; j++) {
-                int digit = (copy[j] & 0xff) + (carry << 8);
-                copy[j] = (byte) (digit / 58);
-                carry = digit % 58;
+        int zeros = 0;
+        while (zeros < bytes.length && bytes[zeros] == 0)
+            zeros++;
+
+        // represent the remaining bytes as a big-endian number of 32-bit limbs
+        final int significantBytes = bytes.length - zeros;
+        final int limbCount = (significantBytes + 3) / 4;
+        int[] limbs = new int[limbCount];
+        for (int i = 0; i < significantBytes; i++) {
+            final int fromEnd = significantBytes - 1 - i;
+            limbs[limbCount - 1 - fromEnd / 4] |= (bytes[zeros + i] & 0xff) << (8 * (fromEnd % 4));
+        }
+
+        // log(256) / log(58) < 1.38 digits per byte, plus the padding of the last chunk
+        byte[] encoded = new byte[zeros + significantBytes * 138 / 100 + 1 + BASE58_DIGITS_PER_CHUNK];
+        int position = encoded.length;
+        for (int first = 0; first < limbCount;) {
+            // divide the number by 58^5 in place, the remainder holds the next five digits
+            long remainder = 0;
+            for (int i = first; i < limbCount; i++) {
+                final long dividend = remainder << 32 | (limbs[i] & 0xffffffffL);
+                limbs[i] = (int) (dividend / BASE58_CHUNK);
+                remainder = dividend % BASE58_CHUNK;
             }
+            while (first < limbCount && limbs[first] == 0)
+                first++;
 
-            if (copy[i] == 0)
-                i++;
-            stringBuilder.append(base58Charset.charAt(carry));
+            for (int i = 0; i < BASE58_DIGITS_PER_CHUNK; i++) {
+                encoded[--position] = base58EncodeTable[(int) (remainder % 58)];
+                remainder /= 58;
+            }
         }
 
-        return stringBuilder.reverse().toString();
+        // drop the zero digits padding the most significant chunk and encode leading zero bytes instead
+        while (position < encoded.length && encoded[position] == base58EncodeTable[0])
+            position++;
+        for (int i = 0; i < zeros; i++)
+            encoded[--position] = base58EncodeTable[0];
+
+        return new String(encoded, position, encoded.length - position, StandardCharsets.US_ASCII);
     }
 
     /**
-     * Decodes base58 encoded string into a byte array
+     * Decodes base58 encoded string into a byte array. Each leading '1' symbol is decoded as a leading zero byte.
      * @param string specifies base58 encoded string to decode
      * @return byte array containing decoded data
-     * @throws InvalidEncodedStringException
+     * @throws InvalidEncodedStringException if the string contains symbols that are not in the base58 alphabet
      */
     public static byte[] base58Decode(String string) throws InvalidEncodedStringException {
-        List<Byte> byteList = new ArrayList<>();
-
-        // represent base58 integer as byte array and count leading zeroes
-        byte[] base58AsBytes = new byte[string.length()];
-        for (int i = 0; i < string.length(); i++) {
-            base58AsBytes[i] = (byte) binarySearchBase58AlphabetIndex(string.charAt(i));
-        }
+        final int length = string.length();
+        int zeros = 0;
+        while (zeros < length && string.charAt(zeros) == base58Charset.charAt(0))
+            zeros++;
 
-        // ugly baseness conversion algorithm all over again
-        for (int base58AsByte : base58AsBytes) {
-            int carry = base58AsByte;
-            for (int j = 0; j < byteList.size(); j++) {
-                // evil bit manipulations (⊙_⊙)
-                carry += (byteList.get(j) & 0xff) * 58;
-                byteList.set(j, (byte) (carry & 0xff));
-                carry >>= 8;
+        // log(58) / log(256) < 0.733 bytes per digit
+        final int limbCount = ((length - zeros) * 733 / 1000 + 1 + 3) / 4;
+        int[] limbs = new int[limbCount];
+        for (int i = zeros; i < length;) {
+            // gather up to five digits and add them to the number multiplied by the matching power of 58
+            long chunk = 0;
+            long multiplier = 1;
+            for (final int chunkEnd = Math.min(length, i + BASE58_DIGITS_PER_CHUNK); i < chunkEnd; i++) {
+                chunk = chunk * 58 + base58DigitValue(string.charAt(i));
+                multiplier *= 58;
             }
 
-            // decompose carry bits into bytes
-            while (carry > 0) {
-                byteList.add((byte) (carry & 0xff));
-                carry >>= 8;
+            long carry = chunk;
+            for (int j = limbCount - 1; j >= 0; j--) {
+                final long product = (limbs[j] & 0xffffffffL) * multiplier + carry;
+                limbs[j] = (int) product;
+                carry = product >>> 32;
             }
         }
 
-        // deal with leading zeroes
-        for (int i = 0; i < base58AsBytes.length && base58AsBytes[i] == (byte)0; i++) {
-            byteList.add((byte)0);
-        }
+        int firstByte = 0;
+        while (firstByte < 4 * limbCount && limbByte(limbs, firstByte) == 0)
+            firstByte++;
 
-        // convert list to byte array
-        byte[] res = new byte[byteList.size()];
-        for (int i = 0; i < byteList.size(); i++)
-            res[i] = byteList.get(byteList.size() - 1 - i);
-        return res;
+        byte[] decoded = new byte[zeros + 4 * limbCount - firstByte];
+        for (int i = firstByte; i < 4 * limbCount; i++)
+            decoded[zeros + i - firstByte] = limbByte(limbs, i);
+        return decoded;
     }
 
     public static void main(String[] args) throws InvalidEncodedStringException {
@@ -144,56 +248,18 @@ public class Encoding {
         System.out.println(new String(base58Decode(encoded)));
     }
 
-    private static int binarySearchBase58AlphabetIndex(char c) throws InvalidEncodedStringException {
-        // find character's index using binary search
-        int left = 0; // inclusive
-        int right = base58Charset.length(); // exclusive
-        int mid = (left + right) / 2;
-
-        while (base58Charset.charAt(mid) != c) {
-            if (right - left <= 1)
-                throw new InvalidEncodedStringException("Base58 decoding failed: character '" + c + "' is not in Base58 alphabet");
-
-            if (base58Charset.charAt(mid) > c)
-                right = mid;
-            else if (base58Charset.charAt(mid) < c)
-                left = mid;
-            mid = (left + right) / 2;
-        }
-
-        return mid;
+    private static int base58DigitValue(char c) throws InvalidEncodedStringException {
+        final int value = c < base58DecodeTable.length ? base58DecodeTable[c] : -1;
+        if (value < 0)
+            throw new InvalidEncodedStringException("Base58 decoding failed: character '" + c + "' is not in Base58 alphabet");
+        return value;
     }
 
-    private static void validateHexStringOrException(String hexString) throws InvalidEncodedStringException {
-        // length must be multiple of 2 requirement
-        if (hexString.length() % 2 != 0)
-            throw new InvalidEncodedStringException("HexString length must be multiple of 2");
-
-        // allowed symbol requirements
-        for (char c : hexString.toCharArray()) {
-            if (c < '0' || (c > '9' && c < 'a') || c > 'z')
-                throw new InvalidEncodedStringException("Invalid symbol '" + c + "' in hexString ");
-        }
+    private static byte limbByte(int[] limbs, int index) {
+        return (byte) (limbs[index / 4] >>> (8 * (3 - index % 4)));
     }
 
-    private static int hexSymbolToInt(char hexSymbol) {
-        return switch (hexSymbol) {
-            case '1' -> 1;
-            case '2' -> 2;
-            case '3' -> 3;
-            case '4' -> 4;
-            case '5' -> 5;
-            case '6' -> 6;
-            case '7' -> 7;
-            case '8' -> 8;
-            case '9' -> 9;
-            case 'a' -> 10;
-            case 'b' -> 11;
-            case 'c' -> 12;
-            case 'd' -> 13;
-            case 'e' -> 14;
-            case 'f' -> 15;
-            default -> 0;
-        };
+    private static int hexDigitValue(char c) {
+        return c < hexDecodeTable.length ? hexDecodeTable[c] : -1;
     }
 }
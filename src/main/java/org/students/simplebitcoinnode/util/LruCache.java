@@ -0,0 +1,111 @@
+package org.students.simplebitcoinnode.util;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Thread-safe bounded cache that evicts least recently used entries.<br>
+ * Entries are spread over independently locked segments by key hash, so that concurrent lookups of different keys
+ * rarely contend for the same lock. Each segment evicts on its own, hence the eviction order is LRU per segment only.
+ * @param <K> type of the keys
+ * @param <V> type of the cached values
+ */
+public class LruCache<K, V> {
+    private static final int MAX_SEGMENT_COUNT = 16;
+
+    private final Segment<K, V>[] segments;
+    private final int capacity;
+
+    /**
+     * Creates a new cache
+     * @param capacity specifies the maximum amount of cached entries, non-positive capacity disables caching
+     */
+    @SuppressWarnings("unchecked")
+    public LruCache(int capacity) {
+        this.capacity = Math.max(0, capacity);
+        // power of two segment count, so that the segment can be selected with a bit mask
+        final int segmentCount = Math.max(1, Integer.highestOneBit(Math.min(MAX_SEGMENT_COUNT, this.capacity)));
+        this.segments = new Segment[segmentCount];
+        for (int i = 0; i < segmentCount; i++)
+            segments[i] = new Segment<>((this.capacity + segmentCount - 1) / segmentCount);
+    }
+
+    /**
+     * Returns the maximum amount of cached entries
+     * @return capacity of the cache
+     */
+    public int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * Looks up the value of given key and marks the entry as recently used
+     * @param key specifies the key to look up
+     * @return cached value, null if the key is not cached
+     */
+    public V get(K key) {
+        Segment<K, V> segment = segmentFor(key);
+        synchronized (segment) {
+            return segment.get(key);
+        }
+    }
+
+    /**
+     * Caches a value, evicting the least recently used entry of its segment if the segment is full
+     * @param key specifies the key of the entry
+     * @param value specifies the value to cache
+     */
+    public void put(K key, V value) {
+        if (capacity == 0)
+            return;
+
+        Segment<K, V> segment = segmentFor(key);
+        synchronized (segment) {
+            segment.put(key, value);
+        }
+    }
+
+    /**
+     * Counts the cached entries
+     * @return amount of cached entries
+     */
+    public int size() {
+        int size = 0;
+        for (Segment<K, V> segment : segments) {
+            synchronized (segment) {
+                size += segment.size();
+            }
+        }
+        return size;
+    }
+
+    /**
+     * Removes all cached entries
+     */
+    public void clear() {
+        for (Segment<K, V> segment : segments) {
+            synchronized (segment) {
+                segment.clear();
+            }
+        }
+    }
+
+    private Segment<K, V> segmentFor(K key) {
+        final int hash = key.hashCode();
+        return segments[(hash ^ (hash >>> 16)) & (segments.length - 1)];
+    }
+
+    private static class Segment<K, V> extends LinkedHashMap<K, V> {
+        private final int capacity;
+
+        Segment(int capacity) {
+            super(16, 0.75f, true);
+            this.capacity = capacity;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<K, V> eldest) {
+            return size() > capacity;
+        }
+    }
+}
@@ -0,0 +1,242 @@
+package org.students.simplebitcoinnode.util;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import org.students.simplebitcoinnode.entity.Transaction;
+import org.students.simplebitcoinnode.entity.TransactionOutput;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Thread-safe, size-bounded pool of pending transactions.<br>
+ * Transactions are kept unique by their hash and ordered by priority, ties (and the default ordering) are broken by arrival order.
+ * Lookups by hash never lock, modifications and ordered reads are serialized on the pool itself.
+ * The pool keeps track of the estimated serialized size of its transactions and the arrival time of the oldest one,
+ * so that block assembly can be triggered by count, size or wait time thresholds.
+ */
+public class Mempool {
+    // serialized lengths of the fields of a transaction, see Transaction.writeExternal
+    private static final int PUBLIC_KEY_LENGTH = 88;
+    private static final int SIGNATURE_LENGTH = 72;
+    private static final int TIMESTAMP_LENGTH = 21;
+
+    private final int capacity;
+    private final Map<Sha256Hash, Entry> entries = new ConcurrentHashMap<>();
+    // guarded by this
+    private final NavigableSet<Entry> ordered;
+    // same set as ordered, unless a priority ordering is given
+    private final NavigableSet<Entry> arrivals;
+    private long nextSequence = 0;
+    // sequence numbers of restored transactions count down, so that they are placed in front of all other transactions
+    private long nextRestoredSequence = -1;
+    private volatile long sizeBytes = 0;
+
+    /**
+     * Creates a new pool ordered by arrival
+     * @param capacity specifies the maximum amount of pending transactions
+     */
+    public Mempool(int capacity) {
+        this(capacity, null);
+    }
+
+    /**
+     * Creates a new pool
+     * @param capacity specifies the maximum amount of pending transactions
+     * @param priority specifies the ordering of transactions with higher priority first, null to order by arrival only
+     */
+    public Mempool(int capacity, Comparator<Transaction> priority) {
+        if (capacity <= 0)
+            throw new IllegalArgumentException("Mempool capacity must be positive");
+
+        this.capacity = capacity;
+        final Comparator<Entry> arrival = Comparator.comparingLong(Entry::getSequence);
+        this.ordered = new TreeSet<>(priority == null ? arrival : Comparator.comparing(Entry::getTransaction, priority).thenComparing(arrival));
+        this.arrivals = priority == null ? ordered : new TreeSet<>(arrival);
+    }
+
+    /**
+     * Estimates the serialized size of a transaction
+     * @param transaction specifies the transaction
+     * @return estimated size in bytes
+     */
+    public static long estimateSize(Transaction transaction) {
+        long size = 2 * Integer.BYTES + PUBLIC_KEY_LENGTH + TIMESTAMP_LENGTH;
+        if (transaction.getInputs() != null) {
+            for (TransactionOutput input : transaction.getInputs())
+                size += SIGNATURE_LENGTH + amountLength(input) + PUBLIC_KEY_LENGTH;
+        }
+        if (transaction.getOutputs() != null) {
+            for (TransactionOutput output : transaction.getOutputs())
+                size += amountLength(output) + PUBLIC_KEY_LENGTH;
+        }
+        return size;
+    }
+
+    private static int amountLength(TransactionOutput output) {
+        // amounts are written as modified UTF-8 strings with a two byte length prefix
+        return 2 + (output.getAmount() == null ? 0 : output.getAmount().toString().length());
+    }
+
+    /**
+     * Returns the maximum amount of pending transactions
+     * @return capacity of the pool
+     */
+    public int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * Counts the pending transactions
+     * @return amount of pending transactions
+     */
+    public int size() {
+        return entries.size();
+    }
+
+    /**
+     * Sums the estimated serialized sizes of pending transactions
+     * @return estimated size of all pending transactions in bytes
+     */
+    public long getSizeBytes() {
+        return sizeBytes;
+    }
+
+    /**
+     * Checks if there is room for at least one more transaction
+     * @return true if the pool is full
+     */
+    public boolean isFull() {
+        return entries.size() >= capacity;
+    }
+
+    /**
+     * Checks if a transaction is pending
+     * @param transactionHash specifies the hash of the transaction
+     * @return true if the transaction is in the pool
+     */
+    public boolean contains(Sha256Hash transactionHash) {
+        return entries.containsKey(transactionHash);
+    }
+
+    /**
+     * Adds a transaction after all transactions of the same priority
+     * @param transaction specifies the transaction to add
+     * @return true if the transaction was added, false if it is already pending or the pool is full
+     */
+    public synchronized boolean add(Transaction transaction) {
+        if (entries.size() >= capacity || entries.containsKey(transaction.getTransactionHash()))
+            return false;
+
+        insert(new Entry(nextSequence++, System.nanoTime(), estimateSize(transaction), transaction));
+        return true;
+    }
+
+    /**
+     * Puts previously drained transactions back in front of the pool in their original order, e.g. when a block could not be built from them.<br>
+     * Restored transactions may exceed the capacity, since they had been accounted for before, their wait time starts anew.
+     * @param transactions specifies the transactions to restore
+     */
+    public synchronized void restore(List<Transaction> transactions) {
+        for (int i = transactions.size() - 1; i >= 0; i--) {
+            if (!entries.containsKey(transactions.get(i).getTransactionHash()))
+                insert(new Entry(nextRestoredSequence--, System.nanoTime(), estimateSize(transactions.get(i)), transactions.get(i)));
+        }
+    }
+
+    /**
+     * Removes and returns the transactions of the next block once any block assembly threshold has been reached
+     * @param maxCount specifies the maximum amount of transactions in a block, reaching it triggers block assembly
+     * @param maxBytes specifies the maximum estimated size of transactions in a block, reaching it triggers block assembly
+     * @param maxWaitNanos specifies the maximum time in nanoseconds the oldest transaction waits for block assembly, non-positive to wait indefinitely
+     * @return list of drained transactions in priority order, at least one unless no threshold has been reached yet
+     */
+    public synchronized List<Transaction> drainBlock(int maxCount, long maxBytes, long maxWaitNanos) {
+        if (maxCount <= 0 || nanosUntilBlock(maxCount, maxBytes, maxWaitNanos) != 0)
+            return List.of();
+
+        List<Transaction> transactions = new ArrayList<>(Math.min(maxCount, entries.size()));
+        long blockBytes = 0;
+        while (transactions.size() < maxCount && !ordered.isEmpty()) {
+            Entry entry = ordered.first();
+            if (!transactions.isEmpty() && blockBytes + entry.getSize() > maxBytes)
+                break;
+
+            blockBytes += entry.getSize();
+            delete(entry);
+            transactions.add(entry.getTransaction());
+        }
+        return transactions;
+    }
+
+    /**
+     * Calculates the time until a block assembly threshold is reached, assuming that no transactions get added
+     * @param maxCount specifies the maximum amount of transactions in a block
+     * @param maxBytes specifies the maximum estimated size of transactions in a block
+     * @param maxWaitNanos specifies the maximum time in nanoseconds the oldest transaction waits for block assembly, non-positive to wait indefinitely
+     * @return 0 if a block can be assembled right away, remaining nanoseconds until the wait time threshold or -1 if no threshold will be reached
+     */
+    public synchronized long nanosUntilBlock(int maxCount, long maxBytes, long maxWaitNanos) {
+        if (entries.isEmpty())
+            return -1;
+        if (entries.size() >= maxCount || sizeBytes >= maxBytes)
+            return 0;
+        if (maxWaitNanos <= 0)
+            return -1;
+
+        return Math.max(0, arrivals.first().getArrivalTime() + maxWaitNanos - System.nanoTime());
+    }
+
+    /**
+     * Returns at most given amount of transactions with the highest priority without removing them
+     * @param limit specifies the maximum amount of transactions to return
+     * @return list of pending transactions in priority order
+     */
+    public synchronized List<Transaction> peek(int limit) {
+        List<Transaction> transactions = new ArrayList<>(Math.min(Math.max(limit, 0), ordered.size()));
+        Iterator<Entry> iterator = ordered.iterator();
+        while (transactions.size() < limit && iterator.hasNext())
+            transactions.add(iterator.next().getTransaction());
+        return transactions;
+    }
+
+    /**
+     * Removes transactions from the pool, e.g. after they have been included in a stored block
+     * @param transactionHashes specifies the hashes of transactions to remove
+     * @return amount of removed transactions
+     */
+    public synchronized int removeAll(Collection<Sha256Hash> transactionHashes) {
+        int removed = 0;
+        for (Sha256Hash transactionHash : transactionHashes) {
+            Entry entry = entries.get(transactionHash);
+            if (entry != null) {
+                delete(entry);
+                removed++;
+            }
+        }
+        return removed;
+    }
+
+    private void insert(Entry entry) {
+        entries.put(entry.getTransaction().getTransactionHash(), entry);
+        ordered.add(entry);
+        arrivals.add(entry);
+        sizeBytes += entry.getSize();
+    }
+
+    private void delete(Entry entry) {
+        entries.remove(entry.getTransaction().getTransactionHash());
+        ordered.remove(entry);
+        arrivals.remove(entry);
+        sizeBytes -= entry.getSize();
+    }
+
+    @Getter
+    @AllArgsConstructor
+    private static class Entry {
+        private final long sequence;
+        private final long arrivalTime;
+        private final long size;
+        private final Transaction transaction;
+    }
+}
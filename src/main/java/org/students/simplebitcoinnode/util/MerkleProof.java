@@ -0,0 +1,27 @@
+package org.students.simplebitcoinnode.util;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.List;
+
+/**
+ * Merkle inclusion proof of a single leaf.<br>
+ * The path lists sibling hashes from the leaf level up to the root, hashing the leaf with every sibling in order must
+ * result in the Merkle tree root (see MerkleTreeEngine.verifyProof).
+ */
+@Getter
+@AllArgsConstructor
+public class MerkleProof {
+    private final int layoutVersion;
+    private final Sha256Hash leafHash;
+    private final List<Step> path;
+
+    @Getter
+    @AllArgsConstructor
+    public static class Step {
+        private final Sha256Hash siblingHash;
+        // true if the sibling is the left child of the parent
+        private final boolean left;
+    }
+}
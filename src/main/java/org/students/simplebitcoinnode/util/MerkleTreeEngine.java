@@ -0,0 +1,461 @@
+package org.students.simplebitcoinnode.util;
+
+import org.students.simplebitcoinnode.entity.MerkleTreeNode;
+import org.students.simplebitcoinnode.entity.Transaction;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.io.UncheckedIOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Level-synchronous Merkle tree builder.<br>
+ * Every level of the tree is computed as one contiguous array of 32-byte hashes, where parents of a large level are hashed in
+ * parallel on the common fork/join pool. MerkleTreeNode entities are only materialized on request, once all hashes are known.<br>
+ * Nodes are always paired left to right. Tree layouts are versioned and differ in how the last node of a level with an odd
+ * amount of nodes is handled:
+ * <ul>
+ *     <li>version 0 (legacy) matches the original queue-based construction: the last node is carried over to the front of the
+ *     next level, so it gets paired with a node of a different level. A parent hash is the SHA-256 hash of the Java serialization
+ *     of both child hashes as a single 64-byte array, i.e. the same bytes that <code>AsymmetricCryptographyService.digestObject</code> hashes.</li>
+ *     <li>version 1 (duplicate last) pairs the last node with itself, like Bitcoin does.
+ *     A parent hash is the SHA-256 hash of both concatenated child hashes.</li>
+ *     <li>version 2 (promote last) moves the last node unchanged to the end of the next level.
+ *     A parent hash is the SHA-256 hash of both concatenated child hashes.</li>
+ * </ul>
+ * In canonical layouts (versions 1 and 2) the position of a node depends only on its leaf index and the amount of leaves,
+ * which allows inclusion proofs of <code>log2(n)</code> sibling hashes.
+ */
+public class MerkleTreeEngine {
+    public static final int LAYOUT_LEGACY = 0;
+    public static final int LAYOUT_DUPLICATE_LAST = 1;
+    public static final int LAYOUT_PROMOTE_LAST = 2;
+
+    // minimal amount of parents in a level to hash it in parallel, smaller levels are not worth the task overhead
+    public static final int PARALLEL_THRESHOLD = 512;
+    private static final int HASH_LENGTH = Sha256Hash.LENGTH;
+    private static final byte[] LEGACY_PAIR_PREFIX = serializedPairPrefix();
+    private static final byte[] NO_PREFIX = new byte[0];
+
+    private final int layoutVersion;
+    private final byte[][] levels;
+
+    private MerkleTreeEngine(int layoutVersion, byte[][] levels) {
+        this.layoutVersion = layoutVersion;
+        this.levels = levels;
+    }
+
+    /**
+     * Builds a Merkle tree from given leaf hashes
+     * @param leaves specifies the leaf hashes in tree order
+     * @param layoutVersion specifies the tree layout version
+     * @return MerkleTreeEngine object holding all levels of the tree
+     * @throws IllegalArgumentException if the layout version is not supported
+     */
+    public static MerkleTreeEngine build(List<Sha256Hash> leaves, int layoutVersion) {
+        byte[] packedLeaves = new byte[leaves.size() * HASH_LENGTH];
+        for (int i = 0; i < leaves.size(); i++)
+            leaves.get(i).copyInto(packedLeaves, i * HASH_LENGTH);
+        return buildPacked(packedLeaves, layoutVersion);
+    }
+
+    /**
+     * Builds a Merkle tree from packed leaf hashes
+     * @param packedLeaves specifies the concatenated 32-byte leaf hashes in tree order, the array is owned by the engine afterwards
+     * @param layoutVersion specifies the tree layout version
+     * @return MerkleTreeEngine object holding all levels of the tree
+     * @throws IllegalArgumentException if the array length is not a multiple of 32 or the layout version is not supported
+     */
+    public static MerkleTreeEngine buildPacked(byte[] packedLeaves, int layoutVersion) {
+        if (packedLeaves.length % HASH_LENGTH != 0)
+            throw new IllegalArgumentException("Packed leaves must consist of " + HASH_LENGTH + "-byte hashes");
+        checkLayoutVersion(layoutVersion);
+
+        List<byte[]> levels = new ArrayList<>();
+        byte[] level = packedLeaves;
+        levels.add(level);
+        while (level.length > HASH_LENGTH) {
+            level = nextLevel(level, layoutVersion);
+            levels.add(level);
+        }
+        return new MerkleTreeEngine(layoutVersion, levels.toArray(new byte[0][]));
+    }
+
+    /**
+     * Restores a Merkle tree from levels packed with <code>toPackedLevels</code>
+     * @param packedLevels specifies the concatenated levels of the tree, the array is owned by the engine afterwards
+     * @param leafCount specifies the amount of leaves in the tree
+     * @param layoutVersion specifies the tree layout version
+     * @return MerkleTreeEngine object holding all levels of the tree
+     * @throws IllegalArgumentException if the array length does not match the amount of leaves or the layout version is not supported
+     */
+    public static MerkleTreeEngine fromPackedLevels(byte[] packedLevels, int leafCount, int layoutVersion) {
+        checkLayoutVersion(layoutVersion);
+        final int[] levelSizes = levelSizes(leafCount);
+        if (packedLevels.length != Arrays.stream(levelSizes).sum() * HASH_LENGTH)
+            throw new IllegalArgumentException("Packed levels do not match a tree of " + leafCount + " leaves");
+        if (levelSizes.length == 1)
+            return new MerkleTreeEngine(layoutVersion, new byte[][] { packedLevels });
+
+        byte[][] levels = new byte[levelSizes.length][];
+        int offset = 0;
+        for (int level = 0; level < levels.length; level++) {
+            levels[level] = Arrays.copyOfRange(packedLevels, offset, offset + levelSizes[level] * HASH_LENGTH);
+            offset += levels[level].length;
+        }
+        return new MerkleTreeEngine(layoutVersion, levels);
+    }
+
+    /**
+     * Recovers the leaves of a materialized Merkle tree in their original order.<br>
+     * Level sizes only depend on the amount of leaves, which allows walking the tree top-down level by level and placing
+     * the unpaired node of odd levels where the layout has put it.
+     * @param root specifies the root of the tree
+     * @param layoutVersion specifies the layout version the tree was built with
+     * @return list of leaf nodes in tree order, empty if the root is null
+     * @throws IllegalArgumentException if the tree structure does not match the layout
+     */
+    public static List<MerkleTreeNode> orderedLeaves(MerkleTreeNode root, int layoutVersion) {
+        checkLayoutVersion(layoutVersion);
+        if (root == null)
+            return List.of();
+
+        final int[] levelSizes = levelSizes(countLeaves(root));
+        List<MerkleTreeNode> nodes = List.of(root);
+        for (int level = levelSizes.length - 2; level >= 0; level--) {
+            final boolean odd = levelSizes[level] % 2 == 1;
+            List<MerkleTreeNode> below = new ArrayList<>(levelSizes[level]);
+            if (odd && layoutVersion == LAYOUT_LEGACY) {
+                appendChildren(below, nodes.subList(1, nodes.size()));
+                below.add(nodes.get(0));
+            }
+            else if (odd && layoutVersion == LAYOUT_PROMOTE_LAST) {
+                appendChildren(below, nodes.subList(0, nodes.size() - 1));
+                below.add(nodes.get(nodes.size() - 1));
+            }
+            // a duplicated node is stored as the only child of its parent
+            else appendChildren(below, nodes);
+
+            if (below.size() != levelSizes[level])
+                throw new IllegalArgumentException("Merkle tree structure does not match layout version " + layoutVersion);
+            nodes = below;
+        }
+        return nodes;
+    }
+
+    /**
+     * Normalizes a layout version, where null is treated as the legacy layout
+     * @param layoutVersion specifies the layout version to normalize
+     * @return supported layout version
+     * @throws IllegalArgumentException if the layout version is not supported
+     */
+    public static int checkLayoutVersion(Integer layoutVersion) {
+        if (layoutVersion == null)
+            return LAYOUT_LEGACY;
+        if (layoutVersion < LAYOUT_LEGACY || layoutVersion > LAYOUT_PROMOTE_LAST)
+            throw new IllegalArgumentException("Unsupported Merkle tree layout version " + layoutVersion);
+        return layoutVersion;
+    }
+
+    /**
+     * Calculates the hash of a parent node
+     * @param layoutVersion specifies the tree layout version, which determines the hash function
+     * @param left specifies the hash of the left child
+     * @param right specifies the hash of the right child
+     * @return hash of the parent node
+     */
+    public static Sha256Hash hashPair(int layoutVersion, Sha256Hash left, Sha256Hash right) {
+        byte[] pair = new byte[2 * HASH_LENGTH];
+        left.copyInto(pair, 0);
+        right.copyInto(pair, HASH_LENGTH);
+        byte[] parent = new byte[HASH_LENGTH];
+        Sha256.digestInto(pairPrefix(layoutVersion), pair, 0, pair.length, parent, 0);
+        return Sha256Hash.wrap(parent);
+    }
+
+    /**
+     * Verifies that a proof leads from its leaf to given root
+     * @param proof specifies the inclusion proof to verify
+     * @param root specifies the expected Merkle tree root hash
+     * @return true if the proof is valid for the root, false otherwise
+     */
+    public static boolean verifyProof(MerkleProof proof, Sha256Hash root) {
+        final int layoutVersion = checkLayoutVersion(proof.getLayoutVersion());
+        Sha256Hash hash = proof.getLeafHash();
+        for (MerkleProof.Step step : proof.getPath())
+            hash = step.isLeft() ? hashPair(layoutVersion, step.getSiblingHash(), hash) : hashPair(layoutVersion, hash, step.getSiblingHash());
+        return hash.equals(root);
+    }
+
+    /**
+     * Returns the layout version of the tree
+     * @return layout version
+     */
+    public int getLayoutVersion() {
+        return layoutVersion;
+    }
+
+    /**
+     * Returns the amount of leaves in the tree
+     * @return amount of leaf hashes
+     */
+    public int getLeafCount() {
+        return levels[0].length / HASH_LENGTH;
+    }
+
+    /**
+     * Returns the amount of levels in the tree including leaves and root
+     * @return amount of levels, 1 for an empty or single leaf tree
+     */
+    public int getLevelCount() {
+        return levels.length;
+    }
+
+    /**
+     * Returns the root hash of the tree
+     * @return root hash, null if the tree has no leaves
+     */
+    public Sha256Hash getRoot() {
+        final byte[] top = levels[levels.length - 1];
+        return top.length == 0 ? null : Sha256Hash.of(top);
+    }
+
+    /**
+     * Returns the hash of a node
+     * @param level specifies the level of the node, 0 for leaves
+     * @param index specifies the index of the node within its level
+     * @return hash of the node
+     */
+    public Sha256Hash getHash(int level, int index) {
+        return Sha256Hash.wrap(Arrays.copyOfRange(levels[level], index * HASH_LENGTH, (index + 1) * HASH_LENGTH));
+    }
+
+    /**
+     * Concatenates all levels of the tree, from leaves up to the root
+     * @return byte array containing 32-byte hashes of all nodes level by level
+     */
+    public byte[] toPackedLevels() {
+        if (levels.length == 1)
+            return levels[0].clone();
+
+        byte[] packed = new byte[Arrays.stream(levels).mapToInt(level -> level.length).sum()];
+        int offset = 0;
+        for (byte[] level : levels) {
+            System.arraycopy(level, 0, packed, offset, level.length);
+            offset += level.length;
+        }
+        return packed;
+    }
+
+    /**
+     * Materializes the tree as MerkleTreeNode entities
+     * @param transactions specifies the transactions that correspond to the leaves in tree order
+     * @return MerkleTreeNode object representing the tree root, null if the tree has no leaves
+     * @throws IllegalArgumentException if the amount of transactions does not match the amount of leaves
+     */
+    public MerkleTreeNode toMerkleTree(List<Transaction> transactions) {
+        if (transactions.size() != getLeafCount())
+            throw new IllegalArgumentException("Expected " + getLeafCount() + " transactions, got " + transactions.size());
+        if (transactions.isEmpty())
+            return null;
+
+        MerkleTreeNode[] nodes = new MerkleTreeNode[transactions.size()];
+        for (int i = 0; i < nodes.length; i++)
+            nodes[i] = MerkleTreeNode.builder().hash(getHash(0, i)).transaction(transactions.get(i)).build();
+
+        for (int level = 1; level < levels.length; level++) {
+            final int pairCount = nodes.length / 2;
+            final int odd = nodes.length % 2;
+            // legacy layout carries the odd node to the front, promote-last layout to the end of the next level
+            final int offset = layoutVersion == LAYOUT_LEGACY ? odd : 0;
+            MerkleTreeNode[] parents = new MerkleTreeNode[pairCount + odd];
+            for (int i = 0; i < pairCount; i++)
+                parents[offset + i] = parentNode(level, offset + i, List.of(nodes[2 * i], nodes[2 * i + 1]));
+
+            if (odd == 1) {
+                final MerkleTreeNode last = nodes[nodes.length - 1];
+                if (layoutVersion == LAYOUT_DUPLICATE_LAST)
+                    // the same entity cannot be persisted as two children, a single child means that it is paired with itself
+                    parents[pairCount] = parentNode(level, pairCount, List.of(last));
+                else parents[layoutVersion == LAYOUT_LEGACY ? 0 : pairCount] = last;
+            }
+            nodes = parents;
+        }
+
+        return nodes[0];
+    }
+
+    /**
+     * Creates an inclusion proof of a leaf
+     * @param leafIndex specifies the index of the leaf
+     * @return MerkleProof object containing sibling hashes from the leaf up to the root
+     * @throws IndexOutOfBoundsException if the leaf index is out of bounds
+     */
+    public MerkleProof createProof(int leafIndex) {
+        Objects.checkIndex(leafIndex, getLeafCount());
+
+        List<MerkleProof.Step> path = new ArrayList<>();
+        int index = leafIndex;
+        for (int level = 0; level < levels.length - 1; level++) {
+            final int nodeCount = levels[level].length / HASH_LENGTH;
+            final boolean unpaired = nodeCount % 2 == 1 && index == nodeCount - 1;
+            if (unpaired) {
+                switch (layoutVersion) {
+                    case LAYOUT_LEGACY -> index = 0;
+                    case LAYOUT_DUPLICATE_LAST -> {
+                        path.add(new MerkleProof.Step(getHash(level, index), false));
+                        index /= 2;
+                    }
+                    default -> index = nodeCount / 2;
+                }
+                continue;
+            }
+
+            path.add(new MerkleProof.Step(getHash(level, index ^ 1), index % 2 == 1));
+            index = (layoutVersion == LAYOUT_LEGACY ? nodeCount % 2 : 0) + index / 2;
+        }
+
+        return new MerkleProof(layoutVersion, getHash(0, leafIndex), path);
+    }
+
+    private static int[] levelSizes(int leafCount) {
+        List<Integer> sizes = new ArrayList<>();
+        int size = leafCount;
+        sizes.add(size);
+        while (size > 1) {
+            // every layout leaves exactly one node per pair and one for the unpaired node
+            size = (size + 1) / 2;
+            sizes.add(size);
+        }
+        return sizes.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    private static int countLeaves(MerkleTreeNode root) {
+        int count = 0;
+        Deque<MerkleTreeNode> stack = new ArrayDeque<>();
+        stack.push(root);
+        while (!stack.isEmpty()) {
+            MerkleTreeNode node = stack.pop();
+            if (node.getChildren() == null || node.getChildren().isEmpty())
+                count++;
+            else node.getChildren().forEach(stack::push);
+        }
+        return count;
+    }
+
+    private static void appendChildren(List<MerkleTreeNode> below, List<MerkleTreeNode> nodes) {
+        for (MerkleTreeNode node : nodes) {
+            if (node.getChildren() != null)
+                below.addAll(node.getChildren());
+        }
+    }
+
+    private MerkleTreeNode parentNode(int level, int index, List<MerkleTreeNode> children) {
+        MerkleTreeNode parent = new MerkleTreeNode();
+        parent.setHash(getHash(level, index));
+        parent.setChildren(children);
+        return parent;
+    }
+
+    /**
+     * Computes the next level of the tree
+     * @param level specifies the packed hashes of the current level
+     * @param layoutVersion specifies the tree layout version
+     * @return packed hashes of the next level
+     */
+    private static byte[] nextLevel(byte[] level, int layoutVersion) {
+        final int nodeCount = level.length / HASH_LENGTH;
+        final int odd = nodeCount % 2;
+        final int pairCount = nodeCount / 2;
+        final byte[] prefix = pairPrefix(layoutVersion);
+
+        byte[] next = new byte[(pairCount + odd) * HASH_LENGTH];
+        // position of the first parent in the next level, the legacy layout carries the odd node to the front
+        final int offset = layoutVersion == LAYOUT_LEGACY ? odd : 0;
+        if (pairCount >= PARALLEL_THRESHOLD)
+            ForkJoinPool.commonPool().invoke(new HashPairsTask(prefix, level, next, offset, 0, pairCount));
+        else hashPairs(prefix, level, next, offset, 0, pairCount);
+
+        if (odd == 1) {
+            final int lastOffset = level.length - HASH_LENGTH;
+            if (layoutVersion == LAYOUT_DUPLICATE_LAST) {
+                byte[] pair = new byte[2 * HASH_LENGTH];
+                System.arraycopy(level, lastOffset, pair, 0, HASH_LENGTH);
+                System.arraycopy(level, lastOffset, pair, HASH_LENGTH, HASH_LENGTH);
+                Sha256.digestInto(prefix, pair, 0, pair.length, next, pairCount * HASH_LENGTH);
+            }
+            else System.arraycopy(level, lastOffset, next, layoutVersion == LAYOUT_LEGACY ? 0 : pairCount * HASH_LENGTH, HASH_LENGTH);
+        }
+        return next;
+    }
+
+    private static void hashPairs(byte[] prefix, byte[] level, byte[] next, int offset, int from, int to) {
+        for (int i = from; i < to; i++)
+            Sha256.digestInto(prefix, level, 2 * i * HASH_LENGTH, 2 * HASH_LENGTH, next, (offset + i) * HASH_LENGTH);
+    }
+
+    private static byte[] pairPrefix(int layoutVersion) {
+        return layoutVersion == LAYOUT_LEGACY ? LEGACY_PAIR_PREFIX : NO_PREFIX;
+    }
+
+    /**
+     * Reproduces the serialization of a 64-byte array as written by <code>AsymmetricCryptographyService.byteSerialize</code>
+     * and keeps everything but the array contents
+     * @return serialization stream bytes that precede the array contents
+     */
+    private static byte[] serializedPairPrefix() {
+        try (ByteArrayOutputStream byteArrayOutputStream = new ByteArrayOutputStream();
+             ObjectOutputStream out = new ObjectOutputStream(byteArrayOutputStream))
+        {
+            out.reset();
+            byteArrayOutputStream.reset();
+            out.writeObject(new byte[2 * HASH_LENGTH]);
+            out.flush();
+            final byte[] serialized = byteArrayOutputStream.toByteArray();
+            return Arrays.copyOf(serialized, serialized.length - 2 * HASH_LENGTH);
+        }
+        catch (IOException e) {
+            throw new UncheckedIOException("Failed to serialize Merkle tree node prefix", e);
+        }
+    }
+
+    /**
+     * Fork/join task that hashes a range of parents, splitting the range in halves until it is below the parallel threshold
+     */
+    private static class HashPairsTask extends RecursiveAction {
+        private final byte[] prefix;
+        private final byte[] level;
+        private final byte[] next;
+        private final int offset;
+        private final int from;
+        private final int to;
+
+        HashPairsTask(byte[] prefix, byte[] level, byte[] next, int offset, int from, int to) {
+            this.prefix = prefix;
+            this.level = level;
+            this.next = next;
+            this.offset = offset;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= PARALLEL_THRESHOLD) {
+                hashPairs(prefix, level, next, offset, from, to);
+                return;
+            }
+
+            final int middle = (from + to) >>> 1;
+            invokeAll(new HashPairsTask(prefix, level, next, offset, from, middle), new HashPairsTask(prefix, level, next, offset, middle, to));
+        }
+    }
+}
@@ -0,0 +1,220 @@
+package org.students.simplebitcoinnode.util;
+
+import org.bouncycastle.crypto.digests.SHA256Digest;
+import org.students.simplebitcoinnode.entity.Block;
+import org.students.simplebitcoinnode.entity.MinerPublicKey;
+import org.students.simplebitcoinnode.exceptions.encoding.InvalidEncodedStringException;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.time.format.DateTimeFormatter;
+import java.util.Arrays;
+
+/**
+ * Allocation-free nonce search engine for mining a single block.<br>
+ * The engine reproduces the exact byte stream that <code>AsymmetricCryptographyService.digestObject(block)</code> hashes,
+ * meaning Java serialization block data records that wrap the output of <code>Block.writeExternal</code> (the stream header gets discarded on reset).
+ * Everything before the nonce is serialized only once and SHA-256 state of all complete 64-byte chunks preceding the nonce
+ * (midstate) is cached. For each nonce only the nonce bytes are rewritten in a reusable buffer and the remaining chunks are hashed.<br>
+ * For legacy headers the template gets rebuilt only when the byte width of the nonce changes (i.e. at 128, 32768, ...), since the nonce is
+ * serialized as a variable length two's complement integer. Fixed-width headers (see BlockHeaderCodec) are never rebuilt.
+ */
+public class NonceSearchEngine {
+    // java serialization stream protocol constants (see java.io.ObjectStreamConstants)
+    private static final byte TC_BLOCKDATA = 0x77;
+    private static final byte TC_BLOCKDATALONG = 0x7a;
+    private static final int MAX_BLOCK_SIZE = 1024;
+    private static final int SHA256_CHUNK_SIZE = 64;
+
+    // serialized block fields that precede the nonce
+    private final byte[] prefix;
+    private final boolean legacy;
+    private final long zeroBitMask;
+
+    // reusable buffers, rebuilt only when the nonce width changes
+    private final SHA256Digest midstate = new SHA256Digest();
+    private final SHA256Digest digest = new SHA256Digest();
+    private final byte[] hash = new byte[32];
+    private byte[] template;
+    private int[] noncePositions;
+    private int midstateLength;
+    private int nonceWidth;
+
+    /**
+     * Creates a new nonce search engine for given block
+     * @param block specifies the block to mine, its nonce and hash fields are ignored
+     * @param zeroBitCondition specifies how many zero bits the hash prefix must have for the block to be considered mined
+     * @throws InvalidEncodedStringException if any of the block's hashes or miner public keys are malformed
+     */
+    public NonceSearchEngine(Block block, long zeroBitCondition) throws InvalidEncodedStringException {
+        this.legacy = BlockHeaderCodec.isLegacy(block);
+        this.prefix = legacy ? serializePrefix(block) : serializeFixedWidthPrefix(block);
+        this.zeroBitMask = zeroBitMask(zeroBitCondition);
+    }
+
+    /**
+     * Checks if a hash satisfies the zero bit condition
+     * @param hash specifies the block hash to check
+     * @param zeroBitCondition specifies how many zero bits the hash prefix must have for the block to be considered mined
+     * @return true if the block is considered mined, false otherwise
+     */
+    public static boolean isMined(byte[] hash, long zeroBitCondition) {
+        return (prefixValue(hash) & zeroBitMask(zeroBitCondition)) == 0;
+    }
+
+    private static long zeroBitMask(long zeroBitCondition) {
+        return zeroBitCondition >= 64 ? -1L : (1L << zeroBitCondition) - 1;
+    }
+
+    /**
+     * Hashes the block with given nonce and checks if the zero bit condition is satisfied
+     * @param nonce specifies the non-negative nonce value to test
+     * @return true if the block with given nonce is considered mined, false otherwise
+     */
+    public boolean test(long nonce) {
+        final int width = legacy ? nonceWidth(nonce) : BlockHeaderCodec.NONCE_LENGTH;
+        if (width != nonceWidth)
+            buildTemplate(width);
+
+        for (int i = 0; i < width; i++)
+            template[noncePositions[i]] = (byte) (nonce >>> ((width - 1 - i) * 8));
+
+        digest.reset(midstate);
+        digest.update(template, midstateLength, template.length - midstateLength);
+        digest.doFinal(hash, 0);
+        return (prefixValue(hash) & zeroBitMask) == 0;
+    }
+
+    /**
+     * Returns the hash calculated by the last <code>test</code> call.
+     * The returned array is reused by the engine and gets overwritten on the next call.
+     * @return byte array containing the last calculated SHA-256 hash
+     */
+    public byte[] getHash() {
+        return hash;
+    }
+
+    /**
+     * Calculates the first 64 bits of the hash in the same manner as the original mining implementation
+     * @param hash specifies the hash whose prefix to calculate
+     * @return long value whose least significant byte is the first byte of the hash
+     */
+    public static long prefixValue(byte[] hash) {
+        return ((hash[7] & 0xFFL) << 56) |
+                ((hash[6] & 0xFFL) << 48) |
+                ((hash[5] & 0xFFL) << 40) |
+                ((hash[4] & 0xFFL) << 32) |
+                ((hash[3] & 0xFFL) << 24) |
+                ((hash[2] & 0xFFL) << 16) |
+                ((hash[1] & 0xFFL) << 8) |
+                ((hash[0] & 0xFFL));
+    }
+
+    /**
+     * Calculates the length of the nonce as encoded by <code>BigInteger.toByteArray()</code>
+     * @param nonce specifies the non-negative nonce value
+     * @return amount of bytes used for the nonce
+     */
+    static int nonceWidth(long nonce) {
+        return (64 - Long.numberOfLeadingZeros(nonce)) / 8 + 1;
+    }
+
+    /**
+     * Builds a header template for nonces of given width and caches the SHA-256 midstate
+     * @param width specifies the nonce width in bytes
+     */
+    private void buildTemplate(int width) {
+        if (!legacy) {
+            template = new byte[prefix.length + width];
+            noncePositions = new int[width];
+            System.arraycopy(prefix, 0, template, 0, prefix.length);
+            for (int i = 0; i < width; i++)
+                noncePositions[i] = prefix.length + i;
+        }
+        else buildSerializationStreamTemplate(width);
+
+        // cache the digest state of all complete chunks that precede the nonce
+        midstateLength = (noncePositions[0] / SHA256_CHUNK_SIZE) * SHA256_CHUNK_SIZE;
+        midstate.reset();
+        midstate.update(template, 0, midstateLength);
+        nonceWidth = width;
+    }
+
+    /**
+     * Builds a template of legacy block header wrapped in serialization stream block data records
+     * @param width specifies the nonce width in bytes
+     */
+    private void buildSerializationStreamTemplate(int width) {
+        final int contentLength = prefix.length + width;
+        final int blockCount = (contentLength + MAX_BLOCK_SIZE - 1) / MAX_BLOCK_SIZE;
+        final int lastBlockLength = contentLength - (blockCount - 1) * MAX_BLOCK_SIZE;
+
+        // calculate the total stream length including block data record headers
+        int streamLength = contentLength + (blockCount - 1) * blockHeaderLength(MAX_BLOCK_SIZE) + blockHeaderLength(lastBlockLength);
+        template = new byte[streamLength];
+        noncePositions = new int[width];
+
+        int pos = 0;
+        for (int i = 0; i < blockCount; i++) {
+            final int blockStart = i * MAX_BLOCK_SIZE;
+            final int blockLength = i == blockCount - 1 ? lastBlockLength : MAX_BLOCK_SIZE;
+            pos = writeBlockHeader(template, pos, blockLength);
+            for (int j = blockStart; j < blockStart + blockLength; j++, pos++) {
+                if (j < prefix.length)
+                    template[pos] = prefix[j];
+                else noncePositions[j - prefix.length] = pos;
+            }
+        }
+    }
+
+    private static int blockHeaderLength(int blockLength) {
+        return blockLength <= 0xff ? 2 : 5;
+    }
+
+    private static int writeBlockHeader(byte[] buf, int pos, int blockLength) {
+        if (blockLength <= 0xff) {
+            buf[pos++] = TC_BLOCKDATA;
+            buf[pos++] = (byte) blockLength;
+            return pos;
+        }
+
+        buf[pos++] = TC_BLOCKDATALONG;
+        buf[pos++] = (byte) (blockLength >>> 24);
+        buf[pos++] = (byte) (blockLength >>> 16);
+        buf[pos++] = (byte) (blockLength >>> 8);
+        buf[pos++] = (byte) blockLength;
+        return pos;
+    }
+
+    /**
+     * Encodes all fixed-width header fields that precede the nonce
+     * @param block specifies the block to encode
+     * @return byte array containing encoded header fields
+     */
+    private static byte[] serializeFixedWidthPrefix(Block block) throws InvalidEncodedStringException {
+        return Arrays.copyOf(BlockHeaderCodec.encode(block), BlockHeaderCodec.NONCE_OFFSET);
+    }
+
+    /**
+     * Serializes all block fields that precede the nonce in the same manner as <code>Block.writeExternal</code>
+     * @param block specifies the block to serialize
+     * @return byte array containing serialized block fields
+     */
+    private static byte[] serializePrefix(Block block) throws InvalidEncodedStringException {
+        try (ByteArrayOutputStream byteArrayOutputStream = new ByteArrayOutputStream();
+             DataOutputStream out = new DataOutputStream(byteArrayOutputStream)) {
+            block.getPreviousHash().writeTo(out);
+            block.getMerkleTree().getHash().writeTo(out);
+            for (MinerPublicKey miner : block.getMiners())
+                out.write(Encoding.defaultPubKeyDecoding(miner.getPubKey()));
+            DateTimeFormatter formatter = DateTimeFormatter.ofPattern("uuuu-MM-dd'T'HH:mm:ss");
+            out.writeUTF(block.getBlockAssemblyTimestamp().format(formatter));
+            out.flush();
+            return byteArrayOutputStream.toByteArray();
+        }
+        catch (IOException e) {
+            throw new InvalidEncodedStringException("Failed to serialize block header prefix: " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package org.students.simplebitcoinnode.util;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Planner that splits the nonce space of a pool mined block between its miners in proportion to their measured hash rates.<br>
+ * The nonce space is divided into cycles of <code>stride</code> consecutive nonces, in each cycle every miner owns a contiguous run of
+ * <code>width</code> nonces starting at <code>offset</code> (see NonceRangeDispenser). Faster miners therefore get wider runs, while every
+ * miner owns at least one nonce per cycle. Miners without a measured hash rate are treated as the slowest ones.
+ */
+public class PoolPlanner {
+    // amount of nonces per cycle, i.e. the resolution of the split
+    public static final int NONCE_CYCLE_LENGTH = 1024;
+
+    /**
+     * Assigns nonce shares to miners
+     * @param hashRates specifies the measured hash rates of the miners
+     * @return a list of nonce shares in the same order as the hash rates
+     */
+    public static List<NonceShare> assignNonceShares(List<Float> hashRates) {
+        final int minerCount = hashRates.size();
+        if (minerCount == 0)
+            return List.of();
+
+        final long stride = Math.max(NONCE_CYCLE_LENGTH, minerCount);
+
+        double totalHashRate = 0;
+        for (Float hashRate : hashRates)
+            totalHashRate += usableHashRate(hashRate);
+
+        // every miner gets one nonce per cycle, the rest is split proportionally with the largest remainder method
+        final long distributable = stride - minerCount;
+        long[] widths = new long[minerCount];
+        double[] remainders = new double[minerCount];
+        long assigned = 0;
+        for (int i = 0; i < minerCount; i++) {
+            final double exactShare = totalHashRate > 0
+                    ? distributable * usableHashRate(hashRates.get(i)) / totalHashRate
+                    : (double) distributable / minerCount;
+            widths[i] = 1 + (long) exactShare;
+            remainders[i] = exactShare - Math.floor(exactShare);
+            assigned += widths[i];
+        }
+
+        // nonces lost to rounding go to the miners with the largest remainders, the sort is stable so ties favour earlier miners
+        List<Integer> byRemainder = new ArrayList<>(minerCount);
+        for (int i = 0; i < minerCount; i++)
+            byRemainder.add(i);
+        byRemainder.sort(Comparator.comparingDouble(i -> -remainders[i]));
+        for (int i = 0; assigned < stride; i++, assigned++)
+            widths[byRemainder.get(i)]++;
+
+        List<NonceShare> nonceShares = new ArrayList<>(minerCount);
+        long offset = 0;
+        for (long width : widths) {
+            nonceShares.add(new NonceShare(offset, width, stride));
+            offset += width;
+        }
+        return nonceShares;
+    }
+
+    private static double usableHashRate(Float hashRate) {
+        return hashRate != null && Float.isFinite(hashRate) && hashRate > 0 ? hashRate : 0;
+    }
+
+    /**
+     * Run of nonces a single miner owns in every cycle of the nonce space
+     */
+    @Getter
+    @AllArgsConstructor
+    public static class NonceShare {
+        // first nonce of the run within a cycle
+        private final long offset;
+        // amount of nonces in the run
+        private final long width;
+        // cycle length shared by all miners of the pool
+        private final long stride;
+    }
+}
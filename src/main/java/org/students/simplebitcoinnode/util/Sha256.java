@@ -0,0 +1,189 @@
+package org.students.simplebitcoinnode.util;
+
+import org.students.simplebitcoinnode.exceptions.crypto.CryptoProviderNotFoundException;
+import org.students.simplebitcoinnode.exceptions.crypto.HashAlgorithmException;
+
+import java.nio.ByteBuffer;
+import java.security.DigestException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.Provider;
+import java.security.Security;
+import java.util.logging.Logger;
+
+/**
+ * SHA-256 hashing facility that reuses one MessageDigest instance per thread instead of looking up the provider on every call.<br>
+ * The provider can be selected with <code>configure</code>: either by name, <code>"default"</code> for the highest priority provider
+ * or <code>"auto"</code> for a short self-benchmark of all installed SHA-256 providers, e.g. the JDK provider that uses CPU intrinsics and BouncyCastle.
+ */
+public class Sha256 {
+    public static final int DIGEST_LENGTH = 32;
+    public static final String PROVIDER_DEFAULT = "default";
+    public static final String PROVIDER_AUTO = "auto";
+
+    private static final String ALGORITHM = "SHA-256";
+    private static final Logger logger = Logger.getLogger(Sha256.class.getName());
+
+    // self-benchmark parameters, input length corresponds to a Merkle tree node or a block header
+    private static final int BENCHMARK_INPUT_LENGTH = 128;
+    private static final int BENCHMARK_ITERATIONS = 20000;
+    private static final int BENCHMARK_ROUNDS = 5;
+
+    // replaced as a whole when the provider changes, so that threads pick up new digest instances
+    private static volatile ThreadLocal<MessageDigest> digests = newThreadLocal(null);
+
+    /**
+     * Selects the provider of subsequently used digest instances
+     * @param providerName specifies the provider name, "default" or "auto"
+     * @return name of the selected provider
+     * @throws CryptoProviderNotFoundException if the specified provider is not installed or does not support SHA-256
+     */
+    public static String configure(String providerName) {
+        Provider provider;
+        if (providerName == null || providerName.isBlank() || providerName.equalsIgnoreCase(PROVIDER_DEFAULT))
+            provider = null;
+        else if (providerName.equalsIgnoreCase(PROVIDER_AUTO))
+            provider = selectFastestProvider();
+        else {
+            provider = Security.getProvider(providerName);
+            if (provider == null || provider.getService("MessageDigest", ALGORITHM) == null)
+                throw new CryptoProviderNotFoundException("Provider '" + providerName + "' does not support " + ALGORITHM + " hashing");
+        }
+
+        digests = newThreadLocal(provider);
+        return getProviderName();
+    }
+
+    /**
+     * Returns the provider name of current thread's digest instance
+     * @return name of the provider
+     */
+    public static String getProviderName() {
+        return digests.get().getProvider().getName();
+    }
+
+    /**
+     * Calculates the SHA-256 hash of given bytes
+     * @param input specifies the bytes to hash
+     * @return byte array containing the calculated hash
+     */
+    public static byte[] digest(byte[] input) {
+        return digests.get().digest(input);
+    }
+
+    /**
+     * Calculates the SHA-256 hash of remaining bytes in given buffer, the buffer position is advanced to its limit
+     * @param input specifies the buffer to hash
+     * @return byte array containing the calculated hash
+     */
+    public static byte[] digest(ByteBuffer input) {
+        MessageDigest digest = digests.get();
+        digest.update(input);
+        return digest.digest();
+    }
+
+    /**
+     * Calculates the SHA-256 hash of given bytes into an existing array
+     * @param input specifies the array of bytes to hash
+     * @param inputOffset specifies the offset of the first byte to hash
+     * @param inputLength specifies the amount of bytes to hash
+     * @param out specifies the array to write the hash into
+     * @param off specifies the offset in the output array, at least DIGEST_LENGTH bytes must be available
+     */
+    public static void digestInto(byte[] input, int inputOffset, int inputLength, byte[] out, int off) {
+        MessageDigest digest = digests.get();
+        digest.update(input, inputOffset, inputLength);
+        finish(digest, out, off);
+    }
+
+    /**
+     * Calculates the SHA-256 hash of a constant prefix followed by a range of given bytes into an existing array
+     * @param prefix specifies the bytes to hash first
+     * @param input specifies the array of bytes to hash after the prefix
+     * @param inputOffset specifies the offset of the first byte to hash
+     * @param inputLength specifies the amount of bytes to hash
+     * @param out specifies the array to write the hash into
+     * @param off specifies the offset in the output array, at least DIGEST_LENGTH bytes must be available
+     */
+    public static void digestInto(byte[] prefix, byte[] input, int inputOffset, int inputLength, byte[] out, int off) {
+        MessageDigest digest = digests.get();
+        digest.update(prefix);
+        digest.update(input, inputOffset, inputLength);
+        finish(digest, out, off);
+    }
+
+    /**
+     * Calculates the SHA-256 hash of remaining bytes in given buffer into an existing array, the buffer position is advanced to its limit
+     * @param input specifies the buffer to hash
+     * @param out specifies the array to write the hash into
+     * @param off specifies the offset in the output array, at least DIGEST_LENGTH bytes must be available
+     */
+    public static void digestInto(ByteBuffer input, byte[] out, int off) {
+        MessageDigest digest = digests.get();
+        digest.update(input);
+        finish(digest, out, off);
+    }
+
+    private static void finish(MessageDigest digest, byte[] out, int off) {
+        try {
+            digest.digest(out, off, DIGEST_LENGTH);
+        }
+        catch (DigestException e) {
+            digest.reset();
+            throw new HashAlgorithmException("Failed to write " + ALGORITHM + " hash into output array: " + e.getMessage());
+        }
+    }
+
+    private static ThreadLocal<MessageDigest> newThreadLocal(Provider provider) {
+        return ThreadLocal.withInitial(() -> newDigest(provider));
+    }
+
+    private static MessageDigest newDigest(Provider provider) {
+        try {
+            return provider == null ? MessageDigest.getInstance(ALGORITHM) : MessageDigest.getInstance(ALGORITHM, provider);
+        }
+        catch (NoSuchAlgorithmException e) {
+            throw new HashAlgorithmException("MessageDigest implementation does not support SHA-256 hashing: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Benchmarks all installed SHA-256 providers and selects the fastest one
+     * @return the fastest provider
+     */
+    private static Provider selectFastestProvider() {
+        final Provider[] providers = Security.getProviders("MessageDigest." + ALGORITHM);
+        if (providers == null || providers.length == 0)
+            throw new CryptoProviderNotFoundException("No installed provider supports " + ALGORITHM + " hashing");
+
+        final MessageDigest[] candidates = new MessageDigest[providers.length];
+        final long[] bestTimes = new long[providers.length];
+        for (int i = 0; i < providers.length; i++) {
+            candidates[i] = newDigest(providers[i]);
+            bestTimes[i] = Long.MAX_VALUE;
+        }
+
+        // alternate between providers on each round, so that all of them get equally warmed up
+        final byte[] input = new byte[BENCHMARK_INPUT_LENGTH];
+        final byte[] out = new byte[DIGEST_LENGTH];
+        for (int round = 0; round < BENCHMARK_ROUNDS; round++) {
+            for (int i = 0; i < candidates.length; i++) {
+                final long startTime = System.nanoTime();
+                for (int j = 0; j < BENCHMARK_ITERATIONS; j++) {
+                    candidates[i].update(input);
+                    finish(candidates[i], out, 0);
+                    input[0] = out[0];
+                }
+                bestTimes[i] = Math.min(bestTimes[i], System.nanoTime() - startTime);
+            }
+        }
+
+        int fastest = 0;
+        for (int i = 0; i < providers.length; i++) {
+            logger.info(ALGORITHM + " provider " + providers[i].getName() + ": " + bestTimes[i] / BENCHMARK_ITERATIONS + " ns/hash");
+            if (bestTimes[i] < bestTimes[fastest])
+                fastest = i;
+        }
+        return providers[fastest];
+    }
+}
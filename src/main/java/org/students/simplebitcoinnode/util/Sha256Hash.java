@@ -0,0 +1,138 @@
+package org.students.simplebitcoinnode.util;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonValue;
+import org.students.simplebitcoinnode.exceptions.encoding.InvalidEncodedStringException;
+
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.security.MessageDigest;
+import java.util.Arrays;
+
+/**
+ * Immutable 32-byte SHA-256 hash value.<br>
+ * Hashes are kept as raw bytes, which takes roughly a quarter of the memory of a 64 character hex string and avoids parsing
+ * the hash whenever it gets serialized or hashed again. The hex representation is rendered lazily, only when it is requested,
+ * and it is also used as the JSON representation of the hash.
+ */
+public final class Sha256Hash implements Comparable<Sha256Hash> {
+    public static final int LENGTH = 32;
+    public static final Sha256Hash ZERO = new Sha256Hash(new byte[LENGTH]);
+
+    private final byte[] bytes;
+    private final int hashCode;
+    // lazily rendered hex representation, benign data race since the rendering is deterministic
+    private String hex;
+
+    private Sha256Hash(byte[] bytes) {
+        this.bytes = bytes;
+        // SHA-256 output is uniformly distributed, so its first four bytes make a good hash code
+        this.hashCode = (bytes[0] & 0xff) << 24 | (bytes[1] & 0xff) << 16 | (bytes[2] & 0xff) << 8 | (bytes[3] & 0xff);
+    }
+
+    /**
+     * Creates a hash from a copy of given bytes
+     * @param bytes specifies the 32 bytes of the hash
+     * @return Sha256Hash object
+     * @throws IllegalArgumentException if the array is not 32 bytes long
+     */
+    public static Sha256Hash of(byte[] bytes) {
+        return wrap(bytes.clone());
+    }
+
+    /**
+     * Creates a hash that takes ownership of given bytes, the array must not be modified afterwards.
+     * Intended for freshly calculated digests, which would otherwise be copied for no reason.
+     * @param digest specifies the 32 bytes of the hash
+     * @return Sha256Hash object
+     * @throws IllegalArgumentException if the array is not 32 bytes long
+     */
+    public static Sha256Hash wrap(byte[] digest) {
+        if (digest.length != LENGTH)
+            throw new IllegalArgumentException("SHA-256 hash must be " + LENGTH + " bytes long, got " + digest.length);
+        return new Sha256Hash(digest);
+    }
+
+    /**
+     * Parses the hash from its hex representation
+     * @param hex specifies the 64 character hex string
+     * @return Sha256Hash object
+     * @throws InvalidEncodedStringException if the string is not a valid 64 character hex string
+     */
+    @JsonCreator
+    public static Sha256Hash fromHex(String hex) throws InvalidEncodedStringException {
+        if (hex == null || hex.length() != 2 * LENGTH)
+            throw new InvalidEncodedStringException("SHA-256 hash must be encoded as " + 2 * LENGTH + " hex characters");
+        return new Sha256Hash(Encoding.hexStringToBytes(hex));
+    }
+
+    /**
+     * Returns a copy of the hash bytes
+     * @return byte array of 32 bytes
+     */
+    public byte[] getBytes() {
+        return bytes.clone();
+    }
+
+    /**
+     * Copies the hash bytes into an existing array
+     * @param out specifies the array to copy into
+     * @param off specifies the offset in the output array
+     */
+    public void copyInto(byte[] out, int off) {
+        System.arraycopy(bytes, 0, out, off, LENGTH);
+    }
+
+    /**
+     * Writes the hash bytes into given output without copying them
+     * @param out specifies the output to write into
+     */
+    public void writeTo(DataOutput out) throws IOException {
+        out.write(bytes);
+    }
+
+    /**
+     * Puts the hash bytes into given buffer at its current position without copying them
+     * @param out specifies the buffer to put the bytes into
+     */
+    public void writeTo(ByteBuffer out) {
+        out.put(bytes);
+    }
+
+    /**
+     * Compares hashes in constant time, so that the comparison does not leak the length of the matching prefix
+     * @param o specifies the object to compare with
+     * @return true if the object is a hash with equal bytes, false otherwise
+     */
+    @Override
+    public boolean equals(Object o) {
+        if (this == o)
+            return true;
+        if (!(o instanceof Sha256Hash other))
+            return false;
+        return MessageDigest.isEqual(bytes, other.bytes);
+    }
+
+    @Override
+    public int hashCode() {
+        return hashCode;
+    }
+
+    /**
+     * Compares hashes as unsigned big-endian numbers
+     */
+    @Override
+    public int compareTo(Sha256Hash other) {
+        return Arrays.compareUnsigned(bytes, other.bytes);
+    }
+
+    @JsonValue
+    @Override
+    public String toString() {
+        String hex = this.hex;
+        if (hex == null)
+            this.hex = hex = Encoding.toHexString(bytes);
+        return hex;
+    }
+}
@@ -0,0 +1,173 @@
+package org.students.simplebitcoinnode.util;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import org.students.simplebitcoinnode.entity.Transaction;
+import org.students.simplebitcoinnode.entity.TransactionOutput;
+import org.students.simplebitcoinnode.exceptions.encoding.InvalidEncodedStringException;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Thread-safe set of unspent transaction outputs keyed by their decoded digital signature.<br>
+ * Lookups never lock, transactions are applied atomically, i.e. either all of their inputs are spent and their outputs added or nothing changes.
+ */
+public class UtxoSet {
+    private final Map<Key, UnspentOutput> outputs = new ConcurrentHashMap<>();
+
+    /**
+     * Looks up an unspent transaction output
+     * @param signature specifies the decoded signature of the output
+     * @return UnspentOutput object, null if no unspent output has given signature
+     */
+    public UnspentOutput get(byte[] signature) {
+        return outputs.get(new Key(signature));
+    }
+
+    /**
+     * Counts the unspent transaction outputs
+     * @return amount of unspent transaction outputs
+     */
+    public int size() {
+        return outputs.size();
+    }
+
+    /**
+     * Adds an unspent transaction output
+     * @param signature specifies the decoded signature of the output
+     * @param output specifies the amount and receiver of the output
+     */
+    public void add(byte[] signature, UnspentOutput output) {
+        outputs.put(new Key(signature), output);
+    }
+
+    /**
+     * Removes a spent transaction output
+     * @param signature specifies the decoded signature of the output
+     */
+    public void remove(byte[] signature) {
+        outputs.remove(new Key(signature));
+    }
+
+    /**
+     * Removes all unspent transaction outputs
+     */
+    public void clear() {
+        outputs.clear();
+    }
+
+    /**
+     * Spends all inputs of a transaction and adds its outputs, unless any input is not an unspent transaction output
+     * @param transaction specifies the transaction to apply
+     * @return true if the transaction was applied, false if some input has already been spent, never existed or is spent twice
+     * @throws InvalidEncodedStringException if some signature is not a hexadecimal string
+     */
+    public synchronized boolean apply(Transaction transaction) throws InvalidEncodedStringException {
+        final List<Key> inputs = keys(transaction.getInputs());
+        final List<Key> created = keys(transaction.getOutputs());
+        if (new HashSet<>(inputs).size() != inputs.size())
+            return false;
+        for (Key input : inputs) {
+            if (!outputs.containsKey(input))
+                return false;
+        }
+
+        inputs.forEach(outputs::remove);
+        for (int i = 0; i < created.size(); i++) {
+            TransactionOutput output = transaction.getOutputs().get(i);
+            outputs.put(created.get(i), new UnspentOutput(output.getAmount(), output.getReceiverPublicKey()));
+        }
+        return true;
+    }
+
+    /**
+     * Undoes a previously applied transaction by removing its outputs and restoring its inputs
+     * @param transaction specifies the applied transaction
+     * @throws InvalidEncodedStringException if some signature is not a hexadecimal string
+     */
+    public synchronized void revert(Transaction transaction) throws InvalidEncodedStringException {
+        keys(transaction.getOutputs()).forEach(outputs::remove);
+        final List<Key> inputs = keys(transaction.getInputs());
+        for (int i = 0; i < inputs.size(); i++) {
+            TransactionOutput input = transaction.getInputs().get(i);
+            outputs.put(inputs.get(i), new UnspentOutput(input.getAmount(), input.getReceiverPublicKey()));
+        }
+    }
+
+    /**
+     * Writes all unspent transaction outputs
+     * @param out specifies the output to write to
+     * @throws IOException if writing fails
+     */
+    public synchronized void writeTo(DataOutput out) throws IOException {
+        out.writeInt(outputs.size());
+        for (Map.Entry<Key, UnspentOutput> entry : outputs.entrySet()) {
+            out.writeShort(entry.getKey().bytes.length);
+            out.write(entry.getKey().bytes);
+            final UnspentOutput output = entry.getValue();
+            out.writeUTF(output.getAmount() == null ? "0" : output.getAmount().toPlainString());
+            out.writeUTF(output.getReceiverPublicKey() == null ? "" : output.getReceiverPublicKey());
+        }
+    }
+
+    /**
+     * Reads unspent transaction outputs previously written with <code>writeTo</code> into this set
+     * @param in specifies the input to read from
+     * @throws IOException if reading fails
+     */
+    public synchronized void readFrom(DataInput in) throws IOException {
+        final int count = in.readInt();
+        for (int i = 0; i < count; i++) {
+            byte[] signature = new byte[in.readUnsignedShort()];
+            in.readFully(signature);
+            final BigDecimal amount = new BigDecimal(in.readUTF());
+            outputs.put(new Key(signature), new UnspentOutput(amount, in.readUTF()));
+        }
+    }
+
+    private static List<Key> keys(List<TransactionOutput> transactionOutputs) throws InvalidEncodedStringException {
+        if (transactionOutputs == null)
+            return List.of();
+
+        List<Key> keys = new ArrayList<>(transactionOutputs.size());
+        for (TransactionOutput transactionOutput : transactionOutputs)
+            keys.add(new Key(Encoding.hexStringToBytes(transactionOutput.getSignature())));
+        return keys;
+    }
+
+    @Getter
+    @AllArgsConstructor
+    public static class UnspentOutput {
+        private final BigDecimal amount;
+        private final String receiverPublicKey;
+    }
+
+    private static class Key {
+        private final byte[] bytes;
+        private final int hash;
+
+        Key(byte[] bytes) {
+            this.bytes = bytes;
+            this.hash = Arrays.hashCode(bytes);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Key key && Arrays.equals(bytes, key.bytes);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+}
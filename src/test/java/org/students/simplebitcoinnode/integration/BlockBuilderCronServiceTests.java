@@ -10,19 +10,26 @@ import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.context.ApplicationEventPublisher;
 import org.students.simplebitcoinnode.config.BlockchainMiningConfig;
 import org.students.simplebitcoinnode.entity.AdjacentNode;
-import org.students.simplebitcoinnode.entity.Block;
 import org.students.simplebitcoinnode.entity.MinerPublicKey;
 import org.students.simplebitcoinnode.entity.Transaction;
-import org.students.simplebitcoinnode.repository.BlockRepository;
-import org.students.simplebitcoinnode.repository.TransactionRepository;
+import org.students.simplebitcoinnode.event.MineBlockEvent;
+import org.students.simplebitcoinnode.event.listener.MinerEventListener;
 import org.students.simplebitcoinnode.service.BlockBuilderService;
+import org.students.simplebitcoinnode.service.ChainStateService;
+import org.students.simplebitcoinnode.service.HashRateService;
+import org.students.simplebitcoinnode.service.MempoolService;
 import org.students.simplebitcoinnode.service.PoolFinderService;
 import org.students.simplebitcoinnode.service.cron.BlockBuilderCronService;
+import org.students.simplebitcoinnode.util.BlockHeaderCodec;
+import org.students.simplebitcoinnode.util.ChainIndex;
 import org.students.simplebitcoinnode.util.DTOMapperWrapper;
+import org.students.simplebitcoinnode.util.Sha256Hash;
 
+import java.math.BigInteger;
 import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.BDDMockito.*;
 
@@ -33,66 +40,115 @@ public class BlockBuilderCronServiceTests {
     private final BlockBuilderService blockBuilderService;
     private final DTOMapperWrapper dtoMapperWrapper;
     private final MineBlockEventTestListener mineBlockEventTestListener;
+    private final MinerEventListener minerEventListener;
 
     @Mock
-    private TransactionRepository transactionRepository;
+    private MempoolService mempoolService;
     @Mock
     private BlockchainMiningConfig blockchainMiningConfig;
     @Mock
-    private BlockRepository blockRepository;
+    private ChainStateService chainStateService;
     @Mock
     private PoolFinderService poolFinderService;
+    @Mock
+    private HashRateService hashRateService;
 
     @Autowired
     public BlockBuilderCronServiceTests(ApplicationEventPublisher applicationEventPublisher,
                                         BlockBuilderService blockBuilderService,
                                         DTOMapperWrapper dtoMapperWrapper,
-                                        MineBlockEventTestListener mineBlockEventTestListener) {
+                                        MineBlockEventTestListener mineBlockEventTestListener,
+                                        MinerEventListener minerEventListener) {
         this.applicationEventPublisher = applicationEventPublisher;
         this.blockBuilderService = blockBuilderService;
         this.dtoMapperWrapper = dtoMapperWrapper;
         this.mineBlockEventTestListener = mineBlockEventTestListener;
+        this.minerEventListener = minerEventListener;
     }
 
     @Test
     @DisplayName("Ensure that MineBlockEvent gets published with valid payload")
-    public void testScheduledBlockBuildingAndMining_EnsureThatMineBlockEventGetsPublishedWithValidPayload() throws Exception {
+    public void testAssembleBlock_EnsureThatMineBlockEventGetsPublishedWithValidPayload() throws Exception {
         List<Transaction> testTransactions = List.of(
-                Transaction.builder().transactionHash("4355a46b19d348dc2f57c046f8ef63d4538ebb936000f3c9ee954a27460dd865").build(),
-                Transaction.builder().transactionHash("53c234e5e8472b6ac51c1ae1cab3fe06fad053beb8ebfd8977b010655bfdd3c3").build(),
-                Transaction.builder().transactionHash("1121cfccd5913f0a63fec40a6ffd44ea64f9dc135c66634ba001d10bcf4302a2").build());
+                Transaction.builder().transactionHash(Sha256Hash.fromHex("4355a46b19d348dc2f57c046f8ef63d4538ebb936000f3c9ee954a27460dd865")).build(),
+                Transaction.builder().transactionHash(Sha256Hash.fromHex("53c234e5e8472b6ac51c1ae1cab3fe06fad053beb8ebfd8977b010655bfdd3c3")).build(),
+                Transaction.builder().transactionHash(Sha256Hash.fromHex("1121cfccd5913f0a63fec40a6ffd44ea64f9dc135c66634ba001d10bcf4302a2")).build());
 
         List<AdjacentNode> testAdjacentNodes = List.of(
                 AdjacentNode.builder().ip("227.77.196.233").pubKey("1").name("Trusted Coin Market Inc").port(443).tls(true).hostname("trusted.node").averageHashRate(2891.f).build(),
                 AdjacentNode.builder().ip("38.68.198.190").pubKey("2").name("Basement Miner").port(80).tls(false).hostname("1337h2x.tk").averageHashRate(1337.f).build(),
                 AdjacentNode.builder().ip("167.3.36.139").pubKey("3").name("Random Mine").port(443).tls(true).hostname("random.ru").averageHashRate(666.f).build());
 
-        Block testBlock = Block.builder().hash("7de1555df0c2700329e815b93b32c571c3ea54dc967b89e81ab73b9972b72d1d").build();
+        ChainIndex.Entry testTip = new ChainIndex.Entry(1L, Sha256Hash.fromHex("7de1555df0c2700329e815b93b32c571c3ea54dc967b89e81ab73b9972b72d1d"), Sha256Hash.ZERO, 0, BigInteger.ONE);
 
         given(blockchainMiningConfig.getTransactionsPerBlock())
                 .willReturn(testTransactions.size());
-        given(transactionRepository.findAmountOfUnverifiedTransactions())
-                .willReturn((long)testTransactions.size());
-        given(transactionRepository.findUnverifiedTransactionsLimitByN(blockchainMiningConfig.getTransactionsPerBlock()))
+        given(mempoolService.drainBlock(eq(testTransactions.size()), anyLong(), anyLong()))
                 .willReturn(testTransactions);
-        given(blockRepository.findBlockWithLongestChain())
-                .willReturn(testBlock);
+        given(chainStateService.getTip())
+                .willReturn(testTip);
         given(poolFinderService.proposePoolMining(any()))
                 .willReturn(testAdjacentNodes);
+        given(hashRateService.getAverageHashRate())
+                .willReturn(500.f);
+        // a missing block header version falls back to the legacy header
+        given(blockchainMiningConfig.getBlockHeaderVersion())
+                .willReturn(null);
 
 
         BlockBuilderCronService blockBuilderCronService = new BlockBuilderCronService(
                 applicationEventPublisher,
                 blockBuilderService,
-                transactionRepository,
-                blockRepository,
+                mempoolService,
+                chainStateService,
                 blockchainMiningConfig,
                 dtoMapperWrapper,
-                poolFinderService);
-        blockBuilderCronService.scheduledBlockBuildingAndMining();
+                poolFinderService,
+                hashRateService);
+        assertTrue(blockBuilderCronService.assembleBlock());
 
-        verify(poolFinderService, times(1)).initiatePoolMining(any(), any());
+        verify(mempoolService, times(1)).holdForMining(any(), eq(testTransactions));
+        verify(mempoolService, never()).restore(any());
+        verify(poolFinderService, times(1)).initiatePoolMining(any(), argThat(nonceShares -> nonceShares.size() == testAdjacentNodes.size()), any());
         assertEquals(1, mineBlockEventTestListener.getEvents().size());
+        // this node mines the last run of every nonce cycle
+        MineBlockEvent event = mineBlockEventTestListener.getEvents().getFirst();
+        assertEquals(event.getStride(), event.getOffset().add(event.getWidth()));
+        assertEquals(BlockHeaderCodec.VERSION_LEGACY, event.getBlock().getHeaderVersion());
         testAdjacentNodes.forEach(x -> assertTrue(mineBlockEventTestListener.getEvents().stream().map(e -> e.getBlock().getMiners().stream().map(MinerPublicKey::getPubKey).toList()).allMatch(m -> m.contains(x.getPubKey()))));
+
+        // the published block is mined by the application context, stop it so that it doesn't compete with other tests
+        minerEventListener.abortMining(event.getBlock().getHash());
+    }
+
+    @Test
+    @DisplayName("Ensure that drained transactions are restored when block building fails")
+    public void testAssembleBlock_PoolProposalFails_EnsureThatTransactionsGetRestored() throws Exception {
+        List<Transaction> testTransactions = List.of(
+                Transaction.builder().transactionHash(Sha256Hash.fromHex("4355a46b19d348dc2f57c046f8ef63d4538ebb936000f3c9ee954a27460dd865")).build(),
+                Transaction.builder().transactionHash(Sha256Hash.fromHex("53c234e5e8472b6ac51c1ae1cab3fe06fad053beb8ebfd8977b010655bfdd3c3")).build());
+
+        given(blockchainMiningConfig.getTransactionsPerBlock())
+                .willReturn(testTransactions.size());
+        given(mempoolService.drainBlock(eq(testTransactions.size()), anyLong(), anyLong()))
+                .willReturn(testTransactions);
+        given(chainStateService.getTip())
+                .willReturn(new ChainIndex.Entry(1L, Sha256Hash.fromHex("7de1555df0c2700329e815b93b32c571c3ea54dc967b89e81ab73b9972b72d1d"), Sha256Hash.ZERO, 0, BigInteger.ONE));
+        given(poolFinderService.proposePoolMining(any()))
+                .willThrow(new IllegalStateException("no route to peers"));
+
+        BlockBuilderCronService blockBuilderCronService = new BlockBuilderCronService(
+                applicationEventPublisher,
+                blockBuilderService,
+                mempoolService,
+                chainStateService,
+                blockchainMiningConfig,
+                dtoMapperWrapper,
+                poolFinderService,
+                hashRateService);
+        assertThrows(IllegalStateException.class, blockBuilderCronService::assembleBlock);
+
+        verify(mempoolService, times(1)).restore(testTransactions);
+        verify(mempoolService, never()).holdForMining(any(), any());
     }
 }
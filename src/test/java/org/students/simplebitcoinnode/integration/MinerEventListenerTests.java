@@ -12,11 +12,12 @@ import org.students.simplebitcoinnode.config.BlockchainMiningConfig;
 import org.students.simplebitcoinnode.entity.Block;
 import org.students.simplebitcoinnode.entity.MerkleTreeNode;
 import org.students.simplebitcoinnode.entity.MinerPublicKey;
+import org.students.simplebitcoinnode.event.BlockMinedEvent;
 import org.students.simplebitcoinnode.event.MineBlockEvent;
 import org.students.simplebitcoinnode.event.listener.MinerEventListener;
 import org.students.simplebitcoinnode.event.listener.MinerProcess;
 import org.students.simplebitcoinnode.service.AsymmetricCryptographyService;
-import org.students.simplebitcoinnode.util.Encoding;
+import org.students.simplebitcoinnode.util.Sha256Hash;
 
 import java.math.BigInteger;
 import java.time.LocalDateTime;
@@ -24,8 +25,7 @@ import java.time.ZoneId;
 import java.util.List;
 import java.util.Map;
 
-import static org.junit.jupiter.api.Assertions.assertEquals;
-import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.BDDMockito.given;
 
 @SpringBootTest
@@ -49,16 +49,16 @@ public class MinerEventListenerTests {
     private Block buildTestBlock() throws Exception {
         Block block = Block.builder()
                 .id(1L)
-                .previousHash("0".repeat(64))
+                .previousHash(Sha256Hash.ZERO)
                 .miners(List.of(new MinerPublicKey(null, "PZ8Tyr4Nx8MHsRAGMpZmZ6TWY63dXWSCxtEZTC9qqAWU95UpXARRnKYMb35cEDFjPVuBfffRRdKWe7BMRsmimYh2sqHvYekcQkbZbhKhSqqyfW4rLJXCstNP"),
                                 new MinerPublicKey(null, "PZ8Tyr4Nx8MHsRAGMpZmZ6TWY63dXWSCxJZoDfW2gJemgZMuUY6hH29EtoKHKwqKMqxCnDwkzn6TXUQXXr7AKm7io7DvTL1w7AHsmgSqTL9phCgM68GpFC1J"),
                                 new MinerPublicKey(null, "PZ8Tyr4Nx8MHsRAGMpZmZ6TWY63dXWSCxBN72CnVs5C3FbQ2HKfq6c7QtU757xWoEjR7Bvpbn8XeKPogAi8qqXWPrHS6RsFQh7wgwcWqoqp5Yi2AH4N5Vuqr")))
                 .blockAssemblyTimestamp(LocalDateTime.now(ZoneId.of("UTC")))
                 .nonce(BigInteger.ZERO)
-                .merkleTree(MerkleTreeNode.builder().hash("1".repeat(64)).build())
+                .merkleTree(MerkleTreeNode.builder().hash(Sha256Hash.fromHex("1".repeat(64))).build())
                 .build();
 
-        block.setHash(Encoding.toHexString(asymmetricCryptographyService.digestObject(block)));
+        block.setHash(Sha256Hash.wrap(asymmetricCryptographyService.digestObject(block)));
         return block;
     }
 
@@ -75,29 +75,83 @@ public class MinerEventListenerTests {
                 .willReturn(threadCount);
 
         MinerEventListener listener = new MinerEventListener(
-                asymmetricCryptographyService,
                 applicationEventPublisher,
                 blockchainMiningConfig);
 
         MineBlockEvent event = new MineBlockEvent(this, testBlock, BigInteger.ZERO, BigInteger.ONE);
         listener.onApplicationEvent(event);
-        Map<String, MinerProcess> processTable = listener.getMinerProcesses();
+        Map<Sha256Hash, MinerProcess> processTable = listener.getMinerProcesses();
 
         // ensure that miner process was created with correct key
         assertEquals(1, processTable.size());
         assertTrue(processTable.containsKey(testBlock.getHash()));
 
-        // abort the process
+        // abort the process, which waits until all workers have exited
         listener.abortMining(testBlock.getHash());
 
-        // cleanup
-        listener.scheduledProcessCleanup();
-
         // ensure that the process got destroyed
         assertEquals(0, processTable.size());
     }
 
 
+    @Test
+    @DisplayName("Ensure that blocks exceeding the concurrent mining limit are queued until a mining slot is free")
+    public void testConcurrentBlockLimit_EnsureThatExcessBlocksAreQueued() throws Exception {
+        Block firstBlock = buildTestBlock();
+        Block secondBlock = buildTestBlock();
+        secondBlock.setPreviousHash(Sha256Hash.fromHex("2".repeat(64)));
+        secondBlock.setHash(Sha256Hash.wrap(asymmetricCryptographyService.digestObject(secondBlock)));
+
+        given(blockchainMiningConfig.getMinedBlockZeroBitCount())
+                .willReturn(40L);
+        given(blockchainMiningConfig.getThreadCount())
+                .willReturn(Runtime.getRuntime().availableProcessors());
+        given(blockchainMiningConfig.getMaxConcurrentBlocks())
+                .willReturn(1);
+
+        MinerEventListener listener = new MinerEventListener(
+                applicationEventPublisher,
+                blockchainMiningConfig);
+
+        assertNotNull(listener.startMining(new MineBlockEvent(this, firstBlock, BigInteger.ZERO, BigInteger.ONE)));
+        assertNull(listener.startMining(new MineBlockEvent(this, secondBlock, BigInteger.ZERO, BigInteger.ONE)));
+        assertEquals(1, listener.getMinerProcesses().size());
+        assertTrue(listener.getMinerProcesses().containsKey(firstBlock.getHash()));
+
+        // aborting the first block frees the slot for the queued block
+        listener.abortMining(firstBlock.getHash());
+        assertEquals(1, listener.getMinerProcesses().size());
+        assertTrue(listener.getMinerProcesses().containsKey(secondBlock.getHash()));
+
+        listener.abortMining(secondBlock.getHash());
+        assertEquals(0, listener.getMinerProcesses().size());
+    }
+
+    @Test
+    @DisplayName("Ensure that hash rates are measured for mined blocks and for the calibration benchmark")
+    public void testHashRate_EnsureThatHashRatesAreMeasured() throws Exception {
+        Block testBlock = buildTestBlock();
+
+        given(blockchainMiningConfig.getMinedBlockZeroBitCount())
+                .willReturn(40L);
+        given(blockchainMiningConfig.getThreadCount())
+                .willReturn(Runtime.getRuntime().availableProcessors());
+
+        MinerEventListener listener = new MinerEventListener(
+                applicationEventPublisher,
+                blockchainMiningConfig);
+
+        assertTrue(listener.benchmark(200) > 0);
+
+        MinerProcess process = listener.startMining(new MineBlockEvent(this, testBlock, BigInteger.ZERO, BigInteger.ONE));
+        Thread.sleep(1000);
+        assertTrue(process.getHashCount() > 0);
+        assertTrue(process.getHashRate() > 0);
+        assertTrue(listener.getHashRate() > 0);
+
+        listener.abortMining(testBlock.getHash());
+    }
+
     @Test
     @DisplayName("Test that block mining works as intended")
     public void testBlockMining() throws Exception {
@@ -111,25 +165,23 @@ public class MinerEventListenerTests {
                 .willReturn(threadCount);
 
         MinerEventListener listener = new MinerEventListener(
-                asymmetricCryptographyService,
                 applicationEventPublisher,
                 blockchainMiningConfig);
 
         MineBlockEvent event = new MineBlockEvent(this, testBlock, BigInteger.ZERO, BigInteger.ONE);
-        listener.onApplicationEvent(event);
-        Map<String, MinerProcess> processes = listener.getMinerProcesses();
-
-        for (MinerProcess process : processes.values()) {
-            for (Thread thread : process.getThreads())
-                thread.join();
-        }
+        MinerProcess process = listener.startMining(event);
+        process.awaitTermination();
 
-        // ensure that there is only one event for given block
-        assertEquals(1, testEventListener.getEvents().size());
+        // ensure that there is only one event for given block (other tests may mine blocks in the background)
+        List<BlockMinedEvent> events = testEventListener.getEvents().stream()
+                .filter(e -> e.getBlock().getMerkleTree().getHash().equals(testBlock.getMerkleTree().getHash()))
+                .toList();
+        assertEquals(1, events.size());
+        assertEquals(0, listener.getMinerProcesses().size());
 
         // ensure that block hash matches the calculated hash
-        byte[] calculatedHash = asymmetricCryptographyService.digestObject(testEventListener.getEvents().getFirst().getBlock());
-        assertEquals(testEventListener.getEvents().getFirst().getBlock().getHash(), Encoding.toHexString(calculatedHash));
+        byte[] calculatedHash = asymmetricCryptographyService.digestObject(events.getFirst().getBlock());
+        assertEquals(events.getFirst().getBlock().getHash(), Sha256Hash.wrap(calculatedHash));
 
         // ensure that hash prefix contains N zero bits
         long prefixVal = ((calculatedHash[7] & 0xFFL) << 56) |
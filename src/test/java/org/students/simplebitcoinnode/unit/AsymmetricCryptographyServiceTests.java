@@ -8,6 +8,8 @@ import org.students.simplebitcoinnode.unit.transaction.TestTransactionBuilder;
 import org.students.simplebitcoinnode.util.Encoding;
 
 import java.security.KeyPair;
+import java.util.ArrayList;
+import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -44,4 +46,26 @@ public abstract class AsymmetricCryptographyServiceTests {
             fail();
         }
     }
+
+    @Test
+    @DisplayName("Ensure that batch verification accepts valid signatures and rejects a single invalid or malformed one")
+    public void testVerifyAll_MixedSignatures_ExpectAllOrNothing() throws Exception {
+        KeyPair keyPair = asymmetricCryptographyService.generateNewKeypair();
+        List<AsymmetricCryptographyService.SignatureJob> jobs = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            final String message = "Output " + i;
+            jobs.add(new AsymmetricCryptographyService.SignatureJob(message, asymmetricCryptographyService.signMessage(message, keyPair.getPrivate().getEncoded()), keyPair.getPublic().getEncoded()));
+        }
+        assertTrue(asymmetricCryptographyService.verifyAll(jobs));
+        assertTrue(asymmetricCryptographyService.verifyAll(jobs.subList(0, 2)));
+
+        // signature of another message
+        List<AsymmetricCryptographyService.SignatureJob> invalidJobs = new ArrayList<>(jobs);
+        invalidJobs.set(5, new AsymmetricCryptographyService.SignatureJob("Output 5", jobs.get(4).getSignature(), keyPair.getPublic().getEncoded()));
+        assertFalse(asymmetricCryptographyService.verifyAll(invalidJobs));
+
+        // malformed public key
+        invalidJobs.set(5, new AsymmetricCryptographyService.SignatureJob("Output 5", jobs.get(5).getSignature(), new byte[] { 1, 2, 3 }));
+        assertFalse(asymmetricCryptographyService.verifyAll(invalidJobs));
+    }
 }
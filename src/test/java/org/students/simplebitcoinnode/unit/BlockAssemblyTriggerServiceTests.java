@@ -0,0 +1,58 @@
+package org.students.simplebitcoinnode.unit;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.students.simplebitcoinnode.event.MempoolUpdatedEvent;
+import org.students.simplebitcoinnode.service.cron.BlockAssemblyTriggerService;
+import org.students.simplebitcoinnode.service.cron.BlockBuilderCronService;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.BDDMockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class BlockAssemblyTriggerServiceTests {
+    @Mock
+    private BlockBuilderCronService blockBuilderCronService;
+
+    @Test
+    @DisplayName("Ensure that mempool updates assemble blocks until no threshold is reached")
+    public void testOnMempoolUpdatedEvent_EnsureBlocksAssembled() {
+        given(blockBuilderCronService.assembleBlock())
+                .willReturn(true, true, false);
+        given(blockBuilderCronService.nanosUntilBlockAssembly())
+                .willReturn(-1L);
+
+        BlockAssemblyTriggerService blockAssemblyTriggerService = new BlockAssemblyTriggerService(blockBuilderCronService);
+        try {
+            blockAssemblyTriggerService.onMempoolUpdatedEvent(new MempoolUpdatedEvent(this, 1));
+            then(blockBuilderCronService).should(timeout(1000).times(3)).assembleBlock();
+            then(blockBuilderCronService).should(timeout(1000)).nanosUntilBlockAssembly();
+        }
+        finally {
+            blockAssemblyTriggerService.shutdown();
+        }
+    }
+
+    @Test
+    @DisplayName("Ensure that block assembly is retried once the wait time threshold of pending transactions elapses")
+    public void testSignal_PendingWaitTime_EnsureTimerRetriesAssembly() {
+        given(blockBuilderCronService.assembleBlock())
+                .willReturn(false, true, false);
+        given(blockBuilderCronService.nanosUntilBlockAssembly())
+                .willReturn(TimeUnit.MILLISECONDS.toNanos(20), -1L);
+
+        BlockAssemblyTriggerService blockAssemblyTriggerService = new BlockAssemblyTriggerService(blockBuilderCronService);
+        try {
+            blockAssemblyTriggerService.signal();
+            then(blockBuilderCronService).should(timeout(1000).times(3)).assembleBlock();
+            then(blockBuilderCronService).should(timeout(1000).times(2)).nanosUntilBlockAssembly();
+        }
+        finally {
+            blockAssemblyTriggerService.shutdown();
+        }
+    }
+}
@@ -6,11 +6,18 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.students.simplebitcoinnode.entity.Block;
+import org.students.simplebitcoinnode.entity.MerkleTreeLevels;
 import org.students.simplebitcoinnode.entity.MerkleTreeNode;
 import org.students.simplebitcoinnode.entity.Transaction;
+import org.students.simplebitcoinnode.repository.MerkleTreeLevelsRepository;
 import org.students.simplebitcoinnode.service.AsymmetricCryptographyService;
 import org.students.simplebitcoinnode.service.BlockBuilderService;
 import org.students.simplebitcoinnode.service.impl.BlockBuilderServiceImpl;
+import org.students.simplebitcoinnode.unit.transaction.TestTransactionBuilder;
+import org.students.simplebitcoinnode.util.BlockHeaderCodec;
+import org.students.simplebitcoinnode.util.MerkleProof;
+import org.students.simplebitcoinnode.util.MerkleTreeEngine;
+import org.students.simplebitcoinnode.util.Sha256Hash;
 
 import java.math.BigDecimal;
 import java.math.BigInteger;
@@ -20,26 +27,26 @@ import java.util.*;
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.BDDMockito.any;
 import static org.mockito.BDDMockito.given;
+import static org.mockito.BDDMockito.then;
 
 @ExtendWith(MockitoExtension.class)
 public class BlockBuilderServiceTests {
     @Mock
     public AsymmetricCryptographyService asymmetricCryptographyService;
+    @Mock
+    public MerkleTreeLevelsRepository merkleTreeLevelsRepository;
 
     @Test
     @DisplayName("Ensure that all given transactions exist in block's merkle tree")
     public void testMerkleTreeTransactions_EnsureThatAllGivenTransactionsExistInBlock() throws Exception {
         Set<Transaction> transactions = new HashSet<>(Set.of(
-                Transaction.builder().transactionHash("4355a46b19d348dc2f57c046f8ef63d4538ebb936000f3c9ee954a27460dd865").build(),
-                Transaction.builder().transactionHash("01ba4719c80b6fe911b091a7c05124b64eeece964e09c058ef8f9805daca546b").build(),
-                Transaction.builder().transactionHash("53c234e5e8472b6ac51c1ae1cab3fe06fad053beb8ebfd8977b010655bfdd3c3").build(),
-                Transaction.builder().transactionHash("1121cfccd5913f0a63fec40a6ffd44ea64f9dc135c66634ba001d10bcf4302a2").build(),
-                Transaction.builder().transactionHash("7de1555df0c2700329e815b93b32c571c3ea54dc967b89e81ab73b9972b72d1d").build()));
-
-        given(asymmetricCryptographyService.digestObject(any()))
-                .willReturn(new byte[32]);
+                Transaction.builder().transactionHash(Sha256Hash.fromHex("4355a46b19d348dc2f57c046f8ef63d4538ebb936000f3c9ee954a27460dd865")).build(),
+                Transaction.builder().transactionHash(Sha256Hash.fromHex("01ba4719c80b6fe911b091a7c05124b64eeece964e09c058ef8f9805daca546b")).build(),
+                Transaction.builder().transactionHash(Sha256Hash.fromHex("53c234e5e8472b6ac51c1ae1cab3fe06fad053beb8ebfd8977b010655bfdd3c3")).build(),
+                Transaction.builder().transactionHash(Sha256Hash.fromHex("1121cfccd5913f0a63fec40a6ffd44ea64f9dc135c66634ba001d10bcf4302a2")).build(),
+                Transaction.builder().transactionHash(Sha256Hash.fromHex("7de1555df0c2700329e815b93b32c571c3ea54dc967b89e81ab73b9972b72d1d")).build()));
 
-        BlockBuilderService blockBuilderService = new BlockBuilderServiceImpl(asymmetricCryptographyService);
+        BlockBuilderService blockBuilderService = new BlockBuilderServiceImpl(asymmetricCryptographyService, merkleTreeLevelsRepository);
         MerkleTreeNode root = blockBuilderService.createMerkleTreeRoot(transactions);
 
         Queue<MerkleTreeNode> nodeQueue = new ArrayDeque<>();
@@ -57,23 +64,73 @@ public class BlockBuilderServiceTests {
         assertEquals(0, transactions.size());
     }
 
+    @Test
+    @DisplayName("Ensure that merkle proofs of block transactions verify against the merkle tree root")
+    public void testCreateMerkleProof_EnsureThatProofsVerify() throws Exception {
+        List<Transaction> transactions = List.of(
+                Transaction.builder().transactionHash(Sha256Hash.fromHex("4355a46b19d348dc2f57c046f8ef63d4538ebb936000f3c9ee954a27460dd865")).build(),
+                Transaction.builder().transactionHash(Sha256Hash.fromHex("01ba4719c80b6fe911b091a7c05124b64eeece964e09c058ef8f9805daca546b")).build(),
+                Transaction.builder().transactionHash(Sha256Hash.fromHex("53c234e5e8472b6ac51c1ae1cab3fe06fad053beb8ebfd8977b010655bfdd3c3")).build(),
+                Transaction.builder().transactionHash(Sha256Hash.fromHex("1121cfccd5913f0a63fec40a6ffd44ea64f9dc135c66634ba001d10bcf4302a2")).build(),
+                Transaction.builder().transactionHash(Sha256Hash.fromHex("7de1555df0c2700329e815b93b32c571c3ea54dc967b89e81ab73b9972b72d1d")).build());
+
+        BlockBuilderService blockBuilderService = new BlockBuilderServiceImpl(asymmetricCryptographyService, merkleTreeLevelsRepository);
+        for (int layoutVersion = MerkleTreeEngine.LAYOUT_LEGACY; layoutVersion <= MerkleTreeEngine.LAYOUT_PROMOTE_LAST; layoutVersion++) {
+            Block block = Block.builder()
+                    .merkleTree(blockBuilderService.createMerkleTreeRoot(transactions, layoutVersion))
+                    .merkleLayoutVersion(layoutVersion)
+                    .build();
+
+            for (Transaction transaction : transactions) {
+                Optional<MerkleProof> proof = blockBuilderService.createMerkleProof(block, transaction.getTransactionHash());
+                assertTrue(proof.isPresent());
+                assertTrue(blockBuilderService.verifyMerkleProof(proof.get(), block.getMerkleTree().getHash()));
+                assertFalse(blockBuilderService.verifyMerkleProof(proof.get(), Sha256Hash.ZERO));
+            }
+            assertTrue(blockBuilderService.createMerkleProof(block, Sha256Hash.ZERO).isEmpty());
+        }
+    }
+
+    @Test
+    @DisplayName("Ensure that merkle proofs of stored blocks with packed merkle trees verify against the merkle tree root")
+    public void testCreateMerkleProof_PackedBlock_EnsureThatProofsVerify() {
+        List<Transaction> transactions = TestTransactionBuilder.randomHashTransactions(7);
+        MerkleTreeEngine tree = MerkleTreeEngine.build(transactions.stream().map(Transaction::getTransactionHash).toList(), MerkleTreeEngine.LAYOUT_DUPLICATE_LAST);
+        // stored packed blocks keep only the root node of their merkle tree
+        Block block = Block.builder()
+                .id(1L)
+                .merkleTree(MerkleTreeNode.builder().hash(tree.getRoot()).build())
+                .merkleLayoutVersion(MerkleTreeEngine.LAYOUT_DUPLICATE_LAST)
+                .build();
+        given(merkleTreeLevelsRepository.findById(1L))
+                .willReturn(Optional.of(new MerkleTreeLevels(1L, tree.getLayoutVersion(), tree.getLeafCount(), tree.toPackedLevels())));
+
+        BlockBuilderService blockBuilderService = new BlockBuilderServiceImpl(asymmetricCryptographyService, merkleTreeLevelsRepository);
+        for (Transaction transaction : transactions) {
+            Optional<MerkleProof> proof = blockBuilderService.createMerkleProof(block, transaction.getTransactionHash());
+            assertTrue(proof.isPresent());
+            assertTrue(blockBuilderService.verifyMerkleProof(proof.get(), tree.getRoot()));
+        }
+        assertTrue(blockBuilderService.createMerkleProof(block, Sha256Hash.ZERO).isEmpty());
+    }
+
     @Test
     @DisplayName("Ensure that the built block contains required variables")
     public void testNewBlock_EnsureThatBlockContainsRequiredVariables() throws Exception {
-        MerkleTreeNode root = MerkleTreeNode.builder().hash("0".repeat(64)).build();
+        MerkleTreeNode root = MerkleTreeNode.builder().hash(Sha256Hash.ZERO).build();
 
         final byte[] blockHash = new byte[32];
         Arrays.fill(blockHash, (byte)0x22);
-        final String strBlockHash = "2".repeat(64);
-        final String previousBlockHash = "1".repeat(64);
+        final Sha256Hash expectedBlockHash = Sha256Hash.fromHex("2".repeat(64));
+        final Sha256Hash previousBlockHash = Sha256Hash.fromHex("1".repeat(64));
 
         given(asymmetricCryptographyService.digestObject(any()))
                 .willReturn(blockHash);
 
-        BlockBuilderService blockBuilderService = new BlockBuilderServiceImpl(asymmetricCryptographyService);
+        BlockBuilderService blockBuilderService = new BlockBuilderServiceImpl(asymmetricCryptographyService, merkleTreeLevelsRepository);
         Block block = blockBuilderService.newBlock(root, previousBlockHash);
 
-        assertEquals(strBlockHash, block.getHash());
+        assertEquals(expectedBlockHash, block.getHash());
         assertEquals(root, block.getMerkleTree());
         assertEquals(previousBlockHash, block.getPreviousHash());
         assertEquals(BigInteger.ZERO, block.getNonce());
@@ -84,6 +141,24 @@ public class BlockBuilderServiceTests {
         assertNotNull(block.getBlockAssemblyTimestamp());
     }
 
+    @Test
+    @DisplayName("Ensure that blocks with fixed-width headers are hashed from the encoded header")
+    public void testNewBlock_FixedWidthHeader_EnsureThatHeaderBytesAreHashed() throws Exception {
+        MerkleTreeNode root = MerkleTreeNode.builder().hash(Sha256Hash.ZERO).build();
+        final byte[] blockHash = new byte[32];
+        Arrays.fill(blockHash, (byte)0x33);
+
+        given(asymmetricCryptographyService.digestBytes(any()))
+                .willReturn(blockHash);
+
+        BlockBuilderService blockBuilderService = new BlockBuilderServiceImpl(asymmetricCryptographyService, merkleTreeLevelsRepository);
+        Block block = blockBuilderService.newBlock(root, Sha256Hash.fromHex("1".repeat(64)), BlockHeaderCodec.VERSION_FIXED_WIDTH);
+
+        assertEquals(Sha256Hash.fromHex("3".repeat(64)), block.getHash());
+        assertEquals(BlockHeaderCodec.VERSION_FIXED_WIDTH, block.getHeaderVersion());
+        then(asymmetricCryptographyService).should().digestBytes(BlockHeaderCodec.encode(block));
+    }
+
     @Test
     @DisplayName("Ensure that coinbase transaction gets constructed properly and rewards distributed evenly")
     public void testMakeCoinbaseTransaction_EnsureThatCoinbaseTransactionGetsConstructedProperly() throws Exception {
@@ -97,19 +172,19 @@ public class BlockBuilderServiceTests {
 
         final BigDecimal rewardPerWallet = blockReward.divide(BigDecimal.valueOf(minerWalletAddresses.size()), 8, RoundingMode.HALF_DOWN);
         final byte[] transactionHash = new byte[32];
-        final String strTransactionHash = "1".repeat(64);
+        final Sha256Hash expectedTransactionHash = Sha256Hash.fromHex("1".repeat(64));
         Arrays.fill(transactionHash, (byte)0x11);
 
         given(asymmetricCryptographyService.digestObject(any()))
                 .willReturn(transactionHash);
 
-        BlockBuilderService blockBuilderService = new BlockBuilderServiceImpl(asymmetricCryptographyService);
+        BlockBuilderService blockBuilderService = new BlockBuilderServiceImpl(asymmetricCryptographyService, merkleTreeLevelsRepository);
         Transaction transaction = blockBuilderService.makeCoinbaseTransaction(minerWalletAddresses, blockReward);
 
         assertNull(transaction.getId());
         assertNull(transaction.getInputs());
         assertNotNull(transaction.getTimestamp());
-        assertEquals(strTransactionHash, transaction.getTransactionHash());
+        assertEquals(expectedTransactionHash, transaction.getTransactionHash());
         transaction.getOutputs().forEach((output) -> {
             assertEquals("0".repeat(144), output.getSignature());
             assertTrue(minerWalletAddresses.contains(output.getReceiverPublicKey()));
@@ -0,0 +1,75 @@
+package org.students.simplebitcoinnode.unit;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.students.simplebitcoinnode.entity.Block;
+import org.students.simplebitcoinnode.entity.MerkleTreeNode;
+import org.students.simplebitcoinnode.entity.MinerPublicKey;
+import org.students.simplebitcoinnode.exceptions.encoding.InvalidEncodedStringException;
+import org.students.simplebitcoinnode.util.BlockHeaderCodec;
+import org.students.simplebitcoinnode.util.Sha256Hash;
+
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BlockHeaderCodecTests {
+    private static final String minerAddress = "PZ8Tyr4Nx8MHsRAGMpZmZ6TWY63dXWSCxtEZTC9qqAWU95UpXARRnKYMb35cEDFjPVuBfffRRdKWe7BMRsmimYh2sqHvYekcQkbZbhKhSqqyfW4rLJXCstNP";
+
+    private Block buildTestBlock(List<MinerPublicKey> miners, BigInteger nonce) throws InvalidEncodedStringException {
+        return Block.builder()
+                .previousHash(Sha256Hash.ZERO)
+                .merkleTree(MerkleTreeNode.builder().hash(Sha256Hash.fromHex("1".repeat(64))).build())
+                .miners(miners)
+                .blockAssemblyTimestamp(LocalDateTime.parse("2024-05-22T23:00:40"))
+                .nonce(nonce)
+                .headerVersion(BlockHeaderCodec.VERSION_FIXED_WIDTH)
+                .build();
+    }
+
+    @Test
+    @DisplayName("Ensure that encoded block header can be decoded back")
+    public void testEncodeDecode_EnsureMatchingFields() throws Exception {
+        Block block = buildTestBlock(List.of(new MinerPublicKey(null, minerAddress)), BigInteger.valueOf(13435435));
+        BlockHeaderCodec.Header header = BlockHeaderCodec.decode(ByteBuffer.wrap(BlockHeaderCodec.encode(block)));
+
+        assertEquals(BlockHeaderCodec.VERSION_FIXED_WIDTH, header.getVersion());
+        assertEquals(block.getPreviousHash(), header.getPreviousHash());
+        assertEquals(block.getMerkleTree().getHash(), header.getMerkleRootHash());
+        assertEquals(Sha256Hash.wrap(BlockHeaderCodec.minersDigest(block)), header.getMinersDigest());
+        assertEquals(block.getBlockAssemblyTimestamp().toEpochSecond(ZoneOffset.UTC), header.getTimestamp());
+        assertEquals(13435435L, header.getNonce());
+    }
+
+    @Test
+    @DisplayName("Ensure that the header length does not depend on the nonce or the amount of miners")
+    public void testEncode_EnsureFixedHeaderLength() throws Exception {
+        final MinerPublicKey miner = new MinerPublicKey(null, minerAddress);
+        assertEquals(BlockHeaderCodec.HEADER_LENGTH, BlockHeaderCodec.encode(buildTestBlock(List.of(), BigInteger.ZERO)).length);
+        assertEquals(BlockHeaderCodec.HEADER_LENGTH, BlockHeaderCodec.encode(buildTestBlock(List.of(miner, miner, miner), BigInteger.valueOf(Long.MAX_VALUE))).length);
+    }
+
+    @Test
+    @DisplayName("Ensure that the nonce gets encoded as the last field of the header")
+    public void testEncode_EnsureNonceAtFixedOffset() throws Exception {
+        byte[] header = BlockHeaderCodec.encode(buildTestBlock(List.of(), BigInteger.valueOf(0x0102030405060708L)));
+        assertEquals(0x0102030405060708L, ByteBuffer.wrap(header, BlockHeaderCodec.NONCE_OFFSET, BlockHeaderCodec.NONCE_LENGTH).getLong());
+    }
+
+    @Test
+    @DisplayName("Ensure that InvalidEncodedStringException is thrown for unsupported versions, truncated headers and oversized nonces")
+    public void testEncodeDecode_ExpectInvalidEncodedStringException() throws Exception {
+        byte[] header = BlockHeaderCodec.encode(buildTestBlock(List.of(), BigInteger.ONE));
+        assertThrows(InvalidEncodedStringException.class, () -> BlockHeaderCodec.decode(ByteBuffer.wrap(header, 0, header.length - 1)));
+
+        header[3] = (byte) BlockHeaderCodec.VERSION_LEGACY;
+        assertThrows(InvalidEncodedStringException.class, () -> BlockHeaderCodec.decode(ByteBuffer.wrap(header)));
+
+        Block block = buildTestBlock(List.of(), BigInteger.ONE.shiftLeft(64));
+        assertThrows(InvalidEncodedStringException.class, () -> BlockHeaderCodec.encode(block));
+    }
+}
@@ -0,0 +1,170 @@
+package org.students.simplebitcoinnode.unit;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.students.simplebitcoinnode.config.BlockchainStorageConfig;
+import org.students.simplebitcoinnode.entity.Block;
+import org.students.simplebitcoinnode.entity.MerkleTreeLevels;
+import org.students.simplebitcoinnode.entity.MerkleTreeNode;
+import org.students.simplebitcoinnode.entity.Transaction;
+import org.students.simplebitcoinnode.event.BlockMinedEvent;
+import org.students.simplebitcoinnode.repository.BlockRepository;
+import org.students.simplebitcoinnode.repository.MerkleTreeLevelsRepository;
+import org.students.simplebitcoinnode.repository.MerkleTreeNodeRepository;
+import org.students.simplebitcoinnode.repository.TransactionBlockIndexRepository;
+import org.students.simplebitcoinnode.repository.TransactionRepository;
+import org.students.simplebitcoinnode.service.BlockStorageService;
+import org.students.simplebitcoinnode.service.ChainStateService;
+import org.students.simplebitcoinnode.service.MempoolService;
+import org.students.simplebitcoinnode.service.MerkleProofService;
+import org.students.simplebitcoinnode.unit.transaction.TestTransactionBuilder;
+import org.students.simplebitcoinnode.util.MerkleTreeEngine;
+import org.students.simplebitcoinnode.util.Sha256Hash;
+
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.BDDMockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class BlockStorageServiceTests {
+    @Mock
+    private BlockRepository blockRepository;
+    @Mock
+    private TransactionRepository transactionRepository;
+    @Mock
+    private MerkleTreeLevelsRepository merkleTreeLevelsRepository;
+    @Mock
+    private MerkleTreeNodeRepository merkleTreeNodeRepository;
+    @Mock
+    private TransactionBlockIndexRepository transactionBlockIndexRepository;
+    @Mock
+    private ChainStateService chainStateService;
+    @Mock
+    private MempoolService mempoolService;
+    @Mock
+    private BlockchainStorageConfig blockchainStorageConfig;
+
+    @Test
+    @DisplayName("Ensure that packed storage keeps only the root node and restores the same tree on demand")
+    public void testSaveAndLoad_PackedFormat_EnsureSameTree() {
+        List<Transaction> transactions = TestTransactionBuilder.randomHashTransactions(11);
+        MerkleTreeEngine engine = MerkleTreeEngine.build(transactions.stream().map(Transaction::getTransactionHash).toList(), MerkleTreeEngine.LAYOUT_PROMOTE_LAST);
+        Block block = Block.builder()
+                .hash(Sha256Hash.ZERO)
+                .merkleTree(engine.toMerkleTree(transactions))
+                .merkleLayoutVersion(MerkleTreeEngine.LAYOUT_PROMOTE_LAST)
+                .build();
+
+        given(blockchainStorageConfig.getMerkleTreeFormat())
+                .willReturn(BlockchainStorageConfig.MerkleTreeFormat.PACKED);
+        given(blockRepository.save(any()))
+                .willAnswer(invocation -> {
+                    Block saved = invocation.getArgument(0);
+                    saved.setId(3L);
+                    return saved;
+                });
+
+        MerkleProofService merkleProofService = new MerkleProofService(blockRepository, merkleTreeLevelsRepository, merkleTreeNodeRepository, transactionBlockIndexRepository);
+        BlockStorageService blockStorageService = new BlockStorageService(blockRepository, transactionRepository, merkleTreeLevelsRepository, merkleProofService, chainStateService, mempoolService, blockchainStorageConfig);
+        Block saved = blockStorageService.save(block);
+
+        assertEquals(engine.getRoot(), saved.getMerkleTree().getHash());
+        assertNull(saved.getMerkleTree().getChildren());
+        then(transactionRepository).should().updateConfirmedBlockId(eq(3L), argThat(hashes -> hashes.size() == transactions.size()));
+        then(mempoolService).should().confirm(argThat(hashes -> hashes.containsAll(transactions.stream().map(Transaction::getTransactionHash).toList())));
+
+        ArgumentCaptor<MerkleTreeLevels> levels = ArgumentCaptor.forClass(MerkleTreeLevels.class);
+        then(merkleTreeLevelsRepository).should().save(levels.capture());
+        given(merkleTreeLevelsRepository.findById(3L))
+                .willReturn(Optional.of(levels.getValue()));
+        given(transactionRepository.findAllByTransactionHashIn(any()))
+                .willReturn(transactions.reversed());
+
+        MerkleTreeNode root = blockStorageService.loadMerkleTree(saved);
+        assertEquals(engine.getRoot(), root.getHash());
+        assertEquals(transactions, MerkleTreeEngine.orderedLeaves(root, MerkleTreeEngine.LAYOUT_PROMOTE_LAST).stream().map(MerkleTreeNode::getTransaction).toList());
+    }
+
+    @Test
+    @DisplayName("Ensure that packed storage keeps the transaction of single transaction blocks")
+    public void testSaveAndLoad_PackedFormatSingleTransaction_EnsureTransactionKept() {
+        List<Transaction> transactions = TestTransactionBuilder.randomHashTransactions(1);
+        Block block = Block.builder()
+                .hash(Sha256Hash.ZERO)
+                .merkleTree(MerkleTreeEngine.build(List.of(transactions.getFirst().getTransactionHash()), MerkleTreeEngine.LAYOUT_DUPLICATE_LAST).toMerkleTree(transactions))
+                .merkleLayoutVersion(MerkleTreeEngine.LAYOUT_DUPLICATE_LAST)
+                .build();
+
+        given(blockchainStorageConfig.getMerkleTreeFormat())
+                .willReturn(BlockchainStorageConfig.MerkleTreeFormat.PACKED);
+        given(blockRepository.save(any()))
+                .willAnswer(invocation -> {
+                    Block saved = invocation.getArgument(0);
+                    saved.setId(4L);
+                    return saved;
+                });
+
+        MerkleProofService merkleProofService = new MerkleProofService(blockRepository, merkleTreeLevelsRepository, merkleTreeNodeRepository, transactionBlockIndexRepository);
+        BlockStorageService blockStorageService = new BlockStorageService(blockRepository, transactionRepository, merkleTreeLevelsRepository, merkleProofService, chainStateService, mempoolService, blockchainStorageConfig);
+        Block saved = blockStorageService.save(block);
+
+        ArgumentCaptor<MerkleTreeLevels> levels = ArgumentCaptor.forClass(MerkleTreeLevels.class);
+        then(merkleTreeLevelsRepository).should().save(levels.capture());
+        given(merkleTreeLevelsRepository.findById(4L))
+                .willReturn(Optional.of(levels.getValue()));
+
+        MerkleTreeNode root = blockStorageService.loadMerkleTree(saved);
+        assertEquals(transactions.getFirst().getTransactionHash(), root.getHash());
+        assertEquals(transactions.getFirst(), root.getTransaction());
+    }
+
+    @Test
+    @DisplayName("Ensure that packed storage rejects blocks whose merkle tree does not match its root")
+    public void testSave_PackedFormatTamperedRoot_ExpectIllegalArgumentException() {
+        List<Transaction> transactions = TestTransactionBuilder.randomHashTransactions(4);
+        MerkleTreeNode root = MerkleTreeEngine.build(transactions.stream().map(Transaction::getTransactionHash).toList(), MerkleTreeEngine.LAYOUT_LEGACY)
+                .toMerkleTree(transactions);
+        root.setHash(Sha256Hash.ZERO);
+
+        given(blockchainStorageConfig.getMerkleTreeFormat())
+                .willReturn(BlockchainStorageConfig.MerkleTreeFormat.PACKED);
+
+        MerkleProofService merkleProofService = new MerkleProofService(blockRepository, merkleTreeLevelsRepository, merkleTreeNodeRepository, transactionBlockIndexRepository);
+        BlockStorageService blockStorageService = new BlockStorageService(blockRepository, transactionRepository, merkleTreeLevelsRepository, merkleProofService, chainStateService, mempoolService, blockchainStorageConfig);
+        assertThrows(IllegalArgumentException.class, () -> blockStorageService.save(Block.builder().merkleTree(root).build()));
+        then(blockRepository).should(never()).save(any());
+    }
+
+    @Test
+    @DisplayName("Ensure that blocks mined by this node get stored and confirmed, while already stored blocks are skipped")
+    public void testOnBlockMinedEvent_EnsureThatOnlyUnstoredBlocksGetStored() {
+        List<Transaction> transactions = TestTransactionBuilder.randomHashTransactions(3);
+        Block block = Block.builder()
+                .hash(Sha256Hash.ZERO)
+                .merkleTree(MerkleTreeEngine.build(transactions.stream().map(Transaction::getTransactionHash).toList(), MerkleTreeEngine.LAYOUT_LEGACY).toMerkleTree(transactions))
+                .build();
+
+        given(blockRepository.save(any()))
+                .willAnswer(invocation -> {
+                    Block saved = invocation.getArgument(0);
+                    saved.setId(5L);
+                    return saved;
+                });
+
+        MerkleProofService merkleProofService = new MerkleProofService(blockRepository, merkleTreeLevelsRepository, merkleTreeNodeRepository, transactionBlockIndexRepository);
+        BlockStorageService blockStorageService = new BlockStorageService(blockRepository, transactionRepository, merkleTreeLevelsRepository, merkleProofService, chainStateService, mempoolService, blockchainStorageConfig);
+        blockStorageService.onBlockMinedEvent(new BlockMinedEvent(this, block));
+        then(mempoolService).should().confirm(argThat(hashes -> hashes.size() == transactions.size()));
+        then(chainStateService).should().addBlock(block);
+
+        // the block is stored now, so it is not stored again
+        blockStorageService.onBlockMinedEvent(new BlockMinedEvent(this, block));
+        then(blockRepository).should(times(1)).save(any());
+    }
+}
@@ -0,0 +1,128 @@
+package org.students.simplebitcoinnode.unit;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.students.simplebitcoinnode.config.BlockchainMiningConfig;
+import org.students.simplebitcoinnode.config.CryptographyConfig;
+import org.students.simplebitcoinnode.entity.Block;
+import org.students.simplebitcoinnode.entity.Transaction;
+import org.students.simplebitcoinnode.entity.TransactionOutput;
+import org.students.simplebitcoinnode.entity.validation.CryptographicSignatureConstraintValidator;
+import org.students.simplebitcoinnode.repository.MerkleTreeLevelsRepository;
+import org.students.simplebitcoinnode.service.AsymmetricCryptographyService;
+import org.students.simplebitcoinnode.service.BlockBuilderService;
+import org.students.simplebitcoinnode.service.BlockValidationService;
+import org.students.simplebitcoinnode.service.SignatureCacheService;
+import org.students.simplebitcoinnode.service.impl.BlockBuilderServiceImpl;
+import org.students.simplebitcoinnode.service.impl.ECDSAWithSHA256CryptographicService;
+import org.students.simplebitcoinnode.util.BlockHeaderCodec;
+import org.students.simplebitcoinnode.util.Encoding;
+import org.students.simplebitcoinnode.util.MerkleTreeEngine;
+import org.students.simplebitcoinnode.util.Sha256Hash;
+
+import java.math.BigDecimal;
+import java.security.KeyPair;
+import java.security.Security;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+
+public class BlockValidationServiceTests {
+    private static AsymmetricCryptographyService asymmetricCryptographyService;
+    private static BlockBuilderService blockBuilderService;
+    private static BlockValidationService blockValidationService;
+    private static KeyPair sender;
+    private static String receiverPublicKey;
+
+    @BeforeAll
+    public static void setUpBeforeClass() {
+        Security.insertProviderAt(new org.bouncycastle.jce.provider.BouncyCastleProvider(), 1);
+        asymmetricCryptographyService = new ECDSAWithSHA256CryptographicService();
+        blockBuilderService = new BlockBuilderServiceImpl(asymmetricCryptographyService, mock(MerkleTreeLevelsRepository.class));
+        BlockchainMiningConfig blockchainMiningConfig = new BlockchainMiningConfig();
+        blockchainMiningConfig.setMinedBlockZeroBitCount(0L);
+        blockValidationService = new BlockValidationService(asymmetricCryptographyService, blockBuilderService, new SignatureCacheService(new CryptographyConfig()), blockchainMiningConfig);
+
+        sender = asymmetricCryptographyService.generateNewKeypair();
+        receiverPublicKey = Encoding.defaultPubKeyEncoding(asymmetricCryptographyService.generateNewKeypair().getPublic().getEncoded());
+    }
+
+    @AfterAll
+    public static void tearDownAfterClass() {
+        blockValidationService.shutdown();
+    }
+
+    private Transaction makeSignedTransaction(int index) throws Exception {
+        final String senderPublicKey = Encoding.defaultPubKeyEncoding(sender.getPublic().getEncoded());
+        Transaction transaction = Transaction.builder()
+                .inputs(List.of(TransactionOutput.builder().signature(String.format("%02x", index).repeat(72)).amount(new BigDecimal("4")).receiverPublicKey(senderPublicKey).build()))
+                .outputs(List.of(
+                        TransactionOutput.builder().amount(new BigDecimal("3")).receiverPublicKey(receiverPublicKey).build(),
+                        TransactionOutput.builder().amount(new BigDecimal("1")).receiverPublicKey(senderPublicKey).build()))
+                .senderPublicKey(senderPublicKey)
+                .timestamp(LocalDateTime.of(2024, 1, 1, 0, 0, index))
+                .build();
+
+        final byte[] hash = asymmetricCryptographyService.digestObject(transaction);
+        transaction.setTransactionHash(Sha256Hash.wrap(hash));
+        for (TransactionOutput output : transaction.getOutputs()) {
+            byte[] sigMessage = CryptographicSignatureConstraintValidator.signatureMessage(hash, output.getReceiverPublicKey());
+            output.setSignature(Encoding.toHexString(asymmetricCryptographyService.signMessage(sigMessage, sender.getPrivate().getEncoded())));
+        }
+        return transaction;
+    }
+
+    private Block makeBlock(List<Transaction> transactions) throws Exception {
+        Block block = blockBuilderService.newBlock(blockBuilderService.createMerkleTreeRoot(transactions, MerkleTreeEngine.LAYOUT_DUPLICATE_LAST), Sha256Hash.ZERO, BlockHeaderCodec.VERSION_FIXED_WIDTH);
+        block.setMerkleLayoutVersion(MerkleTreeEngine.LAYOUT_DUPLICATE_LAST);
+        return block;
+    }
+
+    @Test
+    @DisplayName("Ensure that a block with properly signed transactions passes all stages")
+    public void testValidate_ValidBlock_ExpectAllStagesPassed() throws Exception {
+        List<Transaction> transactions = new ArrayList<>();
+        for (int i = 0; i < 7; i++)
+            transactions.add(makeSignedTransaction(i));
+
+        BlockValidationService.Result result = blockValidationService.validate(makeBlock(transactions), true);
+        assertTrue(result.isValid(), result.getFailure());
+        assertEquals(List.of(BlockValidationService.STAGE_MERKLE_ROOT, BlockValidationService.STAGE_TRANSACTIONS, BlockValidationService.STAGE_PROOF_OF_WORK), List.copyOf(result.getStageNanos().keySet()));
+    }
+
+    @Test
+    @DisplayName("Ensure that a swapped signature, tampered merkle root, merkle tree node or block hash is rejected")
+    public void testValidate_TamperedBlock_ExpectFailure() throws Exception {
+        List<Transaction> transactions = new ArrayList<>();
+        for (int i = 0; i < 5; i++)
+            transactions.add(makeSignedTransaction(i));
+        // the hash of the transaction is still valid, but the output is signed for another transaction
+        transactions.get(3).getOutputs().getFirst().setSignature(transactions.get(1).getOutputs().getFirst().getSignature());
+
+        BlockValidationService.Result result = blockValidationService.validate(makeBlock(transactions), false);
+        assertFalse(result.isValid());
+        assertTrue(result.getFailure().startsWith("Invalid cryptographic signature"), result.getFailure());
+
+        transactions.set(3, makeSignedTransaction(3));
+        Block block = makeBlock(transactions);
+        block.getMerkleTree().setHash(Sha256Hash.ZERO);
+        result = blockValidationService.validate(block, false);
+        assertEquals("Mismatching merkle root", result.getFailure());
+        assertFalse(result.getStageNanos().containsKey(BlockValidationService.STAGE_TRANSACTIONS));
+
+        // internal nodes are stored as received, so a tampered node below an intact root is rejected as well
+        block = makeBlock(transactions);
+        block.getMerkleTree().getChildren().getFirst().setHash(Sha256Hash.ZERO);
+        assertEquals("Mismatching merkle tree node", blockValidationService.validate(block, false).getFailure());
+
+        block = makeBlock(transactions);
+        block.setHash(Sha256Hash.ZERO);
+        assertTrue(blockValidationService.validate(block, false).isValid());
+        assertEquals("Mismatching block hash", blockValidationService.validate(block, true).getFailure());
+    }
+}
@@ -0,0 +1,67 @@
+package org.students.simplebitcoinnode.unit;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.students.simplebitcoinnode.util.ChainIndex;
+import org.students.simplebitcoinnode.util.Sha256Hash;
+
+import java.math.BigInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ChainIndexTests {
+    // hash whose first byte is zero, i.e. a mined block for zero bit conditions up to 8 bits
+    private static Sha256Hash minedHash(int id) {
+        byte[] hash = new byte[Sha256Hash.LENGTH];
+        hash[1] = (byte) (id >>> 8);
+        hash[2] = (byte) id;
+        hash[31] = 1;
+        return Sha256Hash.wrap(hash);
+    }
+
+    @Test
+    @DisplayName("Ensure that the tip follows the chain with the most work and orphans get connected")
+    public void testAdd_ForkAndOrphans_EnsureTipOnLongestChain() {
+        ChainIndex chainIndex = new ChainIndex(8);
+        assertNull(chainIndex.getTip());
+        assertEquals(0, chainIndex.getChainLength());
+
+        final Sha256Hash genesis = minedHash(0);
+        assertFalse(chainIndex.add(1L, genesis, Sha256Hash.ZERO).isEmpty());
+        assertFalse(chainIndex.add(2L, minedHash(1), genesis).isEmpty());
+        assertFalse(chainIndex.add(3L, minedHash(2), minedHash(1)).isEmpty());
+        assertTrue(chainIndex.add(3L, minedHash(2), minedHash(1)).isEmpty());
+        assertEquals(minedHash(2), chainIndex.getTip().getHash());
+        assertEquals(3, chainIndex.getChainLength());
+
+        // fork of the same length does not replace the tip
+        assertFalse(chainIndex.add(4L, minedHash(10), minedHash(1)).isEmpty());
+        assertEquals(minedHash(2), chainIndex.getTip().getHash());
+
+        // fork grows longer, its blocks arrive out of order
+        assertTrue(chainIndex.add(6L, minedHash(12), minedHash(11)).isEmpty());
+        assertNull(chainIndex.get(minedHash(12)));
+        assertEquals(2, chainIndex.add(5L, minedHash(11), minedHash(10)).size());
+        assertEquals(minedHash(12), chainIndex.getTip().getHash());
+        assertEquals(4, chainIndex.getTip().getHeight());
+        assertEquals(BigInteger.valueOf(5 * 256), chainIndex.getTip().getCumulativeWork());
+        assertEquals(5, chainIndex.getChainLength());
+        assertEquals(6, chainIndex.size());
+    }
+
+    @Test
+    @DisplayName("Ensure that blocks which do not satisfy the zero bit condition are not indexed")
+    public void testAdd_UnminedBlock_ExpectNotIndexed() {
+        ChainIndex chainIndex = new ChainIndex(8);
+        final Sha256Hash genesis = Sha256Hash.wrap(new byte[] { 1, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0 });
+        // genesis blocks are accepted regardless of their hash
+        assertFalse(chainIndex.add(1L, genesis, Sha256Hash.ZERO).isEmpty());
+
+        byte[] unmined = new byte[Sha256Hash.LENGTH];
+        unmined[0] = (byte) 0x80;
+        assertFalse(chainIndex.isMined(Sha256Hash.wrap(unmined)));
+        assertTrue(chainIndex.add(2L, Sha256Hash.wrap(unmined), genesis).isEmpty());
+        assertEquals(1, chainIndex.size());
+        assertEquals(genesis, chainIndex.getTip().getHash());
+    }
+}
@@ -0,0 +1,60 @@
+package org.students.simplebitcoinnode.unit;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.students.simplebitcoinnode.config.BlockchainMiningConfig;
+import org.students.simplebitcoinnode.entity.Block;
+import org.students.simplebitcoinnode.repository.BlockRepository;
+import org.students.simplebitcoinnode.service.ChainStateService;
+import org.students.simplebitcoinnode.util.Sha256Hash;
+
+import java.math.BigInteger;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.BDDMockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class ChainStateServiceTests {
+    @Mock
+    private BlockRepository blockRepository;
+    @Mock
+    private BlockchainMiningConfig blockchainMiningConfig;
+
+    private static Sha256Hash minedHash(int id) {
+        byte[] hash = new byte[Sha256Hash.LENGTH];
+        hash[31] = (byte) id;
+        return Sha256Hash.wrap(hash);
+    }
+
+    @Test
+    @DisplayName("Ensure that missing chain positions are persisted on rebuild and when new blocks get connected")
+    public void testRebuildAndAddBlock_EnsureChainPositionsPersisted() {
+        given(blockchainMiningConfig.getMinedBlockZeroBitCount())
+                .willReturn(8L);
+        given(blockRepository.findAllBlockHeaderHashes())
+                .willReturn(List.of(
+                        new Object[] { 1L, minedHash(1), Sha256Hash.ZERO, 0L },
+                        new Object[] { 2L, minedHash(2), minedHash(1), null }));
+
+        ChainStateService chainStateService = new ChainStateService(blockRepository, blockchainMiningConfig);
+        chainStateService.rebuild();
+        then(blockRepository).should().updateChainPosition(2L, 1L, BigInteger.valueOf(512));
+        then(blockRepository).should(never()).updateChainPosition(eq(1L), any(), any());
+        assertEquals(2, chainStateService.getChainLength());
+
+        // blocks that are not stored yet, e.g. freshly mined ones, are not indexed
+        assertFalse(chainStateService.addBlock(Block.builder().hash(minedHash(3)).previousHash(minedHash(2)).build()));
+        assertEquals(2, chainStateService.getChainLength());
+
+        Block block = Block.builder().id(3L).hash(minedHash(3)).previousHash(minedHash(2)).build();
+        assertTrue(chainStateService.addBlock(block));
+        assertEquals(2L, block.getHeight());
+        assertEquals(BigInteger.valueOf(768), block.getCumulativeWork());
+        assertEquals(minedHash(3), chainStateService.getTip().getHash());
+        then(blockRepository).should().updateChainPosition(3L, 2L, BigInteger.valueOf(768));
+    }
+}
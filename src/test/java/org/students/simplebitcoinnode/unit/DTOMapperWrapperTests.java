@@ -7,6 +7,7 @@ import org.students.simplebitcoinnode.dto.TransactionOutputDTO;
 import org.students.simplebitcoinnode.entity.Transaction;
 import org.students.simplebitcoinnode.entity.TransactionOutput;
 import org.students.simplebitcoinnode.util.DTOMapperWrapper;
+import org.students.simplebitcoinnode.util.Sha256Hash;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
@@ -16,6 +17,7 @@ import static org.junit.jupiter.api.Assertions.assertEquals;
 
 public class DTOMapperWrapperTests {
     private final DTOMapperWrapper dtoMapperWrapper = new DTOMapperWrapper();
+    private static final String transactionHash = "4355a46b19d348dc2f57c046f8ef63d4538ebb936000f3c9ee954a27460dd865";
 
     @Test
     @DisplayName("Test mapping all Transaction objects to destination DTO objects")
@@ -35,15 +37,15 @@ public class DTOMapperWrapperTests {
 
     @Test
     @DisplayName("Test mapping a Transaction object to a destination DTO object")
-    public void testMap() {
+    public void testMap() throws Exception {
         Transaction transaction = new Transaction();
-        transaction.setTransactionHash("transactionHash");
+        transaction.setTransactionHash(Sha256Hash.fromHex(transactionHash));
         transaction.setSenderPublicKey("senderPublicKey");
         transaction.setTimestamp(LocalDateTime.now());
 
         TransactionDTO result = dtoMapperWrapper.map(transaction, TransactionDTO.class);
 
-        assertEquals("transactionHash", result.getTransactionHash());
+        assertEquals(transactionHash, result.getTransactionHash().toString());
         assertEquals("senderPublicKey", result.getSenderPublicKey());
         // Use isEqualIgnoringNanos() because ModelMapper may not keep nanoseconds when mapping LocalDateTime
         assertEquals(transaction.getTimestamp().withNano(0), result.getTimestamp().withNano(0));
@@ -53,22 +55,22 @@ public class DTOMapperWrapperTests {
     @DisplayName("Test unmapping a DTO object to a Transaction object")
     public void testUnmap() {
         TransactionDTO getTransactionDTO = new TransactionDTO();
-        getTransactionDTO.setTransactionHash("transactionHash");
+        getTransactionDTO.setTransactionHash(transactionHash);
         getTransactionDTO.setSenderPublicKey("senderPublicKey");
         getTransactionDTO.setTimestamp(LocalDateTime.now());
 
         Transaction result = dtoMapperWrapper.unmap(getTransactionDTO, Transaction.class);
 
-        assertEquals("transactionHash", result.getTransactionHash());
+        assertEquals(transactionHash, result.getTransactionHash().toString());
         assertEquals("senderPublicKey", result.getSenderPublicKey());
         assertEquals(getTransactionDTO.getTimestamp().withNano(0), result.getTimestamp().withNano(0));
     }
 
     @Test
     @DisplayName("Test mapping a Transaction object to a destination DTO object")
-    public void testMapNewTransactionDTO() {
+    public void testMapNewTransactionDTO() throws Exception {
         Transaction transaction = new Transaction();
-        transaction.setTransactionHash("transactionHash");
+        transaction.setTransactionHash(Sha256Hash.fromHex(transactionHash));
         transaction.setSenderPublicKey("senderPublicKey");
         transaction.setTimestamp(LocalDateTime.now());
 
@@ -82,7 +84,7 @@ public class DTOMapperWrapperTests {
 
         TransactionDTO result = dtoMapperWrapper.map(transaction, TransactionDTO.class);
 
-        assertEquals("transactionHash", result.getTransactionHash());
+        assertEquals(transactionHash, result.getTransactionHash().toString());
         assertEquals("senderPublicKey", result.getSenderPublicKey());
         // Use isEqualIgnoringNanos() because ModelMapper may not keep nanoseconds when mapping LocalDateTime
         assertEquals(transaction.getTimestamp().withNano(0), result.getTimestamp().withNano(0));
@@ -94,7 +96,7 @@ public class DTOMapperWrapperTests {
     @DisplayName("Test unmapping a DTO object to a newTransaction object")
     public void testUnmapNewTransactionDTO() {
         TransactionDTO newTransactionDTO = new TransactionDTO();
-        newTransactionDTO.setTransactionHash("transactionHash");
+        newTransactionDTO.setTransactionHash(transactionHash);
         newTransactionDTO.setSenderPublicKey("senderPublicKey");
         newTransactionDTO.setTimestamp(LocalDateTime.now());
 
@@ -108,7 +110,7 @@ public class DTOMapperWrapperTests {
 
         Transaction result = dtoMapperWrapper.unmap(newTransactionDTO, Transaction.class);
 
-        assertEquals("transactionHash", result.getTransactionHash());
+        assertEquals(transactionHash, result.getTransactionHash().toString());
         assertEquals("senderPublicKey", result.getSenderPublicKey());
         // Use isEqualIgnoringNanos() because ModelMapper may not keep nanoseconds when mapping LocalDateTime
         assertEquals(newTransactionDTO.getTimestamp().withNano(0), result.getTimestamp().withNano(0));
@@ -7,6 +7,7 @@ import org.students.simplebitcoinnode.util.Encoding;
 
 import java.nio.charset.StandardCharsets;
 import java.util.Arrays;
+import java.util.Random;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -61,6 +62,25 @@ public class EncodingTests {
     void testHexadecimalDecoding_ExpectInvalidEncodedStringException() {
         assertThrows(InvalidEncodedStringException.class, () -> Encoding.hexStringToBytes("48656c6c6f20746573742"));
         assertThrows(InvalidEncodedStringException.class, () -> Encoding.hexStringToBytes("notahexstring"));
+        // symbols between 'g' and 'z', uppercase and non-ASCII symbols are not hex digits either
+        assertThrows(InvalidEncodedStringException.class, () -> Encoding.hexStringToBytes("48656c6c6f2x"));
+        assertThrows(InvalidEncodedStringException.class, () -> Encoding.hexStringToBytes("48656C6C6F20"));
+        assertThrows(InvalidEncodedStringException.class, () -> Encoding.hexStringToBytes("48656c6c6f\u00e9"));
+    }
+
+    @Test
+    @DisplayName("Ensure that hexadecimal encoding of a range and decoding into an existing buffer preserve surrounding bytes")
+    void testHexadecimalRangeEncodingAndDecodingIntoBuffer() throws InvalidEncodedStringException {
+        final byte[] src = {(byte)0xff, 0x00, 0x7f, (byte)0x80, 0x12};
+        assertEquals("007f80", Encoding.toHexString(src, 1, 3));
+        assertEquals("", Encoding.toHexString(src, 5, 0));
+        assertThrows(IndexOutOfBoundsException.class, () -> Encoding.toHexString(src, 3, 3));
+
+        byte[] out = new byte[5];
+        Arrays.fill(out, (byte)0x55);
+        assertEquals(3, Encoding.hexStringToBytes("007f80", out, 1));
+        assertArrayEquals(new byte[] {0x55, 0x00, 0x7f, (byte)0x80, 0x55}, out);
+        assertThrows(IndexOutOfBoundsException.class, () -> Encoding.hexStringToBytes("007f80", out, 3));
     }
 
     @Test
@@ -123,4 +143,35 @@ public class EncodingTests {
         String encoded = Encoding.base58Encode(src);
         assertEquals(0, Arrays.compare(src, Encoding.base58Decode(encoded)));
     }
+
+    @Test
+    @DisplayName("Ensure that base58 encoding matches reference vectors and round-trips data with leading null bytes")
+    void testBase58ReferenceVectorsAndRoundTrips() throws InvalidEncodedStringException {
+        assertEquals("111233QC4", Encoding.base58Encode(Encoding.hexStringToBytes("000000287fb4cd")));
+        assertEquals("1NS17iag9jJgTHD1VXjvLCEnZuQ3rJDE9L", Encoding.base58Encode(Encoding.hexStringToBytes("00eb15231dfceb60925886b67d065299925915aeb172c06647")));
+        assertEquals("000000287fb4cd", Encoding.toHexString(Encoding.base58Decode("111233QC4")));
+        assertEquals("", Encoding.base58Encode(new byte[0]));
+        assertEquals(0, Encoding.base58Decode("").length);
+
+        Random random = new Random(58);
+        for (int length = 0; length < 100; length++) {
+            byte[] src = new byte[length];
+            random.nextBytes(src);
+            if (length > 2)
+                src[0] = src[1] = 0;
+            assertArrayEquals(src, Encoding.base58Decode(Encoding.base58Encode(src)));
+        }
+
+        assertThrows(InvalidEncodedStringException.class, () -> Encoding.base58Decode("JxF12Trw0eZfikG"));
+        assertThrows(InvalidEncodedStringException.class, () -> Encoding.base58Decode("JxF12TrwXeZfik\u00e9"));
+    }
+
+    @Test
+    @DisplayName("Ensure that cached public keys cannot be modified through returned arrays")
+    void testPubKeyDecodingCache_EnsureIndependentCopies() throws InvalidEncodedStringException {
+        final String encoded = Encoding.base58Encode("Hello test!".getBytes(StandardCharsets.UTF_8));
+        byte[] first = Encoding.defaultPubKeyDecoding(encoded);
+        first[0] = 0;
+        assertEquals("Hello test!", new String(Encoding.defaultPubKeyDecoding(encoded), StandardCharsets.UTF_8));
+    }
 }
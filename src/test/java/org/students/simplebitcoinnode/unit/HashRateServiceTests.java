@@ -0,0 +1,63 @@
+package org.students.simplebitcoinnode.unit;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.students.simplebitcoinnode.config.BlockchainMiningConfig;
+import org.students.simplebitcoinnode.event.listener.MinerEventListener;
+import org.students.simplebitcoinnode.event.listener.MinerProcess;
+import org.students.simplebitcoinnode.service.HashRateService;
+import org.students.simplebitcoinnode.util.Sha256Hash;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class HashRateServiceTests {
+    @Mock
+    private MinerEventListener minerEventListener;
+    @Mock
+    private BlockchainMiningConfig blockchainMiningConfig;
+    @Mock
+    private MinerProcess minerProcess;
+
+    @Test
+    @DisplayName("Ensure that the hash rate getter never runs a benchmark")
+    public void testGetAverageHashRate_NotCalibrated_ExpectZeroWithoutBenchmark() {
+        HashRateService hashRateService = new HashRateService(minerEventListener, blockchainMiningConfig);
+
+        assertEquals(0.f, hashRateService.getAverageHashRate());
+        verifyNoInteractions(minerEventListener);
+        hashRateService.shutdown();
+    }
+
+    @Test
+    @DisplayName("Ensure that calibration benchmarks an idle node and uses the live hash rate while mining")
+    public void testCalibrate_IdleAndMining_ExpectBenchmarkOnlyWhenIdle() throws Exception {
+        given(blockchainMiningConfig.getHashRateCalibrationDuration())
+                .willReturn(10L);
+        given(minerEventListener.benchmark(10L))
+                .willReturn(2e6);
+        given(minerEventListener.getMinerProcesses())
+                .willReturn(Map.of());
+
+        HashRateService hashRateService = new HashRateService(minerEventListener, blockchainMiningConfig);
+        hashRateService.calibrate();
+        assertEquals(2.f, hashRateService.getAverageHashRate());
+
+        given(minerEventListener.getMinerProcesses())
+                .willReturn(Map.of(Sha256Hash.ZERO, minerProcess));
+        given(minerEventListener.getHashRate())
+                .willReturn(5e6);
+        hashRateService.calibrate();
+        assertEquals(5.f, hashRateService.getAverageHashRate());
+        verify(minerEventListener, times(1)).benchmark(anyLong());
+        hashRateService.shutdown();
+    }
+}
@@ -0,0 +1,66 @@
+package org.students.simplebitcoinnode.unit;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.students.simplebitcoinnode.config.BlockchainMempoolConfig;
+import org.students.simplebitcoinnode.entity.Block;
+import org.students.simplebitcoinnode.entity.Transaction;
+import org.students.simplebitcoinnode.event.MempoolUpdatedEvent;
+import org.students.simplebitcoinnode.event.MiningTerminatedEvent;
+import org.students.simplebitcoinnode.repository.TransactionRepository;
+import org.students.simplebitcoinnode.service.MempoolService;
+import org.students.simplebitcoinnode.unit.transaction.TestTransactionBuilder;
+import org.students.simplebitcoinnode.util.Sha256Hash;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.BDDMockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class MempoolServiceTests {
+    @Mock
+    private ApplicationEventPublisher applicationEventPublisher;
+    @Mock
+    private TransactionRepository transactionRepository;
+    @Mock
+    private BlockchainMempoolConfig blockchainMempoolConfig;
+
+    @Test
+    @DisplayName("Ensure that held transactions are restored when mining terminates, except for confirmed ones")
+    public void testHoldForMining_MiningTerminated_ExpectUnconfirmedTransactionsRestored() {
+        List<Transaction> transactions = TestTransactionBuilder.randomHashTransactions(4);
+        Block block = Block.builder().hash(Sha256Hash.ZERO).build();
+        MempoolService mempoolService = new MempoolService(applicationEventPublisher, transactionRepository, blockchainMempoolConfig);
+        transactions.forEach(mempoolService::add);
+
+        List<Transaction> drained = mempoolService.drainBlock(transactions.size(), Long.MAX_VALUE, 0);
+        assertEquals(transactions, drained);
+        mempoolService.holdForMining(block.getHash(), drained);
+        assertEquals(0, mempoolService.confirm(List.of(transactions.get(1).getTransactionHash())));
+        assertEquals(0, mempoolService.size());
+
+        mempoolService.onMiningTerminatedEvent(new MiningTerminatedEvent(this, block));
+        assertEquals(List.of(transactions.get(0), transactions.get(2), transactions.get(3)), mempoolService.drainBlock(transactions.size(), Long.MAX_VALUE, 1));
+        assertFalse(mempoolService.releaseMining(block.getHash()));
+    }
+
+    @Test
+    @DisplayName("Ensure that nothing is restored when the block being mined has been stored")
+    public void testHoldForMining_BlockStored_ExpectNothingRestored() {
+        List<Transaction> transactions = TestTransactionBuilder.randomHashTransactions(3);
+        Block block = Block.builder().hash(Sha256Hash.ZERO).build();
+        MempoolService mempoolService = new MempoolService(applicationEventPublisher, transactionRepository, blockchainMempoolConfig);
+
+        mempoolService.holdForMining(block.getHash(), transactions);
+        mempoolService.confirm(transactions.stream().map(Transaction::getTransactionHash).toList());
+        mempoolService.onMiningTerminatedEvent(new MiningTerminatedEvent(this, block));
+
+        assertEquals(0, mempoolService.size());
+        then(applicationEventPublisher).should(never()).publishEvent(any(MempoolUpdatedEvent.class));
+    }
+}
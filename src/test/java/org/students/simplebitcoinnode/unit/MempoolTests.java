@@ -0,0 +1,87 @@
+package org.students.simplebitcoinnode.unit;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.students.simplebitcoinnode.entity.Transaction;
+import org.students.simplebitcoinnode.unit.transaction.TestTransactionBuilder;
+import org.students.simplebitcoinnode.util.Mempool;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class MempoolTests {
+    @Test
+    @DisplayName("Ensure that transactions are drained in arrival order and drained transactions can be restored in front")
+    public void testAddDrainRestore_EnsureArrivalOrder() {
+        List<Transaction> transactions = TestTransactionBuilder.randomHashTransactions(5);
+        Mempool mempool = new Mempool(10);
+        transactions.forEach(transaction -> assertTrue(mempool.add(transaction)));
+        assertFalse(mempool.add(transactions.get(0)));
+        assertEquals(5, mempool.size());
+
+        assertTrue(mempool.drainBlock(6, Long.MAX_VALUE, 0).isEmpty());
+        assertEquals(-1, mempool.nanosUntilBlock(6, Long.MAX_VALUE, 0));
+        List<Transaction> drained = mempool.drainBlock(3, Long.MAX_VALUE, 0);
+        assertEquals(transactions.subList(0, 3), drained);
+        assertEquals(2, mempool.size());
+        assertFalse(mempool.contains(transactions.get(0).getTransactionHash()));
+
+        mempool.restore(drained);
+        assertEquals(transactions, mempool.peek(10));
+        assertEquals(5, mempool.size());
+    }
+
+    @Test
+    @DisplayName("Ensure that the capacity is enforced and confirmed transactions are removed")
+    public void testCapacityAndRemoveAll_EnsureBoundedPool() {
+        List<Transaction> transactions = TestTransactionBuilder.randomHashTransactions(4);
+        Mempool mempool = new Mempool(3);
+        assertTrue(mempool.add(transactions.get(0)));
+        assertTrue(mempool.add(transactions.get(1)));
+        assertTrue(mempool.add(transactions.get(2)));
+        assertTrue(mempool.isFull());
+        assertFalse(mempool.add(transactions.get(3)));
+
+        assertEquals(2, mempool.removeAll(List.of(transactions.get(0).getTransactionHash(), transactions.get(2).getTransactionHash(), transactions.get(3).getTransactionHash())));
+        assertEquals(List.of(transactions.get(1)), mempool.peek(3));
+        assertTrue(mempool.add(transactions.get(3)));
+        assertThrows(IllegalArgumentException.class, () -> new Mempool(0));
+    }
+
+    @Test
+    @DisplayName("Ensure that blocks are drained once the size or wait time threshold is reached")
+    public void testDrainBlock_SizeAndWaitThresholds_EnsurePartialBlocks() throws Exception {
+        List<Transaction> transactions = TestTransactionBuilder.randomHashTransactions(4);
+        Mempool mempool = new Mempool(10);
+        transactions.forEach(mempool::add);
+        final long transactionSize = Mempool.estimateSize(transactions.get(0));
+        assertEquals(4 * transactionSize, mempool.getSizeBytes());
+
+        // size threshold drains only as many transactions as fit into the block
+        assertTrue(mempool.drainBlock(10, 5 * transactionSize, 0).isEmpty());
+        assertEquals(transactions.subList(0, 2), mempool.drainBlock(10, 2 * transactionSize + 1, 0));
+        assertEquals(2 * transactionSize, mempool.getSizeBytes());
+
+        // wait time threshold drains whatever is pending
+        final long maxWaitNanos = TimeUnit.MILLISECONDS.toNanos(5);
+        assertTrue(mempool.nanosUntilBlock(10, Long.MAX_VALUE, TimeUnit.DAYS.toNanos(1)) > maxWaitNanos);
+        Thread.sleep(10);
+        assertEquals(0, mempool.nanosUntilBlock(10, Long.MAX_VALUE, maxWaitNanos));
+        assertEquals(transactions.subList(2, 4), mempool.drainBlock(10, Long.MAX_VALUE, maxWaitNanos));
+        assertEquals(0, mempool.getSizeBytes());
+    }
+
+    @Test
+    @DisplayName("Ensure that a priority ordering takes precedence over arrival order")
+    public void testPriority_EnsurePriorityOrder() {
+        List<Transaction> transactions = TestTransactionBuilder.randomHashTransactions(4);
+        Mempool mempool = new Mempool(4, Comparator.comparing(Transaction::getId, Comparator.reverseOrder()));
+        transactions.forEach(mempool::add);
+
+        assertEquals(transactions.reversed(), mempool.drainBlock(4, Long.MAX_VALUE, 0));
+        assertEquals(0, mempool.size());
+    }
+}
@@ -0,0 +1,122 @@
+package org.students.simplebitcoinnode.unit;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.students.simplebitcoinnode.dto.MerkleProofDTO;
+import org.students.simplebitcoinnode.entity.Block;
+import org.students.simplebitcoinnode.entity.MerkleTreeLevels;
+import org.students.simplebitcoinnode.entity.MerkleTreeNode;
+import org.students.simplebitcoinnode.entity.Transaction;
+import org.students.simplebitcoinnode.entity.TransactionBlockIndex;
+import org.students.simplebitcoinnode.repository.BlockRepository;
+import org.students.simplebitcoinnode.repository.MerkleTreeLevelsRepository;
+import org.students.simplebitcoinnode.repository.MerkleTreeNodeRepository;
+import org.students.simplebitcoinnode.repository.TransactionBlockIndexRepository;
+import org.students.simplebitcoinnode.service.MerkleProofService;
+import org.students.simplebitcoinnode.unit.transaction.TestTransactionBuilder;
+import org.students.simplebitcoinnode.util.MerkleProof;
+import org.students.simplebitcoinnode.util.MerkleTreeEngine;
+import org.students.simplebitcoinnode.util.Sha256Hash;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.BDDMockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class MerkleProofServiceTests {
+    @Mock
+    private BlockRepository blockRepository;
+    @Mock
+    private MerkleTreeLevelsRepository merkleTreeLevelsRepository;
+    @Mock
+    private MerkleTreeNodeRepository merkleTreeNodeRepository;
+    @Mock
+    private TransactionBlockIndexRepository transactionBlockIndexRepository;
+
+    @Test
+    @DisplayName("Ensure that indexed blocks serve proofs which verify against the block's merkle root")
+    @SuppressWarnings("unchecked")
+    public void testIndexBlockAndGetProof_EnsureThatProofVerifies() throws Exception {
+        List<Transaction> transactions = TestTransactionBuilder.randomHashTransactions(7);
+        MerkleTreeEngine engine = MerkleTreeEngine.build(transactions.stream().map(Transaction::getTransactionHash).toList(), MerkleTreeEngine.LAYOUT_LEGACY);
+        Block block = Block.builder()
+                .id(5L)
+                .hash(Sha256Hash.ZERO)
+                .previousHash(Sha256Hash.ZERO)
+                .nonce(BigInteger.ONE)
+                .merkleTree(engine.toMerkleTree(transactions))
+                .merkleLayoutVersion(null)
+                .build();
+
+        MerkleProofService merkleProofService = new MerkleProofService(blockRepository, merkleTreeLevelsRepository, merkleTreeNodeRepository, transactionBlockIndexRepository);
+        assertTrue(merkleProofService.indexBlock(block));
+
+        ArgumentCaptor<MerkleTreeLevels> levels = ArgumentCaptor.forClass(MerkleTreeLevels.class);
+        ArgumentCaptor<List<TransactionBlockIndex>> entries = ArgumentCaptor.forClass(List.class);
+        then(merkleTreeLevelsRepository).should().save(levels.capture());
+        then(transactionBlockIndexRepository).should().saveAll(entries.capture());
+        assertEquals(MerkleTreeEngine.LAYOUT_LEGACY, levels.getValue().getLayoutVersion());
+        assertEquals(transactions.size(), entries.getValue().size());
+        for (int i = 0; i < transactions.size(); i++) {
+            assertEquals(transactions.get(i).getTransactionHash(), entries.getValue().get(i).getTransactionHash());
+            assertEquals(i, entries.getValue().get(i).getLeafIndex());
+        }
+
+        final TransactionBlockIndex entry = entries.getValue().get(6);
+        given(transactionBlockIndexRepository.findFirstByTransactionHashOrderByIdAsc(entry.getTransactionHash()))
+                .willReturn(Optional.of(entry));
+        given(merkleTreeLevelsRepository.findById(5L))
+                .willReturn(Optional.of(levels.getValue()));
+        given(blockRepository.findById(5L))
+                .willReturn(Optional.of(block));
+
+        MerkleProofDTO proof = merkleProofService.getProof(entry.getTransactionHash()).orElseThrow();
+        assertEquals(engine.getRoot().toString(), proof.getBlock().getMerkleRoot());
+        assertEquals(6, proof.getLeafIndex());
+        assertEquals(engine.createProof(6).getPath().size(), proof.getPath().size());
+
+        List<MerkleProof.Step> path = new ArrayList<>();
+        for (MerkleProofDTO.Step step : proof.getPath())
+            path.add(new MerkleProof.Step(Sha256Hash.fromHex(step.getSiblingHash()), step.getLeft()));
+        assertTrue(MerkleTreeEngine.verifyProof(new MerkleProof(proof.getLayoutVersion(), entry.getTransactionHash(), path), engine.getRoot()));
+    }
+
+    @Test
+    @DisplayName("Ensure that blocks whose merkle tree does not match its root hash are not indexed")
+    public void testIndexBlock_TamperedRoot_ExpectNotIndexed() {
+        List<Transaction> transactions = TestTransactionBuilder.randomHashTransactions(4);
+        MerkleTreeNode root = MerkleTreeEngine.build(transactions.stream().map(Transaction::getTransactionHash).toList(), MerkleTreeEngine.LAYOUT_DUPLICATE_LAST)
+                .toMerkleTree(transactions);
+        root.setHash(Sha256Hash.ZERO);
+        Block block = Block.builder().id(1L).merkleTree(root).merkleLayoutVersion(MerkleTreeEngine.LAYOUT_DUPLICATE_LAST).build();
+
+        MerkleProofService merkleProofService = new MerkleProofService(blockRepository, merkleTreeLevelsRepository, merkleTreeNodeRepository, transactionBlockIndexRepository);
+        assertFalse(merkleProofService.indexBlock(block));
+        assertTrue(merkleProofService.getProof(Sha256Hash.ZERO).isEmpty());
+        then(merkleTreeLevelsRepository).should(never()).save(any());
+    }
+
+    @Test
+    @DisplayName("Ensure that missing child order of stored merkle trees is filled in before unindexed blocks are loaded")
+    public void testIndexMissingBlocks_EnsureThatChildOrderIsFilledInFirst() {
+        given(merkleTreeNodeRepository.updateMissingChildIndices())
+                .willReturn(6);
+        given(blockRepository.findBlocksWithoutMerkleTreeLevels())
+                .willReturn(List.of());
+
+        new MerkleProofService(blockRepository, merkleTreeLevelsRepository, merkleTreeNodeRepository, transactionBlockIndexRepository).indexMissingBlocks();
+
+        InOrder inOrder = inOrder(merkleTreeNodeRepository, blockRepository);
+        inOrder.verify(merkleTreeNodeRepository).updateMissingChildIndices();
+        inOrder.verify(blockRepository).findBlocksWithoutMerkleTreeLevels();
+    }
+}
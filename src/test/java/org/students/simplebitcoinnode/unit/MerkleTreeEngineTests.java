@@ -0,0 +1,165 @@
+package org.students.simplebitcoinnode.unit;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.students.simplebitcoinnode.entity.MerkleTreeNode;
+import org.students.simplebitcoinnode.entity.Transaction;
+import org.students.simplebitcoinnode.service.AsymmetricCryptographyService;
+import org.students.simplebitcoinnode.service.impl.ECDSAWithSHA256CryptographicService;
+import org.students.simplebitcoinnode.unit.transaction.TestTransactionBuilder;
+import org.students.simplebitcoinnode.util.MerkleProof;
+import org.students.simplebitcoinnode.util.MerkleTreeEngine;
+import org.students.simplebitcoinnode.util.Sha256Hash;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class MerkleTreeEngineTests {
+    private final AsymmetricCryptographyService asymmetricCryptographyService = new ECDSAWithSHA256CryptographicService();
+
+    // reference implementation of the original queue-based tree construction
+    private MerkleTreeNode buildWithQueue(List<Transaction> transactions) throws Exception {
+        Queue<MerkleTreeNode> treeQueue = new ArrayDeque<>();
+        for (Transaction transaction : transactions)
+            treeQueue.add(MerkleTreeNode.builder().hash(transaction.getTransactionHash()).transaction(transaction).build());
+
+        while (treeQueue.size() > 1) {
+            MerkleTreeNode leftChild = treeQueue.poll();
+            MerkleTreeNode rightChild = treeQueue.poll();
+
+            byte[] combinedHash = new byte[2 * Sha256Hash.LENGTH];
+            leftChild.getHash().copyInto(combinedHash, 0);
+            rightChild.getHash().copyInto(combinedHash, Sha256Hash.LENGTH);
+            treeQueue.add(MerkleTreeNode.builder()
+                    .hash(Sha256Hash.wrap(asymmetricCryptographyService.digestObject(combinedHash)))
+                    .children(List.of(leftChild, rightChild))
+                    .build());
+        }
+
+        return treeQueue.poll();
+    }
+
+    // reference implementation of canonical layouts, hashing concatenated child hashes level by level
+    private Sha256Hash canonicalRoot(List<Sha256Hash> leaves, boolean duplicateLast) {
+        List<Sha256Hash> level = leaves;
+        while (level.size() > 1) {
+            List<Sha256Hash> next = new ArrayList<>();
+            for (int i = 0; i + 1 < level.size(); i += 2)
+                next.add(sha256(level.get(i), level.get(i + 1)));
+            if (level.size() % 2 == 1)
+                next.add(duplicateLast ? sha256(level.get(level.size() - 1), level.get(level.size() - 1)) : level.get(level.size() - 1));
+            level = next;
+        }
+        return level.get(0);
+    }
+
+    private Sha256Hash sha256(Sha256Hash left, Sha256Hash right) {
+        byte[] combinedHash = new byte[2 * Sha256Hash.LENGTH];
+        left.copyInto(combinedHash, 0);
+        right.copyInto(combinedHash, Sha256Hash.LENGTH);
+        return Sha256Hash.wrap(asymmetricCryptographyService.digestBytes(combinedHash));
+    }
+
+    private void assertSameTree(MerkleTreeNode expected, MerkleTreeNode actual) {
+        assertEquals(expected.getHash(), actual.getHash());
+        assertSame(expected.getTransaction(), actual.getTransaction());
+        if (expected.getChildren() == null) {
+            assertNull(actual.getChildren());
+            return;
+        }
+
+        assertEquals(expected.getChildren().size(), actual.getChildren().size());
+        for (int i = 0; i < expected.getChildren().size(); i++)
+            assertSameTree(expected.getChildren().get(i), actual.getChildren().get(i));
+    }
+
+    @Test
+    @DisplayName("Ensure that level-synchronous construction matches the queue-based tree for all small leaf counts")
+    public void testBuild_SmallTrees_EnsureSameTreeAsQueueConstruction() throws Exception {
+        assertNull(MerkleTreeEngine.build(List.of(), MerkleTreeEngine.LAYOUT_LEGACY).getRoot());
+        for (int count = 1; count <= 33; count++) {
+            List<Transaction> transactions = TestTransactionBuilder.randomHashTransactions(count);
+            MerkleTreeEngine engine = MerkleTreeEngine.build(transactions.stream().map(Transaction::getTransactionHash).toList(), MerkleTreeEngine.LAYOUT_LEGACY);
+            MerkleTreeNode expected = buildWithQueue(transactions);
+
+            assertEquals(count, engine.getLeafCount());
+            assertEquals(expected.getHash(), engine.getRoot());
+            assertSameTree(expected, engine.toMerkleTree(transactions));
+        }
+    }
+
+    @Test
+    @DisplayName("Ensure that levels hashed in parallel produce the same root as sequential construction")
+    public void testBuild_LargeTree_EnsureSameRootAsQueueConstruction() throws Exception {
+        List<Transaction> transactions = TestTransactionBuilder.randomHashTransactions(4 * MerkleTreeEngine.PARALLEL_THRESHOLD + 3);
+        MerkleTreeEngine engine = MerkleTreeEngine.build(transactions.stream().map(Transaction::getTransactionHash).toList(), MerkleTreeEngine.LAYOUT_LEGACY);
+
+        assertEquals(buildWithQueue(transactions).getHash(), engine.getRoot());
+        assertThrows(IllegalArgumentException.class, () -> engine.toMerkleTree(transactions.subList(1, transactions.size())));
+    }
+
+    @Test
+    @DisplayName("Ensure that canonical layouts produce the expected roots and entity trees")
+    public void testBuild_CanonicalLayouts_EnsureExpectedRoots() {
+        for (int count = 1; count <= 33; count++) {
+            List<Transaction> transactions = TestTransactionBuilder.randomHashTransactions(count);
+            List<Sha256Hash> leaves = transactions.stream().map(Transaction::getTransactionHash).toList();
+
+            MerkleTreeEngine duplicateLast = MerkleTreeEngine.build(leaves, MerkleTreeEngine.LAYOUT_DUPLICATE_LAST);
+            MerkleTreeEngine promoteLast = MerkleTreeEngine.build(leaves, MerkleTreeEngine.LAYOUT_PROMOTE_LAST);
+            assertEquals(canonicalRoot(leaves, true), duplicateLast.getRoot());
+            assertEquals(canonicalRoot(leaves, false), promoteLast.getRoot());
+            assertEquals(duplicateLast.getRoot(), duplicateLast.toMerkleTree(transactions).getHash());
+            assertEquals(promoteLast.getRoot(), promoteLast.toMerkleTree(transactions).getHash());
+        }
+        assertThrows(IllegalArgumentException.class, () -> MerkleTreeEngine.build(List.of(), 3));
+    }
+
+    @Test
+    @DisplayName("Ensure that proofs of every leaf verify in all layouts and tampered proofs are rejected")
+    public void testCreateProof_AllLayouts_EnsureProofsVerify() {
+        for (int layoutVersion = MerkleTreeEngine.LAYOUT_LEGACY; layoutVersion <= MerkleTreeEngine.LAYOUT_PROMOTE_LAST; layoutVersion++) {
+            for (int count : new int[] { 1, 2, 3, 5, 7, 12, 33 }) {
+                List<Sha256Hash> leaves = TestTransactionBuilder.randomHashTransactions(count).stream().map(Transaction::getTransactionHash).toList();
+                MerkleTreeEngine engine = MerkleTreeEngine.build(leaves, layoutVersion);
+
+                for (int i = 0; i < count; i++) {
+                    MerkleProof proof = engine.createProof(i);
+                    assertEquals(leaves.get(i), proof.getLeafHash());
+                    assertTrue(MerkleTreeEngine.verifyProof(proof, engine.getRoot()));
+                    if (layoutVersion != MerkleTreeEngine.LAYOUT_LEGACY)
+                        assertTrue(proof.getPath().size() <= engine.getLevelCount() - 1);
+
+                    MerkleProof wrongLeaf = new MerkleProof(layoutVersion, Sha256Hash.ZERO, proof.getPath());
+                    assertFalse(MerkleTreeEngine.verifyProof(wrongLeaf, engine.getRoot()));
+                }
+            }
+        }
+        assertThrows(IndexOutOfBoundsException.class, () -> MerkleTreeEngine.build(List.of(Sha256Hash.ZERO), MerkleTreeEngine.LAYOUT_PROMOTE_LAST).createProof(1));
+    }
+
+    @Test
+    @DisplayName("Ensure that leaf order is recovered from materialized trees and packed levels restore the same tree")
+    public void testOrderedLeavesAndPackedLevels_AllLayouts_EnsureSameTree() {
+        for (int layoutVersion = MerkleTreeEngine.LAYOUT_LEGACY; layoutVersion <= MerkleTreeEngine.LAYOUT_PROMOTE_LAST; layoutVersion++) {
+            assertTrue(MerkleTreeEngine.orderedLeaves(null, layoutVersion).isEmpty());
+            for (int count = 1; count <= 33; count++) {
+                List<Transaction> transactions = TestTransactionBuilder.randomHashTransactions(count);
+                MerkleTreeEngine engine = MerkleTreeEngine.build(transactions.stream().map(Transaction::getTransactionHash).toList(), layoutVersion);
+
+                List<MerkleTreeNode> leaves = MerkleTreeEngine.orderedLeaves(engine.toMerkleTree(transactions), layoutVersion);
+                assertEquals(transactions, leaves.stream().map(MerkleTreeNode::getTransaction).toList());
+
+                MerkleTreeEngine restored = MerkleTreeEngine.fromPackedLevels(engine.toPackedLevels(), count, layoutVersion);
+                assertEquals(engine.getLevelCount(), restored.getLevelCount());
+                assertEquals(engine.getRoot(), restored.getRoot());
+                assertTrue(MerkleTreeEngine.verifyProof(restored.createProof(count - 1), engine.getRoot()));
+            }
+        }
+
+        byte[] packedLevels = MerkleTreeEngine.build(List.of(Sha256Hash.ZERO, Sha256Hash.ZERO), MerkleTreeEngine.LAYOUT_DUPLICATE_LAST).toPackedLevels();
+        assertEquals(3 * Sha256Hash.LENGTH, packedLevels.length);
+        assertThrows(IllegalArgumentException.class, () -> MerkleTreeEngine.fromPackedLevels(packedLevels, 3, MerkleTreeEngine.LAYOUT_DUPLICATE_LAST));
+    }
+}
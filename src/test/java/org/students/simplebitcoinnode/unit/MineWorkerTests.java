@@ -0,0 +1,74 @@
+package org.students.simplebitcoinnode.unit;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.students.simplebitcoinnode.entity.Block;
+import org.students.simplebitcoinnode.entity.MerkleTreeNode;
+import org.students.simplebitcoinnode.entity.MinerPublicKey;
+import org.students.simplebitcoinnode.event.listener.MineWorker;
+import org.students.simplebitcoinnode.event.listener.NonceRangeDispenser;
+import org.students.simplebitcoinnode.util.NonceSearchEngine;
+import org.students.simplebitcoinnode.util.Sha256Hash;
+
+import java.math.BigInteger;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.verifyNoInteractions;
+
+@ExtendWith(MockitoExtension.class)
+public class MineWorkerTests {
+    private static final String minerAddress = "PZ8Tyr4Nx8MHsRAGMpZmZ6TWY63dXWSCxtEZTC9qqAWU95UpXARRnKYMb35cEDFjPVuBfffRRdKWe7BMRsmimYh2sqHvYekcQkbZbhKhSqqyfW4rLJXCstNP";
+
+    @Mock
+    private ApplicationEventPublisher applicationEventPublisher;
+
+    @Test
+    @DisplayName("Ensure that workers sharing a dispenser with nonce runs wider than one search disjoint nonces covering the whole nonce space")
+    public void testRun_WideNonceRuns_ExpectDisjointNoncesCoveringRange() throws Exception {
+        // the offset close to Long.MAX_VALUE limits the nonce space to 63 cycles of 5 nonces, i.e. 315 lanes
+        final long offset = Long.MAX_VALUE - 1000, stride = 16, width = 5;
+        NonceRangeDispenser nonceRangeDispenser = new NonceRangeDispenser(offset, stride, width, 7);
+        Block block = Block.builder()
+                .previousHash(Sha256Hash.ZERO)
+                .merkleTree(MerkleTreeNode.builder().hash(Sha256Hash.fromHex("1".repeat(64))).build())
+                .miners(List.of(new MinerPublicKey(null, minerAddress)))
+                .blockAssemblyTimestamp(LocalDateTime.parse("2024-05-22T23:00:40"))
+                .nonce(BigInteger.ZERO)
+                .build();
+
+        List<Long> searchedNonces = Collections.synchronizedList(new ArrayList<>());
+        AtomicBoolean continueMining = new AtomicBoolean(true);
+        List<Thread> threads = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            // no nonce satisfies the zero bit condition, the workers exit once the nonce space is exhausted
+            MineWorker worker = new MineWorker(applicationEventPublisher, nonceRangeDispenser, 256L, (Block) block.clone(), continueMining) {
+                @Override
+                protected boolean test(NonceSearchEngine engine, long nonce) {
+                    searchedNonces.add(nonce);
+                    return super.test(engine, nonce);
+                }
+            };
+            threads.add(new Thread(worker));
+        }
+        threads.forEach(Thread::start);
+        for (Thread thread : threads)
+            thread.join();
+
+        Set<Long> expectedNonces = new HashSet<>();
+        for (long cycle = 0; cycle < nonceRangeDispenser.getLaneCount() / width; cycle++) {
+            for (long j = 0; j < width; j++)
+                expectedNonces.add(offset + cycle * stride + j);
+        }
+        assertEquals(315, expectedNonces.size());
+        assertEquals(expectedNonces.size(), searchedNonces.size());
+        assertEquals(expectedNonces, new HashSet<>(searchedNonces));
+        verifyNoInteractions(applicationEventPublisher);
+    }
+}
@@ -0,0 +1,83 @@
+package org.students.simplebitcoinnode.unit;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.students.simplebitcoinnode.event.listener.NonceRangeDispenser;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class NonceRangeDispenserTests {
+    @Test
+    @DisplayName("Ensure that claimed chunks map to consecutive nonces of the pool residue class")
+    public void testNonceRangeDispenser_EnsureChunksRespectOffsetAndStride() {
+        NonceRangeDispenser dispenser = new NonceRangeDispenser(3, 5, 4);
+
+        long expectedNonce = 3;
+        for (int chunk = 0; chunk < 3; chunk++) {
+            final long lane = dispenser.claim();
+            assertEquals(chunk * 4L, lane);
+            assertEquals(lane + 4, dispenser.chunkEnd(lane));
+            for (long i = lane; i < dispenser.chunkEnd(lane); i++, expectedNonce += 5)
+                assertEquals(expectedNonce, dispenser.nonce(i));
+        }
+    }
+
+    @Test
+    @DisplayName("Ensure that the dispenser is exhausted before nonces overflow")
+    public void testNonceRangeDispenser_EnsureExhaustionBeforeOverflow() {
+        final long stride = 1L << 61;
+        NonceRangeDispenser dispenser = new NonceRangeDispenser(1, stride, 3);
+
+        // lanes 0..3 fit into a non-negative long, lane 4 would overflow
+        assertEquals(4, dispenser.getLaneCount());
+        assertEquals(0, dispenser.claim());
+        final long lane = dispenser.claim();
+        assertEquals(3, lane);
+        assertEquals(4, dispenser.chunkEnd(lane));
+        assertEquals(1 + 3 * stride, dispenser.nonce(lane));
+        assertEquals(-1, dispenser.claim());
+    }
+
+    @Test
+    @DisplayName("Ensure that concurrently claimed chunks never overlap")
+    public void testNonceRangeDispenser_EnsureConcurrentClaimsAreDisjoint() throws InterruptedException {
+        NonceRangeDispenser dispenser = new NonceRangeDispenser(0, 1, 16);
+        Set<Long> claimedLanes = ConcurrentHashMap.newKeySet();
+
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < 4; t++) {
+            Thread thread = new Thread(() -> {
+                for (int i = 0; i < 1000; i++)
+                    assertTrue(claimedLanes.add(dispenser.claim()));
+            });
+            threads.add(thread);
+            thread.start();
+        }
+        for (Thread thread : threads)
+            thread.join();
+
+        assertEquals(4000, claimedLanes.size());
+        for (long lane = 0; lane < 4000 * 16; lane += 16)
+            assertTrue(claimedLanes.contains(lane));
+    }
+
+    @Test
+    @DisplayName("Ensure that lanes map to a run of consecutive nonces in every cycle when a width is given")
+    public void testNonceRangeDispenser_EnsureLanesRespectWidth() {
+        NonceRangeDispenser dispenser = new NonceRangeDispenser(2, 10, 3, 4);
+
+        final long[] expectedNonces = {2, 3, 4, 12, 13, 14, 22, 23};
+        for (int lane = 0; lane < expectedNonces.length; lane++)
+            assertEquals(expectedNonces[lane], dispenser.nonce(lane));
+
+        // the last run that fits starts at 2 + 922337203685477580 * 10
+        assertEquals(922337203685477581L * 3, dispenser.getLaneCount());
+        assertEquals(Long.MAX_VALUE - 3, dispenser.nonce(dispenser.getLaneCount() - 1));
+        assertThrows(IllegalArgumentException.class, () -> new NonceRangeDispenser(0, 2, 3, 4));
+    }
+}
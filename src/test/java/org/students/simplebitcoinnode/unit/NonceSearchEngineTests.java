@@ -0,0 +1,92 @@
+package org.students.simplebitcoinnode.unit;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.students.simplebitcoinnode.entity.Block;
+import org.students.simplebitcoinnode.entity.MerkleTreeNode;
+import org.students.simplebitcoinnode.entity.MinerPublicKey;
+import org.students.simplebitcoinnode.exceptions.encoding.InvalidEncodedStringException;
+import org.students.simplebitcoinnode.service.AsymmetricCryptographyService;
+import org.students.simplebitcoinnode.service.impl.ECDSAWithSHA256CryptographicService;
+import org.students.simplebitcoinnode.util.BlockHeaderCodec;
+import org.students.simplebitcoinnode.util.Encoding;
+import org.students.simplebitcoinnode.util.NonceSearchEngine;
+import org.students.simplebitcoinnode.util.Sha256Hash;
+
+import java.math.BigInteger;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class NonceSearchEngineTests {
+    private static final String minerAddress = "PZ8Tyr4Nx8MHsRAGMpZmZ6TWY63dXWSCxtEZTC9qqAWU95UpXARRnKYMb35cEDFjPVuBfffRRdKWe7BMRsmimYh2sqHvYekcQkbZbhKhSqqyfW4rLJXCstNP";
+    private static final long[] nonces = { 0, 1, 127, 128, 255, 256, 32767, 32768, 8388608, 1L << 40, Long.MAX_VALUE };
+
+    private final AsymmetricCryptographyService asymmetricCryptographyService = new ECDSAWithSHA256CryptographicService();
+
+    private Block buildTestBlock(int minerCount) throws InvalidEncodedStringException {
+        List<MinerPublicKey> miners = new ArrayList<>();
+        for (int i = 0; i < minerCount; i++)
+            miners.add(new MinerPublicKey(null, minerAddress));
+
+        return Block.builder()
+                .previousHash(Sha256Hash.ZERO)
+                .merkleTree(MerkleTreeNode.builder().hash(Sha256Hash.fromHex("1".repeat(64))).build())
+                .miners(miners)
+                .blockAssemblyTimestamp(LocalDateTime.parse("2024-05-22T23:00:40"))
+                .nonce(BigInteger.ZERO)
+                .build();
+    }
+
+    private void assertMatchingHashes(Block block) throws Exception {
+        NonceSearchEngine engine = new NonceSearchEngine(block, 0);
+        for (long nonce : nonces) {
+            assertTrue(engine.test(nonce));
+            block.setNonce(BigInteger.valueOf(nonce));
+            assertEquals(Encoding.toHexString(asymmetricCryptographyService.digestObject(block)), Encoding.toHexString(engine.getHash()));
+        }
+    }
+
+    @Test
+    @DisplayName("Ensure that calculated hashes match digestObject hashes for short block headers")
+    public void testSearchEngine_EnsureMatchingHashes_ShortHeader() throws Exception {
+        assertMatchingHashes(buildTestBlock(1));
+    }
+
+    @Test
+    @DisplayName("Ensure that calculated hashes match digestObject hashes for block headers spanning multiple block data records")
+    public void testSearchEngine_EnsureMatchingHashes_LongHeader() throws Exception {
+        // 3 miners exceed single byte block data length, 12 miners exceed 1024 byte block data record size
+        assertMatchingHashes(buildTestBlock(3));
+        assertMatchingHashes(buildTestBlock(12));
+    }
+
+    @Test
+    @DisplayName("Ensure that calculated hashes match SHA-256 hashes of fixed-width block headers")
+    public void testSearchEngine_EnsureMatchingHashes_FixedWidthHeader() throws Exception {
+        Block block = buildTestBlock(3);
+        block.setHeaderVersion(BlockHeaderCodec.VERSION_FIXED_WIDTH);
+
+        NonceSearchEngine engine = new NonceSearchEngine(block, 0);
+        for (long nonce : nonces) {
+            assertTrue(engine.test(nonce));
+            block.setNonce(BigInteger.valueOf(nonce));
+            assertEquals(Encoding.toHexString(asymmetricCryptographyService.digestBytes(BlockHeaderCodec.encode(block))), Encoding.toHexString(engine.getHash()));
+        }
+    }
+
+    @Test
+    @DisplayName("Ensure that zero bit condition is checked against the hash prefix")
+    public void testSearchEngine_EnsureZeroBitConditionIsChecked() throws Exception {
+        final long zeroBits = 8;
+        NonceSearchEngine engine = new NonceSearchEngine(buildTestBlock(1), zeroBits);
+
+        long nonce = 0;
+        while (!engine.test(nonce))
+            nonce++;
+
+        assertEquals(0, NonceSearchEngine.prefixValue(engine.getHash()) & ((1L << zeroBits) - 1));
+    }
+}
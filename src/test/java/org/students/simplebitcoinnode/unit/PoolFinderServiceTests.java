@@ -14,17 +14,23 @@ import org.students.simplebitcoinnode.entity.AdjacentNode;
 import org.students.simplebitcoinnode.repository.AdjacentNodeRepository;
 import org.students.simplebitcoinnode.service.PoolFinderService;
 import org.students.simplebitcoinnode.service.impl.PoolFinderServiceImpl;
+import org.students.simplebitcoinnode.util.PoolPlanner;
+import org.students.simplebitcoinnode.util.Sha256Hash;
 
 import java.io.IOException;
 import java.net.URI;
 import java.net.http.HttpClient;
 import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
+import java.time.Duration;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.BDDMockito.any;
 import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 
 @ExtendWith(MockitoExtension.class)
 public class PoolFinderServiceTests {
@@ -58,11 +64,16 @@ public class PoolFinderServiceTests {
                 .build();
     }
 
+    @SuppressWarnings({"rawtypes", "unchecked"})
+    private static CompletableFuture respondWith(HttpResponse response) {
+        return CompletableFuture.completedFuture(response);
+    }
+
     private List<AdjacentNode> makeTestAdjacentNodes() {
         return List.of(
-                AdjacentNode.builder().ip("227.77.196.233").name("Trusted Coin Market Inc").port(443).tls(true).hostname("trusted.node").averageHashRate(2891.f).build(),
-                AdjacentNode.builder().ip("38.68.198.190").name("Basement Miner").port(80).tls(false).hostname("1337h2x.tk").averageHashRate(1337.f).build(),
-                AdjacentNode.builder().ip("167.3.36.139").name("Random Mine").port(443).tls(true).hostname("random.ru").averageHashRate(666.f).build()
+                AdjacentNode.builder().id(1L).ip("227.77.196.233").name("Trusted Coin Market Inc").port(443).tls(true).hostname("trusted.node").averageHashRate(2891.f).build(),
+                AdjacentNode.builder().id(2L).ip("38.68.198.190").name("Basement Miner").port(80).tls(false).hostname("1337h2x.tk").averageHashRate(1337.f).build(),
+                AdjacentNode.builder().id(3L).ip("167.3.36.139").name("Random Mine").port(443).tls(true).hostname("random.ru").averageHashRate(666.f).build()
         );
     }
 
@@ -77,18 +88,18 @@ public class PoolFinderServiceTests {
                 .willReturn(blockchainMiningPoolConfig);
         given(blockchainMiningConfig.getPool().getMaximumPoolRequests())
                 .willReturn(2);
-        given(adjacentNodeRepository.findBestNodesByHashRate(Float.MAX_VALUE, blockchainMiningConfig.getPool().getMaximumPoolRequests()))
+        given(adjacentNodeRepository.findNextBestNodesByHashRate(Float.MAX_VALUE, Long.MIN_VALUE, blockchainMiningConfig.getPool().getMaximumPoolRequests()))
                 .willReturn(adjacentNodes.subList(0, 2));
-        given(adjacentNodeRepository.findBestNodesByHashRate(1337.f, blockchainMiningConfig.getPool().getMaximumPoolRequests()))
+        given(adjacentNodeRepository.findNextBestNodesByHashRate(1337.f, 2L, blockchainMiningConfig.getPool().getMaximumPoolRequests()))
                 .willReturn(adjacentNodes.subList(2, adjacentNodes.size()));
         given(mockGoodResponse.statusCode())
                 .willReturn(200);
         given(mockBadResponse.statusCode())
                 .willReturn(400);
-        given(httpClient.send(any(), any()))
-                .willReturn(mockGoodResponse);
-        given(httpClient.send(makeJsonPostRequest(adjacentNodes.get(1), blockIntroductionDTO, "/blockchain/mine/propose"), HttpResponse.BodyHandlers.ofString()))
-                .willReturn(mockBadResponse);
+        given(httpClient.sendAsync(any(), any()))
+                .willReturn(respondWith(mockGoodResponse));
+        given(httpClient.sendAsync(makeJsonPostRequest(adjacentNodes.get(1), blockIntroductionDTO, "/blockchain/mine/propose"), HttpResponse.BodyHandlers.ofString()))
+                .willReturn(respondWith(mockBadResponse));
 
         PoolFinderService poolFinderService = new PoolFinderServiceImpl(adjacentNodeRepository, blockchainMiningConfig, httpClient);
         List<AdjacentNode> consentedNodes = poolFinderService.proposePoolMining(blockIntroductionDTO);
@@ -101,38 +112,122 @@ public class PoolFinderServiceTests {
     @DisplayName("Ensure that pool mining initiation does not throw when adjacent nodes return 200 status code")
     public void testInitiatePoolMining_ValidStatusCode_ExpectDoesNotThrow() throws Exception {
         List<AdjacentNode> adjacentNodes = makeTestAdjacentNodes();
-        final String blockHash = "1".repeat(64);
+        final Sha256Hash blockHash = Sha256Hash.fromHex("1".repeat(64));
 
+        given(blockchainMiningConfig.getPool())
+                .willReturn(blockchainMiningPoolConfig);
         given(mockGoodResponse.statusCode())
                 .willReturn(200);
-        given(httpClient.send(any(), any()))
-            .willReturn(mockGoodResponse);
+        given(httpClient.sendAsync(any(), any()))
+            .willReturn(respondWith(mockGoodResponse));
 
         PoolFinderService poolFinderService = new PoolFinderServiceImpl(adjacentNodeRepository, blockchainMiningConfig, httpClient);
-        assertDoesNotThrow(() -> poolFinderService.initiatePoolMining(adjacentNodes, blockHash));
+        assertDoesNotThrow(() -> poolFinderService.initiatePoolMining(adjacentNodes, PoolPlanner.assignNonceShares(List.of(1.f, 1.f, 1.f)), blockHash));
     }
 
     @Test
     @DisplayName("Ensure that pool mining initiation throws IOException when adjacent node returns non-200 status code")
     public void testInitiatePoolMining_ThrowsIOException_ExpectDoesNotThrow() throws Exception {
         List<AdjacentNode> adjacentNodes = makeTestAdjacentNodes();
-        final String blockHash = "1".repeat(64);
+        final Sha256Hash blockHash = Sha256Hash.fromHex("1".repeat(64));
         PoolInitiationBlockMetadataDTO poolInitiationBlockMetadataDTO = PoolInitiationBlockMetadataDTO.builder()
                 .miners(adjacentNodes.stream().map(AdjacentNode::getPubKey).toList())
-                .hash(blockHash).build();
+                .hash(blockHash.toString()).build();
 
+        given(blockchainMiningConfig.getPool())
+                .willReturn(blockchainMiningPoolConfig);
         given(mockGoodResponse.statusCode())
                 .willReturn(200);
         given(mockBadResponse.statusCode())
                 .willReturn(404);
-        given(httpClient.send(makeJsonPostRequest(adjacentNodes.getFirst(), poolInitiationBlockMetadataDTO, "/blockchain/mine/initiate"), HttpResponse.BodyHandlers.discarding()))
-                .willReturn(mockGoodResponse);
-        given(httpClient.send(makeJsonPostRequest(adjacentNodes.get(1), poolInitiationBlockMetadataDTO, "/blockchain/mine/initiate"), HttpResponse.BodyHandlers.discarding()))
-                .willReturn(mockGoodResponse);
-        given(httpClient.send(makeJsonPostRequest(adjacentNodes.get(2), poolInitiationBlockMetadataDTO, "/blockchain/mine/initiate"), HttpResponse.BodyHandlers.discarding()))
-                .willReturn(mockBadResponse);
+        given(httpClient.sendAsync(makeJsonPostRequest(adjacentNodes.getFirst(), poolInitiationBlockMetadataDTO, "/blockchain/mine/initiate"), HttpResponse.BodyHandlers.discarding()))
+                .willReturn(respondWith(mockGoodResponse));
+        given(httpClient.sendAsync(makeJsonPostRequest(adjacentNodes.get(1), poolInitiationBlockMetadataDTO, "/blockchain/mine/initiate"), HttpResponse.BodyHandlers.discarding()))
+                .willReturn(respondWith(mockGoodResponse));
+        given(httpClient.sendAsync(makeJsonPostRequest(adjacentNodes.get(2), poolInitiationBlockMetadataDTO, "/blockchain/mine/initiate"), HttpResponse.BodyHandlers.discarding()))
+                .willReturn(respondWith(mockBadResponse));
+
+        PoolFinderService poolFinderService = new PoolFinderServiceImpl(adjacentNodeRepository, blockchainMiningConfig, httpClient);
+        assertThrows(IOException.class, () -> poolFinderService.initiatePoolMining(adjacentNodes, PoolPlanner.assignNonceShares(List.of(1.f, 1.f, 1.f)), blockHash));
+    }
+
+    @Test
+    @DisplayName("Ensure that pool proposal takes the first consenting nodes without waiting for a slow node")
+    public void testProposePoolMining_SlowNode_ExpectFirstConsentingNodesAndCancelledRequest() throws Exception {
+        List<AdjacentNode> adjacentNodes = makeTestAdjacentNodes();
+        BlockIntroductionDTO blockIntroductionDTO = new BlockIntroductionDTO();
+        CompletableFuture<HttpResponse<String>> slowResponse = new CompletableFuture<>();
+
+        given(blockchainMiningConfig.getPool())
+                .willReturn(blockchainMiningPoolConfig);
+        given(blockchainMiningPoolConfig.getMaximumPoolRequests())
+                .willReturn(2);
+        given(adjacentNodeRepository.findNextBestNodesByHashRate(Float.MAX_VALUE, Long.MIN_VALUE, 2))
+                .willReturn(adjacentNodes);
+        given(mockGoodResponse.statusCode())
+                .willReturn(200);
+        given(httpClient.sendAsync(any(), any()))
+                .willReturn(respondWith(mockGoodResponse));
+        given(httpClient.sendAsync(makeJsonPostRequest(adjacentNodes.getFirst(), blockIntroductionDTO, "/blockchain/mine/propose"), HttpResponse.BodyHandlers.ofString()))
+                .willReturn(slowResponse);
+
+        PoolFinderService poolFinderService = new PoolFinderServiceImpl(adjacentNodeRepository, blockchainMiningConfig, httpClient);
+        List<AdjacentNode> consentedNodes = assertTimeoutPreemptively(Duration.ofSeconds(5), () -> poolFinderService.proposePoolMining(blockIntroductionDTO));
+        assertEquals(List.of(adjacentNodes.get(1), adjacentNodes.get(2)), consentedNodes);
+        assertTrue(slowResponse.isCancelled());
+    }
+
+    @Test
+    @DisplayName("Ensure that pool proposal gives up on unresponsive nodes once the deadline has passed")
+    public void testProposePoolMining_UnresponsiveNodes_ExpectEmptyPoolAfterDeadline() throws Exception {
+        List<AdjacentNode> adjacentNodes = makeTestAdjacentNodes();
+
+        given(blockchainMiningConfig.getPool())
+                .willReturn(blockchainMiningPoolConfig);
+        given(blockchainMiningPoolConfig.getMaximumPoolRequests())
+                .willReturn(2);
+        given(blockchainMiningPoolConfig.getDeadline())
+                .willReturn(300L);
+        given(adjacentNodeRepository.findNextBestNodesByHashRate(Float.MAX_VALUE, Long.MIN_VALUE, 2))
+                .willReturn(adjacentNodes);
+        given(httpClient.sendAsync(any(), any()))
+                .willAnswer(invocation -> new CompletableFuture<>());
+
+        PoolFinderService poolFinderService = new PoolFinderServiceImpl(adjacentNodeRepository, blockchainMiningConfig, httpClient);
+        List<AdjacentNode> consentedNodes = assertTimeoutPreemptively(Duration.ofSeconds(5), () -> poolFinderService.proposePoolMining(new BlockIntroductionDTO()));
+        assertTrue(consentedNodes.isEmpty());
+    }
+
+    @Test
+    @DisplayName("Ensure that pool proposal pages through nodes with equal hash rates and proposes to every hostname once")
+    public void testProposePoolMining_EqualHashRatesAndDuplicates_ExpectKeysetPagingAndDeduplication() throws Exception {
+        List<AdjacentNode> adjacentNodes = List.of(
+                AdjacentNode.builder().id(1L).hostname("a.node").averageHashRate(100.f).build(),
+                AdjacentNode.builder().id(2L).hostname("b.node").averageHashRate(100.f).build(),
+                AdjacentNode.builder().id(3L).hostname("a.node").averageHashRate(100.f).build(),
+                AdjacentNode.builder().id(4L).hostname("c.node").averageHashRate(100.f).build());
+
+        given(blockchainMiningConfig.getPool())
+                .willReturn(blockchainMiningPoolConfig);
+        given(blockchainMiningPoolConfig.getMaximumPoolRequests())
+                .willReturn(2);
+        given(adjacentNodeRepository.findNextBestNodesByHashRate(Float.MAX_VALUE, Long.MIN_VALUE, 2))
+                .willReturn(adjacentNodes.subList(0, 2));
+        given(adjacentNodeRepository.findNextBestNodesByHashRate(100.f, 2L, 2))
+                .willReturn(adjacentNodes.subList(2, 4));
+        given(mockGoodResponse.statusCode())
+                .willReturn(200);
+        given(mockBadResponse.statusCode())
+                .willReturn(400);
+        given(httpClient.sendAsync(any(), any()))
+                .willReturn(respondWith(mockGoodResponse));
+        given(httpClient.sendAsync(makeJsonPostRequest(adjacentNodes.get(1), new BlockIntroductionDTO(), "/blockchain/mine/propose"), HttpResponse.BodyHandlers.ofString()))
+                .willReturn(respondWith(mockBadResponse));
 
         PoolFinderService poolFinderService = new PoolFinderServiceImpl(adjacentNodeRepository, blockchainMiningConfig, httpClient);
-        assertThrows(IOException.class, () -> poolFinderService.initiatePoolMining(adjacentNodes, blockHash));
+        List<AdjacentNode> consentedNodes = poolFinderService.proposePoolMining(new BlockIntroductionDTO());
+        assertEquals(List.of(adjacentNodes.get(0), adjacentNodes.get(3)), consentedNodes);
+        // the duplicate of the first node is never contacted
+        verify(httpClient, times(3)).sendAsync(any(), any());
     }
 }
@@ -0,0 +1,43 @@
+package org.students.simplebitcoinnode.unit;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.students.simplebitcoinnode.util.PoolPlanner;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PoolPlannerTests {
+    private static void assertCoversCycle(List<PoolPlanner.NonceShare> nonceShares) {
+        long offset = 0;
+        for (PoolPlanner.NonceShare nonceShare : nonceShares) {
+            assertEquals(offset, nonceShare.getOffset());
+            assertTrue(nonceShare.getWidth() >= 1);
+            assertEquals(nonceShares.getFirst().getStride(), nonceShare.getStride());
+            offset += nonceShare.getWidth();
+        }
+        assertEquals(nonceShares.getFirst().getStride(), offset);
+    }
+
+    @Test
+    @DisplayName("Ensure that nonce shares are proportional to hash rates and cover the whole nonce cycle")
+    public void testAssignNonceShares_DifferentHashRates_ExpectProportionalWidths() {
+        List<PoolPlanner.NonceShare> nonceShares = PoolPlanner.assignNonceShares(List.of(300.f, 100.f, 0.f, 100.f));
+
+        assertCoversCycle(nonceShares);
+        assertEquals(PoolPlanner.NONCE_CYCLE_LENGTH, nonceShares.getFirst().getStride());
+        // every miner owns one nonce, the remaining 1020 nonces are split 3:1:0:1
+        assertEquals(List.of(613L, 205L, 1L, 205L), nonceShares.stream().map(PoolPlanner.NonceShare::getWidth).toList());
+    }
+
+    @Test
+    @DisplayName("Ensure that miners without measured hash rates share the nonce cycle equally")
+    public void testAssignNonceShares_NoHashRates_ExpectEqualWidths() {
+        List<PoolPlanner.NonceShare> nonceShares = PoolPlanner.assignNonceShares(List.of(0.f, Float.NaN, -1.f));
+
+        assertCoversCycle(nonceShares);
+        assertEquals(List.of(342L, 341L, 341L), nonceShares.stream().map(PoolPlanner.NonceShare::getWidth).toList());
+        assertTrue(PoolPlanner.assignNonceShares(List.of()).isEmpty());
+    }
+}
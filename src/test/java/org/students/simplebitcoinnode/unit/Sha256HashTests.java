@@ -0,0 +1,63 @@
+package org.students.simplebitcoinnode.unit;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.students.simplebitcoinnode.entity.converter.Sha256HashConverter;
+import org.students.simplebitcoinnode.exceptions.encoding.InvalidEncodedStringException;
+import org.students.simplebitcoinnode.util.Sha256Hash;
+
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class Sha256HashTests {
+    private static final String hex = "4355a46b19d348dc2f57c046f8ef63d4538ebb936000f3c9ee954a27460dd865";
+
+    @Test
+    @DisplayName("Ensure that hashes survive hex, JSON and database column round-trips")
+    public void testRoundTrips_EnsureEqualHashes() throws Exception {
+        Sha256Hash hash = Sha256Hash.fromHex(hex);
+        assertEquals(hex, hash.toString());
+
+        ObjectMapper objectMapper = new ObjectMapper();
+        final String json = objectMapper.writeValueAsString(hash);
+        assertEquals("\"" + hex + "\"", json);
+        assertEquals(hash, objectMapper.readValue(json, Sha256Hash.class));
+
+        Sha256HashConverter converter = new Sha256HashConverter();
+        final byte[] column = converter.convertToDatabaseColumn(hash);
+        assertEquals(Sha256Hash.LENGTH, column.length);
+        assertEquals(hash, converter.convertToEntityAttribute(column));
+        assertNull(converter.convertToDatabaseColumn(null));
+        assertNull(converter.convertToEntityAttribute(null));
+    }
+
+    @Test
+    @DisplayName("Ensure that equal bytes make equal hashes, ordered as unsigned big-endian numbers")
+    public void testEqualsAndCompare_EnsureValueSemantics() throws Exception {
+        byte[] bytes = new byte[Sha256Hash.LENGTH];
+        Arrays.fill(bytes, (byte)0x7f);
+        Sha256Hash hash = Sha256Hash.of(bytes);
+
+        // the hash keeps its own copy of the bytes
+        bytes[0] = (byte)0xff;
+        Sha256Hash greater = Sha256Hash.of(bytes);
+        assertNotEquals(hash, greater);
+        assertEquals(hash, Sha256Hash.fromHex("7f".repeat(Sha256Hash.LENGTH)));
+        assertEquals(hash.hashCode(), Sha256Hash.fromHex("7f".repeat(Sha256Hash.LENGTH)).hashCode());
+
+        assertTrue(hash.compareTo(greater) < 0);
+        assertTrue(Sha256Hash.ZERO.compareTo(hash) < 0);
+        assertEquals(0, hash.compareTo(Sha256Hash.of(hash.getBytes())));
+    }
+
+    @Test
+    @DisplayName("Ensure that malformed hashes are rejected")
+    public void testMalformedHashes_ExpectExceptions() {
+        assertThrows(IllegalArgumentException.class, () -> Sha256Hash.wrap(new byte[31]));
+        assertThrows(InvalidEncodedStringException.class, () -> Sha256Hash.fromHex("00"));
+        assertThrows(InvalidEncodedStringException.class, () -> Sha256Hash.fromHex("G".repeat(64)));
+        assertThrows(InvalidEncodedStringException.class, () -> Sha256Hash.fromHex(null));
+    }
+}
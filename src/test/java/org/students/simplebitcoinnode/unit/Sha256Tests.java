@@ -0,0 +1,74 @@
+package org.students.simplebitcoinnode.unit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.students.simplebitcoinnode.exceptions.crypto.CryptoProviderNotFoundException;
+import org.students.simplebitcoinnode.util.Sha256;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class Sha256Tests {
+    private static final byte[] message = "SimpleBitcoinNode SHA-256 test message".getBytes(StandardCharsets.UTF_8);
+
+    private static byte[] expectedHash(byte[] bytes) throws Exception {
+        return MessageDigest.getInstance("SHA-256").digest(bytes);
+    }
+
+    @AfterEach
+    public void resetProvider() {
+        Sha256.configure(Sha256.PROVIDER_DEFAULT);
+    }
+
+    @Test
+    @DisplayName("Ensure that all digest variants calculate the same hash")
+    public void testDigest_EnsureAllVariantsMatch() throws Exception {
+        final byte[] expected = expectedHash(message);
+        assertArrayEquals(expected, Sha256.digest(message));
+        assertArrayEquals(expected, Sha256.digest(ByteBuffer.wrap(message)));
+
+        ByteBuffer direct = ByteBuffer.allocateDirect(message.length);
+        direct.put(message).flip();
+        assertArrayEquals(expected, Sha256.digest(direct));
+        assertFalse(direct.hasRemaining());
+
+        // hash is written at given offset without touching surrounding bytes
+        byte[] out = new byte[Sha256.DIGEST_LENGTH + 8];
+        Sha256.digestInto(message, 0, message.length, out, 4);
+        assertArrayEquals(expected, Arrays.copyOfRange(out, 4, 4 + Sha256.DIGEST_LENGTH));
+        assertEquals(0, out[3]);
+        assertEquals(0, out[4 + Sha256.DIGEST_LENGTH]);
+
+        Arrays.fill(out, (byte) 0);
+        Sha256.digestInto(ByteBuffer.wrap(message), out, 0);
+        assertArrayEquals(expected, Arrays.copyOf(out, Sha256.DIGEST_LENGTH));
+    }
+
+    @Test
+    @DisplayName("Ensure that only the specified input range is hashed")
+    public void testDigestInto_EnsureInputRangeIsRespected() throws Exception {
+        byte[] out = new byte[Sha256.DIGEST_LENGTH];
+        Sha256.digestInto(message, 5, 10, out, 0);
+        assertArrayEquals(expectedHash(Arrays.copyOfRange(message, 5, 15)), out);
+
+        ByteBuffer buffer = ByteBuffer.wrap(message, 5, 10);
+        assertArrayEquals(expectedHash(Arrays.copyOfRange(message, 5, 15)), Sha256.digest(buffer));
+    }
+
+    @Test
+    @DisplayName("Ensure that digest providers can be selected by name and by self-benchmark")
+    public void testConfigure_EnsureProviderSelection() throws Exception {
+        assertEquals("SUN", Sha256.configure("SUN"));
+        assertArrayEquals(expectedHash(message), Sha256.digest(message));
+
+        assertNotNull(Sha256.configure(Sha256.PROVIDER_AUTO));
+        assertArrayEquals(expectedHash(message), Sha256.digest(message));
+
+        assertThrows(CryptoProviderNotFoundException.class, () -> Sha256.configure("NonExistentProvider"));
+    }
+}
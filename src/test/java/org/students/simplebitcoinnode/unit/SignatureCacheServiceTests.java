@@ -0,0 +1,75 @@
+package org.students.simplebitcoinnode.unit;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.students.simplebitcoinnode.config.CryptographyConfig;
+import org.students.simplebitcoinnode.dto.SignatureCacheDTO;
+import org.students.simplebitcoinnode.service.SignatureCacheService;
+import org.students.simplebitcoinnode.util.Sha256Hash;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests to check that signature verification results are only reused for identical signed content
+ */
+public class SignatureCacheServiceTests {
+    private static final Sha256Hash TRANSACTION_HASH = Sha256Hash.wrap(new byte[] {
+            1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11, 12, 13, 14, 15, 16,
+            17, 18, 19, 20, 21, 22, 23, 24, 25, 26, 27, 28, 29, 30, 31, 32
+    });
+
+    @Test
+    @DisplayName("Ensure that the same transaction hash and signatures are verified only once")
+    public void testVerify_SameSignatures_ExpectCacheHit() {
+        SignatureCacheService signatureCacheService = new SignatureCacheService(new CryptographyConfig());
+        AtomicInteger verifications = new AtomicInteger();
+        List<byte[]> signatures = List.of(new byte[] {1, 2}, new byte[] {3});
+
+        assertTrue(signatureCacheService.verify(TRANSACTION_HASH, signatures, () -> verifications.incrementAndGet() > 0));
+        assertTrue(signatureCacheService.verify(TRANSACTION_HASH, List.of(new byte[] {1, 2}, new byte[] {3}), () -> verifications.incrementAndGet() > 0));
+
+        assertEquals(1, verifications.get());
+        assertEquals(1, signatureCacheService.getHitCount());
+        assertEquals(1, signatureCacheService.getMissCount());
+    }
+
+    @Test
+    @DisplayName("Ensure that different signatures for the same transaction hash are verified again")
+    public void testVerify_DifferentSignatures_ExpectCacheMiss() {
+        SignatureCacheService signatureCacheService = new SignatureCacheService(new CryptographyConfig());
+
+        assertTrue(signatureCacheService.verify(TRANSACTION_HASH, List.of(new byte[] {1, 2}, new byte[] {3}), () -> true));
+        // same bytes split differently must not match the cached digest
+        assertFalse(signatureCacheService.verify(TRANSACTION_HASH, List.of(new byte[] {1}, new byte[] {2, 3}), () -> false));
+        assertFalse(signatureCacheService.verify(TRANSACTION_HASH, List.of(new byte[] {1}, new byte[] {2, 3}), () -> true));
+
+        assertEquals(1, signatureCacheService.getHitCount());
+        assertEquals(2, signatureCacheService.getMissCount());
+        assertEquals(1, signatureCacheService.size());
+    }
+
+    @Test
+    @DisplayName("Ensure that hit and miss counts are published as metrics and in the cache report")
+    public void testBindTo_SimpleMeterRegistry_ExpectHitAndMissCounters() {
+        SignatureCacheService signatureCacheService = new SignatureCacheService(new CryptographyConfig());
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        signatureCacheService.bindTo(registry);
+
+        signatureCacheService.verify(TRANSACTION_HASH, List.of(new byte[] {1}), () -> true);
+        signatureCacheService.verify(TRANSACTION_HASH, List.of(new byte[] {1}), () -> true);
+        signatureCacheService.verify(TRANSACTION_HASH, List.of(new byte[] {1}), () -> true);
+
+        assertEquals(2.0, registry.get("blockchain.signature.cache").tag("result", "hit").functionCounter().count());
+        assertEquals(1.0, registry.get("blockchain.signature.cache").tag("result", "miss").functionCounter().count());
+        assertEquals(1.0, registry.get("blockchain.signature.cache.size").gauge().value());
+
+        SignatureCacheDTO report = signatureCacheService.getReport();
+        assertEquals(2, report.getHits());
+        assertEquals(1, report.getMisses());
+        assertEquals(1, report.getSize());
+    }
+}
@@ -0,0 +1,123 @@
+package org.students.simplebitcoinnode.unit;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.students.simplebitcoinnode.dto.TransactionDTO;
+import org.students.simplebitcoinnode.dto.TransactionOutputDTO;
+import org.students.simplebitcoinnode.entity.validation.TransactionValidationPipeline;
+import org.students.simplebitcoinnode.service.AsymmetricCryptographyService;
+import org.students.simplebitcoinnode.service.UtxoSetService;
+import org.students.simplebitcoinnode.unit.transaction.TestTransactionBuilder;
+import org.students.simplebitcoinnode.util.Encoding;
+import org.students.simplebitcoinnode.util.UtxoSet;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests to check that the transaction validation pipeline runs its stages in order and short-circuits
+ */
+@ExtendWith(MockitoExtension.class)
+public class TransactionValidationPipelineTests {
+    @Mock
+    private UtxoSetService utxoSetService;
+    @Mock
+    private AsymmetricCryptographyService asymmetricCryptographyService;
+
+    private final String senderPublicKey;
+    private final String recipientPublicKey;
+
+    public TransactionValidationPipelineTests() {
+        byte[] senderPublicKey = new byte[88];
+        Arrays.fill(senderPublicKey, (byte)1);
+        byte[] recipientPublicKey = new byte[88];
+        Arrays.fill(recipientPublicKey, (byte)2);
+
+        this.senderPublicKey = Encoding.defaultPubKeyEncoding(senderPublicKey);
+        this.recipientPublicKey = Encoding.defaultPubKeyEncoding(recipientPublicKey);
+    }
+
+    private TransactionDTO makeSignedTransaction() {
+        TransactionDTO transaction = TestTransactionBuilder.aliceSendsToBobCustomKeys(senderPublicKey, recipientPublicKey);
+        transaction.setTransactionHash("0".repeat(64));
+        for (TransactionOutputDTO output : transaction.getOutputs())
+            output.setSignature("0".repeat(144));
+        return transaction;
+    }
+
+    private Map<String, UtxoSet.UnspentOutput> unspentInputs(TransactionDTO transaction) {
+        Map<String, UtxoSet.UnspentOutput> unspentOutputs = new HashMap<>();
+        for (TransactionOutputDTO input : transaction.getInputs())
+            unspentOutputs.put(input.getSignature(), new UtxoSet.UnspentOutput(input.getAmount(), input.getReceiverPublicKey()));
+        return unspentOutputs;
+    }
+
+    @Test
+    @DisplayName("Ensure that a valid transaction passes and is hashed and looked up only once")
+    public void testValidate_ValidTransaction_ExpectSingleDigestAndLookup() throws Exception {
+        TransactionDTO transaction = makeSignedTransaction();
+        given(utxoSetService.findAll(anyCollection()))
+                .willReturn(unspentInputs(transaction));
+        given(asymmetricCryptographyService.digestObject(transaction))
+                .willReturn(Encoding.hexStringToBytes("0".repeat(64)));
+        given(asymmetricCryptographyService.verifyAll(argThat(jobs -> jobs.size() == transaction.getOutputs().size())))
+                .willReturn(true);
+
+        TransactionValidationPipeline pipeline = new TransactionValidationPipeline(asymmetricCryptographyService, utxoSetService);
+        assertEquals(Optional.empty(), pipeline.validate(transaction));
+
+        verify(utxoSetService, times(1)).findAll(anyCollection());
+        verify(asymmetricCryptographyService, times(1)).digestObject(transaction);
+        verify(asymmetricCryptographyService, times(1)).verifyAll(anyList());
+    }
+
+    @Test
+    @DisplayName("Ensure that structural violations are reported before inputs are resolved or the transaction is hashed")
+    public void testValidate_MismatchingSums_ExpectShortCircuit() throws Exception {
+        TransactionDTO transaction = makeSignedTransaction();
+        transaction.getInputs().getFirst().setAmount(new BigDecimal("0.0001"));
+
+        TransactionValidationPipeline pipeline = new TransactionValidationPipeline(asymmetricCryptographyService, utxoSetService);
+        assertEquals(Optional.of("Transaction inputs sum does not match outputs sum"), pipeline.validate(transaction));
+
+        verifyNoInteractions(utxoSetService);
+        verifyNoInteractions(asymmetricCryptographyService);
+    }
+
+    @Test
+    @DisplayName("Ensure that spent inputs are reported without verifying signatures")
+    public void testValidate_DoubleSpending_ExpectDoubleSpendingMessage() throws Exception {
+        TransactionDTO transaction = makeSignedTransaction();
+        given(utxoSetService.findAll(anyCollection()))
+                .willReturn(Map.of());
+
+        TransactionValidationPipeline pipeline = new TransactionValidationPipeline(asymmetricCryptographyService, utxoSetService);
+        assertEquals(Optional.of("Invalid transaction inputs, TXO's either don't exist or they are already spent"), pipeline.validate(transaction));
+
+        verifyNoInteractions(asymmetricCryptographyService);
+    }
+
+    @Test
+    @DisplayName("Ensure that missing fields are reported instead of throwing")
+    public void testValidate_NullFields_ExpectMalformedTransactionMessage() {
+        TransactionDTO transaction = makeSignedTransaction();
+        transaction.getOutputs().getFirst().setAmount(null);
+
+        TransactionValidationPipeline pipeline = new TransactionValidationPipeline(asymmetricCryptographyService, utxoSetService);
+        assertEquals(Optional.of(TransactionValidationPipeline.MALFORMED_TRANSACTION_MESSAGE), pipeline.validate(transaction));
+        assertEquals(Optional.of(TransactionValidationPipeline.MALFORMED_TRANSACTION_MESSAGE), pipeline.validate(null));
+    }
+}
@@ -7,22 +7,21 @@ import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.students.simplebitcoinnode.dto.TransactionDTO;
 import org.students.simplebitcoinnode.dto.TransactionOutputDTO;
-import org.students.simplebitcoinnode.entity.TransactionOutput;
 import org.students.simplebitcoinnode.entity.validation.*;
-import org.students.simplebitcoinnode.repository.TransactionOutputRepository;
 import org.students.simplebitcoinnode.service.AsymmetricCryptographyService;
+import org.students.simplebitcoinnode.service.UtxoSetService;
 import org.students.simplebitcoinnode.unit.transaction.TestTransactionBuilder;
-import org.students.simplebitcoinnode.util.DTOMapperWrapper;
 import org.students.simplebitcoinnode.util.Encoding;
+import org.students.simplebitcoinnode.util.UtxoSet;
 
-import java.io.Serializable;
 import java.math.BigDecimal;
 import java.util.Arrays;
-import java.util.Optional;
+import java.util.HashMap;
+import java.util.Map;
 
 import static org.junit.jupiter.api.Assertions.*;
-import static org.mockito.ArgumentMatchers.any;
-import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyList;
 import static org.mockito.BDDMockito.given;
 
 
@@ -32,12 +31,10 @@ import static org.mockito.BDDMockito.given;
 @ExtendWith(MockitoExtension.class)
 public class TransactionValidationTests {
     @Mock
-    private TransactionOutputRepository transactionOutputRepository;
+    private UtxoSetService utxoSetService;
     @Mock
     private AsymmetricCryptographyService asymmetricCryptographyService;
 
-    private final DTOMapperWrapper dtoMapperWrapper = new DTOMapperWrapper();
-
     private final String senderPublicKey;
     private final String recipientPublicKey;
 
@@ -68,24 +65,22 @@ public class TransactionValidationTests {
         // mock digestObject(), presumably used in TransactionHashConstraint
         given(asymmetricCryptographyService.digestObject(transaction))
             .willReturn(Encoding.hexStringToBytes(fakeHashStr));
-        // mock verifySignature(), presumably used in CryptographicSignatureConstraint
-        given(asymmetricCryptographyService.verifyDigitalSignature(any(Serializable.class), any(), any()))
+        // mock verifyAll(), presumably used in CryptographicSignatureConstraint
+        given(asymmetricCryptographyService.verifyAll(anyList()))
                 .willReturn(true);
 
-        // mock findUtxoCountBySignature(), presumably used in DoubleSpendingConstraint
-        given(transactionOutputRepository.findUtxoCountBySignature(anyString()))
-                .willReturn(1);
-
-        for (TransactionOutputDTO input : transaction.getInputs()) {
-            given(transactionOutputRepository.findTransactionOutputBySignature(input.getSignature()))
-                    .willReturn(Optional.of(dtoMapperWrapper.map(input, TransactionOutput.class)));
-        }
+        // mock findAll(), presumably used in DoubleSpendingConstraint and MatchingInputReceiverAddressesConstraint
+        Map<String, UtxoSet.UnspentOutput> unspentOutputs = new HashMap<>();
+        for (TransactionOutputDTO input : transaction.getInputs())
+            unspentOutputs.put(input.getSignature(), new UtxoSet.UnspentOutput(input.getAmount(), input.getReceiverPublicKey()));
+        given(utxoSetService.findAll(anyCollection()))
+                .willReturn(unspentOutputs);
 
         // construct validators
-        DoubleSpendingConstraintValidator doubleSpendingConstraintValidator = new DoubleSpendingConstraintValidator(transactionOutputRepository);
+        DoubleSpendingConstraintValidator doubleSpendingConstraintValidator = new DoubleSpendingConstraintValidator(utxoSetService);
         TransactionHashConstraintValidator transactionHashConstraintValidator = new TransactionHashConstraintValidator(asymmetricCryptographyService);
         CryptographicSignatureConstraintValidator cryptographicSignatureConstraintValidator = new CryptographicSignatureConstraintValidator(asymmetricCryptographyService);
-        MatchingInputReceiverAddressesConstraintValidator matchingInputReceiverAddressesConstraintValidator = new MatchingInputReceiverAddressesConstraintValidator(transactionOutputRepository);
+        MatchingInputReceiverAddressesConstraintValidator matchingInputReceiverAddressesConstraintValidator = new MatchingInputReceiverAddressesConstraintValidator(utxoSetService);
         OneExternalRecipientPerTransactionConstraintValidator oneExternalRecipientPerTransactionConstraintValidator = new OneExternalRecipientPerTransactionConstraintValidator();
         PositiveTransactionOutputConstraintValidator positiveTransactionOutputConstraintValidator = new PositiveTransactionOutputConstraintValidator();
         TransactionInputSumIsOutputSumConstraintValidator transactionInputSumIsOutputSumConstraintValidator = new TransactionInputSumIsOutputSumConstraintValidator();
@@ -131,7 +126,7 @@ public class TransactionValidationTests {
         // mock digestObject(), presumably used in TransactionHashConstraint and CryptographicSignatureConstraint
         given(asymmetricCryptographyService.digestObject(transaction))
             .willReturn(Encoding.hexStringToBytes(fakeHashStr));
-        given(asymmetricCryptographyService.verifyDigitalSignature(any(Serializable.class), any(), any()))
+        given(asymmetricCryptographyService.verifyAll(anyList()))
             .willReturn(false);
 
         CryptographicSignatureConstraintValidator cryptographicSignatureConstraintValidator = new CryptographicSignatureConstraintValidator(asymmetricCryptographyService);
@@ -175,11 +170,11 @@ public class TransactionValidationTests {
             output.setSignature("0".repeat(144));
         }
 
-        // mock findUtxoCountBySignature(), presumably used in DoubleSpendingConstraint
-        given(transactionOutputRepository.findUtxoCountBySignature(any()))
-            .willReturn(0);
+        // mock findAll(), presumably used in DoubleSpendingConstraint
+        given(utxoSetService.findAll(anyCollection()))
+            .willReturn(Map.of());
 
-        DoubleSpendingConstraintValidator doubleSpendingConstraintValidator = new DoubleSpendingConstraintValidator(transactionOutputRepository);
+        DoubleSpendingConstraintValidator doubleSpendingConstraintValidator = new DoubleSpendingConstraintValidator(utxoSetService);
         assertFalse(doubleSpendingConstraintValidator.isValid(transaction, null));
     }
 
@@ -232,11 +227,11 @@ public class TransactionValidationTests {
         // set invalid input address
         transaction.getInputs().getFirst().setReceiverPublicKey(recipientPublicKey);
 
-        given(transactionOutputRepository.findTransactionOutputBySignature(transaction.getInputs().getFirst().getSignature()))
-                .willReturn(Optional.of(dtoMapperWrapper.map(transaction.getInputs().getFirst(), TransactionOutput.class)));
+        given(utxoSetService.findAll(anyCollection()))
+                .willReturn(Map.of(transaction.getInputs().getFirst().getSignature(), new UtxoSet.UnspentOutput(transaction.getInputs().getFirst().getAmount(), transaction.getInputs().getFirst().getReceiverPublicKey())));
 
         MatchingInputReceiverAddressesConstraintValidator matchingInputReceiverAddressesConstraintValidator =
-                new MatchingInputReceiverAddressesConstraintValidator(transactionOutputRepository);
+                new MatchingInputReceiverAddressesConstraintValidator(utxoSetService);
 
         assertFalse(matchingInputReceiverAddressesConstraintValidator.isValid(transaction, null));
     }
@@ -246,12 +241,12 @@ public class TransactionValidationTests {
     public void testInvalidTransaction_TransactionInputsAreNotFound_ExceptValidationError() {
         TransactionDTO transaction = TestTransactionBuilder.aliceSendsToBobCustomKeys(senderPublicKey, recipientPublicKey);
 
-        // mock the repository in way that empty Optional object is returned
-        given(transactionOutputRepository.findTransactionOutputBySignature(anyString()))
-            .willReturn(Optional.empty());
+        // mock the UTXO set in way that no inputs are found
+        given(utxoSetService.findAll(anyCollection()))
+            .willReturn(Map.of());
 
         MatchingInputReceiverAddressesConstraintValidator matchingInputReceiverAddressesConstraintValidator =
-                new MatchingInputReceiverAddressesConstraintValidator(transactionOutputRepository);
+                new MatchingInputReceiverAddressesConstraintValidator(utxoSetService);
 
         assertFalse(matchingInputReceiverAddressesConstraintValidator.isValid(transaction, null));
     }
@@ -0,0 +1,68 @@
+package org.students.simplebitcoinnode.unit;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.students.simplebitcoinnode.entity.Transaction;
+import org.students.simplebitcoinnode.entity.TransactionOutput;
+import org.students.simplebitcoinnode.util.Encoding;
+import org.students.simplebitcoinnode.util.UtxoSet;
+
+import java.io.*;
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class UtxoSetTests {
+    private static TransactionOutput output(String signature, String amount, String receiverPublicKey) {
+        return TransactionOutput.builder().signature(signature).amount(new BigDecimal(amount)).receiverPublicKey(receiverPublicKey).build();
+    }
+
+    @Test
+    @DisplayName("Ensure that transactions spend their inputs atomically and double spending is rejected")
+    public void testApplyAndRevert_EnsureAtomicSpending() throws Exception {
+        UtxoSet utxoSet = new UtxoSet();
+        utxoSet.add(Encoding.hexStringToBytes("0a".repeat(72)), new UtxoSet.UnspentOutput(new BigDecimal("10"), "alice"));
+
+        Transaction transaction = Transaction.builder()
+                .inputs(List.of(output("0a".repeat(72), "10", "alice")))
+                .outputs(List.of(output("0b".repeat(72), "7", "bob"), output("0c".repeat(72), "3", "alice")))
+                .build();
+        Transaction doubleSpending = Transaction.builder()
+                .inputs(List.of(output("0c".repeat(72), "3", "alice"), output("0a".repeat(72), "10", "alice")))
+                .outputs(List.of(output("0d".repeat(72), "13", "bob")))
+                .build();
+
+        assertTrue(utxoSet.apply(transaction));
+        assertNull(utxoSet.get(Encoding.hexStringToBytes("0a".repeat(72))));
+        assertEquals("bob", utxoSet.get(Encoding.hexStringToBytes("0b".repeat(72))).getReceiverPublicKey());
+        assertEquals(2, utxoSet.size());
+
+        // the second input has already been spent, hence the first one must not be spent either
+        assertFalse(utxoSet.apply(doubleSpending));
+        assertNotNull(utxoSet.get(Encoding.hexStringToBytes("0c".repeat(72))));
+        assertNull(utxoSet.get(Encoding.hexStringToBytes("0d".repeat(72))));
+
+        utxoSet.revert(transaction);
+        assertEquals(1, utxoSet.size());
+        assertEquals(0, new BigDecimal("10").compareTo(utxoSet.get(Encoding.hexStringToBytes("0a".repeat(72))).getAmount()));
+    }
+
+    @Test
+    @DisplayName("Ensure that unspent transaction outputs survive a snapshot round-trip")
+    public void testWriteToAndReadFrom_EnsureSameOutputs() throws Exception {
+        UtxoSet utxoSet = new UtxoSet();
+        utxoSet.add(Encoding.hexStringToBytes("0a".repeat(71)), new UtxoSet.UnspentOutput(new BigDecimal("0.0000000001"), "alice"));
+        utxoSet.add(Encoding.hexStringToBytes("0b".repeat(72)), new UtxoSet.UnspentOutput(new BigDecimal("1E+3"), "bob"));
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        utxoSet.writeTo(new DataOutputStream(bytes));
+        UtxoSet restored = new UtxoSet();
+        restored.readFrom(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())));
+
+        assertEquals(2, restored.size());
+        assertEquals(new BigDecimal("0.0000000001"), restored.get(Encoding.hexStringToBytes("0a".repeat(71))).getAmount());
+        assertEquals(0, new BigDecimal("1000").compareTo(restored.get(Encoding.hexStringToBytes("0b".repeat(72))).getAmount()));
+        assertEquals("bob", restored.get(Encoding.hexStringToBytes("0b".repeat(72))).getReceiverPublicKey());
+    }
+}
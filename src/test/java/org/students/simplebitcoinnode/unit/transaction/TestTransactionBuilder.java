@@ -2,14 +2,35 @@ package org.students.simplebitcoinnode.unit.transaction;
 
 import org.students.simplebitcoinnode.dto.TransactionDTO;
 import org.students.simplebitcoinnode.dto.TransactionOutputDTO;
+import org.students.simplebitcoinnode.entity.Transaction;
+import org.students.simplebitcoinnode.util.Sha256Hash;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Random;
 
 public class TestTransactionBuilder {
 
+    /**
+     * Builds transactions that only carry an id and a random hash, e.g. as Merkle tree leaves or mempool entries.<br>
+     * Hashes are seeded by the count, so the same count always yields the same transactions
+     * @param count specifies the amount of transactions to build
+     * @return a list of transactions with ids 0 to count - 1
+     */
+    public static List<Transaction> randomHashTransactions(int count) {
+        Random random = new Random(count);
+        List<Transaction> transactions = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            byte[] hash = new byte[Sha256Hash.LENGTH];
+            random.nextBytes(hash);
+            transactions.add(Transaction.builder().id((long)i).transactionHash(Sha256Hash.wrap(hash)).build());
+        }
+        return transactions;
+    }
+
     /**
      * Builds a new transaction where Alice sends some of her tokens to Bob.<br>
      * Constraint validity depends on provided keys